@@ -0,0 +1,79 @@
+package mostowska.aleksandra.bench;
+
+import mostowska.aleksandra.config.database.MoneyPlugin;
+import org.jdbi.v3.core.Jdbi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * BenchDatabase is an in-memory H2 database in MySQL mode with the application schema, for benchmarks that
+ * run the repositories without a MySQL server. The database lives until close() is called.
+ */
+public class BenchDatabase implements AutoCloseable {
+    private static final String SCHEMA_RESOURCE = "/schema-h2.sql";
+
+    private final String url;
+    private final Connection keepAlive;
+
+    private BenchDatabase(String url, Connection keepAlive) {
+        this.url = url;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Creates a fresh database with the application tables.
+     *
+     * @param name The database name, unique per benchmark so that forks and states do not share data.
+     * @return The database.
+     */
+    public static BenchDatabase create(String name) {
+        var url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try {
+            var connection = DriverManager.getConnection(url);
+            var database = new BenchDatabase(url, connection);
+            database.jdbi().useHandle(handle -> handle.createScript(schema()).execute());
+            return database;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open H2 database " + url, e);
+        }
+    }
+
+    /**
+     * @return The JDBC URL of the database.
+     */
+    public String url() {
+        return url;
+    }
+
+    /**
+     * @return A Jdbi instance opening connections to the database, mapping amounts as the application does.
+     */
+    public Jdbi jdbi() {
+        return Jdbi.create(url).installPlugin(new MoneyPlugin());
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (var statement = keepAlive.createStatement()) {
+            statement.execute("shutdown");
+        } finally {
+            keepAlive.close();
+        }
+    }
+
+    private static String schema() {
+        try (var in = BenchDatabase.class.getResourceAsStream(SCHEMA_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + SCHEMA_RESOURCE + " on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package mostowska.aleksandra.bench;
+
+/**
+ * BenchFields sets the fields Spring would inject from properties, for benchmarks that build beans by hand.
+ */
+public final class BenchFields {
+
+    private BenchFields() {
+    }
+
+    /**
+     * Sets a declared field of the object's class or one of its superclasses.
+     *
+     * @param target The object to modify.
+     * @param name   The field name.
+     * @param value  The value to set.
+     * @return The target, for chaining.
+     */
+    public static <T> T set(T target, String name, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                var field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return target;
+            } catch (NoSuchFieldException e) {
+                // Look further up the hierarchy
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " in " + target.getClass().getName());
+    }
+}
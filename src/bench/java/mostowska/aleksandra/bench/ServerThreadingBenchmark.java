@@ -0,0 +1,131 @@
+package mostowska.aleksandra.bench;
+
+import mostowska.aleksandra.config.database.BoundedConnectionFactory;
+import mostowska.aleksandra.config.server.VirtualThreadPool;
+import spark.Service;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares Spark's default Jetty thread pool with the virtual thread pool under many concurrent connections.
+ * Each request takes a connection from a BoundedConnectionFactory and sleeps while holding it, the way a handler
+ * blocks on JDBC, so the run shows both the thread pool limit and the database cap.
+ * <p>
+ * Arguments: [connections=1200] [requestsPerConnection=20] [dbLatencyMs=20] [maxDbConnections=64]
+ */
+public class ServerThreadingBenchmark {
+    private static final int PORT = 4570;
+
+    public static void main(String[] args) throws Exception {
+        var connections = intArg(args, 0, 1200);
+        var requestsPerConnection = intArg(args, 1, 20);
+        var dbLatencyMs = intArg(args, 2, 20);
+        var maxDbConnections = intArg(args, 3, 64);
+
+        System.out.printf("connections=%d requests/connection=%d dbLatency=%dms maxDbConnections=%d%n",
+                connections, requestsPerConnection, dbLatencyMs, maxDbConnections);
+
+        EmbeddedServers.add("virtual", new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool("bench-vt-")));
+        for (var mode : new String[]{"platform", "virtual"}) {
+            run(mode, connections, requestsPerConnection, dbLatencyMs, maxDbConnections);
+        }
+    }
+
+    private static void run(String mode, int connections, int requestsPerConnection, int dbLatencyMs, int maxDbConnections)
+            throws Exception {
+        var connectionFactory = new BoundedConnectionFactory(
+                ServerThreadingBenchmark::fakeConnection, maxDbConnections, 60_000);
+
+        var http = Service.ignite().port(PORT);
+        if (mode.equals("virtual")) {
+            http.embeddedServerIdentifier("virtual");
+        }
+        http.get("/work", (request, response) -> {
+            var connection = connectionFactory.openConnection();
+            try {
+                Thread.sleep(dbLatencyMs);
+            } finally {
+                connectionFactory.closeConnection(connection);
+            }
+            return "{\"data\":\"ok\"}";
+        });
+        http.awaitInitialization();
+
+        var latencies = new long[connections * requestsPerConnection];
+        var errors = new AtomicInteger();
+        var client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/work"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        // Warm up the server and the client before measuring
+        for (int i = 0; i < 200; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        var start = System.nanoTime();
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                var offset = c * requestsPerConnection;
+                clients.submit(() -> {
+                    for (int r = 0; r < requestsPerConnection; r++) {
+                        var sent = System.nanoTime();
+                        try {
+                            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[offset + r] = System.nanoTime() - sent;
+                    }
+                });
+            }
+        }
+        var elapsedNs = System.nanoTime() - start;
+
+        http.stop();
+        http.awaitStop();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-8s throughput=%8.1f req/s p50=%6.1f ms p99=%7.1f ms max=%7.1f ms errors=%d%n",
+                mode,
+                latencies.length / (elapsedNs / 1e9),
+                percentileMs(latencies, 0.50),
+                percentileMs(latencies, 0.99),
+                latencies[latencies.length - 1] / 1e6,
+                errors.get());
+    }
+
+    private static Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(
+                ServerThreadingBenchmark.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, methodArgs) -> method.getReturnType() == boolean.class ? false : null);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        var index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
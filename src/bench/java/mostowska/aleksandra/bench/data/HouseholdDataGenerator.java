@@ -0,0 +1,336 @@
+package mostowska.aleksandra.bench.data;
+
+import mostowska.aleksandra.bench.BenchDatabase;
+import mostowska.aleksandra.config.database.MoneyPlugin;
+import mostowska.aleksandra.model.utils.*;
+import org.jdbi.v3.core.Jdbi;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static mostowska.aleksandra.model.utils.Frequency.*;
+
+/**
+ * Generates synthetic households, each a user with expenses, incomes, investments and savings goals, until a target
+ * number of rows is reached. Every household is drawn from its own random stream derived from the seed and the
+ * household number, so the output only depends on the seed and the row target, never on the chunk size or sink.
+ * <p>
+ * Expenses cover every ExpenseType with type-specific amounts and frequencies; most users have a few dozen
+ * expenses but a small share has hundreds, which is the tail `findAllForUserId` has to handle. Budgets are the sum
+ * of incomes minus the sum of expenses, and budgets after goals subtract the goal percentages, as the services
+ * would compute them. Every user's password is "password".
+ * <p>
+ * Arguments: &lt;files|jdbc|h2&gt; &lt;target&gt; [rows=1000000] [seed=42] [chunkSize=1000] [dbUser] [dbPassword]
+ * <ul>
+ *     <li>files: writes LOAD DATA files and a load-data.sql script to the target directory</li>
+ *     <li>jdbc: inserts through the repositories' saveAll into the database at the target JDBC URL</li>
+ *     <li>h2: inserts through saveAll into an in-memory H2 database named target, for trying the generator out</li>
+ * </ul>
+ */
+public class HouseholdDataGenerator {
+    private static final String PASSWORD_HASH = "{bcrypt}$2a$10$8r54wFipR8WhoDY4HGAQAeMWBX7UgfsaqJUQYJ1nUYo2R3Smr8oRm";
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final long INVESTMENT_HISTORY_SECONDS = 10L * 365 * 24 * 3600;
+    private static final long TRANSACTION_HISTORY_SECONDS = 3L * 365 * 24 * 3600;
+    private static final long PROGRESS_EVERY_ROWS = 1_000_000;
+
+    private static final String[] FIRST_NAMES = {
+            "anna", "piotr", "maria", "jan", "katarzyna", "tomasz", "agnieszka", "pawel", "ewa", "michal",
+            "magdalena", "krzysztof", "joanna", "marcin", "aleksandra", "lukasz", "monika", "adam", "zofia", "jakub"
+    };
+    private static final String[] LAST_NAMES = {
+            "nowak", "kowalski", "wisniewski", "wojcik", "kowalczyk", "kaminski", "lewandowski", "zielinski",
+            "szymanski", "wozniak", "dabrowski", "kozlowski", "jankowski", "mazur", "kwiatkowski", "krawczyk"
+    };
+    private static final String[] CUSTOM_TYPES = {
+            "Parking", "Childcare", "Taxes", "Repairs", "Bank fees", "Garden", "Lottery", "Side project"
+    };
+
+    private static final Map<ExpenseType, ExpenseProfile> EXPENSE_PROFILES = expenseProfiles();
+    private static final ExpenseType[] EXPENSE_TYPES_BY_WEIGHT = byWeight(EXPENSE_PROFILES);
+    private static final SavingsGoalType[] GOAL_TYPES = SavingsGoalType.values();
+    private static final AssetType[] ASSET_TYPES = AssetType.values();
+
+    private final long seed;
+    private final long rows;
+
+    public HouseholdDataGenerator(long seed, long rows) {
+        this.seed = seed;
+        this.rows = rows;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Arguments: <files|jdbc|h2> <target> [rows=1000000] [seed=42] [chunkSize=1000] "
+                    + "[dbUser] [dbPassword]");
+            System.exit(1);
+        }
+        var mode = args[0];
+        var target = args[1];
+        var rows = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+        var seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        var chunkSize = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+
+        var generator = new HouseholdDataGenerator(seed, rows);
+        switch (mode) {
+            case "files" -> {
+                try (var sink = new LoadDataFileSink(Path.of(target))) {
+                    generator.generate(sink);
+                }
+            }
+            case "jdbc" -> {
+                var jdbi = (args.length > 6 ? Jdbi.create(target, args[5], args[6]) : Jdbi.create(target))
+                        .installPlugin(new MoneyPlugin());
+                try (var sink = new RepositorySink(jdbi, chunkSize)) {
+                    generator.generate(sink);
+                }
+            }
+            case "h2" -> {
+                try (var database = BenchDatabase.create(target);
+                     var sink = new RepositorySink(database.jdbi(), chunkSize)) {
+                    generator.generate(sink);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    /**
+     * Emits households to the sink until the target number of rows has been emitted.
+     *
+     * @param sink The sink receiving the rows.
+     * @return The counts of emitted rows.
+     */
+    public Counts generate(HouseholdSink sink) {
+        var counts = new Counts();
+        var start = System.nanoTime();
+        var nextProgress = PROGRESS_EVERY_ROWS;
+        var userId = sink.firstUserId();
+        for (long household = 0; counts.total() < rows; household++, userId++) {
+            emitHousehold(new SplittableRandom(mix(seed, household)), household, userId, sink, counts);
+            if (counts.total() >= nextProgress) {
+                System.out.printf("%,d rows (%s)%n", counts.total(), rate(counts, start));
+                nextProgress += PROGRESS_EVERY_ROWS;
+            }
+        }
+        System.out.printf("Generated %,d users, %,d expenses, %,d incomes, %,d investments, %,d savings goals (%s)%n",
+                counts.users, counts.expenses, counts.incomes, counts.investments, counts.savingsGoals,
+                rate(counts, start));
+        return counts;
+    }
+
+    private void emitHousehold(SplittableRandom random, long household, long userId, HouseholdSink sink,
+                               Counts counts) {
+        var expenses = expenses(random);
+        var incomes = incomes(random);
+        var goals = savingsGoals(random);
+
+        var budget = incomes.stream().mapToLong(Entry::amountCents).sum()
+                - expenses.stream().mapToLong(Entry::amountCents).sum();
+        var goalPercentage = Arrays.stream(goals.percentages).sum();
+        var budgetAfterGoals = budget - budget * goalPercentage / 100;
+
+        var firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        var lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        sink.user(userId, firstName + "." + lastName + household, firstName + "." + lastName + household
+                + "@example.com", PASSWORD_HASH, Role.USER, budget, budgetAfterGoals, random.nextInt(50) != 0);
+        counts.users++;
+
+        for (var expense : expenses) {
+            sink.expense(userId, (ExpenseType) expense.type, expense.customType, expense.description,
+                    expense.amountCents, expense.frequency, expense.customFrequency,
+                    NOW.minusSeconds(random.nextLong(TRANSACTION_HISTORY_SECONDS)));
+        }
+        counts.expenses += expenses.size();
+
+        for (var income : incomes) {
+            sink.income(userId, (IncomeType) income.type, income.customType, income.description,
+                    income.amountCents, income.frequency, income.customFrequency,
+                    NOW.minusSeconds(random.nextLong(TRANSACTION_HISTORY_SECONDS)));
+        }
+        counts.incomes += incomes.size();
+
+        var investments = random.nextInt(10) < 3 ? 0 : 1 + random.nextInt(5);
+        for (int i = 0; i < investments; i++) {
+            var invested = logUniform(random, 10_000, 5_000_000);
+            var currentValue = invested * (60 + random.nextInt(101)) / 100;
+            sink.investment(userId, ASSET_TYPES[random.nextInt(ASSET_TYPES.length)], invested, currentValue,
+                    NOW.minusSeconds(random.nextLong(INVESTMENT_HISTORY_SECONDS)));
+        }
+        counts.investments += investments;
+
+        for (int i = 0; i < goals.types.length; i++) {
+            var type = goals.types[i];
+            sink.savingsGoal(userId, type, type == SavingsGoalType.CUSTOM ? customType(random) : null,
+                    goals.percentages[i]);
+        }
+        counts.savingsGoals += goals.types.length;
+    }
+
+    private static List<Entry> expenses(SplittableRandom random) {
+        // One user in twenty is a heavy tracker with hundreds of expenses
+        var count = random.nextInt(20) == 0 ? 150 + random.nextInt(450) : 10 + random.nextInt(60);
+        var expenses = new ArrayList<Entry>(count);
+        for (int i = 0; i < count; i++) {
+            var type = EXPENSE_TYPES_BY_WEIGHT[random.nextInt(EXPENSE_TYPES_BY_WEIGHT.length)];
+            var profile = EXPENSE_PROFILES.get(type);
+            var frequency = profile.frequencies[random.nextInt(profile.frequencies.length)];
+            var custom = type == ExpenseType.CUSTOM;
+            expenses.add(new Entry(
+                    type,
+                    custom ? customType(random) : null,
+                    profile.label + " " + (i + 1),
+                    logUniform(random, profile.minCents, profile.maxCents),
+                    frequency,
+                    frequency == CUSTOM ? 2L + random.nextInt(89) : null));
+        }
+        return expenses;
+    }
+
+    private static List<Entry> incomes(SplittableRandom random) {
+        var incomes = new ArrayList<Entry>(4);
+        var main = random.nextInt(10) == 0 ? IncomeType.BUSINESS : IncomeType.SALARY;
+        incomes.add(new Entry(main, null, main == IncomeType.SALARY ? "Salary" : "Business",
+                logUniform(random, 250_000, 1_500_000), MONTHLY, null));
+
+        var extra = random.nextInt(3);
+        for (int i = 0; i < extra; i++) {
+            var entry = switch (random.nextInt(6)) {
+                case 0 -> new Entry(IncomeType.BONUS, null, "Bonus",
+                        logUniform(random, 50_000, 2_000_000), ANNUAL, null);
+                case 1 -> new Entry(IncomeType.INVESTMENT, null, "Investment returns",
+                        logUniform(random, 5_000, 500_000), QUARTERLY, null);
+                case 2 -> new Entry(IncomeType.RENTAL, null, "Rent from tenants",
+                        logUniform(random, 100_000, 600_000), MONTHLY, null);
+                case 3 -> new Entry(IncomeType.DIVIDEND, null, "Dividends",
+                        logUniform(random, 2_000, 300_000), QUARTERLY, null);
+                case 4 -> new Entry(IncomeType.GIFT, null, "Gift",
+                        logUniform(random, 5_000, 200_000), ONCE, null);
+                default -> new Entry(IncomeType.CUSTOM, customType(random), "Other income",
+                        logUniform(random, 5_000, 300_000), CUSTOM, 7L + random.nextInt(84));
+            };
+            incomes.add(entry);
+        }
+        return incomes;
+    }
+
+    private static Goals savingsGoals(SplittableRandom random) {
+        var count = random.nextInt(4);
+        var types = GOAL_TYPES.clone();
+        // Partial Fisher-Yates shuffle, as a user has at most one goal of each type
+        for (int i = 0; i < count; i++) {
+            var j = i + random.nextInt(types.length - i);
+            var swapped = types[i];
+            types[i] = types[j];
+            types[j] = swapped;
+        }
+        var percentages = new int[count];
+        for (int i = 0; i < count; i++) {
+            percentages[i] = 1 + random.nextInt(20);
+        }
+        return new Goals(Arrays.copyOf(types, count), percentages);
+    }
+
+    private static String customType(SplittableRandom random) {
+        return CUSTOM_TYPES[random.nextInt(CUSTOM_TYPES.length)];
+    }
+
+    /**
+     * Draws an amount in cents between min and max, uniformly on a log scale so that small amounts are common and
+     * large ones rare.
+     */
+    private static long logUniform(SplittableRandom random, long minCents, long maxCents) {
+        var logMin = Math.log(minCents);
+        return Math.round(Math.exp(logMin + random.nextDouble() * (Math.log(maxCents) - logMin)));
+    }
+
+    /**
+     * Derives the seed of a household's random stream. SplittableRandom streams seeded with nearby values overlap,
+     * so the seed is scrambled with the finalizer of MurmurHash3.
+     */
+    static long mix(long seed, long household) {
+        var z = seed + household * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static String rate(Counts counts, long start) {
+        var seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+        return "%.1f s, %,.0f rows/s".formatted(seconds, counts.total() / seconds);
+    }
+
+    private static Map<ExpenseType, ExpenseProfile> expenseProfiles() {
+        var profiles = new EnumMap<ExpenseType, ExpenseProfile>(ExpenseType.class);
+        profiles.put(ExpenseType.GROCERIES, new ExpenseProfile("Groceries", 20, 1_500, 25_000, WEEKLY, WEEKLY, WEEKLY, DAILY, ONCE));
+        profiles.put(ExpenseType.RENT, new ExpenseProfile("Rent", 3, 80_000, 350_000, MONTHLY));
+        profiles.put(ExpenseType.UTILITIES, new ExpenseProfile("Utilities", 6, 4_000, 40_000, MONTHLY, MONTHLY, MONTHLY, QUARTERLY));
+        profiles.put(ExpenseType.TRANSPORT, new ExpenseProfile("Transport", 10, 300, 12_000, DAILY, WEEKLY, MONTHLY, ONCE));
+        profiles.put(ExpenseType.ENTERTAINMENT, new ExpenseProfile("Entertainment", 8, 1_000, 20_000, ONCE, ONCE, WEEKLY));
+        profiles.put(ExpenseType.HEALTH, new ExpenseProfile("Health", 4, 2_000, 60_000, ONCE, ONCE, MONTHLY));
+        profiles.put(ExpenseType.INSURANCE, new ExpenseProfile("Insurance", 3, 3_000, 150_000, MONTHLY, QUARTERLY, ANNUAL, ANNUAL));
+        profiles.put(ExpenseType.EDUCATION, new ExpenseProfile("Education", 2, 5_000, 300_000, MONTHLY, ANNUAL, ONCE));
+        profiles.put(ExpenseType.CLOTHING, new ExpenseProfile("Clothing", 5, 2_000, 40_000, ONCE));
+        profiles.put(ExpenseType.PERSONAL_CARE, new ExpenseProfile("Personal care", 4, 800, 15_000, ONCE, MONTHLY));
+        profiles.put(ExpenseType.HOUSEHOLD, new ExpenseProfile("Household", 5, 500, 50_000, ONCE, MONTHLY));
+        profiles.put(ExpenseType.SUBSCRIPTIONS, new ExpenseProfile("Subscription", 5, 500, 6_000, MONTHLY, MONTHLY, MONTHLY, ANNUAL));
+        profiles.put(ExpenseType.LOANS, new ExpenseProfile("Loan installment", 2, 20_000, 250_000, MONTHLY));
+        profiles.put(ExpenseType.CHARITY, new ExpenseProfile("Donation", 2, 500, 30_000, ONCE, MONTHLY, ANNUAL));
+        profiles.put(ExpenseType.PETS, new ExpenseProfile("Pets", 3, 1_500, 30_000, MONTHLY, ONCE));
+        profiles.put(ExpenseType.VACATION, new ExpenseProfile("Vacation", 2, 50_000, 800_000, ONCE, ANNUAL));
+        profiles.put(ExpenseType.HOBBIES, new ExpenseProfile("Hobbies", 4, 1_000, 30_000, ONCE, MONTHLY));
+        profiles.put(ExpenseType.GIFTS, new ExpenseProfile("Gift", 3, 1_000, 30_000, ONCE));
+        profiles.put(ExpenseType.CUSTOM, new ExpenseProfile("Other", 2, 500, 50_000, CUSTOM, CUSTOM, ONCE, MONTHLY));
+        if (profiles.size() != ExpenseType.values().length) {
+            throw new IllegalStateException("Every ExpenseType needs a profile");
+        }
+        return profiles;
+    }
+
+    /**
+     * Repeats every type as many times as its weight, so that a uniform index draws types by weight.
+     */
+    private static ExpenseType[] byWeight(Map<ExpenseType, ExpenseProfile> profiles) {
+        var types = new ArrayList<ExpenseType>();
+        profiles.forEach((type, profile) -> {
+            for (int i = 0; i < profile.weight; i++) {
+                types.add(type);
+            }
+        });
+        return types.toArray(ExpenseType[]::new);
+    }
+
+    /**
+     * Amount range and frequencies of an expense type; frequencies are listed as many times as they are likely.
+     */
+    private record ExpenseProfile(String label, int weight, long minCents, long maxCents, Frequency... frequencies) {
+    }
+
+    private record Entry(Enum<?> type, String customType, String description, long amountCents, Frequency frequency,
+                         Long customFrequency) {
+    }
+
+    private record Goals(SavingsGoalType[] types, int[] percentages) {
+    }
+
+    /**
+     * Numbers of emitted rows per table.
+     */
+    public static class Counts {
+        private long users;
+        private long expenses;
+        private long incomes;
+        private long investments;
+        private long savingsGoals;
+
+        public long total() {
+            return users + expenses + incomes + investments + savingsGoals;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package mostowska.aleksandra.bench.data;
+
+import mostowska.aleksandra.model.utils.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * HouseholdSink receives the rows produced by HouseholdDataGenerator. Amounts are passed in cents and savings
+ * goal percentages in whole percents, so that sinks writing text do not have to go through BigDecimal.
+ * A user is always emitted before the rows referencing it.
+ */
+public interface HouseholdSink extends AutoCloseable {
+
+    /**
+     * @return The id the first generated user will get.
+     */
+    long firstUserId();
+
+    void user(long id, String username, String email, String password, Role role,
+              long budgetCents, long budgetAfterGoalsCents, boolean enabled);
+
+    void expense(long userId, ExpenseType expenseType, String customExpenseType, String description,
+                 long amountCents, Frequency frequency, Long customFrequency, LocalDateTime occurredAt);
+
+    void income(long userId, IncomeType incomeType, String customIncomeType, String description,
+                long amountCents, Frequency frequency, Long customFrequency, LocalDateTime occurredAt);
+
+    void investment(long userId, AssetType assetType, long amountInvestedCents, long currentValueCents,
+                    LocalDateTime investmentDateTime);
+
+    void savingsGoal(long userId, SavingsGoalType goalType, String customGoalType, int percentage);
+
+    @Override
+    void close() throws Exception;
+}
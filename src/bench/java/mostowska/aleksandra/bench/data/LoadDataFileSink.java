@@ -0,0 +1,146 @@
+package mostowska.aleksandra.bench.data;
+
+import mostowska.aleksandra.model.utils.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * LoadDataFileSink writes one tab-separated file per table in the default format of MySQL's LOAD DATA, with `\N`
+ * for NULL, and a load-data.sql script loading them. Users are written with their ids so that the other tables can
+ * reference them; the other rows get theirs from auto_increment. The tables are expected to be empty.
+ */
+public class LoadDataFileSink implements HouseholdSink {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String NULL = "\\N";
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path directory;
+    private final Writer users;
+    private final Writer expenses;
+    private final Writer incomes;
+    private final Writer investments;
+    private final Writer savingsGoals;
+
+    public LoadDataFileSink(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath();
+        this.users = open("users.tsv");
+        this.expenses = open("expenses.tsv");
+        this.incomes = open("incomes.tsv");
+        this.investments = open("investments.tsv");
+        this.savingsGoals = open("savings_goals.tsv");
+    }
+
+    @Override
+    public long firstUserId() {
+        return 1;
+    }
+
+    @Override
+    public void user(long id, String username, String email, String password, Role role,
+                     long budgetCents, long budgetAfterGoalsCents, boolean enabled) {
+        row(users, Long.toString(id), username, email, password, role.name(),
+                cents(budgetCents), cents(budgetAfterGoalsCents), enabled ? "1" : "0");
+    }
+
+    @Override
+    public void expense(long userId, ExpenseType expenseType, String customExpenseType, String description,
+                        long amountCents, Frequency frequency, Long customFrequency, LocalDateTime occurredAt) {
+        row(expenses, expenseType.name(), nullable(customExpenseType), description, cents(amountCents),
+                frequency.name(), nullable(customFrequency), DATE_TIME.format(occurredAt), Long.toString(userId));
+    }
+
+    @Override
+    public void income(long userId, IncomeType incomeType, String customIncomeType, String description,
+                       long amountCents, Frequency frequency, Long customFrequency, LocalDateTime occurredAt) {
+        row(incomes, incomeType.name(), nullable(customIncomeType), description, cents(amountCents),
+                frequency.name(), nullable(customFrequency), DATE_TIME.format(occurredAt), Long.toString(userId));
+    }
+
+    @Override
+    public void investment(long userId, AssetType assetType, long amountInvestedCents, long currentValueCents,
+                           LocalDateTime investmentDateTime) {
+        row(investments, assetType.name(), cents(amountInvestedCents), cents(currentValueCents),
+                DATE_TIME.format(investmentDateTime), Long.toString(userId));
+    }
+
+    @Override
+    public void savingsGoal(long userId, SavingsGoalType goalType, String customGoalType, int percentage) {
+        row(savingsGoals, goalType.name(), nullable(customGoalType), cents(percentage), Long.toString(userId));
+    }
+
+    /**
+     * Flushes the files and writes the script loading them.
+     */
+    @Override
+    public void close() throws IOException {
+        for (var writer : new Writer[]{users, expenses, incomes, investments, savingsGoals}) {
+            writer.close();
+        }
+        var script = """
+                -- Generated by HouseholdDataGenerator. Run with: mysql --local-infile=1 <database> < load-data.sql
+                set foreign_key_checks = 0;
+                set unique_checks = 0;
+                %s
+                %s
+                %s
+                %s
+                %s
+                set unique_checks = 1;
+                set foreign_key_checks = 1;
+                """.formatted(
+                loadData("users", "id, username, email, password, role, budget, budget_after_goals, enabled"),
+                loadData("expenses", "expense_type, custom_expense_type, description, amount, frequency, "
+                        + "custom_frequency, occurred_at, user_id"),
+                loadData("incomes", "income_type, custom_income_type, description, amount, frequency, "
+                        + "custom_frequency, occurred_at, user_id"),
+                loadData("investments", "asset_type, amount_invested, current_value, investment_date_time, user_id"),
+                loadData("savings_goals", "goal_type, custom_goal_type, percentage, user_id"));
+        Files.writeString(directory.resolve("load-data.sql"), script, StandardCharsets.UTF_8);
+    }
+
+    private String loadData(String table, String columns) {
+        return "load data local infile '%s' into table %s (%s);".formatted(
+                directory.resolve(table + ".tsv").toString().replace("\\", "/"), table, columns);
+    }
+
+    private Writer open(String fileName) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(directory.resolve(fileName), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    private static void row(Writer writer, String... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writer.write(values[i]);
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String nullable(Object value) {
+        return value == null ? NULL : value.toString();
+    }
+
+    /**
+     * Formats an amount in cents as a decimal with two fraction digits.
+     */
+    static String cents(long cents) {
+        var sign = cents < 0 ? "-" : "";
+        var abs = Math.abs(cents);
+        var fraction = abs % 100;
+        return sign + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,174 @@
+package mostowska.aleksandra.bench.data;
+
+import mostowska.aleksandra.model.*;
+import mostowska.aleksandra.model.utils.*;
+import mostowska.aleksandra.repository.budget.impl.ExpenseRepositoryImpl;
+import mostowska.aleksandra.repository.budget.impl.IncomeRepositoryImpl;
+import mostowska.aleksandra.repository.budget.impl.InvestmentRepositoryImpl;
+import mostowska.aleksandra.repository.budget.impl.SavingsGoalRepositoryImpl;
+import mostowska.aleksandra.repository.generic.CrudRepository;
+import mostowska.aleksandra.repository.user.impl.UserRepositoryImpl;
+import org.jdbi.v3.core.Jdbi;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RepositorySink writes the rows through the repositories' saveAll, one multi-row insert per chunk, which is the
+ * path the application takes for batches. Users get their ids from auto_increment, so the sink expects to be the
+ * only writer to the users table: it predicts the ids of a chunk from the current maximum and checks the prediction
+ * after the insert, failing if another writer interleaved.
+ */
+public class RepositorySink implements HouseholdSink {
+    private final Jdbi jdbi;
+    private final int chunkSize;
+    private final long firstUserId;
+
+    private final Chunk<User> users;
+    private final Chunk<Expense> expenses;
+    private final Chunk<Income> incomes;
+    private final Chunk<Investment> investments;
+    private final Chunk<SavingsGoal> savingsGoals;
+    private long expectedMaxUserId;
+
+    public RepositorySink(Jdbi jdbi, int chunkSize) {
+        this.jdbi = jdbi;
+        this.chunkSize = chunkSize;
+        this.users = new Chunk<>(new UserRepositoryImpl(jdbi));
+        this.expenses = new Chunk<>(new ExpenseRepositoryImpl(jdbi));
+        this.incomes = new Chunk<>(new IncomeRepositoryImpl(jdbi));
+        this.investments = new Chunk<>(new InvestmentRepositoryImpl(jdbi));
+        this.savingsGoals = new Chunk<>(new SavingsGoalRepositoryImpl(jdbi));
+        this.expectedMaxUserId = maxUserId();
+        this.firstUserId = expectedMaxUserId + 1;
+    }
+
+    @Override
+    public long firstUserId() {
+        return firstUserId;
+    }
+
+    @Override
+    public void user(long id, String username, String email, String password, Role role,
+                     long budgetCents, long budgetAfterGoalsCents, boolean enabled) {
+        users.add(User.builder()
+                .username(username)
+                .email(email)
+                .password(password)
+                .role(role)
+                .budget(Money.ofCents(budgetCents))
+                .budgetAfterGoals(Money.ofCents(budgetAfterGoalsCents))
+                .enabled(enabled)
+                .build());
+        expectedMaxUserId = id;
+    }
+
+    @Override
+    public void expense(long userId, ExpenseType expenseType, String customExpenseType, String description,
+                        long amountCents, Frequency frequency, Long customFrequency, LocalDateTime occurredAt) {
+        expenses.add(Expense.builder()
+                .expenseType(expenseType)
+                .customExpenseType(customExpenseType)
+                .description(description)
+                .amount(Money.ofCents(amountCents))
+                .frequency(frequency)
+                .customFrequency(customFrequency)
+                .occurredAt(occurredAt)
+                .userId(userId)
+                .build());
+    }
+
+    @Override
+    public void income(long userId, IncomeType incomeType, String customIncomeType, String description,
+                       long amountCents, Frequency frequency, Long customFrequency, LocalDateTime occurredAt) {
+        incomes.add(Income.builder()
+                .incomeType(incomeType)
+                .customIncomeType(customIncomeType)
+                .description(description)
+                .amount(Money.ofCents(amountCents))
+                .frequency(frequency)
+                .customFrequency(customFrequency)
+                .occurredAt(occurredAt)
+                .userId(userId)
+                .build());
+    }
+
+    @Override
+    public void investment(long userId, AssetType assetType, long amountInvestedCents, long currentValueCents,
+                           LocalDateTime investmentDateTime) {
+        investments.add(Investment.builder()
+                .assetType(assetType)
+                .amountInvested(Money.ofCents(amountInvestedCents))
+                .currentValue(Money.ofCents(currentValueCents))
+                .investmentDateTime(investmentDateTime)
+                .userId(userId)
+                .build());
+    }
+
+    @Override
+    public void savingsGoal(long userId, SavingsGoalType goalType, String customGoalType, int percentage) {
+        savingsGoals.add(SavingsGoal.builder()
+                .goalType(goalType)
+                .customGoalType(customGoalType)
+                .percentage(BigDecimal.valueOf(percentage, 2))
+                .userId(userId)
+                .build());
+    }
+
+    @Override
+    public void close() {
+        flushUsers();
+        expenses.flush();
+        incomes.flush();
+        investments.flush();
+        savingsGoals.flush();
+    }
+
+    /**
+     * Inserts the pending users, which the pending rows of the other tables may reference.
+     */
+    private void flushUsers() {
+        if (users.items.isEmpty()) {
+            return;
+        }
+        users.flush();
+        var maxUserId = maxUserId();
+        if (maxUserId != expectedMaxUserId) {
+            throw new IllegalStateException("Expected users up to id %d but found %d, was the table written to?"
+                    .formatted(expectedMaxUserId, maxUserId));
+        }
+    }
+
+    private long maxUserId() {
+        return jdbi.withHandle(handle -> handle
+                .createQuery("select coalesce(max(id), 0) from users")
+                .mapTo(Long.class)
+                .one());
+    }
+
+    private class Chunk<T> {
+        private final CrudRepository<T, Long> repository;
+        private final List<T> items = new ArrayList<>(chunkSize);
+
+        private Chunk(CrudRepository<T, Long> repository) {
+            this.repository = repository;
+        }
+
+        private void add(T item) {
+            items.add(item);
+            if (items.size() >= chunkSize) {
+                flushUsers();
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!items.isEmpty()) {
+                repository.saveAll(items);
+                items.clear();
+            }
+        }
+    }
+}
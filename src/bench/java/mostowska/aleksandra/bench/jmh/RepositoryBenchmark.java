@@ -0,0 +1,122 @@
+package mostowska.aleksandra.bench.jmh;
+
+import mostowska.aleksandra.bench.BenchDatabase;
+import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.Role;
+import mostowska.aleksandra.repository.budget.impl.ExpenseRepositoryImpl;
+import mostowska.aleksandra.repository.user.impl.UserRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures AbstractCrudRepository against in-memory H2: inserts and updates, which build their SQL by reflection
+ * over the entity fields, and reads, which map rows to beans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+    private static final int SEEDED_EXPENSES = 50;
+
+    private BenchDatabase database;
+    private ExpenseRepositoryImpl expenseRepository;
+    private Long userId;
+    private Long expenseId;
+    private Long lastSeededExpenseId;
+    private Expense expense;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchDatabase.create("repository_benchmark");
+        var jdbi = database.jdbi();
+        var userRepository = new UserRepositoryImpl(jdbi);
+        expenseRepository = new ExpenseRepositoryImpl(jdbi);
+
+        userRepository.save(User.builder()
+                .username("bench")
+                .email("bench@example.com")
+                .password("{noop}secret")
+                .role(Role.USER)
+                .budget(Money.ofCents(500000))
+                .budgetAfterGoals(Money.ofCents(400000))
+                .enabled(true)
+                .build());
+        userId = jdbi.withHandle(handle -> handle
+                .createQuery("select max(id) from users")
+                .mapTo(Long.class)
+                .one());
+
+        var expenses = new ArrayList<Expense>(SEEDED_EXPENSES);
+        for (int i = 0; i < SEEDED_EXPENSES; i++) {
+            expenses.add(expense(userId, i));
+        }
+        expenseRepository.saveAll(expenses);
+        expenseId = jdbi.withHandle(handle -> handle
+                .createQuery("select min(id) from expenses")
+                .mapTo(Long.class)
+                .one());
+        lastSeededExpenseId = jdbi.withHandle(handle -> handle
+                .createQuery("select max(id) from expenses")
+                .mapTo(Long.class)
+                .one());
+        expense = expense(userId, SEEDED_EXPENSES);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        database.jdbi().useHandle(handle -> handle
+                .createUpdate("delete from expenses where id > :id")
+                .bind("id", lastSeededExpenseId)
+                .execute());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    public Expense save() {
+        return expenseRepository.save(expense);
+    }
+
+    @Benchmark
+    public Expense update() {
+        return expenseRepository.update(expenseId, expense);
+    }
+
+    @Benchmark
+    public Optional<Expense> findById() {
+        return expenseRepository.findById(expenseId);
+    }
+
+    @Benchmark
+    public List<Expense> findAllForUserId() {
+        return expenseRepository.findAllForUserId(userId);
+    }
+
+    private static Expense expense(Long userId, int i) {
+        return Expense.builder()
+                .expenseType(i % 2 == 0 ? ExpenseType.GROCERIES : ExpenseType.CUSTOM)
+                .customExpenseType(i % 2 == 0 ? null : "Custom " + i)
+                .description("Expense " + i)
+                .amount(Money.ofCents(1000 + i))
+                .frequency(Frequency.MONTHLY)
+                .occurredAt(LocalDateTime.of(2025, 1, 1, 0, 0).minusDays(i))
+                .userId(userId)
+                .build();
+    }
+}
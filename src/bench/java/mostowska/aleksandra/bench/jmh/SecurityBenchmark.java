@@ -0,0 +1,99 @@
+package mostowska.aleksandra.bench.jmh;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import mostowska.aleksandra.bench.BenchDatabase;
+import mostowska.aleksandra.bench.BenchFields;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.Role;
+import mostowska.aleksandra.repository.user.impl.UserRepositoryImpl;
+import mostowska.aleksandra.service.dto.AuthenticationDto;
+import mostowska.aleksandra.service.dto.AuthorizationDto;
+import mostowska.aleksandra.service.security.impl.AuthorizationCheckServiceImpl;
+import mostowska.aleksandra.service.security.impl.TokensServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JWT parsing and the authorization check run by the security filter on every request.
+ * The user lookup behind a token goes to in-memory H2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityBenchmark {
+    private BenchDatabase database;
+    private TokensServiceImpl tokensService;
+    private AuthorizationCheckServiceImpl authorizationCheckService;
+    private String accessToken;
+    private String ownResourceUri;
+    private String foreignResourceUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchDatabase.create("security_benchmark");
+        var userRepository = new UserRepositoryImpl(database.jdbi());
+        userRepository.save(User.builder()
+                .username("bench")
+                .email("bench@example.com")
+                .password("{noop}secret")
+                .role(Role.USER)
+                .budget(Money.ZERO)
+                .budgetAfterGoals(Money.ZERO)
+                .enabled(true)
+                .build());
+
+        tokensService = new TokensServiceImpl(
+                userRepository,
+                Keys.secretKeyFor(SignatureAlgorithm.HS512),
+                PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        BenchFields.set(tokensService, "accessTokenExpirationTimeMs", 3_600_000L);
+        BenchFields.set(tokensService, "refreshTokenExpirationTimeMs", 7_200_000L);
+        BenchFields.set(tokensService, "refreshTokenProperty", "access_token_expiration_time_ms");
+        BenchFields.set(tokensService, "tokensPrefix", "Bearer ");
+
+        authorizationCheckService = new AuthorizationCheckServiceImpl(tokensService);
+        BenchFields.set(authorizationCheckService, "userUris", "/users/{id}*");
+        BenchFields.set(authorizationCheckService, "adminUris", "/users*,/admin/*,/api/admin/info");
+        BenchFields.set(authorizationCheckService, "isAuthUris", "/api/is_auth,/api/user/info");
+        BenchFields.set(authorizationCheckService, "allUrisProperty", "/auth/login,/users/activate*");
+        authorizationCheckService.init();
+
+        accessToken = tokensService.generateToken(new AuthenticationDto("bench", "secret")).accessToken();
+        var userId = tokensService.parseTokens(accessToken).id();
+        ownResourceUri = "/users/" + userId + "/expenses/total";
+        foreignResourceUri = "/users/" + (userId + 1) + "/expenses/total";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    @Benchmark
+    public AuthorizationDto parseTokens() {
+        return tokensService.parseTokens(accessToken);
+    }
+
+    @Benchmark
+    public boolean authorizeOwnResource() {
+        return authorizationCheckService.authorize(accessToken, ownResourceUri);
+    }
+
+    @Benchmark
+    public boolean authorizeForeignResource() {
+        return authorizationCheckService.authorize(accessToken, foreignResourceUri);
+    }
+
+    @Benchmark
+    public boolean authorizeAnonymous() {
+        return authorizationCheckService.authorize(null, "/users/activate");
+    }
+}
@@ -0,0 +1,57 @@
+package mostowska.aleksandra.bench.jmh;
+
+import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.api.transformer.JsonTransformer;
+import mostowska.aleksandra.config.AppConfig;
+import mostowska.aleksandra.model.dto.expense.GetExpenseDto;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON rendering of a typical list response, as a String through JsonTransformer.render and
+ * streamed onto an output stream the way routes write it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"10", "1000"})
+    private int expenses;
+
+    private JsonTransformer jsonTransformer;
+    private ResponseDto<List<GetExpenseDto>> response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jsonTransformer = new JsonTransformer(new AppConfig(null).gson(), null, List.of());
+        var data = new ArrayList<GetExpenseDto>(expenses);
+        var types = ExpenseType.values();
+        for (int i = 0; i < expenses; i++) {
+            data.add(new GetExpenseDto(
+                    (long) i + 1, types[i % types.length], "Expense " + i, BigDecimal.valueOf(1000 + i, 2),
+                    LocalDateTime.of(2025, 1, 1, 12, 0).minusHours(i)));
+        }
+        response = new ResponseDto<>(data);
+    }
+
+    @Benchmark
+    public String render() throws Exception {
+        return jsonTransformer.render(response);
+    }
+
+    @Benchmark
+    public void stream() throws IOException {
+        jsonTransformer.write(response, OutputStream.nullOutputStream(), false);
+    }
+}
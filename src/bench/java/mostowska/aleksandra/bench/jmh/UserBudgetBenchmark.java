@@ -0,0 +1,59 @@
+package mostowska.aleksandra.bench.jmh;
+
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Money arithmetic of User.withNewBudget, reached through withBudgetAdd and withBudgetCut.
+ * With goals set, the budget after goals is rescaled by the ratio to the old budget.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserBudgetBenchmark {
+    private User userWithoutGoals;
+    private User userWithGoals;
+    private Money amount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userWithoutGoals = user(Money.ofCents(500000), Money.ofCents(500000));
+        userWithGoals = user(Money.ofCents(500000), Money.ofCents(400000));
+        amount = Money.ofCents(12550);
+    }
+
+    @Benchmark
+    public User budgetAddWithoutGoals() {
+        return userWithoutGoals.withBudgetAdd(amount);
+    }
+
+    @Benchmark
+    public User budgetAddWithGoals() {
+        return userWithGoals.withBudgetAdd(amount);
+    }
+
+    @Benchmark
+    public User budgetCutWithGoals() {
+        return userWithGoals.withBudgetCut(amount);
+    }
+
+    private static User user(Money budget, Money budgetAfterGoals) {
+        return User.builder()
+                .id(1L)
+                .username("bench")
+                .email("bench@example.com")
+                .password("{noop}secret")
+                .role(Role.USER)
+                .budget(budget)
+                .budgetAfterGoals(budgetAfterGoals)
+                .enabled(true)
+                .build();
+    }
+}
@@ -0,0 +1,263 @@
+package mostowska.aleksandra.bench.load;
+
+import mostowska.aleksandra.App;
+import mostowska.aleksandra.bench.BenchDatabase;
+import mostowska.aleksandra.bench.data.HouseholdDataGenerator;
+import mostowska.aleksandra.bench.data.RepositorySink;
+import org.jdbi.v3.core.Jdbi;
+import spark.Spark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Replays the Postman collection against the application started in this JVM, with a number of concurrent virtual
+ * users each running weighted scenarios from ScenarioCatalog back to back, and reports throughput and latency
+ * percentiles per route.
+ * <p>
+ * By default the application uses the in-memory H2 database of the bench application.properties, which the harness
+ * creates and seeds with HouseholdDataGenerator. To run against a local MySQL, pass db.url, db.username and
+ * db.password; the users are then taken from the database as it is, so it should have been loaded with the
+ * generator beforehand. Virtual users log in with the generator's password unless load.password is given.
+ * <p>
+ * Arguments: [virtualUsers=50] [durationSeconds=30] [warmupSeconds=5] [rows=50000] [seed=42] [property=value...]
+ * <br>
+ * Arguments of the form property=value are set as system properties before the application starts, overriding
+ * application.properties, e.g. server.virtual_threads=false.
+ */
+public class LoadHarness {
+    private static final Path COLLECTION = Path.of("docs", "HOUSEHOLD BUDGET MANAGEMENT JAVA.postman_collection.json");
+    private static final String BENCH_DATABASE = "load";
+    private static final String DEFAULT_PASSWORD = "password";
+
+    public static void main(String[] args) throws Exception {
+        var positional = new ArrayList<String>();
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator > 0) {
+                System.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        var virtualUsers = intArg(positional, 0, 50);
+        var durationSeconds = intArg(positional, 1, 30);
+        var warmupSeconds = intArg(positional, 2, 5);
+        var rows = intArg(positional, 3, 50_000);
+        var seed = intArg(positional, 4, 42);
+
+        var unused = ScenarioCatalog.validate(PostmanCollection.requestNames(COLLECTION));
+        System.out.println("Collection requests not replayed: " + unused);
+
+        var properties = properties();
+        BenchDatabase database = null;
+        Jdbi jdbi;
+        if (properties.getProperty("db.url").startsWith("jdbc:h2:mem:" + BENCH_DATABASE + ";")) {
+            database = BenchDatabase.create(BENCH_DATABASE);
+            jdbi = database.jdbi();
+            try (var sink = new RepositorySink(jdbi, 1000)) {
+                new HouseholdDataGenerator(seed, rows).generate(sink);
+            }
+        } else {
+            jdbi = Jdbi.create(properties.getProperty("db.url"), properties.getProperty("db.username"),
+                    properties.getProperty("db.password"));
+        }
+        var sessions = sessions(jdbi, virtualUsers, System.getProperty("load.password", DEFAULT_PASSWORD));
+
+        var context = App.start();
+        Spark.awaitInitialization();
+        var baseUri = "http://localhost:" + Spark.port();
+
+        try (var client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            if (warmupSeconds > 0) {
+                System.out.printf("Warming up for %d s%n", warmupSeconds);
+                run(client, baseUri, sessions, warmupSeconds, seed);
+            }
+            System.out.printf("Running %d virtual users for %d s against %s%n", sessions.size(), durationSeconds,
+                    baseUri);
+            var stats = run(client, baseUri, sessions, durationSeconds, seed + 1);
+            report(stats, durationSeconds);
+        } finally {
+            // Stops the server, then lets the beans flush into the database before it is closed
+            context.close();
+            if (database != null) {
+                database.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs every session on its own virtual thread for the given duration.
+     *
+     * @return The merged statistics per route.
+     */
+    private static Map<String, RouteStats> run(HttpClient client, String baseUri, List<Session> sessions,
+                                               int seconds, long seed) throws InterruptedException {
+        var deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        var virtualUsers = new ArrayList<VirtualUser>(sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            virtualUsers.add(new VirtualUser(client, baseUri, sessions.get(i), new SplittableRandom(seed * 31 + i)));
+        }
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var virtualUser : virtualUsers) {
+                executor.submit(() -> virtualUser.runUntil(deadline));
+            }
+        }
+
+        var merged = new TreeMap<String, RouteStats>();
+        for (var virtualUser : virtualUsers) {
+            virtualUser.stats.forEach((route, stats) ->
+                    merged.computeIfAbsent(route, r -> new RouteStats()).merge(stats));
+        }
+        merged.values().forEach(RouteStats::seal);
+        return merged;
+    }
+
+    private static void report(Map<String, RouteStats> stats, int seconds) {
+        System.out.printf("%-42s %9s %8s %9s %9s %9s %9s %9s%n",
+                "route", "requests", "failed", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long requests = 0;
+        long failures = 0;
+        for (var entry : stats.entrySet()) {
+            var route = entry.getValue();
+            requests += route.count();
+            failures += route.failures();
+            System.out.printf("%-42s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), route.count(), route.failures(), (double) route.count() / seconds,
+                    route.percentileMs(50), route.percentileMs(90), route.percentileMs(99),
+                    route.percentileMs(100));
+        }
+        System.out.printf("%-42s %9d %8d %9.1f%n", "total", requests, failures, (double) requests / seconds);
+    }
+
+    /**
+     * Takes enabled users from the database, one per virtual user, reusing them if there are fewer users.
+     */
+    private static List<Session> sessions(Jdbi jdbi, int virtualUsers, String password) {
+        var users = jdbi.withHandle(handle -> handle
+                .createQuery("select id, username from users where enabled = true order by id limit :n")
+                .bind("n", virtualUsers)
+                .map((resultSet, context) -> new Session(resultSet.getLong("id"), resultSet.getString("username"),
+                        password))
+                .list());
+        if (users.isEmpty()) {
+            throw new IllegalStateException("No enabled users to log in with");
+        }
+        var sessions = new ArrayList<Session>(virtualUsers);
+        for (int i = 0; i < virtualUsers; i++) {
+            var user = users.get(i % users.size());
+            sessions.add(new Session(user.getUserId(), user.getUsername(), password));
+        }
+        return sessions;
+    }
+
+    /**
+     * Reads the bench application.properties with system properties taking precedence, as Spring resolves them.
+     */
+    private static Properties properties() throws IOException {
+        var properties = new Properties();
+        try (var in = LoadHarness.class.getResourceAsStream("/application.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing application.properties on the classpath");
+            }
+            properties.load(in);
+        }
+        properties.putAll(System.getProperties());
+        return properties;
+    }
+
+    private static int intArg(List<String> args, int index, int defaultValue) {
+        return args.size() > index ? Integer.parseInt(args.get(index)) : defaultValue;
+    }
+
+    private static class VirtualUser {
+        private final HttpClient client;
+        private final String baseUri;
+        private final Session session;
+        private final SplittableRandom random;
+        private final int totalWeight;
+        private final Map<String, RouteStats> stats = new TreeMap<>();
+
+        private VirtualUser(HttpClient client, String baseUri, Session session, SplittableRandom random) {
+            this.client = client;
+            this.baseUri = baseUri;
+            this.session = session;
+            this.random = random;
+            this.totalWeight = ScenarioCatalog.scenarios().stream().mapToInt(ScenarioCatalog.Scenario::weight).sum();
+        }
+
+        private void runUntil(long deadline) {
+            if (session.getAccessToken() == null) {
+                send(ScenarioCatalog.template("LOGIN"));
+            }
+            while (System.nanoTime() < deadline) {
+                for (var request : pickScenario().requests()) {
+                    var template = ScenarioCatalog.template(request);
+                    if (template.applicableTo(session)) {
+                        send(template);
+                    }
+                }
+            }
+        }
+
+        private ScenarioCatalog.Scenario pickScenario() {
+            var pick = random.nextInt(totalWeight);
+            for (var scenario : ScenarioCatalog.scenarios()) {
+                pick -= scenario.weight();
+                if (pick < 0) {
+                    return scenario;
+                }
+            }
+            throw new IllegalStateException("Weights changed");
+        }
+
+        private void send(RequestTemplate template) {
+            var builder = HttpRequest.newBuilder(URI.create(baseUri + template.path().apply(session)))
+                    .timeout(Duration.ofSeconds(30));
+            if (template.body() != null) {
+                builder.header("Content-Type", "application/json")
+                        .method(template.method(), HttpRequest.BodyPublishers.ofString(template.body().apply(session)));
+            } else {
+                builder.method(template.method(), HttpRequest.BodyPublishers.noBody());
+            }
+            var cookie = session.cookieHeader();
+            if (template.sendsCookies() && cookie != null) {
+                builder.header("Cookie", cookie);
+            }
+
+            var start = System.nanoTime();
+            var failed = true;
+            try {
+                var response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == template.expectedStatus()) {
+                    template.onSuccess().accept(session, response);
+                    failed = false;
+                }
+            } catch (IOException e) {
+                // Counted as a failure; the virtual user carries on like a client retrying later would
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stats.computeIfAbsent(template.route(), route -> new RouteStats())
+                        .record(System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package mostowska.aleksandra.bench.load;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the request names of a Postman v2.1 collection, descending into folders.
+ */
+public final class PostmanCollection {
+
+    private PostmanCollection() {
+    }
+
+    public static List<String> requestNames(Path path) throws IOException {
+        var collection = JsonParser.parseString(Files.readString(path, StandardCharsets.UTF_8)).getAsJsonObject();
+        var names = new ArrayList<String>();
+        collect(collection.getAsJsonArray("item"), names);
+        return names;
+    }
+
+    private static void collect(JsonArray items, List<String> names) {
+        for (var element : items) {
+            var item = element.getAsJsonObject();
+            if (item.has("item")) {
+                collect(item.getAsJsonArray("item"), names);
+            } else if (item.has("request")) {
+                names.add(item.get("name").getAsString());
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package mostowska.aleksandra.bench.load;
+
+import java.net.http.HttpResponse;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A request of the Postman collection, with its path and body expressed against a virtual user's session.
+ *
+ * @param name           The request name in the collection.
+ * @param method         The HTTP method.
+ * @param route          The route as reported, e.g. GET /users/:id/expenses.
+ * @param path           Builds the request path for a session.
+ * @param body           Builds the JSON body for a session, or null for requests without one.
+ * @param sendsCookies   Whether the session's token cookies are sent; the login route is only public to callers
+ *                       without a token, so logins are sent without them.
+ * @param expectedStatus The status of a successful response.
+ * @param onSuccess      Updates the session from a successful response, e.g. with new tokens.
+ */
+public record RequestTemplate(
+        String name,
+        String method,
+        String route,
+        Function<Session, String> path,
+        Function<Session, String> body,
+        boolean sendsCookies,
+        int expectedStatus,
+        BiConsumer<Session, HttpResponse<String>> onSuccess) {
+
+    /**
+     * @return Whether the request can be sent for the session; a delete needs something created first.
+     */
+    public boolean applicableTo(Session session) {
+        return !route.contains(":expenseId") || session.getLastExpenseId() != null;
+    }
+}
@@ -0,0 +1,59 @@
+package mostowska.aleksandra.bench.load;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and failures of one route. Every virtual user keeps its own instance, so recording needs no
+ * synchronization, and the instances are merged once the run is over.
+ */
+public class RouteStats {
+    private long[] latencies = new long[1024];
+    private int count;
+    private long failures;
+
+    public void record(long nanos, boolean failed) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (failed) {
+            failures++;
+        }
+    }
+
+    public void merge(RouteStats other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        failures += other.failures;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long failures() {
+        return failures;
+    }
+
+    /**
+     * Sorts the recorded latencies so that percentiles can be read. Must be called once, after merging.
+     */
+    public void seal() {
+        Arrays.sort(latencies, 0, count);
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in milliseconds at the percentile, using the nearest-rank method.
+     */
+    public double percentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        var rank = (int) Math.ceil(percentile / 100 * count);
+        return latencies[Math.max(0, rank - 1)] / 1e6;
+    }
+}
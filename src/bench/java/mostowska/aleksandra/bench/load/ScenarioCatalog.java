@@ -0,0 +1,151 @@
+package mostowska.aleksandra.bench.load;
+
+import com.google.gson.JsonParser;
+
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * ScenarioCatalog maps the requests of the Postman collection to request templates and groups them into weighted
+ * scenarios. The collection only names its requests, so the method, path and body of each are defined here after
+ * the routers. Requests that would send e-mail or need an admin are not part of any scenario.
+ */
+public final class ScenarioCatalog {
+    /**
+     * Deleting an expense is not in the collection, but is needed to keep the expense tables at a steady size.
+     */
+    static final String REMOVE_EXPENSE = "REMOVE EXPENSE";
+
+    private static final Map<String, RequestTemplate> TEMPLATES = templates();
+
+    private static final List<Scenario> SCENARIOS = List.of(
+            new Scenario("login", 5, List.of("LOGIN", "CHECK API AUTH INFO")),
+            new Scenario("refresh", 2, List.of("REFRESH ACCESS TOKEN", "CHECK API USER INFO")),
+            new Scenario("browse", 40, List.of("GET USER BY ID", "GET USER'S EXPENSES", "GET USER'S INCOMES",
+                    "GET USER'S INVESTMENTS", "GET USER'S GOALS", "SHOW AVAILABLE INVESTMENTS")),
+            new Scenario("totals", 35, List.of("GET USER'S BUDGET", "GET USER'S BUDGET AFTER GOALS",
+                    "SUM USER'S GOALS")),
+            new Scenario("expenses", 18, List.of("ADD NEW EXPENSE", "GET USER'S BUDGET", REMOVE_EXPENSE))
+    );
+
+    private ScenarioCatalog() {
+    }
+
+    /**
+     * A sequence of requests a virtual user sends in a row, picked with a probability proportional to its weight.
+     *
+     * @param name     The scenario name.
+     * @param weight   The relative weight.
+     * @param requests The names of the requests.
+     */
+    public record Scenario(String name, int weight, List<String> requests) {
+    }
+
+    public static List<Scenario> scenarios() {
+        return SCENARIOS;
+    }
+
+    public static RequestTemplate template(String name) {
+        var template = TEMPLATES.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("No template for request " + name);
+        }
+        return template;
+    }
+
+    /**
+     * Checks the scenarios against the collection, so that a renamed request fails the run instead of silently
+     * dropping out of the load.
+     *
+     * @param collectionRequests The request names in the collection.
+     * @return The names of the collection requests no scenario sends.
+     */
+    public static List<String> validate(List<String> collectionRequests) {
+        for (var scenario : SCENARIOS) {
+            for (var request : scenario.requests()) {
+                template(request);
+                if (!request.equals(REMOVE_EXPENSE) && !collectionRequests.contains(request)) {
+                    throw new IllegalStateException("Request " + request + " of scenario " + scenario.name()
+                            + " is not in the Postman collection");
+                }
+            }
+        }
+        var used = SCENARIOS.stream().flatMap(scenario -> scenario.requests().stream()).toList();
+        return collectionRequests.stream().filter(request -> !used.contains(request)).toList();
+    }
+
+    private static Map<String, RequestTemplate> templates() {
+        var templates = new LinkedHashMap<String, RequestTemplate>();
+        add(templates, new RequestTemplate("LOGIN", "POST", "POST /auth/login",
+                session -> "/auth/login",
+                session -> """
+                        {"username":"%s","password":"%s"}""".formatted(session.getUsername(), session.getPassword()),
+                false, 200, ScenarioCatalog::storeTokens));
+        add(templates, new RequestTemplate("REFRESH ACCESS TOKEN", "POST", "POST /auth/refresh",
+                session -> "/auth/refresh",
+                session -> """
+                        {"token":"%s"}""".formatted(session.getRefreshToken()),
+                true, 200, ScenarioCatalog::storeTokens));
+        add(templates, get("CHECK API USER INFO", "/api/user/info", session -> "/api/user/info"));
+        add(templates, get("CHECK API AUTH INFO", "/api/is_auth", session -> "/api/is_auth"));
+        add(templates, get("SHOW AVAILABLE INVESTMENTS", "/users/available_investments",
+                session -> "/users/available_investments"));
+        add(templates, get("GET USER BY ID", "/users/:id", session -> "/users/" + session.getUserId()));
+        add(templates, get("GET USER'S EXPENSES", "/users/:id/expenses",
+                session -> "/users/" + session.getUserId() + "/expenses"));
+        add(templates, get("GET USER'S INCOMES", "/users/:id/incomes",
+                session -> "/users/" + session.getUserId() + "/incomes"));
+        add(templates, get("GET USER'S INVESTMENTS", "/users/:id/investments",
+                session -> "/users/" + session.getUserId() + "/investments"));
+        add(templates, get("GET USER'S GOALS", "/users/:id/goals",
+                session -> "/users/" + session.getUserId() + "/goals"));
+        add(templates, get("GET USER'S BUDGET", "/users/:id/budget",
+                session -> "/users/" + session.getUserId() + "/budget"));
+        add(templates, get("GET USER'S BUDGET AFTER GOALS", "/users/:id/budget_after_goals",
+                session -> "/users/" + session.getUserId() + "/budget_after_goals"));
+        add(templates, get("SUM USER'S GOALS", "/users/:id/goals/total",
+                session -> "/users/" + session.getUserId() + "/goals/total"));
+        add(templates, new RequestTemplate("ADD NEW EXPENSE", "POST", "POST /users/:id/expenses",
+                session -> "/users/" + session.getUserId() + "/expenses",
+                session -> """
+                        {"expenseType":"GROCERIES","description":"Load test %d","amount":%d.99,"frequency":"ONCE"}"""
+                        .formatted(session.nextSequence(), 5 + session.getSequence() % 50),
+                true, 201, (session, response) -> session.setLastExpenseId(dataId(response))));
+        add(templates, new RequestTemplate(REMOVE_EXPENSE, "DELETE", "DELETE /users/:id/expenses/:expenseId",
+                session -> "/users/" + session.getUserId() + "/expenses/" + session.getLastExpenseId(),
+                null, true, 200, (session, response) -> session.setLastExpenseId(null)));
+        return templates;
+    }
+
+    private static RequestTemplate get(String name, String route, Function<Session, String> path) {
+        return new RequestTemplate(name, "GET", "GET " + route, path, null, true, 200, (session, response) -> {
+        });
+    }
+
+    private static void add(Map<String, RequestTemplate> templates, RequestTemplate template) {
+        templates.put(template.name(), template);
+    }
+
+    /**
+     * Keeps the tokens the login and refresh routes set as cookies, to send them back on later requests.
+     */
+    private static void storeTokens(Session session, HttpResponse<String> response) {
+        for (var header : response.headers().allValues("set-cookie")) {
+            var end = header.indexOf(';');
+            var cookie = end < 0 ? header : header.substring(0, end);
+            if (cookie.startsWith("accessToken=")) {
+                session.setAccessToken(cookie.substring("accessToken=".length()));
+            } else if (cookie.startsWith("refreshToken=")) {
+                session.setRefreshToken(cookie.substring("refreshToken=".length()));
+            }
+        }
+    }
+
+    private static Long dataId(HttpResponse<String> response) {
+        var data = JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonObject("data");
+        return data.get("id").getAsLong();
+    }
+}
@@ -0,0 +1,45 @@
+package mostowska.aleksandra.bench.load;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state a virtual user carries between requests: who it is, the tokens from its last login, sent back as
+ * cookies the way a browser or Postman would, and the last expense it created.
+ */
+@Getter
+public class Session {
+    private final long userId;
+    private final String username;
+    private final String password;
+    @Setter
+    private String accessToken;
+    @Setter
+    private String refreshToken;
+    @Setter
+    private Long lastExpenseId;
+    private int sequence;
+
+    public Session(long userId, String username, String password) {
+        this.userId = userId;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * @return The Cookie header carrying the tokens, or null before the first login.
+     */
+    public String cookieHeader() {
+        if (accessToken == null) {
+            return null;
+        }
+        return "accessToken=" + accessToken + "; refreshToken=" + refreshToken;
+    }
+
+    /**
+     * @return A number unique within the session, for request bodies that should differ.
+     */
+    public int nextSequence() {
+        return ++sequence;
+    }
+}
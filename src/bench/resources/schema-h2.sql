@@ -0,0 +1,104 @@
+-- Schema of the application tables for H2 in MySQL mode, used by the benchmarks.
+create table if not exists users (
+    id integer primary key auto_increment,
+    username varchar(50) not null,
+    email varchar(50) not null,
+    password varchar(255) not null,
+    role varchar(50) not null,
+    budget decimal(10, 2) default 0,
+    budget_after_goals decimal(10, 2) default 0,
+    enabled boolean not null
+);
+
+create table if not exists expenses (
+    id integer primary key auto_increment,
+    expense_type varchar(50) not null,
+    custom_expense_type varchar(50),
+    description varchar(255),
+    amount decimal(10, 2) not null,
+    frequency varchar(50) not null,
+    custom_frequency integer,
+    occurred_at datetime not null default current_timestamp,
+    user_id integer not null,
+    foreign key (user_id) references users(id) on delete cascade
+);
+
+create table if not exists incomes (
+    id integer primary key auto_increment,
+    income_type varchar(50) not null,
+    custom_income_type varchar(50),
+    description varchar(255),
+    amount decimal(10, 2) not null,
+    frequency varchar(50) not null,
+    custom_frequency integer,
+    occurred_at datetime not null default current_timestamp,
+    user_id integer not null,
+    foreign key (user_id) references users(id) on delete cascade
+);
+
+create index if not exists expenses_user_occurred_at on expenses (user_id, occurred_at);
+create index if not exists incomes_user_occurred_at on incomes (user_id, occurred_at);
+
+create table if not exists investments (
+    id integer primary key auto_increment,
+    asset_type varchar(50) not null,
+    amount_invested decimal(10, 2) not null,
+    current_value decimal(10, 2),
+    investment_date_time datetime not null,
+    user_id integer not null,
+    foreign key (user_id) references users(id) on delete cascade
+);
+
+create table if not exists available_investments (
+    id integer primary key auto_increment,
+    asset_type varchar(50) not null,
+    description varchar(255) not null
+);
+
+create table if not exists savings_goals (
+    id integer primary key auto_increment,
+    goal_type varchar(50) not null,
+    custom_goal_type varchar(255),
+    percentage decimal(10, 2) not null,
+    user_id integer not null,
+    foreign key (user_id) references users(id) on delete cascade
+);
+
+create table if not exists email_outbox (
+    id integer primary key auto_increment,
+    receiver varchar(255) not null,
+    subject varchar(255) not null,
+    html_content text not null,
+    status varchar(20) not null,
+    attempts integer not null default 0,
+    next_attempt_at datetime not null,
+    claim_token varchar(36),
+    claimed_at datetime,
+    last_error varchar(500),
+    created_at datetime not null,
+    sent_at datetime
+);
+
+create index if not exists email_outbox_due on email_outbox (status, next_attempt_at);
+
+create table if not exists monthly_rollups (
+    user_id integer not null,
+    kind varchar(10) not null,
+    month_start date not null,
+    category varchar(50) not null,
+    total decimal(14, 2) not null,
+    count integer not null,
+    primary key (user_id, kind, month_start, category),
+    foreign key (user_id) references users(id) on delete cascade
+);
+
+create table if not exists expense_sketches (
+    expense_type varchar(50) primary key,
+    sketch mediumblob not null,
+    updated_at datetime not null
+);
+
+create table if not exists budget_flushes (
+    id integer primary key,
+    sequence bigint not null
+);
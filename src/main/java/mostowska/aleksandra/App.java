@@ -1,9 +1,14 @@
 package mostowska.aleksandra;
 
 import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.api.router.AnalyticsRouter;
+import mostowska.aleksandra.api.router.MetricsRouter;
 import mostowska.aleksandra.api.router.SecurityRouter;
+import mostowska.aleksandra.api.router.SqlMonitoringRouter;
 import mostowska.aleksandra.api.router.UsersRouter;
 import mostowska.aleksandra.config.AppConfig;
+import mostowska.aleksandra.config.server.EmbeddedServerConfigurer;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import static spark.Spark.*;
@@ -11,23 +16,51 @@ import static spark.Spark.*;
 @Slf4j // Lombok's annotation to enable logging in this class
 public class App {
     public static void main(String[] args) {
+        start();
+    }
+
+    /**
+     * Creates the application context and sets up the routes, which starts the server.
+     *
+     * @return The application context; closing it stops the server, then destroys the beans.
+     */
+    public static ConfigurableApplicationContext start() {
         log.info("Setting up routes"); // Log information about starting the route setup
 
         // Initialize a global exception handler to print error messages to the console
         initExceptionHandler(err -> System.out.println(err.getMessage()));
-        port(8080); // Set the server to listen on port 8080
 
         // Create an application context using the configuration from AppConfig class
         var context = new AnnotationConfigApplicationContext(AppConfig.class);
+        // Closes the context when the JVM exits, so that the beans flush what they hold back, e.g. budget changes
+        context.registerShutdownHook();
+
+        // Configure the port and thread pool of the embedded server before any route starts it
+        context.getBean(EmbeddedServerConfigurer.class).configure();
+
+        // Retrieve the MetricsRouter bean and set up request timing and the /metrics route.
+        // Its filters come first so that requests rejected by later filters are timed too
+        var metricsRouter = context.getBean("metricsRouter", MetricsRouter.class);
+        metricsRouter.routes();
+
+        // Retrieve the SqlMonitoringRouter bean and scope SQL statement accounting to each request
+        var sqlMonitoringRouter = context.getBean("sqlMonitoringRouter", SqlMonitoringRouter.class);
+        sqlMonitoringRouter.routes();
+
+        // Retrieve the SecurityRouter bean and configure routes related to security.
+        // Its authorization filter has to be registered before the user routes, as filters run in registration order
+        var securityRouter = context.getBean("securityRouter", SecurityRouter.class);
+        securityRouter.routes(); // Set up routes for security operations
 
         // Retrieve the UsersRouter bean and configure routes for user-related operations
         var usersRouter = context.getBean("usersRouter", UsersRouter.class);
         usersRouter.routes(); // Set up routes for user operations
 
-        // Retrieve the SecurityRouter bean and configure routes related to security
-        var securityRouter = context.getBean("securityRouter", SecurityRouter.class);
-        securityRouter.routes(); // Set up routes for security operations
+        // Retrieve the AnalyticsRouter bean and configure the admin routes maintaining the analytics data
+        var analyticsRouter = context.getBean("analyticsRouter", AnalyticsRouter.class);
+        analyticsRouter.routes();
 
         log.info("Routes set up complete"); // Log information about the completion of route setup
+        return context;
     }
 }
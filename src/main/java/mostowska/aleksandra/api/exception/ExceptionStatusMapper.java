@@ -0,0 +1,110 @@
+package mostowska.aleksandra.api.exception;
+
+import com.google.gson.JsonParseException;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.api.router.Utils;
+import mostowska.aleksandra.api.transformer.JsonTransformer;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.exception.ForbiddenException;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import org.springframework.stereotype.Component;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.util.Map;
+
+import static java.util.Map.entry;
+
+/**
+ * ExceptionStatusMapper turns exceptions thrown by routes and filters into JSON error responses
+ * written within the same request. The status is looked up by exception type, walking up the class
+ * hierarchy, so subclasses inherit the mapping of their closest mapped ancestor.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExceptionStatusMapper {
+    private static final ErrorMapping INTERNAL_SERVER_ERROR = new ErrorMapping(500, "Internal Server Error");
+
+    private static final Map<Class<?>, ErrorMapping> MAPPINGS = Map.ofEntries(
+            entry(ValidationException.class, new ErrorMapping(400, null)),
+            entry(IllegalArgumentException.class, new ErrorMapping(400, null)),
+            entry(DateTimeException.class, new ErrorMapping(400, null)),
+            entry(JsonParseException.class, new ErrorMapping(400, "Malformed request body")),
+            entry(ForbiddenException.class, new ErrorMapping(403, null)),
+            entry(JwtException.class, new ErrorMapping(403, "Access denied!")),
+            entry(NotFoundException.class, new ErrorMapping(404, null)),
+            entry(ConflictException.class, new ErrorMapping(409, null))
+    );
+
+    private static final ClassValue<ErrorMapping> RESOLVED_MAPPINGS = new ClassValue<>() {
+        @Override
+        protected ErrorMapping computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                var mapping = MAPPINGS.get(current);
+                if (mapping != null) {
+                    return mapping;
+                }
+            }
+            return INTERNAL_SERVER_ERROR;
+        }
+    };
+
+    private final JsonTransformer jsonTransformer;
+
+    /**
+     * Writes the error response for an exception. Unmapped exceptions are logged and answered with a generic
+     * 500 message, so internal details do not leak to the client.
+     *
+     * @param exception The exception thrown while handling the request.
+     * @param request   The request being handled.
+     * @param response  The response the error is written to.
+     */
+    public void handle(Exception exception, Request request, Response response) {
+        var mapping = RESOLVED_MAPPINGS.get(exception.getClass());
+        if (mapping == INTERNAL_SERVER_ERROR) {
+            log.error("Unhandled exception for {} {}", request.requestMethod(), request.uri(), exception);
+        }
+
+        // A body the route opened is given up either way; its compressor goes back to the pool
+        jsonTransformer.abortBody(request);
+        var raw = response.raw();
+        if (raw.isCommitted()) {
+            log.warn("Response already committed, cannot report error for {}: {}", request.uri(), exception.getMessage());
+            // Aborting the connection tells the client the body is incomplete, e.g. a streamed export
+            if (raw instanceof org.eclipse.jetty.server.Response jettyResponse) {
+                jettyResponse.getHttpChannel().abort(exception);
+            }
+            return;
+        }
+
+        // Drops what the route had buffered, so that the error is not appended to part of a body
+        raw.resetBuffer();
+        // An error must not be cached under the ETag of the data it failed to return
+        raw.setHeader("ETag", null);
+        // Nor declared compressed by a route that opened a compressed body; the error is compressed anew if at all
+        raw.setHeader("Content-Encoding", null);
+        Utils.setResponse(response, mapping.status());
+        var message = mapping.message() != null ? mapping.message() : exception.getMessage();
+        try {
+            jsonTransformer.write(new ResponseDto<>(message), request, response);
+        } catch (IOException e) {
+            log.warn("Failed to write error response for {}: {}", request.uri(), e.getMessage());
+        }
+    }
+
+    /**
+     * Status and optional fixed message for an exception type.
+     *
+     * @param status  The HTTP status code.
+     * @param message The message sent to the client, or null to send the exception message.
+     */
+    private record ErrorMapping(int status, String message) {
+    }
+}
@@ -0,0 +1,35 @@
+package mostowska.aleksandra.api.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.api.transformer.ResponseCommitListener;
+import mostowska.aleksandra.repository.monitoring.RequestSqlMonitor;
+import org.springframework.stereotype.Component;
+import spark.Request;
+import spark.Response;
+
+/**
+ * ServerTimingListener reports the statement count and database time of a request to the client in a
+ * Server-Timing header, e.g. `Server-Timing: db;desc="3 queries";dur=4.200`.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServerTimingListener implements ResponseCommitListener {
+    private final RequestSqlMonitor requestSqlMonitor;
+
+    /**
+     * Adds the Server-Timing header for the statements executed so far, as the body is about to be written.
+     *
+     * @param request  The request being handled.
+     * @param response The response about to be committed.
+     */
+    @Override
+    public void beforeCommit(Request request, Response response) {
+        var stats = requestSqlMonitor.current();
+        if (stats == null || stats.getStatementCount() == 0) {
+            return;
+        }
+        var durationMicros = stats.getTotalNanos() / 1_000;
+        response.raw().setHeader("Server-Timing", "db;desc=\"" + stats.getStatementCount() + " queries\";dur="
+                + durationMicros / 1000 + "." + String.format("%03d", durationMicros % 1000));
+    }
+}
@@ -0,0 +1,43 @@
+package mostowska.aleksandra.api.router;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.api.transformer.JsonTransformer;
+import mostowska.aleksandra.service.analytics.PopulationReportService;
+import mostowska.aleksandra.service.analytics.RollupService;
+import org.springframework.stereotype.Component;
+
+import static spark.Spark.*;
+
+/**
+ * AnalyticsRouter exposes the reports over all users and the maintenance of the analytics data under
+ * /admin/analytics, which has to be covered by `authorization.admin.uris`.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsRouter {
+    private final RollupService rollupService;
+    private final PopulationReportService populationReportService;
+    private final JsonTransformer jsonTransformer;
+
+    public void routes() {
+        path("/admin/analytics", () -> {
+            get(
+                    "/report",
+                    jsonTransformer.streaming((request, response) -> {
+                        Utils.setResponse(response, 200);
+                        return new ResponseDto<>(populationReportService.getPopulationReport());
+                    })
+            );
+
+            post(
+                    "/rollups/backfill",
+                    jsonTransformer.streaming((request, response) -> {
+                        rollupService.startBackfill();
+                        Utils.setResponse(response, 202);
+                        return new ResponseDto<>("Rollup backfill started");
+                    })
+            );
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package mostowska.aleksandra.api.router;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.api.transformer.ResponseCompressor;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import static spark.Spark.*;
+
+/**
+ * MetricsRouter times every request with filters around all other routes and exposes the collected metrics
+ * in the Prometheus text format at /metrics. The endpoint goes through the authorization filter like any other
+ * route, so it has to be listed in `authorization.public.uris` or `authorization.admin.uris` to be scraped.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsRouter {
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsService metricsService;
+    private final ResponseCompressor responseCompressor;
+
+    /**
+     * Defines the timing filters and the metrics route. Must be called before any other router, so that requests
+     * halted by their filters are timed as well.
+     */
+    public void routes() {
+        before((request, response) -> metricsService.requestStarted(request.requestMethod(), request.uri()));
+
+        // After-after filters run even when a filter halts or a route throws, once the status is final
+        afterAfter((request, response) -> metricsService.requestFinished(response.raw().getStatus()));
+
+        get("/metrics", (request, response) -> {
+            response.raw().setContentType(PROMETHEUS_CONTENT_TYPE);
+            response.status(200);
+            try (var writer = new BufferedWriter(new OutputStreamWriter(
+                    responseCompressor.open(request, response), StandardCharsets.UTF_8))) {
+                metricsService.writePrometheus(writer);
+            }
+            return "";
+        });
+    }
+}
@@ -4,13 +4,14 @@ import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.api.transformer.JsonTransformer;
+import mostowska.aleksandra.exception.ForbiddenException;
 import mostowska.aleksandra.model.dto.user.GetUserDto;
 import mostowska.aleksandra.service.security.AuthorizationCheckService;
 import mostowska.aleksandra.service.security.TokensService;
 import mostowska.aleksandra.service.dto.AuthenticationDto;
 import mostowska.aleksandra.service.dto.RefreshTokenDto;
 import org.springframework.stereotype.Component;
-import spark.ResponseTransformer;
 
 import java.math.BigDecimal;
 
@@ -25,7 +26,7 @@ import static spark.Spark.*;
 public class SecurityRouter {
     private final TokensService tokensService;
     private final AuthorizationCheckService authorizationCheckService;
-    private final ResponseTransformer responseTransformer;
+    private final JsonTransformer jsonTransformer;
     private final Gson gson;
 
     /**
@@ -34,19 +35,18 @@ public class SecurityRouter {
     public void routes() {
         // Middleware to check authorization for each request
         before((request, response) -> {
-            System.out.println("COOKIE ACCESS TOKEN: " + request.cookie("accessToken"));
-            System.out.println(request.cookies());
             if (!authorizationCheckService.authorize(
                     request.cookie("accessToken"),
                     request.uri())) {
-                halt(403, "Access denied!");
+                // Answered by ExceptionStatusMapper, as JSON like every other error
+                throw new ForbiddenException("Access denied!");
             }
         });
 
         path("/auth", () -> {
             post(
                     "/login",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         var authenticationDto = gson.fromJson(
                                 request.body(),
                                 AuthenticationDto.class
@@ -68,14 +68,12 @@ public class SecurityRouter {
                                 false,
                                 true);
                         return new ResponseDto<>(tokens);
-                    },
-                    responseTransformer
+                    })
             );
 
             post(
                     "/refresh",
-                    (request, response) -> {
-                        System.out.println("INSIDE REFRESH");
+                    jsonTransformer.streaming((request, response) -> {
                         var refreshTokenDto = gson.fromJson(
                                 request.body(),
                                 RefreshTokenDto.class
@@ -97,38 +95,34 @@ public class SecurityRouter {
                                 false,
                                 true);
                         return new ResponseDto<>(tokens);
-                    },
-                    responseTransformer
+                    })
             );
         });
 
         path("/api", () -> {
             get(
                     "/user/info",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         Utils.setResponse(response, 200);
                         return new ResponseDto<>(new GetUserDto(1L, "USER", "user@email.com",
                                 BigDecimal.ZERO, BigDecimal.ZERO));
-                    },
-                    responseTransformer
+                    })
             );
             get(
                     "/admin/info",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         Utils.setResponse(response, 200);
                         return new ResponseDto<>(new GetUserDto(1L, "ADMIN", "admin@email.com",
                                 BigDecimal.ZERO, BigDecimal.ZERO));
-                    },
-                    responseTransformer
+                    })
             );
             get(
                     "/is_auth",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         Utils.setResponse(response, 200);
                         return new ResponseDto<>(new GetUserDto(1L, "AUTH", "auth@email.com",
                                 BigDecimal.ZERO, BigDecimal.ZERO));
-                    },
-                    responseTransformer
+                    })
             );
         });
     }
@@ -0,0 +1,50 @@
+package mostowska.aleksandra.api.router;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.api.transformer.JsonTransformer;
+import mostowska.aleksandra.repository.monitoring.RequestSqlMonitor;
+import mostowska.aleksandra.repository.monitoring.SlowQueryLog;
+import org.springframework.stereotype.Component;
+
+import static spark.Spark.*;
+
+/**
+ * SqlMonitoringRouter scopes SQL accounting to each request and exposes the statement statistics
+ * under /admin/sql, which has to be covered by `authorization.admin.uris`.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlMonitoringRouter {
+    private final RequestSqlMonitor requestSqlMonitor;
+    private final SlowQueryLog slowQueryLog;
+    private final JsonTransformer jsonTransformer;
+
+    /**
+     * Defines the filters that start and end the accounting and the statistics routes.
+     * Must be called before routers issuing queries.
+     */
+    public void routes() {
+        before((request, response) -> requestSqlMonitor.begin());
+        afterAfter((request, response) ->
+                requestSqlMonitor.end(request.requestMethod() + " " + request.uri()));
+
+        path("/admin/sql", () -> {
+            get(
+                    "/stats",
+                    jsonTransformer.streaming((request, response) -> {
+                        Utils.setResponse(response, 200);
+                        return new ResponseDto<>(slowQueryLog.statistics());
+                    })
+            );
+
+            get(
+                    "/slow",
+                    jsonTransformer.streaming((request, response) -> {
+                        Utils.setResponse(response, 200);
+                        return new ResponseDto<>(slowQueryLog.recentSlowStatements());
+                    })
+            );
+        });
+    }
+}
@@ -4,20 +4,35 @@ import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.api.exception.ExceptionStatusMapper;
+import mostowska.aleksandra.api.transformer.JsonTransformer;
 import mostowska.aleksandra.model.dto.expense.CreateExpenseDto;
 import mostowska.aleksandra.model.dto.income.CreateIncomeDto;
 import mostowska.aleksandra.model.dto.investment.CreateInvestmentDto;
 import mostowska.aleksandra.model.dto.savings_goal.CreateSavingGoalDto;
 import mostowska.aleksandra.model.dto.user.CreateUserDto;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.service.analytics.RollupService;
+import mostowska.aleksandra.service.analytics.SpendPercentileService;
+import mostowska.aleksandra.service.analytics.UserAnalyticsService;
 import mostowska.aleksandra.service.budget.ExpenseService;
 import mostowska.aleksandra.service.budget.IncomeService;
 import mostowska.aleksandra.service.budget.InvestmentService;
 import mostowska.aleksandra.service.budget.SavingsGoalService;
+import mostowska.aleksandra.service.export.ExportFormat;
+import mostowska.aleksandra.service.export.ExportService;
 import mostowska.aleksandra.service.user.UserService;
+import mostowska.aleksandra.service.version.UserVersionService;
 import org.springframework.stereotype.Component;
-import spark.ResponseTransformer;
+import spark.Request;
+import spark.Response;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 import static spark.Spark.*;
 
@@ -35,12 +50,21 @@ public class UsersRouter {
     private final IncomeService incomeService;
     private final InvestmentService investmentService;
     private final SavingsGoalService savingsGoalService;
-    private final ResponseTransformer responseTransformer;
+    private final RollupService rollupService;
+    private final UserAnalyticsService userAnalyticsService;
+    private final SpendPercentileService spendPercentileService;
+    private final ExportService exportService;
+    private final UserVersionService userVersionService;
+    private final JsonTransformer jsonTransformer;
+    private final ExceptionStatusMapper exceptionStatusMapper;
     private final Gson gson;
 
     public void routes() {
 
         path("/users", () -> {
+            // Conditional GET for a user's resources, answered before any repository call
+            before("/*", this::checkNotModified);
+
             get("/test", (req, res) -> {
                 log.info("GET /users/test called");
                 return "Test route is working inside users!";
@@ -48,114 +72,175 @@ public class UsersRouter {
 
             get(
                     "",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         Utils.setResponse(response, 200);
                         return new ResponseDto<>(userService.getAllUsers());
-                    },
-                    responseTransformer
+                    })
             );
 
             get(
                     "/available_investments",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         Utils.setResponse(response, 200);
                         return new ResponseDto<>(investmentService.showAvailableInvestments());
-                    },
-                    responseTransformer
+                    })
             );
 
             post(
                     "",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         log.info("INSIDE POST /USERS");
                         var createUserDto = gson.fromJson(request.body(), CreateUserDto.class);
                         Utils.setResponse(response, 201);
                         return new ResponseDto<>(userService.register(createUserDto));
-                    },
-                    responseTransformer
+                    })
             );
 
             get(
                     "/activate",
-                    (request, response) -> {
+                    jsonTransformer.streaming((request, response) -> {
                         var id = Long.parseLong(request.queryParams("id"));
                         var timestamp = Long.parseLong(request.queryParams("timestamp"));
                         Utils.setResponse(response, 200);
                         return new ResponseDto<>(userService.activate(id, timestamp));
-                    },
-                    responseTransformer
+                    })
             );
 
             path("/:id", () -> {
                         get(
                                 "",
-                                (request, response) -> {
+                                jsonTransformer.streaming((request, response) -> {
                                     var userId = Long.parseLong(request.params(":id"));
                                     Utils.setResponse(response, 200);
                                     return new ResponseDto<>(userService.getUserById(userId));
-                                },
-                                responseTransformer
+                                })
                         );
 
                         get(
                                 "/budget",
-                                (request, response) -> {
+                                jsonTransformer.streaming((request, response) -> {
                                     var userId = Long.parseLong(request.params(":id"));
                                     Utils.setResponse(response, 200);
                                     return new ResponseDto<>(userService.getBudget(userId));
-                                },
-                                responseTransformer
+                                })
                         );
 
                         get(
                                 "/budget_after_goals",
-                                (request, response) -> {
+                                jsonTransformer.streaming((request, response) -> {
                                     var userId = Long.parseLong(request.params(":id"));
                                     Utils.setResponse(response, 200);
                                     return new ResponseDto<>(userService.getBudgetAfterGoals(userId));
-                                },
-                                responseTransformer
+                                })
+                        );
+
+                        get(
+                                "/analytics",
+                                jsonTransformer.streaming((request, response) -> {
+                                    var userId = Long.parseLong(request.params(":id"));
+                                    var to = lastMonth(request);
+                                    Utils.setResponse(response, 200);
+                                    return new ResponseDto<>(userAnalyticsService.getUserAnalytics(userId,
+                                            firstMonth(request, to), to));
+                                })
+                        );
+
+                        // Written record by record rather than through the JSON transformer, see ExportService
+                        get(
+                                "/export",
+                                (request, response) -> {
+                                    var userId = Long.parseLong(request.params(":id"));
+                                    var format = ExportFormat.of(request.queryParams("format"));
+                                    exportService.export(userId, format, new ExportService.BodyOpener() {
+                                        @Override
+                                        public OutputStream open() throws IOException {
+                                            response.status(200);
+                                            response.type(format.contentType());
+                                            response.header("Content-Disposition", "attachment; filename=\"user-"
+                                                    + userId + "." + format.fileExtension() + "\"");
+                                            return jsonTransformer.openBody(request, response);
+                                        }
+
+                                        @Override
+                                        public void abort() {
+                                            jsonTransformer.abortBody(request);
+                                        }
+                                    });
+                                    return "";
+                                }
                         );
 
                         path("/expenses", () -> {
                                     get(
                                             "",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 Utils.setResponse(response, 200);
-                                                return new ResponseDto<>(expenseService.getExpensesByUserId(userId));
-                                            },
-                                            responseTransformer
+                                                if (!hasPeriod(request)) {
+                                                    return new ResponseDto<>(expenseService.getExpensesByUserId(userId));
+                                                }
+                                                return new ResponseDto<>(expenseService
+                                                        .getExpensesByUserId(userId, periodStart(request), periodEnd(request)));
+                                            })
                                     );
                                 get(
                                         "total",
-                                        (request, response) -> {
+                                        jsonTransformer.streaming((request, response) -> {
+                                            var userId = Long.parseLong(request.params(":id"));
+                                            Utils.setResponse(response, 200);
+                                            if (!hasPeriod(request)) {
+                                                return new ResponseDto<>(expenseService.sumUsersExpenses(userId));
+                                            }
+                                            return new ResponseDto<>(expenseService
+                                                    .sumUsersExpenses(userId, periodStart(request), periodEnd(request)));
+                                        })
+                                );
+                                get(
+                                        "/by_category",
+                                        jsonTransformer.streaming((request, response) -> {
+                                            var userId = Long.parseLong(request.params(":id"));
+                                            var to = lastMonth(request);
+                                            Utils.setResponse(response, 200);
+                                            return new ResponseDto<>(rollupService.getCategoryBreakdown(userId,
+                                                    TransactionKind.EXPENSE, firstMonth(request, to), to));
+                                        })
+                                );
+                                get(
+                                        "/by_month",
+                                        jsonTransformer.streaming((request, response) -> {
+                                            var userId = Long.parseLong(request.params(":id"));
+                                            var to = lastMonth(request);
+                                            Utils.setResponse(response, 200);
+                                            return new ResponseDto<>(rollupService.getMonthlyTrend(userId,
+                                                    TransactionKind.EXPENSE, firstMonth(request, to), to));
+                                        })
+                                );
+                                get(
+                                        "/percentiles",
+                                        jsonTransformer.streaming((request, response) -> {
                                             var userId = Long.parseLong(request.params(":id"));
                                             Utils.setResponse(response, 200);
-                                            return new ResponseDto<>(expenseService.sumUsersExpenses(userId));
-                                        },
-                                        responseTransformer
+                                            return new ResponseDto<>(spendPercentileService.getSpendPercentiles(userId));
+                                        })
                                 );
                                     post(
                                             "",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 var createExpenseDto = gson.fromJson(request.body(),
                                                         CreateExpenseDto.class);
                                                 Utils.setResponse(response, 201);
                                                 return new ResponseDto<>(expenseService.addExpense(createExpenseDto, userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                     delete(
                                             "/:expenseId",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 var expenseId = Long.parseLong(request.params(":expenseId"));
                                                 Utils.setResponse(response, 200);
                                                 return new ResponseDto<>(expenseService.removeExpense(expenseId, userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                 }
                         );
@@ -163,42 +248,66 @@ public class UsersRouter {
                         path("/incomes", () -> {
                                     get(
                                             "",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 Utils.setResponse(response, 200);
-                                                return new ResponseDto<>(incomeService.getIncomesByUserId(userId));
-                                            },
-                                            responseTransformer
+                                                if (!hasPeriod(request)) {
+                                                    return new ResponseDto<>(incomeService.getIncomesByUserId(userId));
+                                                }
+                                                return new ResponseDto<>(incomeService
+                                                        .getIncomesByUserId(userId, periodStart(request), periodEnd(request)));
+                                            })
                                     );
                                 get(
                                         "total",
-                                        (request, response) -> {
+                                        jsonTransformer.streaming((request, response) -> {
                                             var userId = Long.parseLong(request.params(":id"));
                                             Utils.setResponse(response, 200);
-                                            return new ResponseDto<>(incomeService.sumUsersIncomes(userId));
-                                        },
-                                        responseTransformer
+                                            if (!hasPeriod(request)) {
+                                                return new ResponseDto<>(incomeService.sumUsersIncomes(userId));
+                                            }
+                                            return new ResponseDto<>(incomeService
+                                                    .sumUsersIncomes(userId, periodStart(request), periodEnd(request)));
+                                        })
+                                );
+                                get(
+                                        "/by_category",
+                                        jsonTransformer.streaming((request, response) -> {
+                                            var userId = Long.parseLong(request.params(":id"));
+                                            var to = lastMonth(request);
+                                            Utils.setResponse(response, 200);
+                                            return new ResponseDto<>(rollupService.getCategoryBreakdown(userId,
+                                                    TransactionKind.INCOME, firstMonth(request, to), to));
+                                        })
+                                );
+                                get(
+                                        "/by_month",
+                                        jsonTransformer.streaming((request, response) -> {
+                                            var userId = Long.parseLong(request.params(":id"));
+                                            var to = lastMonth(request);
+                                            Utils.setResponse(response, 200);
+                                            return new ResponseDto<>(rollupService.getMonthlyTrend(userId,
+                                                    TransactionKind.INCOME, firstMonth(request, to), to));
+                                        })
                                 );
                                     post(
                                             "",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 var createIncomeDto = gson.fromJson(request.body(),
                                                         CreateIncomeDto.class);
                                                 Utils.setResponse(response, 201);
                                                 return new ResponseDto<>(incomeService.addIncome(createIncomeDto, userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                     delete(
                                             "/:incomeId",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 var incomeId = Long.parseLong(request.params(":incomeId"));
                                                 Utils.setResponse(response, 200);
                                                 return new ResponseDto<>(incomeService.removeIncome(incomeId, userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                 }
                         );
@@ -206,42 +315,38 @@ public class UsersRouter {
                         path("/investments", () -> {
                                     get(
                                             "",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 Utils.setResponse(response, 200);
                                                 return new ResponseDto<>(investmentService.getInvestmentsByUserId(userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                     get(
                                             "total",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 Utils.setResponse(response, 200);
                                                 return new ResponseDto<>(investmentService.sumUsersInvestments(userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                     post(
                                             "",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 var createInvestmentDto = gson.fromJson(request.body(),
                                                         CreateInvestmentDto.class);
                                                 Utils.setResponse(response, 201);
                                                 return new ResponseDto<>(investmentService.addInvestment(createInvestmentDto, userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                     delete(
                                             "/:investmentId",
-                                            (request, response) -> {
+                                            jsonTransformer.streaming((request, response) -> {
                                                 var userId = Long.parseLong(request.params(":id"));
                                                 var investmentId = Long.parseLong(request.params(":incomeId"));
                                                 Utils.setResponse(response, 200);
                                                 return new ResponseDto<>(investmentService.removeInvestment(investmentId, userId));
-                                            },
-                                            responseTransformer
+                                            })
                                     );
                                 }
                         );
@@ -249,53 +354,48 @@ public class UsersRouter {
                 path("/goals", () -> {
                             get(
                                     "",
-                                    (request, response) -> {
+                                    jsonTransformer.streaming((request, response) -> {
                                         var userId = Long.parseLong(request.params(":id"));
                                         Utils.setResponse(response, 200);
                                         return new ResponseDto<>(savingsGoalService.getSavingGoalsByUserId(userId));
-                                    },
-                                    responseTransformer
+                                    })
                             );
                             get(
                                     "/total",
-                                    (request, response) -> {
+                                    jsonTransformer.streaming((request, response) -> {
                                         var userId = Long.parseLong(request.params(":id"));
                                         Utils.setResponse(response, 200);
                                         return new ResponseDto<>(savingsGoalService.sumTotalSavingsGoalsAmount(userId));
-                                    },
-                                    responseTransformer
+                                    })
                             );
                             get(
                                     "/:goalId/pursue_date",
-                                    (request, response) -> {
+                                    jsonTransformer.streaming((request, response) -> {
                                         var userId = Long.parseLong(request.params(":id"));
                                         var goalId = Long.parseLong(request.params(":goalId"));
                                         Utils.setResponse(response, 200);
                                         return new ResponseDto<>(savingsGoalService
                                                 .getDateToPursueChosenGoal(userId, goalId, BigDecimal.valueOf(1000)));
-                                    },
-                                    responseTransformer
+                                    })
                             );
                             post(
                                     "",
-                                    (request, response) -> {
+                                    jsonTransformer.streaming((request, response) -> {
                                         var userId = Long.parseLong(request.params(":id"));
                                         var createGoalDto = gson.fromJson(request.body(),
                                                 CreateSavingGoalDto.class);
                                         Utils.setResponse(response, 201);
                                         return new ResponseDto<>(savingsGoalService.addSavingGoal(createGoalDto, userId));
-                                    },
-                                    responseTransformer
+                                    })
                             );
                             delete(
                                     "/:goalId",
-                                    (request, response) -> {
+                                    jsonTransformer.streaming((request, response) -> {
                                         var userId = Long.parseLong(request.params(":id"));
                                         var goalId = Long.parseLong(request.params(":goalId"));
                                         Utils.setResponse(response, 200);
                                         return new ResponseDto<>(savingsGoalService.removeSavingGoal(goalId, userId));
-                                    },
-                                    responseTransformer
+                                    })
                             );
                         }
                 );
@@ -305,23 +405,8 @@ public class UsersRouter {
 
         });
 
-        exception(RuntimeException.class, (ex, request, response) -> {
-            var exceptionMessage = ex.getMessage();
-            System.out.println("EX: " + exceptionMessage);
-            response.redirect("/error?msg=" + exceptionMessage, 301);
-        });
-
-        path("/error", () ->
-                get(
-                        "",
-                        (request, response) -> {
-                            Utils.setResponse(response, 500);
-                            var message = request.queryParams("msg");
-                            return new ResponseDto<>(message);
-                        },
-                        responseTransformer
-                )
-        );
+        // Errors are answered directly with a JSON body and the status mapped for the exception type
+        exception(Exception.class, exceptionStatusMapper::handle);
 
         internalServerError((request, response) -> {
             response.header("Content-Type", "application/json;charset=utf-8");
@@ -333,4 +418,133 @@ public class UsersRouter {
             return gson.toJson(new ResponseDto<>("Not found"));
         });
     }
+
+    /**
+     * Checks whether a request for a user's expenses or incomes is limited to a period.
+     *
+     * @param request The incoming request.
+     * @return true if the `from` or the `to` query parameter is given.
+     */
+    private static boolean hasPeriod(Request request) {
+        return request.queryParams("from") != null || request.queryParams("to") != null;
+    }
+
+    /**
+     * Reads the start of a period from the `from` query parameter, a date formatted as 2025-01-31.
+     *
+     * @param request The incoming request.
+     * @return The start of that day, or null if not given.
+     */
+    private static LocalDateTime periodStart(Request request) {
+        var from = request.queryParams("from");
+        return from == null ? null : LocalDate.parse(from).atStartOfDay();
+    }
+
+    /**
+     * Reads the end of a period from the `to` query parameter, a date formatted as 2025-01-31 and included
+     * in the period.
+     *
+     * @param request The incoming request.
+     * @return The start of the following day, or null if not given.
+     */
+    private static LocalDateTime periodEnd(Request request) {
+        var to = request.queryParams("to");
+        return to == null ? null : LocalDate.parse(to).plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Reads the last month of a report period from the `to` query parameter, formatted as 2025-01.
+     *
+     * @param request The incoming request.
+     * @return The month, the current one if not given.
+     */
+    private static YearMonth lastMonth(Request request) {
+        var to = request.queryParams("to");
+        return to == null ? YearMonth.now() : YearMonth.parse(to);
+    }
+
+    /**
+     * Reads the first month of a report period from the `from` query parameter, formatted as 2025-01.
+     *
+     * @param request The incoming request.
+     * @param to      The last month of the period.
+     * @return The month, the one starting a year-long period if not given.
+     */
+    private static YearMonth firstMonth(Request request, YearMonth to) {
+        var from = request.queryParams("from");
+        return from == null ? to.minusMonths(11) : YearMonth.parse(from);
+    }
+
+    /**
+     * Tags GET responses for a user's resources with an ETag derived from the user's version and halts with
+     * 304 Not Modified when the client already holds that version. The pursue date route and reports without
+     * an explicit end month are left out, as their results depend on the current date rather than only on the
+     * user's data, and so are the percentiles, which depend on the expenses of all users.
+     *
+     * @param request  The incoming request.
+     * @param response The response to be tagged.
+     */
+    private void checkNotModified(Request request, Response response) {
+        if (!"GET".equals(request.requestMethod()) || request.uri().endsWith("/pursue_date")
+                || request.uri().endsWith("/percentiles")
+                || ((request.uri().contains("/by_") || request.uri().endsWith("/analytics"))
+                && request.queryParams("to") == null)) {
+            return;
+        }
+        var userId = parseUserId(request.splat()[0]);
+        if (userId == null) {
+            return;
+        }
+
+        var etag = userVersionService.etag(userId);
+        response.raw().setHeader("ETag", etag);
+        response.raw().setHeader("Cache-Control", "private, no-cache");
+        if (matchesEtag(request.headers("If-None-Match"), etag)) {
+            halt(304);
+        }
+    }
+
+    /**
+     * Reads the user ID from the first path segment after /users.
+     *
+     * @param path The path following /users/.
+     * @return The user ID, or null if the segment is not numeric, as for /users/activate.
+     */
+    private static Long parseUserId(String path) {
+        var end = path.indexOf('/');
+        var segment = end < 0 ? path : path.substring(0, end);
+        if (segment.isEmpty() || segment.length() > 18) {
+            return null;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return null;
+            }
+        }
+        return Long.parseLong(segment);
+    }
+
+    /**
+     * Checks an If-None-Match header against an entity tag using weak comparison.
+     *
+     * @param ifNoneMatch The header value, possibly null.
+     * @param etag        The current entity tag.
+     * @return true if one of the listed tags matches.
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        var opaqueTag = etag.substring(2);
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
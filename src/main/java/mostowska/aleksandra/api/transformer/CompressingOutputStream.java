@@ -0,0 +1,168 @@
+package mostowska.aleksandra.api.transformer;
+
+import mostowska.aleksandra.api.transformer.ResponseCompressor.Compressor;
+import mostowska.aleksandra.api.transformer.ResponseCompressor.ContentEncoding;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * CompressingOutputStream holds back the first bytes of a response until it knows whether the body reaches
+ * the minimum size. Smaller bodies are sent as they are; larger ones get the negotiated Content-Encoding
+ * and are compressed with a pooled deflater. Closing the stream completes the response.
+ */
+final class CompressingOutputStream extends OutputStream {
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final ResponseCompressor responseCompressor;
+    private final ContentEncoding encoding;
+    private final HttpServletResponse response;
+    private final OutputStream out;
+    private final byte[] pending;
+
+    private int pendingCount;
+    private Compressor compressor;
+    private boolean closed;
+
+    CompressingOutputStream(
+            ResponseCompressor responseCompressor,
+            ContentEncoding encoding,
+            HttpServletResponse response,
+            OutputStream out,
+            int minSize) {
+        this.responseCompressor = responseCompressor;
+        this.encoding = encoding;
+        this.response = response;
+        this.out = out;
+        this.pending = new byte[minSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (compressor == null) {
+            if (pendingCount + len < pending.length) {
+                System.arraycopy(b, off, pending, pendingCount, len);
+                pendingCount += len;
+                return;
+            }
+            startCompression();
+        }
+        deflate(b, off, len);
+    }
+
+    /**
+     * Flushes compressed data written so far. Bytes still held back below the minimum size stay buffered.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (compressor != null) {
+            drain(Deflater.SYNC_FLUSH);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (compressor == null) {
+                out.write(pending, 0, pendingCount);
+            } else {
+                finishCompression();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Gives the compressor back to the pool without completing the body, e.g. when writing it failed partway, so
+     * that a compressed body is left without its trailer. Nothing is written, and closing the stream afterwards
+     * does nothing.
+     */
+    void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (compressor != null) {
+            responseCompressor.release(encoding, compressor);
+            compressor = null;
+        }
+    }
+
+    private void startCompression() throws IOException {
+        compressor = responseCompressor.borrow(encoding);
+        response.setHeader("Content-Encoding", encoding.token());
+        if (encoding == ContentEncoding.GZIP) {
+            out.write(GZIP_HEADER);
+        }
+        deflate(pending, 0, pendingCount);
+        pendingCount = 0;
+    }
+
+    private void deflate(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        compressor.crc.update(b, off, len);
+        compressor.deflater.setInput(b, off, len);
+        while (!compressor.deflater.needsInput()) {
+            writeOutput(compressor.deflater.deflate(compressor.output, 0, compressor.output.length, Deflater.NO_FLUSH));
+        }
+    }
+
+    private void drain(int flushMode) throws IOException {
+        int count;
+        do {
+            count = compressor.deflater.deflate(compressor.output, 0, compressor.output.length, flushMode);
+            writeOutput(count);
+        } while (count == compressor.output.length);
+    }
+
+    private void finishCompression() throws IOException {
+        try {
+            var deflater = compressor.deflater;
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeOutput(deflater.deflate(compressor.output, 0, compressor.output.length));
+            }
+            if (encoding == ContentEncoding.GZIP) {
+                writeTrailer((int) compressor.crc.getValue(), (int) deflater.getBytesRead());
+            }
+        } finally {
+            responseCompressor.release(encoding, compressor);
+            compressor = null;
+        }
+    }
+
+    private void writeOutput(int count) throws IOException {
+        if (count > 0) {
+            out.write(compressor.output, 0, count);
+        }
+    }
+
+    private void writeTrailer(int crc, int size) throws IOException {
+        var trailer = compressor.output;
+        writeIntLe(trailer, 0, crc);
+        writeIntLe(trailer, 4, size);
+        out.write(trailer, 0, 8);
+    }
+
+    private static void writeIntLe(byte[] b, int off, int value) {
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >> 8);
+        b[off + 2] = (byte) (value >> 16);
+        b[off + 3] = (byte) (value >> 24);
+    }
+}
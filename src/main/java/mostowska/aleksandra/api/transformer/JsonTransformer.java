@@ -1,14 +1,31 @@
 package mostowska.aleksandra.api.transformer;
 
 import com.google.gson.Gson; // Import the Gson library for JSON serialization
+import com.google.gson.JsonNull;
 import lombok.RequiredArgsConstructor; // Import Lombok for constructor generation
 import org.springframework.stereotype.Component; // Import Spring's Component annotation for component scanning
+import spark.Request;
+import spark.Response;
 import spark.ResponseTransformer; // Import Spark's ResponseTransformer interface for response transformation
+import spark.Route;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 @Component // Mark this class as a Spring component for dependency injection
 @RequiredArgsConstructor // Generate a constructor for all final fields, including Gson
 public class JsonTransformer implements ResponseTransformer {
+    private static final String PRETTY_QUERY_PARAM = "pretty";
+    private static final String PRETTY_INDENT = "  ";
+    private static final int WRITER_POOL_SIZE = 64;
+
     private final Gson gson; // Instance of Gson for converting objects to JSON
+    private final ResponseCompressor responseCompressor;
+    private final List<ResponseCommitListener> commitListeners;
+    private final BlockingQueue<Utf8StreamWriter> writers = new ArrayBlockingQueue<>(WRITER_POOL_SIZE);
 
     /**
      * Transforms the given object into a JSON string.
@@ -21,4 +38,103 @@ public class JsonTransformer implements ResponseTransformer {
     public String render(Object o) throws Exception {
         return gson.toJson(o); // Convert the object to JSON and return it
     }
+
+    /**
+     * Wraps a route so that its result is serialized straight onto the response output stream
+     * instead of being rendered into an intermediate String first.
+     *
+     * @param route The route producing the object to be serialized.
+     * @return A route that writes the JSON itself and leaves Spark nothing to copy.
+     */
+    public Route streaming(Route route) {
+        return (request, response) -> {
+            var body = route.handle(request, response);
+            write(body, request, response);
+            return "";
+        };
+    }
+
+    /**
+     * Serializes the given object with a JsonWriter directly onto the response output stream and completes
+     * the response. Output is compact unless the request carries the `pretty=true` query flag, and it is
+     * compressed when the client accepts it and the body is large enough, see ResponseCompressor.
+     * Headers must be set before calling this method, as the response is committed when it returns;
+     * registered ResponseCommitListeners get a last chance to add theirs.
+     *
+     * @param o        The object to be serialized.
+     * @param request  The request, checked for the pretty printing flag.
+     * @param response The response the JSON is written to.
+     * @throws IOException If writing to the response fails.
+     */
+    public void write(Object o, Request request, Response response) throws IOException {
+        var out = openBody(request, response);
+        write(o, out, isPretty(request));
+        out.close();
+    }
+
+    /**
+     * Opens the response body for routes that write it themselves, e.g. in other formats than JSON, after the
+     * registered ResponseCommitListeners have added their headers. The body is compressed as by write.
+     *
+     * @param request  The request carrying the Accept-Encoding header.
+     * @param response The response the body is written to; its headers must be set.
+     * @return The stream for the response body; closing it completes the response.
+     * @throws IOException If the servlet output stream cannot be obtained.
+     */
+    public OutputStream openBody(Request request, Response response) throws IOException {
+        for (var listener : commitListeners) {
+            listener.beforeCommit(request, response);
+        }
+        return responseCompressor.open(request, response);
+    }
+
+    /**
+     * Gives back what a body opened for the request holds, if it was not closed, without completing it; for when
+     * writing the body failed. See ResponseCompressor.abort.
+     *
+     * @param request The request the body was opened for.
+     */
+    public void abortBody(Request request) {
+        responseCompressor.abort(request);
+    }
+
+    /**
+     * Serializes the given object with a JsonWriter onto the given stream using a pooled encoding buffer.
+     * The stream is neither flushed nor closed.
+     *
+     * @param o      The object to be serialized.
+     * @param out    The stream the UTF-8 encoded JSON is written to.
+     * @param pretty Whether the output should be indented.
+     * @throws IOException If writing to the stream fails.
+     */
+    public void write(Object o, OutputStream out, boolean pretty) throws IOException {
+        var writer = borrowWriter(out);
+        try {
+            var jsonWriter = gson.newJsonWriter(writer);
+            if (pretty) {
+                jsonWriter.setIndent(PRETTY_INDENT);
+            }
+            if (o == null) {
+                gson.toJson(JsonNull.INSTANCE, jsonWriter);
+            } else {
+                gson.toJson(o, o.getClass(), jsonWriter);
+            }
+            jsonWriter.flush();
+        } finally {
+            releaseWriter(writer);
+        }
+    }
+
+    private boolean isPretty(Request request) {
+        return Boolean.parseBoolean(request.queryParams(PRETTY_QUERY_PARAM));
+    }
+
+    private Utf8StreamWriter borrowWriter(OutputStream out) {
+        var writer = writers.poll();
+        return (writer == null ? new Utf8StreamWriter() : writer).reset(out);
+    }
+
+    private void releaseWriter(Utf8StreamWriter writer) {
+        writers.offer(writer.reset(null));
+    }
 }
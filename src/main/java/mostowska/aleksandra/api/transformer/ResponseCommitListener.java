@@ -0,0 +1,12 @@
+package mostowska.aleksandra.api.transformer;
+
+import spark.Request;
+import spark.Response;
+
+/**
+ * ResponseCommitListener is notified right before JsonTransformer starts writing a response body,
+ * the last moment at which headers can still be added.
+ */
+public interface ResponseCommitListener {
+    void beforeCommit(Request request, Response response);
+}
@@ -0,0 +1,225 @@
+package mostowska.aleksandra.api.transformer;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import spark.Request;
+import spark.Response;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * ResponseCompressor negotiates Accept-Encoding for responses written by the application and compresses
+ * bodies with gzip or deflate once they grow past a configurable size. Deflaters are pooled and reused; a body
+ * gives its deflater back when it is closed, or, if writing it fails, when it is aborted.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCompressor {
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+    private static final String OPEN_BODY_ATTRIBUTE = ResponseCompressor.class.getName() + ".openBody";
+
+    private final MetricsService metricsService;
+
+    @Value("${compression.min_size:1024}")
+    private int minSize;
+
+    @Value("${compression.mime_types:application/json,text/plain,text/csv,application/x-ndjson}")
+    private String mimeTypesProperty;
+
+    @Value("${compression.level:6}")
+    private int level;
+
+    @Value("${compression.pool_size:32}")
+    private int poolSize;
+
+    private Set<String> mimeTypes;
+    private BlockingQueue<Compressor> gzipCompressors;
+    private BlockingQueue<Compressor> deflateCompressors;
+    private final AtomicLong compressorsInUse = new AtomicLong();
+
+    /**
+     * Initializes the MIME type table and the compressor pools after the bean has been constructed, and registers
+     * the gauge of compressors in use, which keeps growing if bodies are neither closed nor aborted.
+     */
+    @PostConstruct
+    public void init() {
+        mimeTypes = Arrays.stream(mimeTypesProperty.split(","))
+                .map(String::trim)
+                .map(mimeType -> mimeType.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        gzipCompressors = new ArrayBlockingQueue<>(poolSize);
+        deflateCompressors = new ArrayBlockingQueue<>(poolSize);
+        metricsService.registerGauge("response_compressors_in_use", "Compressors held by response bodies",
+                compressorsInUse::get);
+    }
+
+    /**
+     * Opens the stream a response body should be written to. When the content type is compressible and the client
+     * accepts gzip or deflate, the returned stream buffers up to the minimum size and compresses anything larger.
+     * Closing the returned stream completes the response. Headers must be set before calling this method.
+     *
+     * @param request  The request carrying the Accept-Encoding header.
+     * @param response The response the body is written to.
+     * @return The stream for the response body.
+     * @throws IOException If the servlet output stream cannot be obtained.
+     */
+    public OutputStream open(Request request, Response response) throws IOException {
+        var raw = response.raw();
+        var out = raw.getOutputStream();
+        if (!isCompressible(raw.getContentType())) {
+            return out;
+        }
+        raw.setHeader("Vary", "Accept-Encoding");
+        var encoding = ContentEncoding.negotiate(request.headers("Accept-Encoding"));
+        if (encoding == ContentEncoding.IDENTITY) {
+            return out;
+        }
+        var body = new CompressingOutputStream(this, encoding, raw, out, minSize);
+        request.raw().setAttribute(OPEN_BODY_ATTRIBUTE, body);
+        return body;
+    }
+
+    /**
+     * Gives back the compressor of a body opened for the request and not closed, e.g. because writing it failed,
+     * without completing the body, so that a compressed one is left without its trailer. Does nothing if the body
+     * was not compressed or is already closed.
+     *
+     * @param request The request the body was opened for.
+     */
+    public void abort(Request request) {
+        if (request.raw().getAttribute(OPEN_BODY_ATTRIBUTE) instanceof CompressingOutputStream body) {
+            request.raw().removeAttribute(OPEN_BODY_ATTRIBUTE);
+            body.abort();
+        }
+    }
+
+    /**
+     * Returns the number of compressors borrowed by response bodies and not yet given back.
+     *
+     * @return The number of compressors in use.
+     */
+    public long compressorsInUse() {
+        return compressorsInUse.get();
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        var separator = contentType.indexOf(';');
+        var mimeType = (separator < 0 ? contentType : contentType.substring(0, separator)).trim();
+        return mimeTypes.contains(mimeType.toLowerCase(Locale.ROOT));
+    }
+
+    Compressor borrow(ContentEncoding encoding) {
+        compressorsInUse.incrementAndGet();
+        var compressor = pool(encoding).poll();
+        return compressor != null ? compressor : new Compressor(new Deflater(level, encoding == ContentEncoding.GZIP));
+    }
+
+    void release(ContentEncoding encoding, Compressor compressor) {
+        compressorsInUse.decrementAndGet();
+        compressor.deflater.reset();
+        compressor.crc.reset();
+        if (!pool(encoding).offer(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    private BlockingQueue<Compressor> pool(ContentEncoding encoding) {
+        return encoding == ContentEncoding.GZIP ? gzipCompressors : deflateCompressors;
+    }
+
+    /**
+     * A deflater together with its output buffer and checksum, pooled as one unit.
+     */
+    static final class Compressor {
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+
+        private Compressor(Deflater deflater) {
+            this.deflater = deflater;
+        }
+    }
+
+    /**
+     * Content codings supported for responses, in order of server preference.
+     */
+    enum ContentEncoding {
+        GZIP("gzip"),
+        DEFLATE("deflate"),
+        IDENTITY("identity");
+
+        private final String token;
+
+        ContentEncoding(String token) {
+            this.token = token;
+        }
+
+        String token() {
+            return token;
+        }
+
+        /**
+         * Picks the coding with the highest quality value from an Accept-Encoding header.
+         * Ties are resolved in favour of gzip, and codings with a quality of zero are never chosen.
+         *
+         * @param acceptEncoding The header value, possibly null.
+         * @return The chosen coding, IDENTITY when neither gzip nor deflate is acceptable.
+         */
+        static ContentEncoding negotiate(String acceptEncoding) {
+            if (acceptEncoding == null || acceptEncoding.isBlank()) {
+                return IDENTITY;
+            }
+            double gzip = -1;
+            double deflate = -1;
+            double wildcard = -1;
+            for (var part : acceptEncoding.split(",")) {
+                var separator = part.indexOf(';');
+                var coding = (separator < 0 ? part : part.substring(0, separator)).trim();
+                var quality = separator < 0 ? 1.0 : parseQuality(part.substring(separator + 1));
+                if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                    gzip = Math.max(gzip, quality);
+                } else if (coding.equalsIgnoreCase("deflate")) {
+                    deflate = Math.max(deflate, quality);
+                } else if (coding.equals("*")) {
+                    wildcard = quality;
+                }
+            }
+            gzip = gzip < 0 ? wildcard : gzip;
+            deflate = deflate < 0 ? wildcard : deflate;
+            if (gzip <= 0 && deflate <= 0) {
+                return IDENTITY;
+            }
+            return gzip >= deflate ? GZIP : DEFLATE;
+        }
+
+        private static double parseQuality(String parameters) {
+            for (var parameter : parameters.split(";")) {
+                var trimmed = parameter.trim();
+                if (trimmed.length() > 2 && (trimmed.charAt(0) == 'q' || trimmed.charAt(0) == 'Q') && trimmed.charAt(1) == '=') {
+                    try {
+                        return Double.parseDouble(trimmed.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+            return 1.0;
+        }
+    }
+}
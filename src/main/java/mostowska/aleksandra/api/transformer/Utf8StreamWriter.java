@@ -0,0 +1,136 @@
+package mostowska.aleksandra.api.transformer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Utf8StreamWriter is a reusable writer that encodes characters as UTF-8 straight onto an output stream.
+ * Its char and byte buffers are allocated once, so instances are meant to be pooled and re-targeted
+ * with {@link #reset(OutputStream)} instead of being created per response.
+ */
+final class Utf8StreamWriter extends Writer {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final char[] chars = new char[BUFFER_SIZE];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE * 3);
+    private final CharsetEncoder encoder = UTF_8
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private OutputStream out;
+    private int count;
+
+    /**
+     * Points the writer at a new output stream and clears any state left from the previous use.
+     *
+     * @param out The stream the encoded bytes are written to, or null to detach the writer.
+     * @return This writer, ready to be used.
+     */
+    Utf8StreamWriter reset(OutputStream out) {
+        this.out = out;
+        this.count = 0;
+        encoder.reset();
+        return this;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (count == chars.length) {
+            encode(false);
+        }
+        chars[count++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chars.length) {
+                encode(false);
+            }
+            var chunk = Math.min(len, chars.length - count);
+            System.arraycopy(cbuf, off, chars, count, chunk);
+            count += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chars.length) {
+                encode(false);
+            }
+            var chunk = Math.min(len, chars.length - count);
+            str.getChars(off, off + chunk, chars, count);
+            count += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Encodes everything buffered so far onto the target stream. The target stream itself is not flushed,
+     * which leaves committing the response to the caller.
+     */
+    @Override
+    public void flush() throws IOException {
+        encode(true);
+    }
+
+    /**
+     * Encodes the remaining characters. Closing does not close the target stream.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Encodes the buffered characters into the byte buffer and writes them out. A trailing high surrogate
+     * is kept in the char buffer unless this is the end of input, so pairs split across writes stay intact.
+     *
+     * @param endOfInput Whether no more characters will follow.
+     * @throws IOException If writing to the target stream fails.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        charBuffer.limit(count).position(0);
+        CoderResult result;
+        do {
+            result = encoder.encode(charBuffer, byteBuffer, endOfInput);
+            drainBytes();
+        } while (result.isOverflow());
+
+        if (endOfInput) {
+            while (encoder.flush(byteBuffer).isOverflow()) {
+                drainBytes();
+            }
+            drainBytes();
+            encoder.reset();
+        }
+
+        var remaining = charBuffer.remaining();
+        if (remaining > 0) {
+            System.arraycopy(chars, charBuffer.position(), chars, 0, remaining);
+        }
+        count = remaining;
+        charBuffer.clear();
+    }
+
+    private void drainBytes() throws IOException {
+        if (byteBuffer.position() > 0) {
+            out.write(byteBuffer.array(), 0, byteBuffer.position());
+            byteBuffer.clear();
+        }
+    }
+}
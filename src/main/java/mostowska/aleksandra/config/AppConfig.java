@@ -5,8 +5,12 @@ import com.google.gson.GsonBuilder;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import lombok.RequiredArgsConstructor;
-import mostowska.aleksandra.config.adapter.LocalDateTimeAdapter;
+import mostowska.aleksandra.config.adapter.DtoTypeAdapterFactory;
+import mostowska.aleksandra.config.database.BoundedConnectionFactory;
+import mostowska.aleksandra.config.database.MoneyPlugin;
+import mostowska.aleksandra.repository.monitoring.CompositeSqlLogger;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.SqlLogger;
 import org.simplejavamail.api.mailer.Mailer;
 import org.simplejavamail.api.mailer.config.TransportStrategy;
 import org.simplejavamail.config.ConfigLoader;
@@ -20,7 +24,8 @@ import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.crypto.SecretKey;
-import java.time.LocalDateTime;
+import java.sql.DriverManager;
+import java.util.List;
 
 /**
  * Configuration class for setting up application-level beans and settings.
@@ -37,14 +42,16 @@ public class AppConfig {
 
     /**
      * Provides a Gson bean for JSON processing.
+     * Output is compact; pretty printing is opt-in per request, see JsonTransformer.
      *
-     * @return A Gson instance configured for pretty printing and custom LocalDateTime handling.
+     * DTO records, enums and LocalDateTime are handled by hand-written adapters instead of reflection.
+     *
+     * @return A Gson instance configured with the DTO type adapters.
      */
     @Bean
     public Gson gson() {
         return new GsonBuilder()
-                .setPrettyPrinting()  // Configures Gson to format JSON output for readability
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapterFactory(new DtoTypeAdapterFactory())
                 .create();  // Creates the Gson instance
     }
 
@@ -58,18 +65,38 @@ public class AppConfig {
         return PasswordEncoderFactories.createDelegatingPasswordEncoder();
     }
 
+    /**
+     * Provides the connection factory used by Jdbi. It opens connections through the JDBC driver
+     * and caps how many are open at once, which matters when requests run on virtual threads.
+     *
+     * @return A BoundedConnectionFactory configured with database connection properties.
+     */
+    @Bean
+    public BoundedConnectionFactory connectionFactory() {
+        var url = environment.getRequiredProperty("db.url");
+        var username = environment.getRequiredProperty("db.username");
+        var password = environment.getRequiredProperty("db.password");
+        return new BoundedConnectionFactory(
+                () -> DriverManager.getConnection(url, username, password),
+                environment.getProperty("db.max_concurrent_connections", Integer.class, 32),
+                environment.getProperty("db.connection_timeout_ms", Long.class, 30000L)
+        );
+    }
+
     /**
      * Provides a Jdbi bean for database interactions.
      *
+     * Every statement is reported to the SqlLogger beans, e.g. for per-request accounting.
+     *
+     * @param connectionFactory The factory providing database connections.
+     * @param sqlLoggers        The loggers notified of each executed statement.
      * @return A Jdbi instance configured with database connection properties.
      */
     @Bean
-    public Jdbi jdbi() {
-        var jdbi = Jdbi.create(
-                environment.getRequiredProperty("db.url"),
-                environment.getRequiredProperty("db.username"),
-                environment.getRequiredProperty("db.password")
-        );
+    public Jdbi jdbi(BoundedConnectionFactory connectionFactory, List<SqlLogger> sqlLoggers) {
+        var jdbi = Jdbi.create(connectionFactory);
+        jdbi.installPlugin(new MoneyPlugin());
+        jdbi.setSqlLogger(new CompositeSqlLogger(sqlLoggers));
 
         // TODO: The following code creates database tables, currently commented out
 //        var usersTableSql = """
@@ -95,8 +122,10 @@ public class AppConfig {
 //            amount DECIMAL(10, 2) not null,
 //            frequency varchar(50) not null,
 //            custom_frequency integer,
+//            occurred_at datetime not null default current_timestamp,
 //            user_id integer not null,
-//            foreign key (user_id) references users(id) on delete cascade
+//            foreign key (user_id) references users(id) on delete cascade,
+//            index expenses_user_occurred_at (user_id, occurred_at)
 //        );
 //        """;
 //        jdbi.useHandle(handle -> handle.execute(expensesTableSql));
@@ -110,8 +139,10 @@ public class AppConfig {
 //            amount DECIMAL(10, 2) not null,
 //            frequency varchar(50) not null,
 //            custom_frequency integer,
+//            occurred_at datetime not null default current_timestamp,
 //            user_id integer not null,
-//            foreign key (user_id) references users(id) on delete cascade
+//            foreign key (user_id) references users(id) on delete cascade,
+//            index incomes_user_occurred_at (user_id, occurred_at)
 //        );
 //        """;
 //        jdbi.useHandle(handle -> handle.execute(incomesTableSql));
@@ -172,6 +203,56 @@ public class AppConfig {
 //            );
 //            """;
 //        jdbi.useHandle(handle -> handle.execute(goalsTable));
+//
+//        var emailOutboxTable = """
+//            create table if not exists email_outbox (
+//                id integer primary key auto_increment,
+//                receiver varchar(255) not null,
+//                subject varchar(255) not null,
+//                html_content text not null,
+//                status varchar(20) not null,
+//                attempts integer not null default 0,
+//                next_attempt_at datetime not null,
+//                claim_token varchar(36),
+//                claimed_at datetime,
+//                last_error varchar(500),
+//                created_at datetime not null,
+//                sent_at datetime,
+//                index email_outbox_due (status, next_attempt_at)
+//            );
+//            """;
+//        jdbi.useHandle(handle -> handle.execute(emailOutboxTable));
+//
+//        var monthlyRollupsTable = """
+//            create table if not exists monthly_rollups (
+//                user_id integer not null,
+//                kind varchar(10) not null,
+//                month_start date not null,
+//                category varchar(50) not null,
+//                total DECIMAL(14, 2) not null,
+//                count integer not null,
+//                primary key (user_id, kind, month_start, category),
+//                foreign key (user_id) references users(id) on delete cascade
+//            );
+//            """;
+//        jdbi.useHandle(handle -> handle.execute(monthlyRollupsTable));
+//
+//        var expenseSketchesTable = """
+//            create table if not exists expense_sketches (
+//                expense_type varchar(50) primary key,
+//                sketch mediumblob not null,
+//                updated_at datetime not null
+//            );
+//            """;
+//        jdbi.useHandle(handle -> handle.execute(expenseSketchesTable));
+//
+//        var budgetFlushesTable = """
+//            create table if not exists budget_flushes (
+//                id integer primary key,
+//                sequence bigint not null
+//            );
+//            """;
+//        jdbi.useHandle(handle -> handle.execute(budgetFlushesTable));
 
         return jdbi;  // Returns the initialized Jdbi instance
     }
@@ -179,13 +260,21 @@ public class AppConfig {
     /**
      * Provides a Mailer bean for sending emails.
      *
-     * @return A Mailer instance configured with SMTPS transport strategy for secure email sending.
+     * The transport strategy is SMTPS unless `email.transport_strategy` says otherwise,
+     * e.g. SMTP for a local mail server stand-in during tests.
+     *
+     * Its inferred close method is not called when the context closes, as it needs the batch module, which is not
+     * on the classpath.
+     *
+     * @return A Mailer instance configured with the transport strategy for email sending.
      */
-    @Bean
+    @Bean(destroyMethod = "")
     public Mailer mailer() {
         ConfigLoader.loadProperties("email-config.properties", true);
+        var transportStrategy = environment.getProperty("email.transport_strategy", TransportStrategy.class,
+                TransportStrategy.SMTPS);
         return MailerBuilder
-                .withTransportStrategy(TransportStrategy.SMTPS)
+                .withTransportStrategy(transportStrategy)
                 .async()  // Enables asynchronous email sending
                 .buildMailer();
     }
@@ -0,0 +1,113 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import mostowska.aleksandra.api.dto.ResponseDto;
+import mostowska.aleksandra.model.dto.analytics.CategoryShareDto;
+import mostowska.aleksandra.model.dto.analytics.CategoryTotalDto;
+import mostowska.aleksandra.model.dto.analytics.MonthBalanceDto;
+import mostowska.aleksandra.model.dto.analytics.MonthTotalDto;
+import mostowska.aleksandra.model.dto.analytics.PopulationReportDto;
+import mostowska.aleksandra.model.dto.analytics.SpendPercentileDto;
+import mostowska.aleksandra.model.dto.analytics.UserAnalyticsDto;
+import mostowska.aleksandra.model.dto.expense.CreateExpenseDto;
+import mostowska.aleksandra.model.dto.expense.GetExpenseDto;
+import mostowska.aleksandra.model.dto.income.CreateIncomeDto;
+import mostowska.aleksandra.model.dto.income.GetIncomeDto;
+import mostowska.aleksandra.model.dto.investment.CreateInvestmentDto;
+import mostowska.aleksandra.model.dto.investment.GetAvailableInvestmentDto;
+import mostowska.aleksandra.model.dto.investment.GetInvestmentDto;
+import mostowska.aleksandra.model.dto.savings_goal.CreateSavingGoalDto;
+import mostowska.aleksandra.model.dto.savings_goal.GetSavingGoalDto;
+import mostowska.aleksandra.model.dto.user.CreateUserDto;
+import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.*;
+import mostowska.aleksandra.repository.monitoring.dto.SlowStatementDto;
+import mostowska.aleksandra.repository.monitoring.dto.SqlStatementStatsDto;
+import mostowska.aleksandra.service.dto.AuthenticationDto;
+import mostowska.aleksandra.service.dto.AuthorizationDto;
+import mostowska.aleksandra.service.dto.RefreshTokenDto;
+import mostowska.aleksandra.service.dto.TokensDto;
+
+import java.lang.reflect.ParameterizedType;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static java.util.Map.entry;
+import static mostowska.aleksandra.config.adapter.ModelDtoTypeAdapters.*;
+import static mostowska.aleksandra.config.adapter.MonitoringDtoTypeAdapters.*;
+import static mostowska.aleksandra.config.adapter.ServiceDtoTypeAdapters.*;
+
+/**
+ * TypeAdapterFactory that hands Gson the hand-written adapters for all DTO records and enums,
+ * so neither request parsing nor response rendering goes through reflection.
+ * New DTO records need an adapter registered here.
+ */
+public class DtoTypeAdapterFactory implements TypeAdapterFactory {
+    private static final Map<Class<?>, TypeAdapter<?>> ADAPTERS = Map.ofEntries(
+            entry(AssetType.class, ASSET_TYPE),
+            entry(ExpenseType.class, EXPENSE_TYPE),
+            entry(Frequency.class, FREQUENCY),
+            entry(IncomeType.class, INCOME_TYPE),
+            entry(Role.class, ROLE),
+            entry(SavingsGoalType.class, SAVINGS_GOAL_TYPE),
+            entry(LocalDateTime.class, LOCAL_DATE_TIME),
+            entry(CreateExpenseDto.class, new CreateExpenseDtoAdapter()),
+            entry(GetExpenseDto.class, new GetExpenseDtoAdapter()),
+            entry(CreateIncomeDto.class, new CreateIncomeDtoAdapter()),
+            entry(GetIncomeDto.class, new GetIncomeDtoAdapter()),
+            entry(CreateInvestmentDto.class, new CreateInvestmentDtoAdapter()),
+            entry(GetAvailableInvestmentDto.class, new GetAvailableInvestmentDtoAdapter()),
+            entry(GetInvestmentDto.class, new GetInvestmentDtoAdapter()),
+            entry(CreateSavingGoalDto.class, new CreateSavingGoalDtoAdapter()),
+            entry(GetSavingGoalDto.class, new GetSavingGoalDtoAdapter()),
+            entry(CreateUserDto.class, new CreateUserDtoAdapter()),
+            entry(GetUserDto.class, new GetUserDtoAdapter()),
+            entry(CategoryTotalDto.class, new CategoryTotalDtoAdapter()),
+            entry(MonthTotalDto.class, new MonthTotalDtoAdapter()),
+            entry(MonthBalanceDto.class, new MonthBalanceDtoAdapter()),
+            entry(UserAnalyticsDto.class, new UserAnalyticsDtoAdapter()),
+            entry(CategoryShareDto.class, new CategoryShareDtoAdapter()),
+            entry(PopulationReportDto.class, new PopulationReportDtoAdapter()),
+            entry(SpendPercentileDto.class, new SpendPercentileDtoAdapter()),
+            entry(AuthenticationDto.class, new AuthenticationDtoAdapter()),
+            entry(AuthorizationDto.class, new AuthorizationDtoAdapter()),
+            entry(RefreshTokenDto.class, new RefreshTokenDtoAdapter()),
+            entry(TokensDto.class, new TokensDtoAdapter()),
+            entry(SqlStatementStatsDto.class, new SqlStatementStatsDtoAdapter()),
+            entry(SlowStatementDto.class, new SlowStatementDtoAdapter())
+    );
+
+    /**
+     * Returns the adapter registered for the requested type, or null to let Gson fall back to its defaults.
+     *
+     * @param gson The Gson instance asking for the adapter.
+     * @param type The requested type.
+     * @return The matching adapter or null.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        var rawType = type.getRawType();
+        if (rawType == ResponseDto.class) {
+            return (TypeAdapter<T>) responseDtoAdapter(gson, type);
+        }
+        return (TypeAdapter<T>) ADAPTERS.get(rawType);
+    }
+
+    /**
+     * Builds the ResponseDto adapter, resolving the data adapter up front when the data type is declared.
+     */
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<?> responseDtoAdapter(Gson gson, TypeToken<?> type) {
+        if (type.getType() instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> dataClass
+                && dataClass != Object.class) {
+            var dataAdapter = (TypeAdapter<Object>) gson.getAdapter(dataClass);
+            return new ResponseDtoTypeAdapter(gson, dataAdapter, false);
+        }
+        return new ResponseDtoTypeAdapter(gson, gson.getAdapter(Object.class), true);
+    }
+}
@@ -0,0 +1,56 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adapter for enums that serializes constants by name using tables computed once per enum class.
+ * Unknown names are read as null, matching Gson's built-in enum handling.
+ *
+ * @param <E> The enum type handled by the adapter.
+ */
+public final class EnumTypeAdapter<E extends Enum<E>> extends TypeAdapter<E> {
+    private final String[] names;
+    private final Map<String, E> constants;
+
+    private EnumTypeAdapter(Class<E> enumClass) {
+        var values = enumClass.getEnumConstants();
+        this.names = new String[values.length];
+        this.constants = new HashMap<>(values.length * 2);
+        for (var value : values) {
+            names[value.ordinal()] = value.name();
+            constants.put(value.name(), value);
+        }
+    }
+
+    /**
+     * Creates an adapter for the given enum class.
+     *
+     * @param enumClass The enum class.
+     * @param <E>       The enum type.
+     * @return An adapter with precomputed name tables.
+     */
+    public static <E extends Enum<E>> EnumTypeAdapter<E> of(Class<E> enumClass) {
+        return new EnumTypeAdapter<>(enumClass);
+    }
+
+    @Override
+    public void write(JsonWriter out, E value) throws IOException {
+        out.value(value == null ? null : names[value.ordinal()]);
+    }
+
+    @Override
+    public E read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return constants.get(in.nextString());
+    }
+}
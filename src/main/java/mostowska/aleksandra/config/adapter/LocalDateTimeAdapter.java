@@ -1,41 +1,46 @@
 package mostowska.aleksandra.config.adapter;
 
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Custom adapter for serializing and deserializing LocalDateTime objects
- * using Gson.
+ * using Gson's streaming API.
  */
-public class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     /**
      * Serializes a LocalDateTime object to its JSON representation.
      *
+     * @param out The writer the formatted date and time is written to.
      * @param src The LocalDateTime object to serialize.
-     * @param typeOfSrc The type of the source object (used by Gson, not used here).
-     * @param context The context of the serialization process.
-     * @return A JsonElement representing the serialized LocalDateTime.
+     * @throws IOException If writing fails.
      */
     @Override
-    public JsonElement serialize(LocalDateTime src, Type typeOfSrc, JsonSerializationContext context) {
-        return context.serialize(src.format(formatter));
+    public void write(JsonWriter out, LocalDateTime src) throws IOException {
+        out.value(src == null ? null : src.format(formatter));
     }
 
     /**
-     * Deserializes a JSON element into a LocalDateTime object.
+     * Deserializes a JSON string into a LocalDateTime object.
      *
-     * @param json The JSON element to deserialize.
-     * @param typeOfT The type of the target object (used by Gson, not used here).
-     * @param context The context of the deserialization process.
+     * @param in The reader positioned at the value.
      * @return The deserialized LocalDateTime object.
+     * @throws IOException If reading fails.
      */
     @Override
-    public LocalDateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
-        return LocalDateTime.parse(json.getAsString(), formatter);
+    public LocalDateTime read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return LocalDateTime.parse(in.nextString(), formatter);
     }
 }
@@ -0,0 +1,679 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import mostowska.aleksandra.model.dto.analytics.CategoryShareDto;
+import mostowska.aleksandra.model.dto.analytics.CategoryTotalDto;
+import mostowska.aleksandra.model.dto.analytics.MonthBalanceDto;
+import mostowska.aleksandra.model.dto.analytics.MonthTotalDto;
+import mostowska.aleksandra.model.dto.analytics.PopulationReportDto;
+import mostowska.aleksandra.model.dto.analytics.SpendPercentileDto;
+import mostowska.aleksandra.model.dto.analytics.UserAnalyticsDto;
+import mostowska.aleksandra.model.dto.expense.CreateExpenseDto;
+import mostowska.aleksandra.model.dto.expense.GetExpenseDto;
+import mostowska.aleksandra.model.dto.income.CreateIncomeDto;
+import mostowska.aleksandra.model.dto.income.GetIncomeDto;
+import mostowska.aleksandra.model.dto.investment.CreateInvestmentDto;
+import mostowska.aleksandra.model.dto.investment.GetAvailableInvestmentDto;
+import mostowska.aleksandra.model.dto.investment.GetInvestmentDto;
+import mostowska.aleksandra.model.dto.savings_goal.CreateSavingGoalDto;
+import mostowska.aleksandra.model.dto.savings_goal.GetSavingGoalDto;
+import mostowska.aleksandra.model.dto.user.CreateUserDto;
+import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written adapters for the records under the model dto packages and the enums they use.
+ */
+final class ModelDtoTypeAdapters {
+    static final EnumTypeAdapter<AssetType> ASSET_TYPE = EnumTypeAdapter.of(AssetType.class);
+    static final EnumTypeAdapter<ExpenseType> EXPENSE_TYPE = EnumTypeAdapter.of(ExpenseType.class);
+    static final EnumTypeAdapter<Frequency> FREQUENCY = EnumTypeAdapter.of(Frequency.class);
+    static final EnumTypeAdapter<IncomeType> INCOME_TYPE = EnumTypeAdapter.of(IncomeType.class);
+    static final EnumTypeAdapter<Role> ROLE = EnumTypeAdapter.of(Role.class);
+    static final EnumTypeAdapter<SavingsGoalType> SAVINGS_GOAL_TYPE = EnumTypeAdapter.of(SavingsGoalType.class);
+    static final LocalDateTimeAdapter LOCAL_DATE_TIME = new LocalDateTimeAdapter();
+
+    private ModelDtoTypeAdapters() {
+    }
+
+    static final class CreateExpenseDtoAdapter extends RecordTypeAdapter<CreateExpenseDto> {
+        CreateExpenseDtoAdapter() {
+            super("expenseType", "customExpenseType", "description", "amount", "frequency", "customFrequency");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CreateExpenseDto value) throws IOException {
+            EXPENSE_TYPE.write(out.name("expenseType"), value.expenseType());
+            out.name("customExpenseType").value(value.customExpenseType());
+            out.name("description").value(value.description());
+            out.name("amount").value(value.amount());
+            FREQUENCY.write(out.name("frequency"), value.frequency());
+            out.name("customFrequency").value(value.customFrequency());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> EXPENSE_TYPE.read(in);
+                case 1, 2 -> readString(in);
+                case 3 -> readBigDecimal(in);
+                case 4 -> FREQUENCY.read(in);
+                default -> readLong(in);
+            };
+        }
+
+        @Override
+        protected CreateExpenseDto create(Object[] values) {
+            return new CreateExpenseDto(
+                    (ExpenseType) values[0],
+                    (String) values[1],
+                    (String) values[2],
+                    (BigDecimal) values[3],
+                    (Frequency) values[4],
+                    (Long) values[5]);
+        }
+    }
+
+    static final class GetExpenseDtoAdapter extends RecordTypeAdapter<GetExpenseDto> {
+        GetExpenseDtoAdapter() {
+            super("id", "expenseType", "description", "amount", "occurredAt");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GetExpenseDto value) throws IOException {
+            out.name("id").value(value.id());
+            EXPENSE_TYPE.write(out.name("expenseType"), value.expenseType());
+            out.name("description").value(value.description());
+            out.name("amount").value(value.amount());
+            LOCAL_DATE_TIME.write(out.name("occurredAt"), value.occurredAt());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readLong(in);
+                case 1 -> EXPENSE_TYPE.read(in);
+                case 2 -> readString(in);
+                case 3 -> readBigDecimal(in);
+                default -> LOCAL_DATE_TIME.read(in);
+            };
+        }
+
+        @Override
+        protected GetExpenseDto create(Object[] values) {
+            return new GetExpenseDto(
+                    (Long) values[0],
+                    (ExpenseType) values[1],
+                    (String) values[2],
+                    (BigDecimal) values[3],
+                    (LocalDateTime) values[4]);
+        }
+    }
+
+    static final class CreateIncomeDtoAdapter extends RecordTypeAdapter<CreateIncomeDto> {
+        CreateIncomeDtoAdapter() {
+            super("incomeType", "customIncomeType", "description", "amount", "frequency", "customFrequency");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CreateIncomeDto value) throws IOException {
+            INCOME_TYPE.write(out.name("incomeType"), value.incomeType());
+            out.name("customIncomeType").value(value.customIncomeType());
+            out.name("description").value(value.description());
+            out.name("amount").value(value.amount());
+            FREQUENCY.write(out.name("frequency"), value.frequency());
+            out.name("customFrequency").value(value.customFrequency());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> INCOME_TYPE.read(in);
+                case 1, 2 -> readString(in);
+                case 3 -> readBigDecimal(in);
+                case 4 -> FREQUENCY.read(in);
+                default -> readLong(in);
+            };
+        }
+
+        @Override
+        protected CreateIncomeDto create(Object[] values) {
+            return new CreateIncomeDto(
+                    (IncomeType) values[0],
+                    (String) values[1],
+                    (String) values[2],
+                    (BigDecimal) values[3],
+                    (Frequency) values[4],
+                    (Long) values[5]);
+        }
+    }
+
+    static final class GetIncomeDtoAdapter extends RecordTypeAdapter<GetIncomeDto> {
+        GetIncomeDtoAdapter() {
+            super("id", "incomeType", "amount", "occurredAt");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GetIncomeDto value) throws IOException {
+            out.name("id").value(value.id());
+            INCOME_TYPE.write(out.name("incomeType"), value.incomeType());
+            out.name("amount").value(value.amount());
+            LOCAL_DATE_TIME.write(out.name("occurredAt"), value.occurredAt());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readLong(in);
+                case 1 -> INCOME_TYPE.read(in);
+                case 2 -> readBigDecimal(in);
+                default -> LOCAL_DATE_TIME.read(in);
+            };
+        }
+
+        @Override
+        protected GetIncomeDto create(Object[] values) {
+            return new GetIncomeDto((Long) values[0], (IncomeType) values[1], (BigDecimal) values[2],
+                    (LocalDateTime) values[3]);
+        }
+    }
+
+    static final class CreateInvestmentDtoAdapter extends RecordTypeAdapter<CreateInvestmentDto> {
+        CreateInvestmentDtoAdapter() {
+            super("assetType", "amountInvested", "investmentDateTime");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CreateInvestmentDto value) throws IOException {
+            ASSET_TYPE.write(out.name("assetType"), value.assetType());
+            out.name("amountInvested").value(value.amountInvested());
+            LOCAL_DATE_TIME.write(out.name("investmentDateTime"), value.investmentDateTime());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> ASSET_TYPE.read(in);
+                case 1 -> readBigDecimal(in);
+                default -> LOCAL_DATE_TIME.read(in);
+            };
+        }
+
+        @Override
+        protected CreateInvestmentDto create(Object[] values) {
+            return new CreateInvestmentDto((AssetType) values[0], (BigDecimal) values[1], (LocalDateTime) values[2]);
+        }
+    }
+
+    static final class GetAvailableInvestmentDtoAdapter extends RecordTypeAdapter<GetAvailableInvestmentDto> {
+        GetAvailableInvestmentDtoAdapter() {
+            super("id", "assetType", "description");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GetAvailableInvestmentDto value) throws IOException {
+            out.name("id").value(value.id());
+            ASSET_TYPE.write(out.name("assetType"), value.assetType());
+            out.name("description").value(value.description());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readLong(in);
+                case 1 -> ASSET_TYPE.read(in);
+                default -> readString(in);
+            };
+        }
+
+        @Override
+        protected GetAvailableInvestmentDto create(Object[] values) {
+            return new GetAvailableInvestmentDto((Long) values[0], (AssetType) values[1], (String) values[2]);
+        }
+    }
+
+    static final class GetInvestmentDtoAdapter extends RecordTypeAdapter<GetInvestmentDto> {
+        GetInvestmentDtoAdapter() {
+            super("id", "assetType", "amountInvested", "currentValue");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GetInvestmentDto value) throws IOException {
+            out.name("id").value(value.id());
+            ASSET_TYPE.write(out.name("assetType"), value.assetType());
+            out.name("amountInvested").value(value.amountInvested());
+            out.name("currentValue").value(value.currentValue());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readLong(in);
+                case 1 -> ASSET_TYPE.read(in);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        protected GetInvestmentDto create(Object[] values) {
+            return new GetInvestmentDto(
+                    (Long) values[0],
+                    (AssetType) values[1],
+                    (BigDecimal) values[2],
+                    (BigDecimal) values[3]);
+        }
+    }
+
+    static final class CreateSavingGoalDtoAdapter extends RecordTypeAdapter<CreateSavingGoalDto> {
+        CreateSavingGoalDtoAdapter() {
+            super("goalType", "customGoalType", "percentage");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CreateSavingGoalDto value) throws IOException {
+            SAVINGS_GOAL_TYPE.write(out.name("goalType"), value.goalType());
+            out.name("customGoalType").value(value.customGoalType());
+            out.name("percentage").value(value.percentage());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> SAVINGS_GOAL_TYPE.read(in);
+                case 1 -> readString(in);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        protected CreateSavingGoalDto create(Object[] values) {
+            return new CreateSavingGoalDto((SavingsGoalType) values[0], (String) values[1], (BigDecimal) values[2]);
+        }
+    }
+
+    static final class GetSavingGoalDtoAdapter extends RecordTypeAdapter<GetSavingGoalDto> {
+        GetSavingGoalDtoAdapter() {
+            super("goalType", "customGoalType", "percentage");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GetSavingGoalDto value) throws IOException {
+            SAVINGS_GOAL_TYPE.write(out.name("goalType"), value.goalType());
+            out.name("customGoalType").value(value.customGoalType());
+            out.name("percentage").value(value.percentage());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> SAVINGS_GOAL_TYPE.read(in);
+                case 1 -> readString(in);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        protected GetSavingGoalDto create(Object[] values) {
+            return new GetSavingGoalDto((SavingsGoalType) values[0], (String) values[1], (BigDecimal) values[2]);
+        }
+    }
+
+    static final class CreateUserDtoAdapter extends RecordTypeAdapter<CreateUserDto> {
+        CreateUserDtoAdapter() {
+            super("username", "email", "password", "passwordConfirmation", "role");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CreateUserDto value) throws IOException {
+            out.name("username").value(value.username());
+            out.name("email").value(value.email());
+            out.name("password").value(value.password());
+            out.name("passwordConfirmation").value(value.passwordConfirmation());
+            ROLE.write(out.name("role"), value.role());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return index == 4 ? ROLE.read(in) : readString(in);
+        }
+
+        @Override
+        protected CreateUserDto create(Object[] values) {
+            return new CreateUserDto(
+                    (String) values[0],
+                    (String) values[1],
+                    (String) values[2],
+                    (String) values[3],
+                    (Role) values[4]);
+        }
+    }
+
+    static final class GetUserDtoAdapter extends RecordTypeAdapter<GetUserDto> {
+        GetUserDtoAdapter() {
+            super("id", "username", "email", "budget", "budgetAfterGoals");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, GetUserDto value) throws IOException {
+            out.name("id").value(value.id());
+            out.name("username").value(value.username());
+            out.name("email").value(value.email());
+            out.name("budget").value(value.budget());
+            out.name("budgetAfterGoals").value(value.budgetAfterGoals());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readLong(in);
+                case 1, 2 -> readString(in);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        protected GetUserDto create(Object[] values) {
+            return new GetUserDto(
+                    (Long) values[0],
+                    (String) values[1],
+                    (String) values[2],
+                    (BigDecimal) values[3],
+                    (BigDecimal) values[4]);
+        }
+    }
+
+    static final class CategoryTotalDtoAdapter extends RecordTypeAdapter<CategoryTotalDto> {
+        CategoryTotalDtoAdapter() {
+            super("category", "total", "count");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CategoryTotalDto value) throws IOException {
+            out.name("category").value(value.category());
+            out.name("total").value(value.total());
+            out.name("count").value(value.count());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readString(in);
+                case 1 -> readBigDecimal(in);
+                default -> readLong(in);
+            };
+        }
+
+        @Override
+        protected CategoryTotalDto create(Object[] values) {
+            return new CategoryTotalDto(
+                    (String) values[0],
+                    (BigDecimal) values[1],
+                    values[2] == null ? 0 : (Long) values[2]);
+        }
+    }
+
+    static final class MonthTotalDtoAdapter extends RecordTypeAdapter<MonthTotalDto> {
+        MonthTotalDtoAdapter() {
+            super("month", "total", "count", "change");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, MonthTotalDto value) throws IOException {
+            out.name("month").value(value.month() == null ? null : value.month().toString());
+            out.name("total").value(value.total());
+            out.name("count").value(value.count());
+            out.name("change").value(value.change());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readYearMonth(in);
+                case 1, 3 -> readBigDecimal(in);
+                default -> readLong(in);
+            };
+        }
+
+        @Override
+        protected MonthTotalDto create(Object[] values) {
+            return new MonthTotalDto(
+                    (YearMonth) values[0],
+                    (BigDecimal) values[1],
+                    values[2] == null ? 0 : (Long) values[2],
+                    (BigDecimal) values[3]);
+        }
+    }
+
+    static final class MonthBalanceDtoAdapter extends RecordTypeAdapter<MonthBalanceDto> {
+        MonthBalanceDtoAdapter() {
+            super("month", "expenses", "incomes", "net");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, MonthBalanceDto value) throws IOException {
+            out.name("month").value(value.month() == null ? null : value.month().toString());
+            out.name("expenses").value(value.expenses());
+            out.name("incomes").value(value.incomes());
+            out.name("net").value(value.net());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return index == 0 ? readYearMonth(in) : readBigDecimal(in);
+        }
+
+        @Override
+        protected MonthBalanceDto create(Object[] values) {
+            return new MonthBalanceDto(
+                    (YearMonth) values[0],
+                    (BigDecimal) values[1],
+                    (BigDecimal) values[2],
+                    (BigDecimal) values[3]);
+        }
+    }
+
+    static final class UserAnalyticsDtoAdapter extends RecordTypeAdapter<UserAnalyticsDto> {
+        private final CategoryTotalDtoAdapter categoryTotalAdapter = new CategoryTotalDtoAdapter();
+        private final MonthBalanceDtoAdapter monthBalanceAdapter = new MonthBalanceDtoAdapter();
+
+        UserAnalyticsDtoAdapter() {
+            super("from", "to", "totalExpenses", "totalIncomes", "savingsRate", "expensesByType", "incomesByType",
+                    "trend");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, UserAnalyticsDto value) throws IOException {
+            out.name("from").value(value.from() == null ? null : value.from().toString());
+            out.name("to").value(value.to() == null ? null : value.to().toString());
+            out.name("totalExpenses").value(value.totalExpenses());
+            out.name("totalIncomes").value(value.totalIncomes());
+            out.name("savingsRate").value(value.savingsRate());
+            writeList(out, "expensesByType", value.expensesByType(), categoryTotalAdapter);
+            writeList(out, "incomesByType", value.incomesByType(), categoryTotalAdapter);
+            writeList(out, "trend", value.trend(), monthBalanceAdapter);
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0, 1 -> readYearMonth(in);
+                case 5, 6 -> readList(in, categoryTotalAdapter);
+                case 7 -> readList(in, monthBalanceAdapter);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected UserAnalyticsDto create(Object[] values) {
+            return new UserAnalyticsDto(
+                    (YearMonth) values[0],
+                    (YearMonth) values[1],
+                    (BigDecimal) values[2],
+                    (BigDecimal) values[3],
+                    (BigDecimal) values[4],
+                    (List<CategoryTotalDto>) values[5],
+                    (List<CategoryTotalDto>) values[6],
+                    (List<MonthBalanceDto>) values[7]);
+        }
+    }
+
+    static final class CategoryShareDtoAdapter extends RecordTypeAdapter<CategoryShareDto> {
+        CategoryShareDtoAdapter() {
+            super("category", "total", "count", "users", "share");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, CategoryShareDto value) throws IOException {
+            out.name("category").value(value.category());
+            out.name("total").value(value.total());
+            out.name("count").value(value.count());
+            out.name("users").value(value.users());
+            out.name("share").value(value.share());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readString(in);
+                case 1, 4 -> readBigDecimal(in);
+                default -> readLong(in);
+            };
+        }
+
+        @Override
+        protected CategoryShareDto create(Object[] values) {
+            return new CategoryShareDto(
+                    (String) values[0],
+                    (BigDecimal) values[1],
+                    values[2] == null ? 0 : (Long) values[2],
+                    values[3] == null ? 0 : (Long) values[3],
+                    (BigDecimal) values[4]);
+        }
+    }
+
+    static final class PopulationReportDtoAdapter extends RecordTypeAdapter<PopulationReportDto> {
+        private final CategoryShareDtoAdapter categoryShareAdapter = new CategoryShareDtoAdapter();
+
+        PopulationReportDtoAdapter() {
+            super("users", "enabledUsers", "negativeBudgetUsers", "negativeBudgetAfterGoalsUsers", "totalBudget",
+                    "totalBudgetAfterGoals", "totalExpenses", "totalIncomes", "expensesByType", "incomesByType");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, PopulationReportDto value) throws IOException {
+            out.name("users").value(value.users());
+            out.name("enabledUsers").value(value.enabledUsers());
+            out.name("negativeBudgetUsers").value(value.negativeBudgetUsers());
+            out.name("negativeBudgetAfterGoalsUsers").value(value.negativeBudgetAfterGoalsUsers());
+            out.name("totalBudget").value(value.totalBudget());
+            out.name("totalBudgetAfterGoals").value(value.totalBudgetAfterGoals());
+            out.name("totalExpenses").value(value.totalExpenses());
+            out.name("totalIncomes").value(value.totalIncomes());
+            writeList(out, "expensesByType", value.expensesByType(), categoryShareAdapter);
+            writeList(out, "incomesByType", value.incomesByType(), categoryShareAdapter);
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0, 1, 2, 3 -> readLong(in);
+                case 8, 9 -> readList(in, categoryShareAdapter);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected PopulationReportDto create(Object[] values) {
+            return new PopulationReportDto(
+                    values[0] == null ? 0 : (Long) values[0],
+                    values[1] == null ? 0 : (Long) values[1],
+                    values[2] == null ? 0 : (Long) values[2],
+                    values[3] == null ? 0 : (Long) values[3],
+                    (BigDecimal) values[4],
+                    (BigDecimal) values[5],
+                    (BigDecimal) values[6],
+                    (BigDecimal) values[7],
+                    (List<CategoryShareDto>) values[8],
+                    (List<CategoryShareDto>) values[9]);
+        }
+    }
+
+    static final class SpendPercentileDtoAdapter extends RecordTypeAdapter<SpendPercentileDto> {
+        SpendPercentileDtoAdapter() {
+            super("category", "averageAmount", "count", "percentile", "medianAmount", "p90Amount");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, SpendPercentileDto value) throws IOException {
+            out.name("category").value(value.category());
+            out.name("averageAmount").value(value.averageAmount());
+            out.name("count").value(value.count());
+            out.name("percentile").value(value.percentile());
+            out.name("medianAmount").value(value.medianAmount());
+            out.name("p90Amount").value(value.p90Amount());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readString(in);
+                case 2 -> readLong(in);
+                default -> readBigDecimal(in);
+            };
+        }
+
+        @Override
+        protected SpendPercentileDto create(Object[] values) {
+            return new SpendPercentileDto(
+                    (String) values[0],
+                    (BigDecimal) values[1],
+                    values[2] == null ? 0 : (Long) values[2],
+                    (BigDecimal) values[3],
+                    (BigDecimal) values[4],
+                    (BigDecimal) values[5]);
+        }
+    }
+
+    private static <T> void writeList(JsonWriter out, String name, List<T> values, TypeAdapter<T> adapter)
+            throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        for (var value : values) {
+            adapter.write(out, value);
+        }
+        out.endArray();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        var values = new ArrayList<T>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(adapter.read(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static YearMonth readYearMonth(JsonReader in) throws IOException {
+        try {
+            return YearMonth.parse(in.nextString());
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
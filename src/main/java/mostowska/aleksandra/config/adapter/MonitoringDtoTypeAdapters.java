@@ -0,0 +1,86 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import mostowska.aleksandra.repository.monitoring.dto.SlowStatementDto;
+import mostowska.aleksandra.repository.monitoring.dto.SqlStatementStatsDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static mostowska.aleksandra.config.adapter.ModelDtoTypeAdapters.LOCAL_DATE_TIME;
+
+/**
+ * Hand-written adapters for the records served by the monitoring endpoints.
+ */
+final class MonitoringDtoTypeAdapters {
+
+    private MonitoringDtoTypeAdapters() {
+    }
+
+    static final class SqlStatementStatsDtoAdapter extends RecordTypeAdapter<SqlStatementStatsDto> {
+        SqlStatementStatsDtoAdapter() {
+            super("fingerprint", "count", "totalMs", "p50Ms", "p99Ms", "maxMs");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, SqlStatementStatsDto value) throws IOException {
+            out.name("fingerprint").value(value.fingerprint());
+            out.name("count").value(value.count());
+            out.name("totalMs").value(value.totalMs());
+            out.name("p50Ms").value(value.p50Ms());
+            out.name("p99Ms").value(value.p99Ms());
+            out.name("maxMs").value(value.maxMs());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readString(in);
+                case 1 -> readLong(in);
+                default -> readDouble(in);
+            };
+        }
+
+        @Override
+        protected SqlStatementStatsDto create(Object[] values) {
+            return new SqlStatementStatsDto((String) values[0], orZero((Long) values[1]), orZero((Double) values[2]),
+                    orZero((Double) values[3]), orZero((Double) values[4]), orZero((Double) values[5]));
+        }
+    }
+
+    static final class SlowStatementDtoAdapter extends RecordTypeAdapter<SlowStatementDto> {
+        SlowStatementDtoAdapter() {
+            super("fingerprint", "durationMs", "executedAt");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, SlowStatementDto value) throws IOException {
+            out.name("fingerprint").value(value.fingerprint());
+            out.name("durationMs").value(value.durationMs());
+            LOCAL_DATE_TIME.write(out.name("executedAt"), value.executedAt());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return switch (index) {
+                case 0 -> readString(in);
+                case 1 -> readDouble(in);
+                default -> LOCAL_DATE_TIME.read(in);
+            };
+        }
+
+        @Override
+        protected SlowStatementDto create(Object[] values) {
+            return new SlowStatementDto((String) values[0], orZero((Double) values[1]), (LocalDateTime) values[2]);
+        }
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private static double orZero(Double value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,148 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class for hand-written record adapters that read and write JSON without reflection.
+ * Field names are resolved through a table built once per adapter, unknown fields are skipped
+ * and null values are left out of the output, the same way Gson's reflective adapters behave.
+ *
+ * @param <T> The record type handled by the adapter.
+ */
+public abstract class RecordTypeAdapter<T> extends TypeAdapter<T> {
+    private static final int MAX_NUMBER_LENGTH = 10_000;
+
+    private final Map<String, Integer> fieldIndexes;
+    private final int fieldCount;
+
+    /**
+     * Creates an adapter for a record with the given JSON field names.
+     *
+     * @param fieldNames The field names in the order used by {@link #readField(int, JsonReader)} and {@link #create(Object[])}.
+     */
+    protected RecordTypeAdapter(String... fieldNames) {
+        this.fieldCount = fieldNames.length;
+        this.fieldIndexes = new HashMap<>(fieldCount * 2);
+        for (int i = 0; i < fieldCount; i++) {
+            fieldIndexes.put(fieldNames[i], i);
+        }
+    }
+
+    /**
+     * Writes the fields of a non-null record. Null values can be written as they are;
+     * the JsonWriter drops them together with their names.
+     *
+     * @param out   The writer the fields are written to.
+     * @param value The record to be written.
+     * @throws IOException If writing fails.
+     */
+    protected abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+    /**
+     * Reads the non-null value of a single field.
+     *
+     * @param index The index of the field in the name table.
+     * @param in    The reader positioned at the field value.
+     * @return The field value.
+     * @throws IOException If reading fails.
+     */
+    protected abstract Object readField(int index, JsonReader in) throws IOException;
+
+    /**
+     * Creates the record from the values read, indexed like the name table. Missing fields are null.
+     *
+     * @param values The field values.
+     * @return The new record.
+     */
+    protected abstract T create(Object[] values);
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        var values = new Object[fieldCount];
+        in.beginObject();
+        while (in.hasNext()) {
+            var index = fieldIndexes.get(in.nextName());
+            if (index == null) {
+                in.skipValue();
+            } else if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else {
+                values[index] = readField(index, in);
+            }
+        }
+        in.endObject();
+        return create(values);
+    }
+
+    /**
+     * Reads a string, accepting booleans the way Gson's own String adapter does.
+     */
+    protected static String readString(JsonReader in) throws IOException {
+        return in.peek() == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    /**
+     * Reads a Long from a JSON number or numeric string.
+     */
+    protected static Long readLong(JsonReader in) throws IOException {
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Reads a Double from a JSON number or numeric string.
+     */
+    protected static Double readDouble(JsonReader in) throws IOException {
+        try {
+            return in.nextDouble();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Reads a BigDecimal from a JSON number or numeric string, rejecting inputs that would be costly to parse.
+     */
+    protected static BigDecimal readBigDecimal(JsonReader in) throws IOException {
+        var text = in.nextString();
+        if (text.length() > MAX_NUMBER_LENGTH) {
+            throw new JsonSyntaxException("Number too long at path " + in.getPreviousPath());
+        }
+        try {
+            var value = new BigDecimal(text);
+            if (Math.abs((long) value.scale()) >= MAX_NUMBER_LENGTH) {
+                throw new JsonSyntaxException("Number has unsupported scale at path " + in.getPreviousPath());
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("Failed parsing '" + text + "' as BigDecimal; at path " + in.getPreviousPath(), e);
+        }
+    }
+}
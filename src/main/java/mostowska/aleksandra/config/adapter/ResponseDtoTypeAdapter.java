@@ -0,0 +1,49 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import mostowska.aleksandra.api.dto.ResponseDto;
+
+import java.io.IOException;
+
+/**
+ * Adapter for the generic ResponseDto envelope. When the data type is known from the type token, its adapter
+ * is resolved once; otherwise the adapter is looked up by the runtime class of the data, as Gson does for Object fields.
+ */
+final class ResponseDtoTypeAdapter extends RecordTypeAdapter<ResponseDto<Object>> {
+    private final Gson gson;
+    private final TypeAdapter<Object> dataAdapter;
+    private final boolean runtimeDataType;
+
+    ResponseDtoTypeAdapter(Gson gson, TypeAdapter<Object> dataAdapter, boolean runtimeDataType) {
+        super("data", "error");
+        this.gson = gson;
+        this.dataAdapter = dataAdapter;
+        this.runtimeDataType = runtimeDataType;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeFields(JsonWriter out, ResponseDto<Object> value) throws IOException {
+        var data = value.data();
+        out.name("data");
+        if (data != null && runtimeDataType) {
+            ((TypeAdapter<Object>) gson.getAdapter(data.getClass())).write(out, data);
+        } else {
+            dataAdapter.write(out, data);
+        }
+        out.name("error").value(value.error());
+    }
+
+    @Override
+    protected Object readField(int index, JsonReader in) throws IOException {
+        return index == 0 ? dataAdapter.read(in) : readString(in);
+    }
+
+    @Override
+    protected ResponseDto<Object> create(Object[] values) {
+        return new ResponseDto<>(values[0], (String) values[1]);
+    }
+}
@@ -0,0 +1,109 @@
+package mostowska.aleksandra.config.adapter;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import mostowska.aleksandra.model.utils.Role;
+import mostowska.aleksandra.service.dto.AuthenticationDto;
+import mostowska.aleksandra.service.dto.AuthorizationDto;
+import mostowska.aleksandra.service.dto.RefreshTokenDto;
+import mostowska.aleksandra.service.dto.TokensDto;
+
+import java.io.IOException;
+
+import static mostowska.aleksandra.config.adapter.ModelDtoTypeAdapters.ROLE;
+
+/**
+ * Hand-written adapters for the records under the service dto package.
+ */
+final class ServiceDtoTypeAdapters {
+
+    private ServiceDtoTypeAdapters() {
+    }
+
+    static final class AuthenticationDtoAdapter extends RecordTypeAdapter<AuthenticationDto> {
+        AuthenticationDtoAdapter() {
+            super("username", "password");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, AuthenticationDto value) throws IOException {
+            out.name("username").value(value.username());
+            out.name("password").value(value.password());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return readString(in);
+        }
+
+        @Override
+        protected AuthenticationDto create(Object[] values) {
+            return new AuthenticationDto((String) values[0], (String) values[1]);
+        }
+    }
+
+    static final class AuthorizationDtoAdapter extends RecordTypeAdapter<AuthorizationDto> {
+        AuthorizationDtoAdapter() {
+            super("id", "role");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, AuthorizationDto value) throws IOException {
+            out.name("id").value(value.id());
+            ROLE.write(out.name("role"), value.role());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return index == 0 ? readLong(in) : ROLE.read(in);
+        }
+
+        @Override
+        protected AuthorizationDto create(Object[] values) {
+            return new AuthorizationDto((Long) values[0], (Role) values[1]);
+        }
+    }
+
+    static final class RefreshTokenDtoAdapter extends RecordTypeAdapter<RefreshTokenDto> {
+        RefreshTokenDtoAdapter() {
+            super("token");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, RefreshTokenDto value) throws IOException {
+            out.name("token").value(value.token());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return readString(in);
+        }
+
+        @Override
+        protected RefreshTokenDto create(Object[] values) {
+            return new RefreshTokenDto((String) values[0]);
+        }
+    }
+
+    static final class TokensDtoAdapter extends RecordTypeAdapter<TokensDto> {
+        TokensDtoAdapter() {
+            super("accessToken", "refreshToken");
+        }
+
+        @Override
+        protected void writeFields(JsonWriter out, TokensDto value) throws IOException {
+            out.name("accessToken").value(value.accessToken());
+            out.name("refreshToken").value(value.refreshToken());
+        }
+
+        @Override
+        protected Object readField(int index, JsonReader in) throws IOException {
+            return readString(in);
+        }
+
+        @Override
+        protected TokensDto create(Object[] values) {
+            return new TokensDto((String) values[0], (String) values[1]);
+        }
+    }
+}
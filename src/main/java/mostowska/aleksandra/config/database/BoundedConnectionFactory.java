@@ -0,0 +1,85 @@
+package mostowska.aleksandra.config.database;
+
+import org.jdbi.v3.core.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BoundedConnectionFactory caps the number of connections open at the same time.
+ * When requests run on virtual threads nothing else limits how many of them reach the database at once,
+ * so callers beyond the cap wait for a permit instead of overwhelming the database server.
+ */
+public class BoundedConnectionFactory implements ConnectionFactory {
+    private final ConnectionFactory delegate;
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final long acquireTimeoutMs;
+
+    /**
+     * Creates a factory that opens connections through the delegate, at most maxConnections at a time.
+     *
+     * @param delegate         The factory opening the actual connections.
+     * @param maxConnections   The maximum number of connections open at once.
+     * @param acquireTimeoutMs How long to wait for a free permit before failing.
+     */
+    public BoundedConnectionFactory(ConnectionFactory delegate, int maxConnections, long acquireTimeoutMs) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Connection openConnection() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No database connection available within " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            return delegate.openConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        try {
+            delegate.closeConnection(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return The number of connections currently open through this factory.
+     */
+    public int getActiveConnections() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    /**
+     * @return The number of callers waiting for a connection.
+     */
+    public int getWaitingCallers() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return The maximum number of connections open at once.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+}
@@ -0,0 +1,36 @@
+package mostowska.aleksandra.config.database;
+
+import mostowska.aleksandra.model.utils.Money;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.argument.AbstractArgumentFactory;
+import org.jdbi.v3.core.argument.Argument;
+import org.jdbi.v3.core.config.ConfigRegistry;
+import org.jdbi.v3.core.spi.JdbiPlugin;
+
+import java.sql.Types;
+
+/**
+ * MoneyPlugin teaches Jdbi to read decimal amount columns into Money and to bind Money as a decimal,
+ * so entities can hold amounts as Money while the tables keep their decimal(10, 2) columns.
+ */
+public class MoneyPlugin extends JdbiPlugin.Singleton {
+    @Override
+    public void customizeJdbi(Jdbi jdbi) {
+        jdbi.registerColumnMapper(Money.class, (resultSet, column, context) -> {
+            var amount = resultSet.getBigDecimal(column);
+            return amount == null ? null : Money.of(amount);
+        });
+        jdbi.registerArgument(new MoneyArgumentFactory());
+    }
+
+    private static class MoneyArgumentFactory extends AbstractArgumentFactory<Money> {
+        private MoneyArgumentFactory() {
+            super(Types.DECIMAL);
+        }
+
+        @Override
+        protected Argument build(Money value, ConfigRegistry config) {
+            return (position, statement, context) -> statement.setBigDecimal(position, value.toBigDecimal());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package mostowska.aleksandra.config.database;
+
+import lombok.RequiredArgsConstructor;
+import org.jdbi.v3.core.Jdbi;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * TransactionManager runs a unit of work in a single database transaction.
+ * Jdbi binds the transaction's handle to the current thread, so repository calls made inside the work
+ * reuse it instead of opening their own connection, and all of them commit or roll back together.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionManager {
+    private final Jdbi jdbi;
+
+    /**
+     * Runs the work in a transaction, committing it if the work returns and rolling it back if it throws.
+     *
+     * @param work The work to run.
+     * @param <T>  The type of the result.
+     * @return The result of the work.
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        return jdbi.inTransaction(handle -> work.get());
+    }
+}
@@ -0,0 +1,28 @@
+package mostowska.aleksandra.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * AuthorizationEvent records an authorization decision for a request.
+ */
+@Name("mostowska.aleksandra.Authorization")
+@Label("Authorization")
+@Category({"Budget App", "Security"})
+@Description("An authorization decision for a request URI")
+@StackTrace(false)
+@Setter
+public class AuthorizationEvent extends jdk.jfr.Event {
+    @Label("URI")
+    private String uri;
+
+    @Label("Role")
+    private String role;
+
+    @Label("Granted")
+    private boolean granted;
+}
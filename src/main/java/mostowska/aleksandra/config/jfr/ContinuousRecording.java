@@ -0,0 +1,79 @@
+package mostowska.aleksandra.config.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * ContinuousRecording starts a JDK Flight Recorder recording at boot when `jfr.continuous.enabled` is set.
+ * The recording keeps a bounded ring of the most recent data on disk and is dumped to `jfr.continuous.dump_path`
+ * when the JVM exits; it can also be dumped at any time with `jcmd <pid> JFR.dump name=continuous`.
+ */
+@Component
+@Slf4j
+public class ContinuousRecording {
+    private static final String RECORDING_NAME = "continuous";
+
+    @Value("${jfr.continuous.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jfr.continuous.settings:default}")
+    private String settings;
+
+    @Value("${jfr.continuous.max_age_minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${jfr.continuous.max_size_mb:256}")
+    private long maxSizeMb;
+
+    @Value("${jfr.continuous.dump_path:continuous.jfr}")
+    private String dumpPath;
+
+    private Recording recording;
+
+    /**
+     * Starts the recording if enabled. A failure to start is logged and does not prevent the application from
+     * starting, as profiling is not essential to serving requests.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            recording.setMaxSize(maxSizeMb * 1024 * 1024);
+            recording.setDestination(Path.of(dumpPath));
+            recording.setDumpOnExit(true);
+            recording.start();
+            log.info("Started continuous JFR recording with {} settings, keeping {} minutes or {} MB",
+                    settings, maxAgeMinutes, maxSizeMb);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            log.warn("Could not start continuous JFR recording: {}", e.getMessage());
+            recording = null;
+        }
+    }
+
+    /**
+     * Stops the recording, writing it to the dump path.
+     */
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package mostowska.aleksandra.config.jfr;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JfrInstrumentationPostProcessor wraps repositories and the budget services in proxies emitting JFR events
+ * for every interface method call. When no recording has the events enabled, an event only costs a few checks
+ * and its allocation is removed by the JIT, so the instrumentation can stay on in production.
+ * It can be turned off with `jfr.events.enabled=false`.
+ */
+@Component
+public class JfrInstrumentationPostProcessor implements BeanPostProcessor {
+    private static final String BUDGET_SERVICES_PACKAGE = "mostowska.aleksandra.service.budget.impl";
+    private static final String REPOSITORY_SUFFIX = "Repository";
+    private static final List<String> READ_PREFIXES = List.of("find", "count", "sum", "forEach", "get");
+
+    private final boolean enabled;
+
+    public JfrInstrumentationPostProcessor(Environment environment) {
+        this.enabled = environment.getProperty("jfr.events.enabled", Boolean.class, true);
+    }
+
+    /**
+     * Replaces repository and budget service beans with instrumented proxies. Beans are injected by interface,
+     * so a JDK proxy implementing the same interfaces can stand in for them.
+     *
+     * @param bean     The initialized bean.
+     * @param beanName The name of the bean.
+     * @return The proxy, or the bean itself if it is not instrumented.
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        var type = bean.getClass();
+        if (type.isAnnotationPresent(Repository.class)) {
+            return proxy(bean, new RepositoryCallHandler(bean, entityName(type)));
+        }
+        if (BUDGET_SERVICES_PACKAGE.equals(type.getPackageName())) {
+            return proxy(bean, new ServiceCallHandler(bean, type.getSimpleName()));
+        }
+        return bean;
+    }
+
+    private static Object proxy(Object bean, InvocationHandler handler) {
+        var type = bean.getClass();
+        return Proxy.newProxyInstance(type.getClassLoader(), ClassUtils.getAllInterfacesForClass(type), handler);
+    }
+
+    /**
+     * Derives the entity name from the repository interface, e.g. Expense for ExpenseRepository.
+     */
+    private static String entityName(Class<?> type) {
+        for (var anInterface : type.getInterfaces()) {
+            var name = anInterface.getSimpleName();
+            if (name.endsWith(REPOSITORY_SUFFIX) && name.length() > REPOSITORY_SUFFIX.length()) {
+                return name.substring(0, name.length() - REPOSITORY_SUFFIX.length());
+            }
+        }
+        return type.getSimpleName();
+    }
+
+    /**
+     * Counts the rows a repository call returned or changed: the elements of a collection or optional, the update
+     * counts of a mutating method, or the entity saved, updated or deleted. Other results, such as an ID, a count or
+     * a sum, are values read from rows rather than rows, and are recorded as -1.
+     */
+    private static long rows(Method method, Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (isMutating(method)) {
+            if (method.getReturnType() == int.class) {
+                return (Integer) result;
+            }
+            if (result instanceof int[] counts) {
+                // A batch whose counts the driver did not report has no known row count
+                return Arrays.stream(counts).allMatch(count -> count >= 0)
+                        ? Arrays.stream(counts).asLongStream().sum()
+                        : -1;
+            }
+        }
+        if (method.getGenericReturnType() instanceof TypeVariable<?> && result != null) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static boolean isMutating(Method method) {
+        var name = method.getName();
+        return READ_PREFIXES.stream().noneMatch(name::startsWith);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record RepositoryCallHandler(Object target, String entity) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return JfrInstrumentationPostProcessor.invoke(target, method, args);
+            }
+            var event = new RepositoryCallEvent();
+            event.begin();
+            var failed = true;
+            Object result = null;
+            try {
+                result = JfrInstrumentationPostProcessor.invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.setEntity(entity);
+                    event.setOperation(method.getName());
+                    event.setRows(failed ? -1 : rows(method, result));
+                    event.setFailed(failed);
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private record ServiceCallHandler(Object target, String service) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return JfrInstrumentationPostProcessor.invoke(target, method, args);
+            }
+            var event = new ServiceCallEvent();
+            event.begin();
+            var failed = true;
+            try {
+                var result = JfrInstrumentationPostProcessor.invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.setService(service);
+                    event.setMethod(method.getName());
+                    event.setFailed(failed);
+                    event.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package mostowska.aleksandra.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * JwtParseEvent records the parsing and signature verification of a single JWT.
+ */
+@Name("mostowska.aleksandra.JwtParse")
+@Label("JWT Parse")
+@Category({"Budget App", "Security"})
+@Description("Parsing and verification of a JWT")
+@StackTrace(false)
+@Setter
+public class JwtParseEvent extends jdk.jfr.Event {
+    @Label("Valid")
+    private boolean valid;
+
+    @Label("Failure")
+    @Description("The exception type if the token was rejected")
+    private String failure;
+}
@@ -0,0 +1,32 @@
+package mostowska.aleksandra.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * RepositoryCallEvent records a single repository method call with the number of rows it returned or changed.
+ */
+@Name("mostowska.aleksandra.RepositoryCall")
+@Label("Repository Call")
+@Category({"Budget App", "Repository"})
+@Description("A repository method call")
+@StackTrace(false)
+@Setter
+public class RepositoryCallEvent extends jdk.jfr.Event {
+    @Label("Entity")
+    private String entity;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Rows")
+    @Description("Rows returned or changed, -1 if not known")
+    private long rows;
+
+    @Label("Failed")
+    private boolean failed;
+}
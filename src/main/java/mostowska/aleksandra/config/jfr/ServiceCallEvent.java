@@ -0,0 +1,29 @@
+package mostowska.aleksandra.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * ServiceCallEvent records a single budget service method call, so that allocation and GC activity
+ * can be attributed to the budget operation running at the time.
+ */
+@Name("mostowska.aleksandra.ServiceCall")
+@Label("Service Call")
+@Category({"Budget App", "Service"})
+@Description("A budget service method call")
+@StackTrace(false)
+@Setter
+public class ServiceCallEvent extends jdk.jfr.Event {
+    @Label("Service")
+    private String service;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Failed")
+    private boolean failed;
+}
@@ -0,0 +1,54 @@
+package mostowska.aleksandra.config.server;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import static spark.Spark.port;
+
+/**
+ * EmbeddedServerConfigurer sets up Spark's embedded Jetty server before any route is registered.
+ * With `server.virtual_threads` enabled, requests are handled on virtual threads instead of
+ * Jetty's default pool of platform threads.
+ */
+@Component
+@Slf4j
+public class EmbeddedServerConfigurer {
+
+    @Value("${server.port:8080}")
+    private int port;
+
+    @Value("${server.virtual_threads:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Applies the server settings. Must be called before the first route or filter is defined,
+     * as Spark starts the server on the first mapping.
+     */
+    public void configure() {
+        port(port);
+        if (virtualThreads) {
+            EmbeddedServers.add(
+                    EmbeddedServers.Identifiers.JETTY,
+                    new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool("http-vt-"))
+            );
+            log.info("Handling requests on virtual threads");
+        }
+    }
+
+    /**
+     * Stops the server when the application context is closed, before any bean is destroyed, so that no request
+     * is being handled while the beans flush what they hold back.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+        log.info("Server stopped");
+    }
+}
@@ -0,0 +1,102 @@
+package mostowska.aleksandra.config.server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VirtualThreadPool is a Jetty thread pool that handles requests on virtual threads.
+ * Handlers blocking on JDBC then park a cheap virtual thread instead of holding one of a few hundred
+ * platform threads, so the number of requests in flight is no longer capped by the pool size.
+ * <p>
+ * Jetty's acceptor and selector loops are submitted while the server starts and block in accept and select
+ * for its whole lifetime; running them on virtual threads would pin carrier threads. Tasks submitted from
+ * threads outside this pool therefore get a platform thread, while everything those loops and the request
+ * handlers hand over runs on a virtual thread.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private static final long STOP_TIMEOUT_MS = 5000;
+    private static final ThreadLocal<Boolean> POOL_THREAD = ThreadLocal.withInitial(() -> false);
+
+    private final ExecutorService virtualExecutor;
+    private final ExecutorService platformExecutor;
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates a pool whose threads are named with the given prefix and a sequence number.
+     *
+     * @param namePrefix The thread name prefix.
+     */
+    public VirtualThreadPool(String namePrefix) {
+        this.virtualExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(namePrefix, 0).factory());
+        this.platformExecutor = Executors.newCachedThreadPool(
+                Thread.ofPlatform().name(namePrefix + "io-", 0).daemon(true).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (isStopped()) {
+            throw new RejectedExecutionException("Thread pool is stopped");
+        }
+        var executor = Thread.currentThread().isVirtual() || POOL_THREAD.get() ? virtualExecutor : platformExecutor;
+        executor.execute(() -> run(task));
+    }
+
+    private void run(Runnable task) {
+        POOL_THREAD.set(true);
+        activeThreads.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            activeThreads.decrementAndGet();
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        virtualExecutor.shutdown();
+        platformExecutor.shutdown();
+        if (!virtualExecutor.awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            virtualExecutor.shutdownNow();
+        }
+        if (!platformExecutor.awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            platformExecutor.shutdownNow();
+        }
+        stopped.countDown();
+        super.doStop();
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * @return The number of threads currently running tasks, virtual and platform.
+     */
+    @Override
+    public int getThreads() {
+        return activeThreads.get();
+    }
+
+    /**
+     * Virtual threads are never kept idle; one is started per task.
+     */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.exception;
+
+/**
+ * ConflictException signals that a request conflicts with the current state, such as a taken username.
+ */
+public class ConflictException extends IllegalStateException {
+    /**
+     * Creates the exception with a message that is safe to return to the client.
+     *
+     * @param message The error message.
+     */
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.exception;
+
+/**
+ * ForbiddenException signals that the caller could not be authenticated or is not allowed to perform the request.
+ */
+public class ForbiddenException extends IllegalStateException {
+    /**
+     * Creates the exception with a message that is safe to return to the client.
+     *
+     * @param message The error message.
+     */
+    public ForbiddenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.exception;
+
+/**
+ * NotFoundException signals that a requested resource, or the user owning it, does not exist.
+ */
+public class NotFoundException extends IllegalStateException {
+    /**
+     * Creates the exception with a message that is safe to return to the client.
+     *
+     * @param message The error message.
+     */
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.exception;
+
+/**
+ * ValidationException signals that the request data is missing or invalid.
+ */
+public class ValidationException extends IllegalStateException {
+    /**
+     * Creates the exception with a message that is safe to return to the client.
+     *
+     * @param message The error message.
+     */
+    public ValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package mostowska.aleksandra.model;
+
+import mostowska.aleksandra.model.utils.Money;
+
+/**
+ * The number of users of a group and the sums of their budgets.
+ *
+ * @param users                         The number of users.
+ * @param enabledUsers                  The number of activated users.
+ * @param negativeBudgetUsers           The number of users with a budget below zero.
+ * @param negativeBudgetAfterGoalsUsers The number of users with a budget after goals below zero.
+ * @param budget                        The sum of the budgets.
+ * @param budgetAfterGoals              The sum of the budgets after goals.
+ */
+public record BudgetTotals(long users, long enabledUsers, long negativeBudgetUsers,
+                           long negativeBudgetAfterGoalsUsers, Money budget, Money budgetAfterGoals) {
+    public static final BudgetTotals ZERO = new BudgetTotals(0, 0, 0, 0, Money.ZERO, Money.ZERO);
+
+    /**
+     * Combines the totals of two disjoint groups of users.
+     *
+     * @param other The totals of the other group.
+     * @return The totals of both groups.
+     */
+    public BudgetTotals plus(BudgetTotals other) {
+        return new BudgetTotals(users + other.users, enabledUsers + other.enabledUsers,
+                negativeBudgetUsers + other.negativeBudgetUsers,
+                negativeBudgetAfterGoalsUsers + other.negativeBudgetAfterGoalsUsers,
+                budget.plus(other.budget), budgetAfterGoals.plus(other.budgetAfterGoals));
+    }
+}
@@ -0,0 +1,26 @@
+package mostowska.aleksandra.model;
+
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+
+/**
+ * The total and number of the expenses or incomes of one category of a group of users.
+ *
+ * @param kind     Whether the transactions are expenses or incomes.
+ * @param category The expense or income type.
+ * @param total    The sum of the amounts.
+ * @param count    The number of transactions.
+ * @param users    The number of users with transactions of the category.
+ */
+public record CategoryTotals(TransactionKind kind, String category, Money total, long count, long users) {
+
+    /**
+     * Combines the totals of the same category of two disjoint groups of users.
+     *
+     * @param other The totals of the other group.
+     * @return The totals of both groups.
+     */
+    public CategoryTotals plus(CategoryTotals other) {
+        return new CategoryTotals(kind, category, total.plus(other.total), count + other.count, users + other.users);
+    }
+}
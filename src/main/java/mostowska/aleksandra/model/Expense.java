@@ -4,8 +4,11 @@ import lombok.*;
 import mostowska.aleksandra.model.dto.expense.GetExpenseDto;
 import mostowska.aleksandra.model.utils.ExpenseType;
 import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Setter
@@ -17,9 +20,10 @@ public class Expense {
     private ExpenseType expenseType;
     private String customExpenseType;
     private String description;
-    private BigDecimal amount;
+    private Money amount;
     private Frequency frequency;
     private Long customFrequency;
+    private LocalDateTime occurredAt;
     private Long userId;
 
     /**
@@ -43,6 +47,7 @@ public class Expense {
                 .amount(amount)
                 .frequency(frequency)
                 .customFrequency(customFrequency)
+                .occurredAt(occurredAt)
                 .userId(userId)
                 .build();
     }
@@ -68,6 +73,7 @@ public class Expense {
                 .amount(amount)
                 .frequency(frequency)
                 .customFrequency(newCustomFrequency)
+                .occurredAt(occurredAt)
                 .userId(userId)
                 .build();
     }
@@ -79,7 +85,43 @@ public class Expense {
      * @return a new `GetExpenseDto` instance representing this expense
      */
     public GetExpenseDto toGetExpenseDto() {
-        return new GetExpenseDto(expenseType, description, amount);
+        return new GetExpenseDto(id, expenseType, description, Money.toBigDecimalOrNull(amount), occurredAt);
+    }
+
+    /**
+     * Returns the amount, for services that compute with it without converting it to a DTO.
+     *
+     * @return the amount
+     */
+    public Money amount() {
+        return amount;
+    }
+
+    /**
+     * Returns the expense type, for services that aggregate expenses by type.
+     *
+     * @return the expense type
+     */
+    public ExpenseType expenseType() {
+        return expenseType;
+    }
+
+    /**
+     * Appends this expense to a columnar snapshot of the user's expenses.
+     *
+     * @param appender the appender of the snapshot
+     */
+    public void appendTo(TransactionColumns.Appender appender) {
+        appender.append(id, expenseType, frequency, amount, occurredAt.toLocalDate());
+    }
+
+    /**
+     * Creates the change to the monthly rollups that adds this expense; negated, it removes it.
+     *
+     * @return the change to the rollup of the expense's month and type
+     */
+    public MonthlyRollup toMonthlyRollup() {
+        return MonthlyRollup.of(userId, TransactionKind.EXPENSE, occurredAt.toLocalDate(), expenseType, amount);
     }
 
     /**
@@ -4,8 +4,11 @@ import lombok.*;
 import mostowska.aleksandra.model.dto.income.GetIncomeDto;
 import mostowska.aleksandra.model.utils.Frequency;
 import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Setter
@@ -17,9 +20,10 @@ public class Income {
     private IncomeType incomeType;
     private String customIncomeType;
     private String description;
-    private BigDecimal amount;
+    private Money amount;
     private Frequency frequency;
     private Long customFrequency;
+    private LocalDateTime occurredAt;
     private Long userId;
 
     /**
@@ -38,6 +42,7 @@ public class Income {
                 .frequency(frequency)
                 .customIncomeType(newCustomIncomeType)
                 .customFrequency(customFrequency)
+                .occurredAt(occurredAt)
                 .userId(userId)
                 .build();
     }
@@ -57,6 +62,7 @@ public class Income {
                 .frequency(frequency)
                 .customIncomeType(customIncomeType)
                 .customFrequency(newCustomFrequency)
+                .occurredAt(occurredAt)
                 .userId(userId)
                 .build();
     }
@@ -67,7 +73,34 @@ public class Income {
      * @return a new `GetIncomeDto` instance representing this income
      */
     public GetIncomeDto toGetIncomeDto() {
-        return new GetIncomeDto(id, incomeType, amount);
+        return new GetIncomeDto(id, incomeType, Money.toBigDecimalOrNull(amount), occurredAt);
+    }
+
+    /**
+     * Returns the amount, for services that compute with it without converting it to a DTO.
+     *
+     * @return the amount
+     */
+    public Money amount() {
+        return amount;
+    }
+
+    /**
+     * Appends this income to a columnar snapshot of the user's incomes.
+     *
+     * @param appender the appender of the snapshot
+     */
+    public void appendTo(TransactionColumns.Appender appender) {
+        appender.append(id, incomeType, frequency, amount, occurredAt.toLocalDate());
+    }
+
+    /**
+     * Creates the change to the monthly rollups that adds this income; negated, it removes it.
+     *
+     * @return the change to the rollup of the income's month and type
+     */
+    public MonthlyRollup toMonthlyRollup() {
+        return MonthlyRollup.of(userId, TransactionKind.INCOME, occurredAt.toLocalDate(), incomeType, amount);
     }
 
     /**
@@ -4,8 +4,8 @@ import lombok.*;
 import mostowska.aleksandra.model.dto.investment.CreateInvestmentDto;
 import mostowska.aleksandra.model.dto.investment.GetInvestmentDto;
 import mostowska.aleksandra.model.utils.AssetType;
+import mostowska.aleksandra.model.utils.Money;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Objects;
@@ -17,8 +17,8 @@ import java.util.Objects;
 public class Investment {
     private Long id;
     private AssetType assetType;
-    private BigDecimal amountInvested;
-    private BigDecimal currentValue;
+    private Money amountInvested;
+    private Money currentValue;
     private LocalDateTime investmentDateTime;
     private Long userId;
 
@@ -28,7 +28,26 @@ public class Investment {
      * @return a new `GetInvestmentDto` instance representing this investment
      */
     public GetInvestmentDto toGetInvestmentDto() {
-        return new GetInvestmentDto(id, assetType, amountInvested, currentValue);
+        return new GetInvestmentDto(id, assetType, Money.toBigDecimalOrNull(amountInvested),
+                Money.toBigDecimalOrNull(currentValue));
+    }
+
+    /**
+     * Returns the amount invested, for services that compute with it without converting it to a DTO.
+     *
+     * @return the amount invested
+     */
+    public Money amountInvested() {
+        return amountInvested;
+    }
+
+    /**
+     * Returns the current value, for services that compute with it without converting it to a DTO.
+     *
+     * @return the current value
+     */
+    public Money currentValue() {
+        return currentValue;
     }
 
     /**
@@ -0,0 +1,42 @@
+package mostowska.aleksandra.model;
+
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+
+import java.time.LocalDate;
+
+/**
+ * The total and number of a user's expenses or incomes of one category in one calendar month, or a change to them.
+ *
+ * @param userId     The ID of the user.
+ * @param kind       Whether the transactions are expenses or incomes.
+ * @param monthStart The first day of the month.
+ * @param category   The expense or income type.
+ * @param total      The sum of the amounts.
+ * @param count      The number of transactions.
+ */
+public record MonthlyRollup(Long userId, TransactionKind kind, LocalDate monthStart, String category, Money total,
+                            long count) {
+
+    /**
+     * Creates the change that adds one transaction.
+     *
+     * @param userId     The ID of the user.
+     * @param kind       Whether the transaction is an expense or an income.
+     * @param occurredAt The day the transaction occurred.
+     * @param category   The expense or income type.
+     * @param amount     The amount of the transaction.
+     * @return The change.
+     */
+    public static MonthlyRollup of(Long userId, TransactionKind kind, LocalDate occurredAt, Enum<?> category,
+                                   Money amount) {
+        return new MonthlyRollup(userId, kind, occurredAt.withDayOfMonth(1), category.name(), amount, 1);
+    }
+
+    /**
+     * @return The change that undoes this one, e.g. for a deleted transaction.
+     */
+    public MonthlyRollup negate() {
+        return new MonthlyRollup(userId, kind, monthStart, category, total.negate(), -count);
+    }
+}
@@ -0,0 +1,13 @@
+package mostowska.aleksandra.model;
+
+/**
+ * An e-mail claimed from the outbox for delivery.
+ *
+ * @param id          The unique identifier of the outbox entry.
+ * @param receiver    The e-mail address of the recipient.
+ * @param subject     The subject line.
+ * @param htmlContent The HTML body.
+ * @param attempts    The number of delivery attempts made before this one.
+ */
+public record OutboxEmail(Long id, String receiver, String subject, String htmlContent, int attempts) {
+}
@@ -5,10 +5,12 @@ import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import mostowska.aleksandra.model.dto.savings_goal.GetSavingGoalDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.model.utils.SavingsGoalType;
 import mostowska.aleksandra.service.user.UserService;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Objects;
 
 @Setter
@@ -38,8 +40,18 @@ public class SavingsGoal {
      * @param userId the ID of the user whose budget is used for the calculation
      * @return the calculated savings as a percentage of the user's budget
      */
-    public BigDecimal calculateSavingsFromUsersBudget(UserService userService, Long userId) {
-        return userService.getBudget(userId).multiply(percentage);
+    public Money calculateSavingsFromUsersBudget(UserService userService, Long userId) {
+        return calculateSavingsFromBudget(Money.of(userService.getBudget(userId)));
+    }
+
+    /**
+     * Calculates the amount of savings from a given budget and the goal's percentage, rounded to cents.
+     *
+     * @param budget the budget the savings are taken from
+     * @return the calculated savings as a percentage of the budget
+     */
+    public Money calculateSavingsFromBudget(Money budget) {
+        return budget.times(percentage, RoundingMode.HALF_EVEN);
     }
 
     /**
@@ -2,11 +2,12 @@ package mostowska.aleksandra.model;
 
 import lombok.*;
 import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.model.utils.Role;
 import mostowska.aleksandra.service.dto.AuthorizationDto;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 
 @Setter
@@ -19,8 +20,8 @@ public class User {
     private String email;
     private String password;
     private Role role;
-    private BigDecimal budget;
-    private BigDecimal budgetAfterGoals;
+    private Money budget;
+    private Money budgetAfterGoals;
     private boolean enabled;
 
     /**
@@ -37,8 +38,8 @@ public class User {
                 .email(email)
                 .password(newPassword)
                 .role(role)
-                .budget(BigDecimal.ZERO)
-                .budgetAfterGoals(BigDecimal.ZERO)
+                .budget(Money.ZERO)
+                .budgetAfterGoals(Money.ZERO)
                 .enabled(enabled)
                 .build();
     }
@@ -69,8 +70,8 @@ public class User {
      * @param amount the amount to add to the current budget
      * @return a new `User` instance with the updated budget
      */
-    public User withBudgetAdd(BigDecimal amount) {
-        return withNewBudget(budget.add(amount));
+    public User withBudgetAdd(Money amount) {
+        return withNewBudget(budget.plus(amount));
     }
 
     /**
@@ -79,8 +80,8 @@ public class User {
      * @param amount the amount to subtract from the current budget
      * @return a new `User` instance with the updated budget
      */
-    public User withBudgetCut(BigDecimal amount) {
-        return withNewBudget(budget.subtract(amount));
+    public User withBudgetCut(Money amount) {
+        return withNewBudget(budget.minus(amount));
     }
 
     /**
@@ -89,8 +90,8 @@ public class User {
      * @param amount the amount to add to the budgetAfterGoals
      * @return a new `User` instance with the updated budgetAfterGoals
      */
-    public User withBudgetAfterGoalsAdd(BigDecimal amount) {
-        return withNewBudgetAfterGoals(budgetAfterGoals.add(amount));
+    public User withBudgetAfterGoalsAdd(Money amount) {
+        return withNewBudgetAfterGoals(budgetAfterGoals.plus(amount));
     }
 
     /**
@@ -99,8 +100,8 @@ public class User {
      * @param amount the amount to subtract from the budgetAfterGoals
      * @return a new `User` instance with the updated budgetAfterGoals
      */
-    public User withBudgetAfterGoalsCut(BigDecimal amount) {
-        return withNewBudgetAfterGoals(budgetAfterGoals.subtract(amount));
+    public User withBudgetAfterGoalsCut(Money amount) {
+        return withNewBudgetAfterGoals(budgetAfterGoals.minus(amount));
     }
 
     /**
@@ -109,7 +110,8 @@ public class User {
      * @return a new `GetUserDto` instance representing the current user
      */
     public GetUserDto toGetUserDto() {
-        return new GetUserDto(id, username, email, budget, budgetAfterGoals);
+        return new GetUserDto(id, username, email, budget == null ? null : budget.toBigDecimal(),
+                budgetAfterGoals == null ? null : budgetAfterGoals.toBigDecimal());
     }
 
     /**
@@ -127,7 +129,7 @@ public class User {
      * @param asset the amount of the asset to compare against the user's budget
      * @return true if the user has enough budget, false otherwise
      */
-    public boolean hasEnoughBudgetForAsset(BigDecimal asset) {
+    public boolean hasEnoughBudgetForAsset(Money asset) {
         return budget.compareTo(asset) >= 0;
     }
 
@@ -144,13 +146,21 @@ public class User {
 
     /**
      * Helper method to update the user's budget and calculate the budget after goals accordingly.
+     * The budget after goals keeps its ratio to the budget, rounded to cents; from a zero budget, which has no ratio,
+     * it is shifted by the change instead.
      *
      * @param newBudget the new budget to set
      * @return a new `User` instance with the updated budget and calculated budgetAfterGoals
      */
-    private User withNewBudget(BigDecimal newBudget) {
-        var newBudgetAfterGoals = budget.compareTo(budgetAfterGoals) == 0
-                ?  newBudget : budgetAfterGoals.divide(budget).multiply(newBudget);
+    private User withNewBudget(Money newBudget) {
+        Money newBudgetAfterGoals;
+        if (budget.equals(budgetAfterGoals)) {
+            newBudgetAfterGoals = newBudget;
+        } else if (budget.isZero()) {
+            newBudgetAfterGoals = budgetAfterGoals.plus(newBudget.minus(budget));
+        } else {
+            newBudgetAfterGoals = newBudget.scale(budgetAfterGoals.cents(), budget.cents(), RoundingMode.HALF_EVEN);
+        }
         return User
                 .builder()
                 .id(id)
@@ -170,7 +180,7 @@ public class User {
      * @param newBudgetAfterGoals the new budgetAfterGoals to set
      * @return a new `User` instance with the updated budgetAfterGoals
      */
-    private User withNewBudgetAfterGoals(BigDecimal newBudgetAfterGoals) {
+    private User withNewBudgetAfterGoals(Money newBudgetAfterGoals) {
         return User
                 .builder()
                 .id(id)
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * A Data Transfer Object (DTO) representing the expenses or incomes of one type across all users.
+ *
+ * @param category The expense or income type (e.g., GROCERIES, SALARY).
+ * @param total The sum of the amounts.
+ * @param count The number of expenses or incomes.
+ * @param users The number of users with expenses or incomes of the type.
+ * @param share The part of the total of all types, e.g. 0.2500, or null if that total is zero.
+ */
+public record CategoryShareDto(String category, BigDecimal total, long count, long users, BigDecimal share) {
+}
@@ -0,0 +1,13 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * A Data Transfer Object (DTO) representing the total of a user's expenses or incomes of one type over a period.
+ *
+ * @param category The expense or income type (e.g., GROCERIES, SALARY).
+ * @param total The sum of the amounts.
+ * @param count The number of expenses or incomes.
+ */
+public record CategoryTotalDto(String category, BigDecimal total, long count) {
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * A Data Transfer Object (DTO) representing a user's expenses and incomes in one month of a trend.
+ *
+ * @param month The calendar month.
+ * @param expenses The sum of the expenses, zero if there were none.
+ * @param incomes The sum of the incomes, zero if there were none.
+ * @param net The incomes less the expenses.
+ */
+public record MonthBalanceDto(YearMonth month, BigDecimal expenses, BigDecimal incomes, BigDecimal net) {
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * A Data Transfer Object (DTO) representing the total of a user's expenses or incomes in one month of a trend.
+ *
+ * @param month The calendar month.
+ * @param total The sum of the amounts, zero if there were none.
+ * @param count The number of expenses or incomes.
+ * @param change The difference from the previous month's total, or null for the first month of the trend.
+ */
+public record MonthTotalDto(YearMonth month, BigDecimal total, long count, BigDecimal change) {
+}
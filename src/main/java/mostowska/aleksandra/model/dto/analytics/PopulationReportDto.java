@@ -0,0 +1,25 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A Data Transfer Object (DTO) representing totals over all users, for administrators.
+ *
+ * @param users The number of users.
+ * @param enabledUsers The number of activated users.
+ * @param negativeBudgetUsers The number of users with a budget below zero.
+ * @param negativeBudgetAfterGoalsUsers The number of users with a budget after goals below zero.
+ * @param totalBudget The sum of the budgets.
+ * @param totalBudgetAfterGoals The sum of the budgets after goals.
+ * @param totalExpenses The sum of all expenses.
+ * @param totalIncomes The sum of all incomes.
+ * @param expensesByType The expense types with expenses, ordered by type.
+ * @param incomesByType The income types with incomes, ordered by type.
+ */
+public record PopulationReportDto(long users, long enabledUsers, long negativeBudgetUsers,
+                                  long negativeBudgetAfterGoalsUsers, BigDecimal totalBudget,
+                                  BigDecimal totalBudgetAfterGoals, BigDecimal totalExpenses,
+                                  BigDecimal totalIncomes, List<CategoryShareDto> expensesByType,
+                                  List<CategoryShareDto> incomesByType) {
+}
@@ -0,0 +1,18 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * A Data Transfer Object (DTO) comparing a user's expenses of one type with the expenses of that type of all users.
+ *
+ * @param category The expense type (e.g., GROCERIES).
+ * @param averageAmount The average amount of the user's expenses of the type.
+ * @param count The number of the user's expenses of the type.
+ * @param percentile The percentage of all expenses of the type that are at most the user's average, e.g. 72.0,
+ *                   or null if there are none yet.
+ * @param medianAmount The median amount of all expenses of the type, or null if there are none yet.
+ * @param p90Amount The amount that 90% of all expenses of the type are at most, or null if there are none yet.
+ */
+public record SpendPercentileDto(String category, BigDecimal averageAmount, long count, BigDecimal percentile,
+                                 BigDecimal medianAmount, BigDecimal p90Amount) {
+}
@@ -0,0 +1,22 @@
+package mostowska.aleksandra.model.dto.analytics;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * A Data Transfer Object (DTO) representing a summary of a user's expenses and incomes over a period.
+ *
+ * @param from The first month of the period.
+ * @param to The last month of the period.
+ * @param totalExpenses The sum of the expenses.
+ * @param totalIncomes The sum of the incomes.
+ * @param savingsRate The share of the incomes that was not spent, e.g. 0.2500, or null if there were no incomes.
+ * @param expensesByType The totals of the expense types with expenses in the period, ordered by type.
+ * @param incomesByType The totals of the income types with incomes in the period, ordered by type.
+ * @param trend The expenses and incomes of every month of the period, in order.
+ */
+public record UserAnalyticsDto(YearMonth from, YearMonth to, BigDecimal totalExpenses, BigDecimal totalIncomes,
+                               BigDecimal savingsRate, List<CategoryTotalDto> expensesByType,
+                               List<CategoryTotalDto> incomesByType, List<MonthBalanceDto> trend) {
+}
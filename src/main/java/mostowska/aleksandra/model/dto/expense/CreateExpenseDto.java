@@ -1,10 +1,14 @@
 package mostowska.aleksandra.model.dto.expense;
 
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.Expense;
 import mostowska.aleksandra.model.utils.ExpenseType;
 import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * A Data Transfer Object (DTO) used for creating new expense records.
@@ -26,7 +30,7 @@ public record CreateExpenseDto(
         Long customFrequency
 ) {
     /**
-     * Converts the CreateExpenseDto into an Expense entity.
+     * Converts the CreateExpenseDto into an Expense entity, dated now.
      *
      * @param userId The ID of the user associated with this expense.
      * @return A new Expense object created from this DTO.
@@ -39,9 +43,10 @@ public record CreateExpenseDto(
                 .expenseType(expenseType)
                 .customExpenseType(customExpenseType)
                 .description(description)
-                .amount(amount)
+                .amount(Money.ofNullable(amount))
                 .frequency(frequency)
                 .customFrequency(customFrequency)
+                .occurredAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .userId(userId)
                 .build();
     }
@@ -52,17 +57,17 @@ public record CreateExpenseDto(
      */
     private void checkCustomFields() {
         if (expenseType == ExpenseType.CUSTOM && customExpenseType == null) {
-            throw new IllegalStateException("Custom expense type must be provided");
+            throw new ValidationException("Custom expense type must be provided");
         }
         if (expenseType != ExpenseType.CUSTOM && customExpenseType != null) {
-            throw new IllegalStateException("'CUSTOM' must be chosen for handling custom expense type");
+            throw new ValidationException("'CUSTOM' must be chosen for handling custom expense type");
         }
 
         if (frequency == Frequency.CUSTOM && customFrequency == null) {
-            throw new IllegalStateException("Custom frequency must be provided");
+            throw new ValidationException("Custom frequency must be provided");
         }
         if (frequency != Frequency.CUSTOM && customFrequency != null) {
-            throw new IllegalStateException("'CUSTOM' must be chosen for handling custom frequency");
+            throw new ValidationException("'CUSTOM' must be chosen for handling custom frequency");
         }
     }
 }
@@ -3,14 +3,18 @@ package mostowska.aleksandra.model.dto.expense;
 import mostowska.aleksandra.model.utils.ExpenseType;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * A Data Transfer Object (DTO) representing an expense record.
  * This class is used to encapsulate information about a specific expense.
  *
+ * @param id The unique identifier for the expense record.
  * @param expenseType The type of expense (e.g., GROCERIES, RENT).
  * @param description A brief description of the expense.
  * @param amount The monetary amount of the expense.
+ * @param occurredAt When the expense occurred.
  */
-public record GetExpenseDto(ExpenseType expenseType, String description, BigDecimal amount) {
+public record GetExpenseDto(Long id, ExpenseType expenseType, String description, BigDecimal amount,
+                            LocalDateTime occurredAt) {
 }
@@ -1,10 +1,14 @@
 package mostowska.aleksandra.model.dto.income;
 
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.Income;
 import mostowska.aleksandra.model.utils.Frequency;
 import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.model.utils.Money;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * A Data Transfer Object (DTO) used for creating new income records.
@@ -26,7 +30,7 @@ public record CreateIncomeDto(
         Long customFrequency
 ) {
     /**
-     * Converts the CreateIncomeDto into an Income entity.
+     * Converts the CreateIncomeDto into an Income entity, dated now.
      *
      * @param userId The ID of the user associated with this income.
      * @return A new Income object created from this DTO.
@@ -38,9 +42,10 @@ public record CreateIncomeDto(
                 .incomeType(incomeType)
                 .customIncomeType(customIncomeType)
                 .description(description)
-                .amount(amount)
+                .amount(Money.ofNullable(amount))
                 .frequency(frequency)
                 .customFrequency(customFrequency)
+                .occurredAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .userId(userId)
                 .build();
     }
@@ -51,17 +56,17 @@ public record CreateIncomeDto(
      */
     private void checkCustomFields() {
         if (incomeType == IncomeType.CUSTOM && customIncomeType == null) {
-            throw new IllegalStateException("Custom income type must be provided");
+            throw new ValidationException("Custom income type must be provided");
         }
         if (incomeType != IncomeType.CUSTOM && customIncomeType != null) {
-            throw new IllegalStateException("'CUSTOM' must be chosen for handling custom income type");
+            throw new ValidationException("'CUSTOM' must be chosen for handling custom income type");
         }
 
         if (frequency == Frequency.CUSTOM && customFrequency == null) {
-            throw new IllegalStateException("Custom frequency must be provided");
+            throw new ValidationException("Custom frequency must be provided");
         }
         if (frequency != Frequency.CUSTOM && customFrequency != null) {
-            throw new IllegalStateException("'CUSTOM' must be chosen for handling custom frequency");
+            throw new ValidationException("'CUSTOM' must be chosen for handling custom frequency");
         }
     }
 }
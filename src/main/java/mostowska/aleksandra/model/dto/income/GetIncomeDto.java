@@ -3,6 +3,7 @@ package mostowska.aleksandra.model.dto.income;
 import mostowska.aleksandra.model.utils.IncomeType;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * A Data Transfer Object (DTO) representing income details.
@@ -11,6 +12,7 @@ import java.math.BigDecimal;
  * @param id The unique identifier for the income record.
  * @param incomeType The type of income (e.g., SALARY, BONUS, RENTAL).
  * @param amount The amount of income received.
+ * @param occurredAt When the income was received.
  */
-public record GetIncomeDto(Long id, IncomeType incomeType, BigDecimal amount) {
+public record GetIncomeDto(Long id, IncomeType incomeType, BigDecimal amount, LocalDateTime occurredAt) {
 }
@@ -2,6 +2,7 @@ package mostowska.aleksandra.model.dto.investment;
 
 import mostowska.aleksandra.model.Investment;
 import mostowska.aleksandra.model.utils.AssetType;
+import mostowska.aleksandra.model.utils.Money;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,8 +32,8 @@ public record CreateInvestmentDto(
         return Investment
                 .builder()
                 .assetType(assetType)
-                .amountInvested(amountInvested)
-                .currentValue(amountInvested)
+                .amountInvested(Money.ofNullable(amountInvested))
+                .currentValue(Money.ofNullable(amountInvested))
                 .investmentDateTime(investmentDateTime)
                 .userId(userId)
                 .build();
@@ -1,5 +1,6 @@
 package mostowska.aleksandra.model.dto.savings_goal;
 
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.SavingsGoal;
 import mostowska.aleksandra.model.utils.SavingsGoalType;
 
@@ -43,10 +44,10 @@ public record CreateSavingGoalDto(SavingsGoalType goalType, String customGoalTyp
      */
     private void checkCustomFields() {
         if (goalType == SavingsGoalType.CUSTOM && customGoalType == null) {
-            throw new IllegalStateException("Custom goal type must be provided");
+            throw new ValidationException("Custom goal type must be provided");
         }
         if (goalType != SavingsGoalType.CUSTOM && customGoalType != null) {
-            throw new IllegalStateException("'CUSTOM' must be chosen for handling custom goal type");
+            throw new ValidationException("'CUSTOM' must be chosen for handling custom goal type");
         }
     }
 }
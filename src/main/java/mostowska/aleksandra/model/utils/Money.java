@@ -0,0 +1,196 @@
+package mostowska.aleksandra.model.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.stream.Stream;
+
+/**
+ * Money is an amount in whole cents, the precision of the amount columns, held in a long.
+ * Arithmetic on it allocates at most the result and throws ArithmeticException on overflow instead of wrapping.
+ * Amounts are converted from and to BigDecimal only where they enter and leave the application:
+ * in request and response DTOs and in database columns.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    /**
+     * How amounts with more than two decimal places are rounded to cents, matching how MySQL stores them
+     * in a decimal(10, 2) column.
+     */
+    public static final RoundingMode CENTS_ROUNDING = RoundingMode.HALF_UP;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Converts an amount, rounding it to cents with CENTS_ROUNDING.
+     *
+     * @param amount The amount.
+     * @return The amount in cents.
+     * @throws ArithmeticException If the amount does not fit in a long number of cents.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, CENTS_ROUNDING).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Converts an amount that may be missing, e.g. an optional field of a request.
+     *
+     * @param amount The amount, or null.
+     * @return The amount in cents, or null.
+     */
+    public static Money ofNullable(BigDecimal amount) {
+        return amount == null ? null : of(amount);
+    }
+
+    /**
+     * Converts an amount that may be missing back, e.g. a field of an entity that was not loaded.
+     *
+     * @param money The amount, or null.
+     * @return The amount with two decimal places, or null.
+     */
+    public static BigDecimal toBigDecimalOrNull(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    /**
+     * Sums amounts as longs, allocating only the total.
+     *
+     * @param amounts The amounts.
+     * @return The total, zero if there are no amounts.
+     * @throws ArithmeticException If the total does not fit in a long number of cents.
+     */
+    public static Money sum(Stream<Money> amounts) {
+        return ofCents(amounts.mapToLong(Money::cents).reduce(0L, Math::addExact));
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    /**
+     * Multiplies the amount by a ratio, e.g. a percentage as a fraction of one.
+     *
+     * @param ratio    The ratio.
+     * @param rounding How to round the result to cents.
+     * @return The product, in cents.
+     */
+    public Money times(BigDecimal ratio, RoundingMode rounding) {
+        return of(BigDecimal.valueOf(cents, 2).multiply(ratio).setScale(2, rounding));
+    }
+
+    /**
+     * Multiplies the amount by numerator / denominator, computed exactly and rounded once.
+     *
+     * @param numerator   The numerator of the ratio.
+     * @param denominator The denominator of the ratio, not zero.
+     * @param rounding    How to round the result to cents.
+     * @return The scaled amount, in cents.
+     * @throws ArithmeticException If the denominator is zero or the result does not fit in a long.
+     */
+    public Money scale(long numerator, long denominator, RoundingMode rounding) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        var high = Math.multiplyHigh(cents, numerator);
+        var low = cents * numerator;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return ofCents(divide(low, denominator, rounding));
+        }
+        // The product needs more than 64 bits
+        var product = BigInteger.valueOf(cents).multiply(BigInteger.valueOf(numerator));
+        return ofCents(new BigDecimal(product).divide(BigDecimal.valueOf(denominator), 0, rounding).longValueExact());
+    }
+
+    /**
+     * Divides the amount into a whole number of parts of the given amount, rounding up, e.g. the number of months
+     * it takes to save this amount at the given amount a month.
+     *
+     * @param part The amount of one part, positive.
+     * @return The number of parts.
+     */
+    public long partsOf(Money part) {
+        if (part.cents <= 0) {
+            throw new ArithmeticException("Part must be positive");
+        }
+        return divide(cents, part.cents, RoundingMode.CEILING);
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Formats the amount as a plain decimal with two decimal places, e.g. 12.50, as SQL and JSON expect it.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private static long divide(long dividend, long divisor, RoundingMode rounding) {
+        var quotient = dividend / divisor;
+        var remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        var signum = (dividend ^ divisor) < 0 ? -1 : 1;
+        var twiceRemainder = Math.abs(remainder) * 2;
+        var absDivisor = Math.abs(divisor);
+        boolean awayFromZero = switch (rounding) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> signum > 0;
+            case FLOOR -> signum < 0;
+            case HALF_UP -> twiceRemainder >= absDivisor || twiceRemainder < 0;
+            case HALF_DOWN -> twiceRemainder > absDivisor || twiceRemainder < 0;
+            case HALF_EVEN -> twiceRemainder > absDivisor || twiceRemainder < 0
+                    || (twiceRemainder == absDivisor && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return awayFromZero ? Math.addExact(quotient, signum) : quotient;
+    }
+}
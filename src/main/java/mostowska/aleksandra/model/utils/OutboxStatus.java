@@ -0,0 +1,11 @@
+package mostowska.aleksandra.model.utils;
+
+/**
+ * Represents the delivery state of an e-mail in the outbox.
+ */
+public enum OutboxStatus {
+    PENDING,  // Waiting for its first or next delivery attempt
+    SENDING,  // Claimed by a dispatcher worker
+    SENT,
+    FAILED    // Given up on after the maximum number of attempts
+}
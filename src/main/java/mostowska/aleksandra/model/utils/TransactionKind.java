@@ -0,0 +1,9 @@
+package mostowska.aleksandra.model.utils;
+
+/**
+ * Represents whether a transaction takes money out of the budget or brings it in.
+ */
+public enum TransactionKind {
+    EXPENSE,
+    INCOME
+}
@@ -0,0 +1,49 @@
+package mostowska.aleksandra.repository.analytics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * ExpenseSketchRepository stores, in the expense_sketches table, the serialized quantile sketch of the expense
+ * amounts of each expense type across all users.
+ */
+public interface ExpenseSketchRepository {
+    /**
+     * Reads all stored sketches.
+     *
+     * @return The serialized sketches by expense type.
+     */
+    Map<String, byte[]> findAll();
+
+    /**
+     * Reads a sketch and locks it until the end of the surrounding transaction, so that concurrent checkpoints
+     * merge into it one after another.
+     *
+     * @param expenseType The expense type.
+     * @return The serialized sketch, or empty if there is none yet.
+     */
+    Optional<byte[]> findForUpdate(String expenseType);
+
+    /**
+     * Stores a sketch, replacing the one stored before.
+     *
+     * @param expenseType The expense type.
+     * @param sketch      The serialized sketch.
+     */
+    void save(String expenseType, byte[] sketch);
+
+    /**
+     * Reads the type and amount of every expense up to an ID, without holding them in memory, to build the
+     * sketches when none are stored yet.
+     *
+     * @param maxExpenseId The highest expense ID to read.
+     * @param action       Receives the expense type and the amount in cents of each expense.
+     */
+    void forEachExpenseAmount(long maxExpenseId, ObjLongConsumer<String> action);
+
+    /**
+     * @return The highest expense ID, or 0 if there are no expenses.
+     */
+    long findMaxExpenseId();
+}
@@ -0,0 +1,52 @@
+package mostowska.aleksandra.repository.analytics;
+
+import mostowska.aleksandra.model.MonthlyRollup;
+import mostowska.aleksandra.model.utils.TransactionKind;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * MonthlyRollupRepository stores, in the monthly_rollups table, the total and number of each user's expenses and
+ * incomes per type and calendar month. The rollups are changed in the same transaction as the expenses and incomes,
+ * so breakdowns and trends are read from a few rows per month instead of scanning the user's transactions.
+ */
+public interface MonthlyRollupRepository {
+    /**
+     * Adds a change to a rollup, creating the rollup if there is none yet.
+     *
+     * @param change The amount and number of transactions to add, negative to take them away.
+     */
+    void add(MonthlyRollup change);
+
+    /**
+     * Sums a user's rollups of one kind per category.
+     *
+     * @param userId The ID of the user.
+     * @param kind   Whether to sum expenses or incomes.
+     * @param from   The first day of the first month, inclusive.
+     * @param to     The first day of the month after the last one, exclusive.
+     * @return The rollups per category with the month start left null, categories without transactions left out.
+     */
+    List<MonthlyRollup> sumByCategory(Long userId, TransactionKind kind, LocalDate from, LocalDate to);
+
+    /**
+     * Sums a user's rollups of one kind per month.
+     *
+     * @param userId The ID of the user.
+     * @param kind   Whether to sum expenses or incomes.
+     * @param from   The first day of the first month, inclusive.
+     * @param to     The first day of the month after the last one, exclusive.
+     * @return The rollups per month, ordered by month, with the category left null; months without rows left out.
+     */
+    List<MonthlyRollup> sumByMonth(Long userId, TransactionKind kind, LocalDate from, LocalDate to);
+
+    /**
+     * Recomputes the rollups of a range of users from their expenses and incomes, in one transaction.
+     *
+     * @param fromUserId The first user ID, inclusive.
+     * @param toUserId   The last user ID, exclusive.
+     * @return The number of rollups written.
+     */
+    int rebuildForUserIds(Long fromUserId, Long toUserId);
+}
@@ -0,0 +1,33 @@
+package mostowska.aleksandra.repository.analytics;
+
+import mostowska.aleksandra.model.BudgetTotals;
+import mostowska.aleksandra.model.CategoryTotals;
+import mostowska.aleksandra.model.utils.TransactionKind;
+
+import java.util.function.Consumer;
+
+/**
+ * PopulationReportRepository aggregates the users, expenses and incomes of a range of user IDs in the database,
+ * so that a report over all users reads a few rows per range instead of every user and transaction.
+ */
+public interface PopulationReportRepository {
+    /**
+     * Counts the users of a range of IDs and sums their budgets.
+     *
+     * @param fromUserId The first user ID, inclusive.
+     * @param toUserId   The last user ID, exclusive.
+     * @return The totals, zero if the range holds no users.
+     */
+    BudgetTotals sumBudgets(Long fromUserId, Long toUserId);
+
+    /**
+     * Sums the expenses or incomes of a range of user IDs per category, passing each category's totals on as they
+     * are read.
+     *
+     * @param kind       Whether to sum expenses or incomes.
+     * @param fromUserId The first user ID, inclusive.
+     * @param toUserId   The last user ID, exclusive.
+     * @param action     Receives the totals of every category with transactions.
+     */
+    void forEachCategoryTotals(TransactionKind kind, Long fromUserId, Long toUserId, Consumer<CategoryTotals> action);
+}
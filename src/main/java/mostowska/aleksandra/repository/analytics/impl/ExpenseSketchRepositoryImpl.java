@@ -0,0 +1,84 @@
+package mostowska.aleksandra.repository.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.analytics.ExpenseSketchRepository;
+import org.jdbi.v3.core.Jdbi;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * ExpenseSketchRepositoryImpl is the implementation of the ExpenseSketchRepository interface.
+ * Calls made inside TransactionManager.inTransaction join the surrounding transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExpenseSketchRepositoryImpl implements ExpenseSketchRepository {
+    // Rows read from the database at a time while scanning all expenses
+    private static final int FETCH_SIZE = 1000;
+
+    private final Jdbi jdbi;
+
+    @Override
+    public Map<String, byte[]> findAll() {
+        var sql = "select expense_type, sketch from expense_sketches";
+        return jdbi.withHandle(handle -> {
+            var sketches = new HashMap<String, byte[]>();
+            handle.createQuery(sql)
+                    .map((resultSet, context) -> Map.entry(resultSet.getString("expense_type"),
+                            resultSet.getBytes("sketch")))
+                    .forEach(entry -> sketches.put(entry.getKey(), entry.getValue()));
+            return sketches;
+        });
+    }
+
+    @Override
+    public Optional<byte[]> findForUpdate(String expenseType) {
+        var sql = "select sketch from expense_sketches where expense_type = :expenseType for update";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .bind("expenseType", expenseType)
+                .map((resultSet, context) -> resultSet.getBytes("sketch"))
+                .findOne());
+    }
+
+    @Override
+    public void save(String expenseType, byte[] sketch) {
+        var sql = """
+                insert into expense_sketches (expense_type, sketch, updated_at)
+                values (:expenseType, :sketch, :updatedAt)
+                on duplicate key update sketch = values(sketch), updated_at = values(updated_at)""";
+        jdbi.useHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("expenseType", expenseType)
+                .bind("sketch", sketch)
+                .bind("updatedAt", LocalDateTime.now())
+                .execute());
+    }
+
+    @Override
+    public void forEachExpenseAmount(long maxExpenseId, ObjLongConsumer<String> action) {
+        var sql = "select expense_type, amount from expenses where id <= :maxExpenseId";
+        jdbi.useHandle(handle -> handle
+                .createQuery(sql)
+                .bind("maxExpenseId", maxExpenseId)
+                .setFetchSize(FETCH_SIZE)
+                .map((resultSet, context) -> Map.entry(resultSet.getString("expense_type"),
+                        Money.of(resultSet.getBigDecimal("amount")).cents()))
+                .forEach(entry -> action.accept(entry.getKey(), entry.getValue())));
+    }
+
+    @Override
+    public long findMaxExpenseId() {
+        var sql = "select coalesce(max(id), 0) from expenses";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .mapTo(Long.class)
+                .one());
+    }
+}
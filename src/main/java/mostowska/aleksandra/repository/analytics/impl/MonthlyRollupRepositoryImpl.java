@@ -0,0 +1,173 @@
+package mostowska.aleksandra.repository.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.model.MonthlyRollup;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.MonthlyRollupRepository;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.SqlStatement;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MonthlyRollupRepositoryImpl is the implementation of the MonthlyRollupRepository interface.
+ * Changes are applied with an upsert that adds to the stored total and count, so concurrent changes of the same
+ * rollup add up instead of overwriting each other. Calls made inside TransactionManager.inTransaction join the
+ * surrounding transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MonthlyRollupRepositoryImpl implements MonthlyRollupRepository {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String UPSERT = """
+            insert into monthly_rollups (user_id, kind, month_start, category, total, count)
+            values (:userId, :kind, :monthStart, :category, :total, :count)
+            on duplicate key update total = total + values(total), count = count + values(count)""";
+
+    // Grouped by year and month rather than by a truncated date, as the two have no common syntax in MySQL and H2
+    private static final String AGGREGATE = """
+            select user_id, year(occurred_at) as occurred_year, month(occurred_at) as occurred_month,
+                %s as category, sum(amount) as total_amount, count(*) as transactions
+            from %s
+            where user_id >= :fromUserId and user_id < :toUserId
+            group by user_id, year(occurred_at), month(occurred_at), %s""";
+
+    private final Jdbi jdbi;
+
+    /**
+     * Adds a change to a rollup, creating the rollup if there is none yet.
+     *
+     * @param change The amount and number of transactions to add, negative to take them away.
+     */
+    @Override
+    public void add(MonthlyRollup change) {
+        jdbi.useHandle(handle -> bind(handle.createUpdate(UPSERT), change).execute());
+    }
+
+    /**
+     * Sums a user's rollups of one kind per category.
+     *
+     * @param userId The ID of the user.
+     * @param kind   Whether to sum expenses or incomes.
+     * @param from   The first day of the first month, inclusive.
+     * @param to     The first day of the month after the last one, exclusive.
+     * @return The rollups per category with the month start left null, categories without transactions left out.
+     */
+    @Override
+    public List<MonthlyRollup> sumByCategory(Long userId, TransactionKind kind, LocalDate from, LocalDate to) {
+        var sql = """
+                select category, sum(total) as total_amount, sum(count) as transactions
+                from monthly_rollups
+                where user_id = :userId and kind = :kind and month_start >= :from and month_start < :to
+                group by category
+                having sum(count) > 0
+                order by category""";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .bind("userId", userId)
+                .bind("kind", kind.name())
+                .bind("from", from)
+                .bind("to", to)
+                .map((resultSet, context) -> new MonthlyRollup(userId, kind, null,
+                        resultSet.getString("category"),
+                        Money.of(resultSet.getBigDecimal("total_amount")),
+                        resultSet.getLong("transactions")))
+                .list());
+    }
+
+    /**
+     * Sums a user's rollups of one kind per month.
+     *
+     * @param userId The ID of the user.
+     * @param kind   Whether to sum expenses or incomes.
+     * @param from   The first day of the first month, inclusive.
+     * @param to     The first day of the month after the last one, exclusive.
+     * @return The rollups per month, ordered by month, with the category left null; months without rows left out.
+     */
+    @Override
+    public List<MonthlyRollup> sumByMonth(Long userId, TransactionKind kind, LocalDate from, LocalDate to) {
+        var sql = """
+                select month_start, sum(total) as total_amount, sum(count) as transactions
+                from monthly_rollups
+                where user_id = :userId and kind = :kind and month_start >= :from and month_start < :to
+                group by month_start
+                order by month_start""";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .bind("userId", userId)
+                .bind("kind", kind.name())
+                .bind("from", from)
+                .bind("to", to)
+                .map((resultSet, context) -> new MonthlyRollup(userId, kind,
+                        resultSet.getDate("month_start").toLocalDate(),
+                        null,
+                        Money.of(resultSet.getBigDecimal("total_amount")),
+                        resultSet.getLong("transactions")))
+                .list());
+    }
+
+    /**
+     * Recomputes the rollups of a range of users. The old rollups are deleted first, so that on MySQL their row
+     * and gap locks make concurrent changes of those users wait until the new rollups are committed; a change is
+     * then either counted by the recomputation or added to its result, never both.
+     *
+     * @param fromUserId The first user ID, inclusive.
+     * @param toUserId   The last user ID, exclusive.
+     * @return The number of rollups written.
+     */
+    @Override
+    public int rebuildForUserIds(Long fromUserId, Long toUserId) {
+        return jdbi.inTransaction(handle -> {
+            handle.createUpdate("delete from monthly_rollups where user_id >= :fromUserId and user_id < :toUserId")
+                    .bind("fromUserId", fromUserId)
+                    .bind("toUserId", toUserId)
+                    .execute();
+            var rollups = new ArrayList<MonthlyRollup>();
+            rollups.addAll(aggregate(handle, "expenses", "expense_type", TransactionKind.EXPENSE,
+                    fromUserId, toUserId));
+            rollups.addAll(aggregate(handle, "incomes", "income_type", TransactionKind.INCOME,
+                    fromUserId, toUserId));
+
+            // Upserted rather than inserted, in case a concurrent change created a rollup in the meantime
+            for (int start = 0; start < rollups.size(); start += BATCH_SIZE) {
+                var batch = handle.prepareBatch(UPSERT);
+                for (var rollup : rollups.subList(start, Math.min(start + BATCH_SIZE, rollups.size()))) {
+                    bind(batch, rollup).add();
+                }
+                batch.execute();
+            }
+            return rollups.size();
+        });
+    }
+
+    private static List<MonthlyRollup> aggregate(Handle handle, String table, String categoryColumn,
+                                                 TransactionKind kind, Long fromUserId, Long toUserId) {
+        return handle.createQuery(AGGREGATE.formatted(categoryColumn, table, categoryColumn))
+                .bind("fromUserId", fromUserId)
+                .bind("toUserId", toUserId)
+                .map((resultSet, context) -> new MonthlyRollup(
+                        resultSet.getLong("user_id"),
+                        kind,
+                        LocalDate.of(resultSet.getInt("occurred_year"), resultSet.getInt("occurred_month"), 1),
+                        resultSet.getString("category"),
+                        Money.of(resultSet.getBigDecimal("total_amount")),
+                        resultSet.getLong("transactions")))
+                .list();
+    }
+
+    private static <S extends SqlStatement<S>> S bind(S statement, MonthlyRollup rollup) {
+        return statement
+                .bind("userId", rollup.userId())
+                .bind("kind", rollup.kind().name())
+                .bind("monthStart", rollup.monthStart())
+                .bind("category", rollup.category())
+                .bind("total", rollup.total())
+                .bind("count", rollup.count());
+    }
+}
@@ -0,0 +1,89 @@
+package mostowska.aleksandra.repository.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.model.BudgetTotals;
+import mostowska.aleksandra.model.CategoryTotals;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.PopulationReportRepository;
+import org.jdbi.v3.core.Jdbi;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * PopulationReportRepositoryImpl is the implementation of the PopulationReportRepository interface.
+ * Every query is restricted to a range of user IDs, which the primary key of users and the (user_id, occurred_at)
+ * indexes of expenses and incomes turn into range scans.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PopulationReportRepositoryImpl implements PopulationReportRepository {
+    private static final String SUM_CATEGORIES = """
+            select %s as category, sum(amount) as total_amount, count(*) as transactions,
+                count(distinct user_id) as category_users
+            from %s
+            where user_id >= :fromUserId and user_id < :toUserId
+            group by %s""";
+
+    private final Jdbi jdbi;
+
+    /**
+     * Counts the users of a range of IDs and sums their budgets.
+     *
+     * @param fromUserId The first user ID, inclusive.
+     * @param toUserId   The last user ID, exclusive.
+     * @return The totals, zero if the range holds no users.
+     */
+    @Override
+    public BudgetTotals sumBudgets(Long fromUserId, Long toUserId) {
+        var sql = """
+                select count(*) as user_count,
+                    coalesce(sum(case when enabled then 1 else 0 end), 0) as enabled_users,
+                    coalesce(sum(case when budget < 0 then 1 else 0 end), 0) as negative_budget_users,
+                    coalesce(sum(case when budget_after_goals < 0 then 1 else 0 end), 0)
+                        as negative_budget_after_goals_users,
+                    coalesce(sum(budget), 0) as total_budget,
+                    coalesce(sum(budget_after_goals), 0) as total_budget_after_goals
+                from users
+                where id >= :fromUserId and id < :toUserId""";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .bind("fromUserId", fromUserId)
+                .bind("toUserId", toUserId)
+                .map((resultSet, context) -> new BudgetTotals(
+                        resultSet.getLong("user_count"),
+                        resultSet.getLong("enabled_users"),
+                        resultSet.getLong("negative_budget_users"),
+                        resultSet.getLong("negative_budget_after_goals_users"),
+                        Money.of(resultSet.getBigDecimal("total_budget")),
+                        Money.of(resultSet.getBigDecimal("total_budget_after_goals"))))
+                .one());
+    }
+
+    /**
+     * Sums the expenses or incomes of a range of user IDs per category, passing each category's totals on as they
+     * are read rather than collecting them first.
+     *
+     * @param kind       Whether to sum expenses or incomes.
+     * @param fromUserId The first user ID, inclusive.
+     * @param toUserId   The last user ID, exclusive.
+     * @param action     Receives the totals of every category with transactions.
+     */
+    @Override
+    public void forEachCategoryTotals(TransactionKind kind, Long fromUserId, Long toUserId,
+                                      Consumer<CategoryTotals> action) {
+        var table = kind == TransactionKind.EXPENSE ? "expenses" : "incomes";
+        var categoryColumn = kind == TransactionKind.EXPENSE ? "expense_type" : "income_type";
+        jdbi.useHandle(handle -> handle
+                .createQuery(SUM_CATEGORIES.formatted(categoryColumn, table, categoryColumn))
+                .bind("fromUserId", fromUserId)
+                .bind("toUserId", toUserId)
+                .map((resultSet, context) -> new CategoryTotals(kind,
+                        resultSet.getString("category"),
+                        Money.of(resultSet.getBigDecimal("total_amount")),
+                        resultSet.getLong("transactions"),
+                        resultSet.getLong("category_users")))
+                .forEach(action));
+    }
+}
@@ -1,9 +1,12 @@
 package mostowska.aleksandra.repository.budget;
 
 import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.generic.CrudRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * ExpenseRepository is an interface for managing Expense entities.
@@ -18,4 +21,52 @@ public interface ExpenseRepository extends CrudRepository<Expense, Long> {
      * @return A list of expenses associated with the specified user ID.
      */
     List<Expense> findAllForUserId(Long userId);
+
+    /**
+     * Retrieves the expenses of a user added after a given one, in the order they were added.
+     *
+     * @param userId  The ID of the user whose expenses are to be retrieved.
+     * @param afterId The ID of the last expense already known, zero for all.
+     * @return A list of the newer expenses, ordered by ID.
+     */
+    List<Expense> findAllForUserIdAfterId(Long userId, Long afterId);
+
+    /**
+     * Counts the expenses of a user.
+     *
+     * @param userId The ID of the user whose expenses are to be counted.
+     * @return The number of expenses.
+     */
+    long countForUserId(Long userId);
+
+    /**
+     * Retrieves the expenses of a user that occurred in a period, reading only that period's range of the
+     * (user_id, occurred_at) index.
+     *
+     * @param userId The ID of the user whose expenses are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of the expenses in the period, ordered by when they occurred.
+     */
+    List<Expense> findAllForUserIdBetween(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Sums the amounts of the expenses of a user that occurred in a period.
+     *
+     * @param userId The ID of the user whose expenses are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total, zero if there are no expenses in the period.
+     */
+    Money sumForUserIdBetween(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Passes each of a user's expenses to an action as it is read, ordered by when they occurred, so that none but the
+     * current one is held in memory. The connection stays open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose expenses are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each expense.
+     */
+    void forEachForUserId(Long userId, int fetchSize, Consumer<Expense> action);
 }
@@ -1,9 +1,12 @@
 package mostowska.aleksandra.repository.budget;
 
 import mostowska.aleksandra.model.Income;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.generic.CrudRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * IncomeRepository is an interface for managing Income entities.
@@ -18,4 +21,52 @@ public interface IncomeRepository extends CrudRepository<Income, Long> {
      * @return A list of incomes associated with the specified user ID.
      */
     List<Income> findAllForUserId(Long userId);
+
+    /**
+     * Retrieves the incomes of a user added after a given one, in the order they were added.
+     *
+     * @param userId  The ID of the user whose incomes are to be retrieved.
+     * @param afterId The ID of the last income already known, zero for all.
+     * @return A list of the newer incomes, ordered by ID.
+     */
+    List<Income> findAllForUserIdAfterId(Long userId, Long afterId);
+
+    /**
+     * Counts the incomes of a user.
+     *
+     * @param userId The ID of the user whose incomes are to be counted.
+     * @return The number of incomes.
+     */
+    long countForUserId(Long userId);
+
+    /**
+     * Retrieves the incomes of a user that occurred in a period, reading only that period's range of the
+     * (user_id, occurred_at) index.
+     *
+     * @param userId The ID of the user whose incomes are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of the incomes in the period, ordered by when they occurred.
+     */
+    List<Income> findAllForUserIdBetween(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Sums the amounts of the incomes of a user that occurred in a period.
+     *
+     * @param userId The ID of the user whose incomes are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total, zero if there are no incomes in the period.
+     */
+    Money sumForUserIdBetween(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Passes each of a user's incomes to an action as it is read, ordered by when they occurred, so that none but the
+     * current one is held in memory. The connection stays open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose incomes are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each income.
+     */
+    void forEachForUserId(Long userId, int fetchSize, Consumer<Income> action);
 }
@@ -5,6 +5,7 @@ import mostowska.aleksandra.model.Investment;
 import mostowska.aleksandra.repository.generic.CrudRepository;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * InvestmentRepository is an interface for managing Investment entities.
@@ -26,4 +27,14 @@ public interface InvestmentRepository extends CrudRepository<Investment, Long> {
      * @return A list of available investments.
      */
     List<AvailableInvestment> getAvailable();
+
+    /**
+     * Passes each of a user's investments to an action as it is read, ordered by ID, so that none but the
+     * current one is held in memory. The connection stays open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose investments are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each investment.
+     */
+    void forEachForUserId(Long userId, int fetchSize, Consumer<Investment> action);
 }
@@ -5,6 +5,7 @@ import mostowska.aleksandra.repository.generic.CrudRepository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * SavingsGoalRepository is an interface for managing SavingsGoal entities.
@@ -29,4 +30,14 @@ public interface SavingsGoalRepository extends CrudRepository<SavingsGoal, Long>
      * @return An Optional containing the found savings goal, or empty if not found.
      */
     Optional<SavingsGoal> findByUserIdAndGoalId(Long userId, Long goalId);
+
+    /**
+     * Passes each of a user's savings goals to an action as it is read, ordered by ID, so that none but the
+     * current one is held in memory. The connection stays open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose savings goals are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each savings goal.
+     */
+    void forEachForUserId(Long userId, int fetchSize, Consumer<SavingsGoal> action);
 }
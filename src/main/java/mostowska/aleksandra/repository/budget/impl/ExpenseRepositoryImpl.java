@@ -1,12 +1,16 @@
 package mostowska.aleksandra.repository.budget.impl;
 
 import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.budget.ExpenseRepository;
 import mostowska.aleksandra.repository.generic.AbstractCrudRepository;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -35,4 +39,109 @@ public class ExpenseRepositoryImpl extends AbstractCrudRepository<Expense, Long>
                 .mapToBean(Expense.class)
                 .collect(Collectors.toList()));
     }
+
+    /**
+     * Passes each of a user's expenses to an action as it is read, ordered by when they occurred along the
+     * (user_id, occurred_at) index, so that none but the current one is held in memory. The connection stays
+     * open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose expenses are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each expense.
+     */
+    @Override
+    public void forEachForUserId(Long userId, int fetchSize, Consumer<Expense> action) {
+        var sql = "select * from expenses where user_id = :user_id order by occurred_at, id";
+        jdbi.useHandle(handle -> handle
+                .createQuery(sql)
+                .bind("user_id", userId)
+                .setFetchSize(fetchSize)
+                .mapToBean(Expense.class)
+                .forEach(action));
+    }
+
+    /**
+     * Retrieves the expenses of a user added after a given one, in the order they were added.
+     *
+     * @param userId  The ID of the user whose expenses are to be retrieved.
+     * @param afterId The ID of the last expense already known, zero for all.
+     * @return A list of the newer expenses, ordered by ID.
+     */
+    @Override
+    public List<Expense> findAllForUserIdAfterId(Long userId, Long afterId) {
+        var sql = "select * from expenses where user_id = :user_id and id > :after_id order by id";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .bind("user_id", userId)
+                .bind("after_id", afterId)
+                .mapToBean(Expense.class)
+                .list());
+    }
+
+    /**
+     * Counts the expenses of a user.
+     *
+     * @param userId The ID of the user whose expenses are to be counted.
+     * @return The number of expenses.
+     */
+    @Override
+    public long countForUserId(Long userId) {
+        var sql = "select count(*) from expenses where user_id = :user_id";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .bind("user_id", userId)
+                .mapTo(Long.class)
+                .one());
+    }
+
+    /**
+     * Retrieves the expenses of a user that occurred in a period, reading only that period's range of the
+     * (user_id, occurred_at) index.
+     *
+     * @param userId The ID of the user whose expenses are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of the expenses in the period, ordered by when they occurred.
+     */
+    @Override
+    public List<Expense> findAllForUserIdBetween(Long userId, LocalDateTime from, LocalDateTime to) {
+        var sql = "select * from expenses where user_id = :user_id" + periodCondition(from, to)
+                + " order by occurred_at, id";
+        return jdbi.withHandle(handle -> bindPeriod(handle.createQuery(sql), from, to)
+                .bind("user_id", userId)
+                .mapToBean(Expense.class)
+                .list());
+    }
+
+    /**
+     * Sums the amounts of the expenses of a user that occurred in a period.
+     *
+     * @param userId The ID of the user whose expenses are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total, zero if there are no expenses in the period.
+     */
+    @Override
+    public Money sumForUserIdBetween(Long userId, LocalDateTime from, LocalDateTime to) {
+        var sql = "select coalesce(sum(amount), 0) from expenses where user_id = :user_id" + periodCondition(from, to);
+        return jdbi.withHandle(handle -> bindPeriod(handle.createQuery(sql), from, to)
+                .bind("user_id", userId)
+                .mapTo(Money.class)
+                .one());
+    }
+
+    // Bounds left out rather than bound to extreme values, so the index range is no wider than asked for
+    private static String periodCondition(LocalDateTime from, LocalDateTime to) {
+        return (from == null ? "" : " and occurred_at >= :from") + (to == null ? "" : " and occurred_at < :to");
+    }
+
+    private static Query bindPeriod(Query query, LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            query.bind("from", from);
+        }
+        if (to != null) {
+            query.bind("to", to);
+        }
+        return query;
+    }
 }
@@ -8,6 +8,7 @@ import org.jdbi.v3.core.Jdbi;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +38,25 @@ public class InvestmentRepositoryImpl extends AbstractCrudRepository<Investment,
                 .collect(Collectors.toList()));
     }
 
+    /**
+     * Passes each of a user's investments to an action as it is read, ordered by ID, so that none but the
+     * current one is held in memory. The connection stays open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose investments are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each investment.
+     */
+    @Override
+    public void forEachForUserId(Long userId, int fetchSize, Consumer<Investment> action) {
+        var sql = "select * from investments where user_id = :user_id order by id";
+        jdbi.useHandle(handle -> handle
+                .createQuery(sql)
+                .bind("user_id", userId)
+                .setFetchSize(fetchSize)
+                .mapToBean(Investment.class)
+                .forEach(action));
+    }
+
     /**
      * Retrieves a list of all available investments.
      *
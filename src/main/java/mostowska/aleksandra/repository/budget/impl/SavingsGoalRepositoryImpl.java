@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +38,25 @@ public class SavingsGoalRepositoryImpl extends AbstractCrudRepository<SavingsGoa
                 .collect(Collectors.toList()));
     }
 
+    /**
+     * Passes each of a user's savings goals to an action as it is read, ordered by ID, so that none but the
+     * current one is held in memory. The connection stays open until the last row has been handled.
+     *
+     * @param userId    The ID of the user whose savings goals are to be read.
+     * @param fetchSize The number of rows the driver fetches at a time.
+     * @param action    The action called for each savings goal.
+     */
+    @Override
+    public void forEachForUserId(Long userId, int fetchSize, Consumer<SavingsGoal> action) {
+        var sql = "select * from savings_goals where user_id = :user_id order by id";
+        jdbi.useHandle(handle -> handle
+                .createQuery(sql)
+                .bind("user_id", userId)
+                .setFetchSize(fetchSize)
+                .mapToBean(SavingsGoal.class)
+                .forEach(action));
+    }
+
     /**
      * Retrieves a specific savings goal for a user by user ID and goal ID.
      *
@@ -0,0 +1,76 @@
+package mostowska.aleksandra.repository.email;
+
+import mostowska.aleksandra.model.OutboxEmail;
+import mostowska.aleksandra.model.utils.OutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EmailOutboxRepository stores e-mails to be sent in the email_outbox table. E-mails are queued in the same
+ * transaction as the change they announce and claimed in batches by the dispatcher.
+ */
+public interface EmailOutboxRepository {
+    /**
+     * Queues an e-mail for immediate delivery.
+     *
+     * @param receiver    The e-mail address of the recipient.
+     * @param subject     The subject line.
+     * @param htmlContent The HTML body.
+     */
+    void enqueue(String receiver, String subject, String htmlContent);
+
+    /**
+     * Claims due e-mails for delivery, together with e-mails whose claim has expired because the worker
+     * holding them stopped; the expired claim counts as an attempt. Claimed e-mails are not returned to other
+     * callers until released.
+     *
+     * @param claimToken  A token unique to this claim.
+     * @param limit       The maximum number of e-mails to claim.
+     * @param now         The current time; e-mails due at or before it are claimed.
+     * @param staleBefore Claims made before this time are considered abandoned.
+     * @return The claimed e-mails, oldest first.
+     */
+    List<OutboxEmail> claimBatch(String claimToken, int limit, LocalDateTime now, LocalDateTime staleBefore);
+
+    /**
+     * Marks e-mails as delivered, those still held by the given claim only.
+     *
+     * @param claimToken The token of the claim the e-mails were delivered under.
+     * @param ids        The IDs of the delivered e-mails.
+     * @param sentAt     The time of delivery.
+     * @return The number of e-mails marked; the others were claimed again after the claim expired.
+     */
+    int markSent(String claimToken, List<Long> ids, LocalDateTime sentAt);
+
+    /**
+     * Releases an e-mail whose delivery failed, to be attempted again later, if it is still held by the given claim.
+     *
+     * @param claimToken    The token of the claim the delivery was attempted under.
+     * @param id            The ID of the e-mail.
+     * @param attempts      The number of attempts made so far.
+     * @param nextAttemptAt The earliest time of the next attempt.
+     * @param error         The reason the last attempt failed.
+     * @return Whether the claim was still held; if not, the e-mail was claimed again after the claim expired.
+     */
+    boolean scheduleRetry(String claimToken, Long id, int attempts, LocalDateTime nextAttemptAt, String error);
+
+    /**
+     * Gives up on an e-mail, if it is still held by the given claim.
+     *
+     * @param claimToken The token of the claim the delivery was attempted under.
+     * @param id         The ID of the e-mail.
+     * @param attempts   The number of attempts made.
+     * @param error      The reason the last attempt failed.
+     * @return Whether the claim was still held; if not, the e-mail was claimed again after the claim expired.
+     */
+    boolean markFailed(String claimToken, Long id, int attempts, String error);
+
+    /**
+     * Counts the e-mails not yet delivered, by status.
+     *
+     * @return The number of e-mails per status, without SENT.
+     */
+    Map<OutboxStatus, Long> countUndelivered();
+}
@@ -0,0 +1,203 @@
+package mostowska.aleksandra.repository.email.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.model.OutboxEmail;
+import mostowska.aleksandra.model.utils.OutboxStatus;
+import mostowska.aleksandra.repository.email.EmailOutboxRepository;
+import org.jdbi.v3.core.Jdbi;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EmailOutboxRepositoryImpl is the implementation of the EmailOutboxRepository interface.
+ * Unlike the entity repositories it binds all values as parameters, as e-mail bodies are free text.
+ * Calls made inside TransactionManager.inTransaction join the surrounding transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EmailOutboxRepositoryImpl implements EmailOutboxRepository {
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    // Due: pending and scheduled, or claimed by a worker that did not finish in time
+    private static final String DUE = """
+            ((status = 'PENDING' and next_attempt_at <= :now)
+                or (status = 'SENDING' and claimed_at < :staleBefore))""";
+
+    private final Jdbi jdbi;
+
+    /**
+     * Queues an e-mail for immediate delivery.
+     *
+     * @param receiver    The e-mail address of the recipient.
+     * @param subject     The subject line.
+     * @param htmlContent The HTML body.
+     */
+    @Override
+    public void enqueue(String receiver, String subject, String htmlContent) {
+        var sql = """
+                insert into email_outbox
+                    (receiver, subject, html_content, status, attempts, next_attempt_at, created_at)
+                values (:receiver, :subject, :htmlContent, 'PENDING', 0, :now, :now)""";
+        jdbi.useHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("receiver", receiver)
+                .bind("subject", subject)
+                .bind("htmlContent", htmlContent)
+                .bind("now", LocalDateTime.now())
+                .execute());
+    }
+
+    /**
+     * Claims due e-mails by stamping them with the claim token, then reads back the stamped rows.
+     * The due condition is repeated outside the subquery so that of two workers racing for the same rows,
+     * the one blocked on the row locks skips the rows the other has claimed in the meantime.
+     * The subquery is wrapped in a derived table, as MySQL does not allow LIMIT in an IN subquery.
+     * An e-mail claimed again after its claim expired has its attempts counted up, so that one that keeps its
+     * worker from reporting back is given up in the end; MySQL assigns in order, so the status read is the old one.
+     *
+     * @param claimToken  A token unique to this claim.
+     * @param limit       The maximum number of e-mails to claim.
+     * @param now         The current time; e-mails due at or before it are claimed.
+     * @param staleBefore Claims made before this time are considered abandoned.
+     * @return The claimed e-mails, oldest first.
+     */
+    @Override
+    public List<OutboxEmail> claimBatch(String claimToken, int limit, LocalDateTime now, LocalDateTime staleBefore) {
+        var claimSql = """
+                update email_outbox
+                set attempts = case when status = 'SENDING' then attempts + 1 else attempts end,
+                    status = 'SENDING', claim_token = :claimToken, claimed_at = :now
+                where id in (
+                    select id from (
+                        select id from email_outbox where %s order by id limit :limit
+                    ) due
+                ) and %s""".formatted(DUE, DUE);
+        var selectSql = """
+                select id, receiver, subject, html_content, attempts from email_outbox
+                where claim_token = :claimToken and status = 'SENDING'
+                order by id""";
+        return jdbi.withHandle(handle -> {
+            var claimed = handle.createUpdate(claimSql)
+                    .bind("claimToken", claimToken)
+                    .bind("now", now)
+                    .bind("staleBefore", staleBefore)
+                    .bind("limit", limit)
+                    .execute();
+            if (claimed == 0) {
+                return List.of();
+            }
+            return handle.createQuery(selectSql)
+                    .bind("claimToken", claimToken)
+                    .map((resultSet, context) -> new OutboxEmail(
+                            resultSet.getLong("id"),
+                            resultSet.getString("receiver"),
+                            resultSet.getString("subject"),
+                            resultSet.getString("html_content"),
+                            resultSet.getInt("attempts")))
+                    .list();
+        });
+    }
+
+    /**
+     * Marks e-mails as delivered, those still held by the given claim only.
+     *
+     * @param claimToken The token of the claim the e-mails were delivered under.
+     * @param ids        The IDs of the delivered e-mails.
+     * @param sentAt     The time of delivery.
+     * @return The number of e-mails marked; the others were claimed again after the claim expired.
+     */
+    @Override
+    public int markSent(String claimToken, List<Long> ids, LocalDateTime sentAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        var sql = """
+                update email_outbox
+                set status = 'SENT', sent_at = :sentAt, claim_token = null, last_error = null
+                where id in (<ids>) and claim_token = :claimToken""";
+        return jdbi.withHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("sentAt", sentAt)
+                .bind("claimToken", claimToken)
+                .bindList("ids", ids)
+                .execute());
+    }
+
+    /**
+     * Releases an e-mail whose delivery failed, to be attempted again later, if it is still held by the given claim.
+     *
+     * @param claimToken    The token of the claim the delivery was attempted under.
+     * @param id            The ID of the e-mail.
+     * @param attempts      The number of attempts made so far.
+     * @param nextAttemptAt The earliest time of the next attempt.
+     * @param error         The reason the last attempt failed.
+     * @return Whether the claim was still held; if not, the e-mail was claimed again after the claim expired.
+     */
+    @Override
+    public boolean scheduleRetry(String claimToken, Long id, int attempts, LocalDateTime nextAttemptAt,
+                                 String error) {
+        var sql = """
+                update email_outbox
+                set status = 'PENDING', attempts = :attempts, next_attempt_at = :nextAttemptAt,
+                    claim_token = null, last_error = :error
+                where id = :id and claim_token = :claimToken""";
+        return jdbi.withHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("id", id)
+                .bind("claimToken", claimToken)
+                .bind("attempts", attempts)
+                .bind("nextAttemptAt", nextAttemptAt)
+                .bind("error", truncate(error))
+                .execute()) > 0;
+    }
+
+    /**
+     * Gives up on an e-mail, if it is still held by the given claim.
+     *
+     * @param claimToken The token of the claim the delivery was attempted under.
+     * @param id         The ID of the e-mail.
+     * @param attempts   The number of attempts made.
+     * @param error      The reason the last attempt failed.
+     * @return Whether the claim was still held; if not, the e-mail was claimed again after the claim expired.
+     */
+    @Override
+    public boolean markFailed(String claimToken, Long id, int attempts, String error) {
+        var sql = """
+                update email_outbox
+                set status = 'FAILED', attempts = :attempts, claim_token = null, last_error = :error
+                where id = :id and claim_token = :claimToken""";
+        return jdbi.withHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("id", id)
+                .bind("claimToken", claimToken)
+                .bind("attempts", attempts)
+                .bind("error", truncate(error))
+                .execute()) > 0;
+    }
+
+    /**
+     * Counts the e-mails not yet delivered, by status.
+     *
+     * @return The number of e-mails per status, without SENT.
+     */
+    @Override
+    public Map<OutboxStatus, Long> countUndelivered() {
+        var sql = "select status, count(*) as emails from email_outbox where status <> 'SENT' group by status";
+        var counts = new EnumMap<OutboxStatus, Long>(OutboxStatus.class);
+        jdbi.useHandle(handle -> handle
+                .createQuery(sql)
+                .map((resultSet, context) -> Map.entry(
+                        OutboxStatus.valueOf(resultSet.getString("status")),
+                        resultSet.getLong("emails")))
+                .forEach(entry -> counts.put(entry.getKey(), entry.getValue())));
+        return counts;
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,42 @@
+package mostowska.aleksandra.repository.monitoring;
+
+import org.jdbi.v3.core.statement.SqlLogger;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * CompositeSqlLogger forwards statement events to several loggers, as Jdbi accepts only one.
+ */
+public class CompositeSqlLogger implements SqlLogger {
+    private final SqlLogger[] loggers;
+
+    /**
+     * @param loggers The loggers to notify, in order.
+     */
+    public CompositeSqlLogger(List<SqlLogger> loggers) {
+        this.loggers = loggers.toArray(SqlLogger[]::new);
+    }
+
+    @Override
+    public void logBeforeExecution(StatementContext context) {
+        for (var logger : loggers) {
+            logger.logBeforeExecution(context);
+        }
+    }
+
+    @Override
+    public void logAfterExecution(StatementContext context) {
+        for (var logger : loggers) {
+            logger.logAfterExecution(context);
+        }
+    }
+
+    @Override
+    public void logException(StatementContext context, SQLException exception) {
+        for (var logger : loggers) {
+            logger.logException(context, exception);
+        }
+    }
+}
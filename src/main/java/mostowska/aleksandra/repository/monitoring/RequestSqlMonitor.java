@@ -0,0 +1,138 @@
+package mostowska.aleksandra.repository.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.statement.SqlLogger;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * RequestSqlMonitor counts the statements and the database time of each request. Jdbi reports every statement
+ * to it as a SqlLogger, and statements are attributed to the request being handled on the current thread.
+ * Requests over the query budget, or repeating the same statement shape, are logged with their fingerprints,
+ * so that N+1 patterns introduced in the service layer show up before they reach production load.
+ * Work handed to another thread is attributed back to the requests waiting for it through onBehalfOf.
+ */
+@Component
+@Slf4j
+public class RequestSqlMonitor implements SqlLogger {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    @Value("${sql.request.query_budget:10}")
+    private int queryBudget;
+
+    @Value("${sql.request.repeat_threshold:3}")
+    private int repeatThreshold;
+
+    /**
+     * Starts accounting statements for a request handled on the current thread.
+     */
+    public void begin() {
+        CURRENT.set(new RequestSqlStats());
+    }
+
+    /**
+     * @return The statistics of the request handled on the current thread, or null if none is being tracked.
+     */
+    public RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs work done on the current thread on behalf of requests waiting on other threads, and attributes its
+     * statements to each of them, as each waited for all of them. The waiting requests must not execute statements
+     * until the work is done.
+     *
+     * @param requests The statistics of the waiting requests; null elements stand for requests not tracked.
+     * @param work     The work to run.
+     * @param <T>      The type of the result.
+     * @return The result of the work.
+     */
+    public <T> T onBehalfOf(Collection<RequestSqlStats> requests, Supplier<T> work) {
+        var previous = CURRENT.get();
+        var stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            for (var request : requests) {
+                if (request != null) {
+                    request.addAll(stats);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accounting for the request handled on the current thread and logs it if it looks suspicious.
+     *
+     * @param request A description of the request for the log, such as its method and URI.
+     * @return The statistics of the request, or null if none was being tracked.
+     */
+    public RequestSqlStats end(String request) {
+        var stats = CURRENT.get();
+        if (stats == null) {
+            return null;
+        }
+        CURRENT.remove();
+        report(request, stats);
+        return stats;
+    }
+
+    @Override
+    public void logAfterExecution(StatementContext context) {
+        record(context, false);
+    }
+
+    @Override
+    public void logException(StatementContext context, SQLException exception) {
+        record(context, true);
+    }
+
+    private void record(StatementContext context, boolean failed) {
+        var stats = CURRENT.get();
+        if (stats != null) {
+            stats.record(context.getRenderedSql(), Math.max(0, context.getElapsedTime(ChronoUnit.NANOS)), failed);
+        }
+    }
+
+    private void report(String request, RequestSqlStats stats) {
+        var count = stats.getStatementCount();
+        if (count < repeatThreshold && count <= queryBudget) {
+            return;
+        }
+
+        var fingerprints = stats.fingerprintCounts();
+        var overBudget = count > queryBudget;
+        var repeated = fingerprints.values().stream().anyMatch(executions -> executions >= repeatThreshold);
+        if (!overBudget && !repeated) {
+            return;
+        }
+
+        log.warn("{} issued {} statements in {} ms ({}{}):{}",
+                request,
+                count,
+                stats.getTotalNanos() / 1_000_000,
+                overBudget ? "over the budget of " + queryBudget : "within budget",
+                repeated ? ", repeated statements suggest N+1" : "",
+                describe(fingerprints));
+    }
+
+    private static String describe(Map<String, Integer> fingerprints) {
+        var description = new StringBuilder();
+        fingerprints.forEach((fingerprint, executions) -> description
+                .append("\n  ").append(executions).append("x ").append(fingerprint));
+        return description.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package mostowska.aleksandra.repository.monitoring;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RequestSqlStats accumulates the statements executed while handling a single request. Statements are kept
+ * as sent and only fingerprinted when the request is reported, keeping the per-statement cost to an append.
+ */
+public class RequestSqlStats {
+    private final List<String> statements = new ArrayList<>();
+    private long totalNanos;
+    private int failures;
+
+    void record(String sql, long nanos, boolean failed) {
+        statements.add(sql);
+        totalNanos += nanos;
+        if (failed) {
+            failures++;
+        }
+    }
+
+    void addAll(RequestSqlStats other) {
+        statements.addAll(other.statements);
+        totalNanos += other.totalNanos;
+        failures += other.failures;
+    }
+
+    /**
+     * @return The number of statements executed.
+     */
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * @return The time spent executing statements, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return The number of statements that failed.
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Groups the executed statements by fingerprint.
+     *
+     * @return The number of executions per fingerprint, in order of first execution.
+     */
+    public Map<String, Integer> fingerprintCounts() {
+        var counts = new LinkedHashMap<String, Integer>();
+        for (var statement : statements) {
+            counts.merge(SqlFingerprint.of(statement), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,128 @@
+package mostowska.aleksandra.repository.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.repository.monitoring.dto.SlowStatementDto;
+import mostowska.aleksandra.repository.monitoring.dto.SqlStatementStatsDto;
+import org.jdbi.v3.core.statement.SqlLogger;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SlowQueryLog times every statement Jdbi executes, for all repositories, and aggregates the durations per
+ * fingerprint. Statements slower than the threshold are logged and kept in a ring buffer of recent slow
+ * executions. Only fingerprints are logged and kept, never the statements themselves, as the repositories
+ * inline values such as e-mail addresses and password hashes into the SQL.
+ */
+@Component
+@Slf4j
+public class SlowQueryLog implements SqlLogger {
+    private static final String OVERFLOW_FINGERPRINT = "(other statements)";
+
+    @Value("${sql.slow_query.threshold_ms:200}")
+    private long thresholdMs;
+
+    @Value("${sql.slow_query.recent_size:100}")
+    private int recentSize;
+
+    @Value("${sql.stats.window:1024}")
+    private int window;
+
+    @Value("${sql.stats.max_fingerprints:500}")
+    private int maxFingerprints;
+
+    private final Map<String, StatementStats> statistics = new ConcurrentHashMap<>();
+    private final AtomicLong recentCursor = new AtomicLong();
+    private AtomicReferenceArray<SlowStatementDto> recent;
+    private long thresholdNanos;
+
+    /**
+     * Sizes the ring buffer of recent slow statements after the bean has been constructed.
+     */
+    @PostConstruct
+    public void init() {
+        recent = new AtomicReferenceArray<>(recentSize);
+        thresholdNanos = thresholdMs * 1_000_000;
+    }
+
+    @Override
+    public void logAfterExecution(StatementContext context) {
+        record(context);
+    }
+
+    @Override
+    public void logException(StatementContext context, SQLException exception) {
+        record(context);
+    }
+
+    /**
+     * Returns the statistics of all fingerprints, the most expensive in total first.
+     *
+     * @return The statistics per fingerprint.
+     */
+    public List<SqlStatementStatsDto> statistics() {
+        return statistics.values().stream()
+                .sorted(Comparator.comparingLong(StatementStats::totalNanos).reversed())
+                .map(StatementStats::toDto)
+                .toList();
+    }
+
+    /**
+     * Returns the most recent executions over the threshold, newest first.
+     *
+     * @return The recent slow statements.
+     */
+    public List<SlowStatementDto> recentSlowStatements() {
+        var end = recentCursor.get();
+        var slowStatements = new ArrayList<SlowStatementDto>(recentSize);
+        for (long i = end - 1; i >= Math.max(0, end - recentSize); i--) {
+            var statement = recent.get((int) (i % recentSize));
+            if (statement != null) {
+                slowStatements.add(statement);
+            }
+        }
+        return slowStatements;
+    }
+
+    private void record(StatementContext context) {
+        var nanos = context.getElapsedTime(ChronoUnit.NANOS);
+        if (nanos < 0) {
+            return;
+        }
+        var fingerprint = SqlFingerprint.of(context.getRenderedSql());
+        statsFor(fingerprint).record(nanos);
+
+        if (nanos >= thresholdNanos) {
+            log.warn("Slow statement took {} ms: {}", StatementStats.toMillis(nanos), fingerprint);
+            var completedAt = context.getCompletionMoment() != null
+                    ? context.getCompletionMoment()
+                    : context.getExceptionMoment();
+            var slowStatement = new SlowStatementDto(fingerprint, StatementStats.toMillis(nanos),
+                    LocalDateTime.ofInstant(completedAt, ZoneId.systemDefault()));
+            recent.set((int) (recentCursor.getAndIncrement() % recentSize), slowStatement);
+        }
+    }
+
+    private StatementStats statsFor(String fingerprint) {
+        var stats = statistics.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        // Fingerprints should be few; the cap only guards against statements that escape normalization
+        var key = statistics.size() < maxFingerprints ? fingerprint : OVERFLOW_FINGERPRINT;
+        return statistics.computeIfAbsent(key, k -> new StatementStats(k, window));
+    }
+}
@@ -0,0 +1,82 @@
+package mostowska.aleksandra.repository.monitoring;
+
+import java.util.regex.Pattern;
+
+/**
+ * SqlFingerprint reduces a statement to its shape, so that statements differing only in literal values are
+ * recognized as the same. The repositories inline values into the SQL, so literals have to be masked
+ * before statements can be grouped.
+ */
+public final class SqlFingerprint {
+    private static final Pattern VALUE_LIST = Pattern.compile("\\( ?(?:\\?|null)(?: ?, ?(?:\\?|null))* ?\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\)(?: ?, ?\\(\\?\\))+");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of a statement: whitespace is collapsed, keywords and identifiers are lower-cased,
+     * string and numeric literals become `?`, and value lists and multi-row inserts collapse to a single `(?)`.
+     *
+     * @param sql The statement as sent to the database.
+     * @return The fingerprint.
+     */
+    public static String of(String sql) {
+        var fingerprint = new StringBuilder(sql.length());
+        var length = sql.length();
+        for (int i = 0; i < length; ) {
+            var c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (!fingerprint.isEmpty() && i < length) {
+                    fingerprint.append(' ');
+                }
+            } else if (c == '\'') {
+                i = skipString(sql, i);
+                fingerprint.append('?');
+            } else if (isDigit(c) && !continuesIdentifier(fingerprint)) {
+                while (i < length && (isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                fingerprint.append('?');
+            } else {
+                fingerprint.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        var collapsed = VALUE_LIST.matcher(fingerprint).replaceAll("(?)");
+        return ROW_LIST.matcher(collapsed).replaceAll("(?)");
+    }
+
+    /**
+     * Returns the index just past a quoted string starting at the given index, honoring doubled quotes.
+     */
+    private static int skipString(String sql, int start) {
+        var i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean continuesIdentifier(StringBuilder fingerprint) {
+        if (fingerprint.isEmpty()) {
+            return false;
+        }
+        var previous = fingerprint.charAt(fingerprint.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == ':';
+    }
+}
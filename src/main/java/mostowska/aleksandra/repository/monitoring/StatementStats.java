@@ -0,0 +1,68 @@
+package mostowska.aleksandra.repository.monitoring;
+
+import mostowska.aleksandra.repository.monitoring.dto.SqlStatementStatsDto;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatementStats aggregates the executions of one fingerprint. Totals cover the whole uptime, while percentiles
+ * are computed over a ring buffer of the most recent durations, so they follow changes in behavior.
+ */
+class StatementStats {
+    private final String fingerprint;
+    private final long[] samples;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param fingerprint The fingerprint the statistics belong to.
+     * @param window      The number of recent durations kept, rounded up to a power of two.
+     */
+    StatementStats(String fingerprint, int window) {
+        this.fingerprint = fingerprint;
+        var size = Integer.highestOneBit(Math.max(window, 2) - 1) << 1;
+        this.samples = new long[size];
+        this.mask = size - 1;
+    }
+
+    void record(long nanos) {
+        // Concurrent writers may overwrite each other's slot now and then, which only drops a sample
+        samples[(int) (cursor.getAndIncrement() & mask)] = nanos;
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    SqlStatementStatsDto toDto() {
+        var count = cursor.get();
+        var recent = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        Arrays.sort(recent);
+        return new SqlStatementStatsDto(
+                fingerprint,
+                count,
+                toMillis(totalNanos.sum()),
+                toMillis(percentile(recent, 0.50)),
+                toMillis(percentile(recent, 0.99)),
+                toMillis(maxNanos.get())
+        );
+    }
+
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
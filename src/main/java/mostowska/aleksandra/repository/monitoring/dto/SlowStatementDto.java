@@ -0,0 +1,13 @@
+package mostowska.aleksandra.repository.monitoring.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * SlowStatementDto is a Data Transfer Object describing a single execution over the slow query threshold.
+ *
+ * @param fingerprint The statement with its literals masked.
+ * @param durationMs  The execution time in milliseconds.
+ * @param executedAt  When the statement completed.
+ */
+public record SlowStatementDto(String fingerprint, double durationMs, LocalDateTime executedAt) {
+}
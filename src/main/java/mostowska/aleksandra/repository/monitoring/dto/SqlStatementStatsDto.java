@@ -0,0 +1,15 @@
+package mostowska.aleksandra.repository.monitoring.dto;
+
+/**
+ * SqlStatementStatsDto is a Data Transfer Object summarizing the executions of one statement fingerprint.
+ *
+ * @param fingerprint The statement with its literals masked.
+ * @param count       The number of executions since the start.
+ * @param totalMs     The total execution time in milliseconds.
+ * @param p50Ms       The median execution time over the recent window, in milliseconds.
+ * @param p99Ms       The 99th percentile execution time over the recent window, in milliseconds.
+ * @param maxMs       The longest execution time since the start, in milliseconds.
+ */
+public record SqlStatementStatsDto(String fingerprint, long count, double totalMs, double p50Ms, double p99Ms,
+                                   double maxMs) {
+}
@@ -26,4 +26,43 @@ public interface UserRepository extends CrudRepository<User, Long> {
      * @return An Optional containing the User if found, or empty if not.
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Updates the budget and the budget after goals of the given users in one batch, leaving other columns as they are.
+     *
+     * @param users The users with the budgets to store.
+     */
+    void updateBudgets(List<User> users);
+
+    /**
+     * Enables or disables a user, leaving other columns as they are, so that budget changes written concurrently
+     * are not overwritten.
+     *
+     * @param userId  The ID of the user.
+     * @param enabled Whether the user is enabled.
+     * @return Whether there is such a user.
+     */
+    boolean updateEnabled(Long userId, boolean enabled);
+
+    /**
+     * Finds the highest user ID, e.g. to split all users into ranges of IDs.
+     *
+     * @return The highest ID, or 0 if there are no users.
+     */
+    long findMaxId();
+
+    /**
+     * Finds the sequence number of the last flush of journaled budget changes, see saveBudgetFlushSequence.
+     *
+     * @return The sequence number, or 0 if no flush was recorded.
+     */
+    long findBudgetFlushSequence();
+
+    /**
+     * Records the sequence number of a flush of journaled budget changes; called in the transaction that writes the
+     * budgets, so that it tells after a crash whether they were written.
+     *
+     * @param sequence The sequence number of the flush.
+     */
+    void saveBudgetFlushSequence(long sequence);
 }
@@ -6,6 +6,7 @@ import mostowska.aleksandra.repository.generic.AbstractCrudRepository;
 import org.jdbi.v3.core.Jdbi;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -57,4 +58,91 @@ public class UserRepositoryImpl extends AbstractCrudRepository<User, Long> imple
                 .findFirst()  // Finds the first result if present
         );
     }
+
+    /**
+     * Updates the budget and the budget after goals of the given users in one batch, leaving other columns as they are.
+     *
+     * @param users The users with the budgets to store.
+     */
+    @Override
+    public void updateBudgets(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        var sql = "update users set budget = :budget, budget_after_goals = :budgetAfterGoals where id = :id";
+        jdbi.useHandle(handle -> {
+            var batch = handle.prepareBatch(sql);
+            for (var user : users) {
+                var userDto = user.toGetUserDto();
+                batch.bind("id", userDto.id())
+                        .bind("budget", userDto.budget())
+                        .bind("budgetAfterGoals", userDto.budgetAfterGoals())
+                        .add();
+            }
+            batch.execute();
+        });
+    }
+
+    /**
+     * Enables or disables a user, leaving other columns as they are, so that budget changes written concurrently
+     * are not overwritten.
+     *
+     * @param userId  The ID of the user.
+     * @param enabled Whether the user is enabled.
+     * @return Whether there is such a user.
+     */
+    @Override
+    public boolean updateEnabled(Long userId, boolean enabled) {
+        var sql = "update users set enabled = :enabled where id = :id";
+        return jdbi.withHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("id", userId)
+                .bind("enabled", enabled)
+                .execute()) > 0;
+    }
+
+    /**
+     * Finds the highest user ID, e.g. to split all users into ranges of IDs.
+     *
+     * @return The highest ID, or 0 if there are no users.
+     */
+    @Override
+    public long findMaxId() {
+        var sql = "select coalesce(max(id), 0) from users";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .mapTo(Long.class)
+                .one());
+    }
+
+    /**
+     * Finds the sequence number of the last flush of journaled budget changes, see saveBudgetFlushSequence.
+     *
+     * @return The sequence number, or 0 if no flush was recorded.
+     */
+    @Override
+    public long findBudgetFlushSequence() {
+        var sql = "select coalesce(max(sequence), 0) from budget_flushes";
+        return jdbi.withHandle(handle -> handle
+                .createQuery(sql)
+                .mapTo(Long.class)
+                .one());
+    }
+
+    /**
+     * Records the sequence number of a flush of journaled budget changes; called in the transaction that writes the
+     * budgets, so that it tells after a crash whether they were written.
+     *
+     * @param sequence The sequence number of the flush.
+     */
+    @Override
+    public void saveBudgetFlushSequence(long sequence) {
+        var sql = """
+                insert into budget_flushes (id, sequence) values (1, :sequence)
+                on duplicate key update sequence = values(sequence)""";
+        jdbi.useHandle(handle -> handle
+                .createUpdate(sql)
+                .bind("sequence", sequence)
+                .execute());
+    }
 }
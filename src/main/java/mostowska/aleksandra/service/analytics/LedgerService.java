@@ -0,0 +1,9 @@
+package mostowska.aleksandra.service.analytics;
+
+/**
+ * LedgerService keeps users' expenses and incomes in memory in columnar form, so that reports aggregate them
+ * without querying the database.
+ */
+public interface LedgerService {
+    UserLedger ledgerOf(Long userId);
+}
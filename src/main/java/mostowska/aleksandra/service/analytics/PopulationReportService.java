@@ -0,0 +1,11 @@
+package mostowska.aleksandra.service.analytics;
+
+import mostowska.aleksandra.model.dto.analytics.PopulationReportDto;
+
+/**
+ * PopulationReportService computes reports over all users for administrators: user and budget totals,
+ * negative budget counts and the distribution of expenses and incomes over their types.
+ */
+public interface PopulationReportService {
+    PopulationReportDto getPopulationReport();
+}
@@ -0,0 +1,267 @@
+package mostowska.aleksandra.service.analytics;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * QuantileSketch is a KLL sketch of a stream of values, such as amounts in cents: it answers which share of the
+ * values is at most a given one, and which value a given share is at most, within a rank error of about 1.7% for
+ * k = 200, while holding only a few hundred values however long the stream.
+ * <p>
+ * Values are kept in levels; a value on level h stands for 2^h values of the stream. When the levels are full,
+ * the lowest full level is sorted and every other value, starting at random at the first or the second, is
+ * promoted to the level above, the others dropped. Sketches of different streams merge into the sketch of both.
+ * <p>
+ * A sketch is not thread-safe.
+ */
+public final class QuantileSketch {
+    private static final int FORMAT_VERSION = 1;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 2;
+
+    private final int k;
+    private final SplittableRandom random = new SplittableRandom();
+    private long[][] levels = new long[1][];
+    private int[] sizes = new int[1];
+    private int levelCount = 1;
+    private int retained;
+    private int maxRetained;
+    private long count;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param k The capacity of the top level; the rank error shrinks in proportion to it.
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_CAPACITY || k > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("k must be between " + MIN_CAPACITY + " and " + Short.MAX_VALUE);
+        }
+        this.k = k;
+        levels[0] = new long[capacity(0)];
+        maxRetained = capacity(0);
+    }
+
+    /**
+     * @return The number of values added, including those of merged sketches.
+     */
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value.
+     */
+    public void update(long value) {
+        append(0, value);
+        count++;
+        compress();
+    }
+
+    /**
+     * Adds the values of another sketch, which is left as it is.
+     *
+     * @param other The other sketch.
+     */
+    public void merge(QuantileSketch other) {
+        while (levelCount < other.levelCount) {
+            grow();
+        }
+        for (int h = 0; h < other.levelCount; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        count += other.count;
+        compress();
+    }
+
+    /**
+     * Estimates the share of the values that are at most the given one.
+     *
+     * @param value The value.
+     * @return The share, between 0 and 1; 0 if the sketch is empty.
+     */
+    public double rank(long value) {
+        if (count == 0) {
+            return 0;
+        }
+        var weight = 0L;
+        for (int h = 0; h < levelCount; h++) {
+            var level = levels[h];
+            for (int i = 0; i < sizes[h]; i++) {
+                if (level[i] <= value) {
+                    weight += 1L << h;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    /**
+     * Estimates the smallest value that the given share of the values is at most.
+     *
+     * @param share The share, between 0 and 1, e.g. 0.5 for the median.
+     * @return The value.
+     * @throws IllegalStateException If the sketch is empty.
+     */
+    public long quantile(double share) {
+        if (share < 0 || share > 1) {
+            throw new IllegalArgumentException("Share must be between 0 and 1");
+        }
+        if (count == 0) {
+            throw new IllegalStateException("Sketch is empty");
+        }
+        // Pairs of a value and its weight, sorted by value
+        var weighted = new long[retained][];
+        var n = 0;
+        for (int h = 0; h < levelCount; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                weighted[n++] = new long[]{levels[h][i], 1L << h};
+            }
+        }
+        Arrays.sort(weighted, 0, n, (a, b) -> Long.compare(a[0], b[0]));
+        var target = Math.max(1, (long) Math.ceil(share * count));
+        var cumulative = 0L;
+        for (int i = 0; i < n; i++) {
+            cumulative += weighted[i][1];
+            if (cumulative >= target) {
+                return weighted[i][0];
+            }
+        }
+        return weighted[n - 1][0];
+    }
+
+    /**
+     * @return An independent sketch of the same values.
+     */
+    public QuantileSketch copy() {
+        var copy = new QuantileSketch(k);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Serializes the sketch, e.g. to store it in the database.
+     *
+     * @return The sketch in a compact binary form.
+     */
+    public byte[] toBytes() {
+        var buffer = ByteBuffer.allocate(Integer.BYTES * (3 + levelCount) + Long.BYTES * (1 + retained));
+        buffer.putInt(FORMAT_VERSION).putInt(k).putLong(count).putInt(levelCount);
+        for (int h = 0; h < levelCount; h++) {
+            buffer.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                buffer.putLong(levels[h][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads a sketch written by toBytes.
+     *
+     * @param bytes The serialized sketch.
+     * @return The sketch.
+     * @throws IllegalArgumentException If the bytes are not a serialized sketch.
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        try {
+            var buffer = ByteBuffer.wrap(bytes);
+            if (buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown sketch format");
+            }
+            var sketch = new QuantileSketch(buffer.getInt());
+            var count = buffer.getLong();
+            var levelCount = buffer.getInt();
+            if (levelCount < 1 || levelCount > Long.SIZE - 1) {
+                throw new IllegalArgumentException("Invalid number of sketch levels: " + levelCount);
+            }
+            while (sketch.levelCount < levelCount) {
+                sketch.grow();
+            }
+            for (int h = 0; h < levelCount; h++) {
+                var size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining() / Long.BYTES) {
+                    throw new IllegalArgumentException("Invalid sketch level size: " + size);
+                }
+                for (int i = 0; i < size; i++) {
+                    sketch.append(h, buffer.getLong());
+                }
+            }
+            sketch.count = count;
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated sketch", e);
+        }
+    }
+
+    /**
+     * @return The number of values level h holds before it is compacted; lower levels hold fewer.
+     */
+    private int capacity(int h) {
+        var depth = levelCount - h - 1;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void grow() {
+        levels = Arrays.copyOf(levels, levelCount + 1);
+        sizes = Arrays.copyOf(sizes, levelCount + 1);
+        levels[levelCount] = new long[MIN_CAPACITY];
+        levelCount++;
+        maxRetained = 0;
+        for (int h = 0; h < levelCount; h++) {
+            maxRetained += capacity(h);
+        }
+    }
+
+    private void append(int h, long value) {
+        if (sizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(capacity(h), levels[h].length * 2));
+        }
+        levels[h][sizes[h]++] = value;
+        retained++;
+    }
+
+    private void compress() {
+        while (retained >= maxRetained) {
+            for (int h = 0; h < levelCount; h++) {
+                if (sizes[h] >= capacity(h)) {
+                    if (h + 1 == levelCount) {
+                        grow();
+                    }
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Promotes every other value of a level to the next one. With an odd number of values, the smallest stays.
+     */
+    private void compact(int h) {
+        var level = levels[h];
+        var size = sizes[h];
+        Arrays.sort(level, 0, size);
+        var kept = size & 1;
+        retained -= size;
+        sizes[h] = 0;
+        for (int i = kept + (random.nextBoolean() ? 1 : 0); i < size; i += 2) {
+            append(h + 1, level[i]);
+        }
+        if (kept == 1) {
+            // The smallest value stays in place
+            sizes[h] = 1;
+            retained++;
+        }
+    }
+}
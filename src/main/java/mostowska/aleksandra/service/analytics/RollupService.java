@@ -0,0 +1,22 @@
+package mostowska.aleksandra.service.analytics;
+
+import mostowska.aleksandra.model.dto.analytics.CategoryTotalDto;
+import mostowska.aleksandra.model.dto.analytics.MonthTotalDto;
+import mostowska.aleksandra.model.utils.TransactionKind;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * RollupService serves category breakdowns and month-over-month trends of users' expenses and incomes from the
+ * monthly rollups, and rebuilds the rollups from the transactions when needed.
+ */
+public interface RollupService {
+    List<CategoryTotalDto> getCategoryBreakdown(Long userId, TransactionKind kind, YearMonth from, YearMonth to);
+
+    List<MonthTotalDto> getMonthlyTrend(Long userId, TransactionKind kind, YearMonth from, YearMonth to);
+
+    long backfill();
+
+    void startBackfill();
+}
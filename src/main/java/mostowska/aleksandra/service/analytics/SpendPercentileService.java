@@ -0,0 +1,19 @@
+package mostowska.aleksandra.service.analytics;
+
+import mostowska.aleksandra.model.dto.analytics.SpendPercentileDto;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Money;
+
+import java.util.List;
+
+/**
+ * SpendPercentileService ranks users' expenses among the expenses of all users from quantile sketches kept in
+ * memory per expense type, so that no ranking reads the expenses of other users.
+ */
+public interface SpendPercentileService {
+    void record(ExpenseType expenseType, Money amount);
+
+    List<SpendPercentileDto> getSpendPercentiles(Long userId);
+
+    void checkpoint();
+}
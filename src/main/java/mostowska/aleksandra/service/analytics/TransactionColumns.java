@@ -0,0 +1,332 @@
+package mostowska.aleksandra.service.analytics;
+
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TransactionColumns is an immutable snapshot of one user's expenses or incomes, stored column by column in
+ * primitive arrays: the amount in cents, the category and the frequency as enum ordinals in a byte, and the day
+ * as an epoch day. Rows are kept sorted by day, so a period is a contiguous range found by binary search, and
+ * every query is one pass over that range that allocates nothing but its result.
+ * <p>
+ * A snapshot is extended with an Appender. If the new rows are not older than the last one and fit, the extended
+ * snapshot shares the arrays and writes past the end of this one, where readers of this snapshot never look.
+ * Only the first Appender of a snapshot shares; later ones copy. Snapshots must be published safely, e.g. through
+ * a volatile field or a concurrent map.
+ */
+public final class TransactionColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int categoryCount;
+    private final int size;
+    private final long maxId;
+    private final long[] amounts;
+    private final byte[] categories;
+    private final byte[] frequencies;
+    private final int[] days;
+    private final AtomicBoolean extended = new AtomicBoolean();
+
+    private TransactionColumns(int categoryCount, int size, long maxId, long[] amounts, byte[] categories,
+                               byte[] frequencies, int[] days) {
+        this.categoryCount = categoryCount;
+        this.size = size;
+        this.maxId = maxId;
+        this.amounts = amounts;
+        this.categories = categories;
+        this.frequencies = frequencies;
+        this.days = days;
+    }
+
+    /**
+     * Creates an empty snapshot.
+     *
+     * @param categoryType The enum of the categories, e.g. ExpenseType; it may have at most 64 values.
+     * @return The empty snapshot.
+     */
+    public static TransactionColumns empty(Class<? extends Enum<?>> categoryType) {
+        var categoryCount = categoryType.getEnumConstants().length;
+        if (categoryCount > Long.SIZE || Frequency.values().length > Long.SIZE) {
+            throw new IllegalArgumentException("At most 64 categories and frequencies fit in a filter");
+        }
+        return new TransactionColumns(categoryCount, 0, 0, new long[0], new byte[0], new byte[0], new int[0]);
+    }
+
+    /**
+     * @return An empty snapshot for the same categories.
+     */
+    public TransactionColumns emptyCopy() {
+        return new TransactionColumns(categoryCount, 0, 0, new long[0], new byte[0], new byte[0], new int[0]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The highest id of the rows, zero if there are none; rows with higher ids are not yet loaded.
+     */
+    public long maxId() {
+        return maxId;
+    }
+
+    public int categoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * Starts a snapshot with the rows of this one and more.
+     *
+     * @return The appender of the rows.
+     */
+    public Appender appender() {
+        return new Appender(this, extended.compareAndSet(false, true));
+    }
+
+    /**
+     * Sums the amounts of the selected rows.
+     *
+     * @param filter The rows to sum.
+     * @return The total, in cents.
+     */
+    public long sum(TransactionFilter filter) {
+        var from = lowerBound(filter.fromDay());
+        var to = lowerBound(filter.toDay());
+        // Amounts are at most decimal(10, 2), so no partition holds enough rows to overflow a long
+        var total = 0L;
+        if (filter.selectsAllKinds()) {
+            // A plain reduction, which the JIT compiler can vectorize
+            for (int i = from; i < to; i++) {
+                total += amounts[i];
+            }
+            return total;
+        }
+        var categoryMask = filter.categoryMask();
+        var frequencyMask = filter.frequencyMask();
+        for (int i = from; i < to; i++) {
+            if (selected(categoryMask, frequencyMask, i)) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Counts the selected rows.
+     *
+     * @param filter The rows to count.
+     * @return The number of rows.
+     */
+    public int count(TransactionFilter filter) {
+        var from = lowerBound(filter.fromDay());
+        var to = lowerBound(filter.toDay());
+        if (filter.selectsAllKinds()) {
+            return to - from;
+        }
+        var categoryMask = filter.categoryMask();
+        var frequencyMask = filter.frequencyMask();
+        var count = 0;
+        for (int i = from; i < to; i++) {
+            if (selected(categoryMask, frequencyMask, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums the amounts of the selected rows per category.
+     *
+     * @param filter The rows to sum.
+     * @return The totals in cents, indexed by category ordinal.
+     */
+    public long[] sumByCategory(TransactionFilter filter) {
+        var totals = new long[categoryCount];
+        var from = lowerBound(filter.fromDay());
+        var to = lowerBound(filter.toDay());
+        var categoryMask = filter.categoryMask();
+        var frequencyMask = filter.frequencyMask();
+        for (int i = from; i < to; i++) {
+            if (selected(categoryMask, frequencyMask, i)) {
+                totals[categories[i]] += amounts[i];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Counts the selected rows per category.
+     *
+     * @param filter The rows to count.
+     * @return The numbers of rows, indexed by category ordinal.
+     */
+    public long[] countByCategory(TransactionFilter filter) {
+        var counts = new long[categoryCount];
+        var from = lowerBound(filter.fromDay());
+        var to = lowerBound(filter.toDay());
+        var categoryMask = filter.categoryMask();
+        var frequencyMask = filter.frequencyMask();
+        for (int i = from; i < to; i++) {
+            if (selected(categoryMask, frequencyMask, i)) {
+                counts[categories[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Sums the amounts of the selected rows per calendar month.
+     *
+     * @param filter The rows to sum.
+     * @param first  The first month.
+     * @param months The number of months.
+     * @return The totals in cents, indexed by month from the first.
+     */
+    public long[] sumByMonth(TransactionFilter filter, YearMonth first, int months) {
+        var totals = new long[months];
+        var from = lowerBound(Math.max(filter.fromDay(), epochDay(first.atDay(1))));
+        var to = lowerBound(Math.min(filter.toDay(), epochDay(first.plusMonths(months).atDay(1))));
+        var categoryMask = filter.categoryMask();
+        var frequencyMask = filter.frequencyMask();
+        // Rows are sorted by day, so the month boundary only ever moves forward
+        var month = 0;
+        var monthEnd = epochDay(first.plusMonths(1).atDay(1));
+        for (int i = from; i < to; i++) {
+            while (days[i] >= monthEnd) {
+                month++;
+                monthEnd = epochDay(first.plusMonths(month + 1).atDay(1));
+            }
+            if (selected(categoryMask, frequencyMask, i)) {
+                totals[month] += amounts[i];
+            }
+        }
+        return totals;
+    }
+
+    private boolean selected(long categoryMask, long frequencyMask, int row) {
+        return ((categoryMask >>> categories[row]) & (frequencyMask >>> frequencies[row]) & 1L) != 0;
+    }
+
+    /**
+     * @return The index of the first row on or after the day, the size if there is none.
+     */
+    private int lowerBound(int day) {
+        var low = 0;
+        var high = size;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (days[middle] < day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int epochDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    /**
+     * Appender collects rows for a new snapshot; it is not thread-safe.
+     */
+    public static final class Appender {
+        private final TransactionColumns base;
+        private int size;
+        private long maxId;
+        private long[] amounts;
+        private byte[] categories;
+        private byte[] frequencies;
+        private int[] days;
+        private boolean sorted = true;
+
+        private Appender(TransactionColumns base, boolean share) {
+            this.base = base;
+            this.size = base.size;
+            this.maxId = base.maxId;
+            if (share) {
+                amounts = base.amounts;
+                categories = base.categories;
+                frequencies = base.frequencies;
+                days = base.days;
+            } else {
+                amounts = Arrays.copyOf(base.amounts, base.size);
+                categories = Arrays.copyOf(base.categories, base.size);
+                frequencies = Arrays.copyOf(base.frequencies, base.size);
+                days = Arrays.copyOf(base.days, base.size);
+            }
+        }
+
+        /**
+         * Adds a row.
+         *
+         * @param id        The id of the row.
+         * @param category  The category, of the enum the snapshot was created for.
+         * @param frequency The frequency.
+         * @param amount    The amount.
+         * @param day       The day the transaction occurred.
+         * @return This appender.
+         */
+        public Appender append(long id, Enum<?> category, Frequency frequency, Money amount, LocalDate day) {
+            if (category.ordinal() >= base.categoryCount) {
+                throw new IllegalArgumentException("Category " + category + " is not of this snapshot");
+            }
+            if (size == amounts.length) {
+                grow();
+            }
+            var epochDay = epochDay(day);
+            if (size > 0 && epochDay < days[size - 1]) {
+                sorted = false;
+            }
+            amounts[size] = amount.cents();
+            categories[size] = (byte) category.ordinal();
+            frequencies[size] = (byte) frequency.ordinal();
+            days[size] = epochDay;
+            size++;
+            maxId = Math.max(maxId, id);
+            return this;
+        }
+
+        /**
+         * @return The snapshot with the rows of the base snapshot and the appended ones.
+         */
+        public TransactionColumns build() {
+            if (sorted) {
+                return new TransactionColumns(base.categoryCount, size, maxId, amounts, categories, frequencies, days);
+            }
+            // Sorts by day, keeping rows of one day in the order they were appended
+            var keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) days[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            var capacity = Math.max(size, INITIAL_CAPACITY);
+            var sortedAmounts = new long[capacity];
+            var sortedCategories = new byte[capacity];
+            var sortedFrequencies = new byte[capacity];
+            var sortedDays = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                var row = (int) keys[i];
+                sortedAmounts[i] = amounts[row];
+                sortedCategories[i] = categories[row];
+                sortedFrequencies[i] = frequencies[row];
+                sortedDays[i] = days[row];
+            }
+            return new TransactionColumns(base.categoryCount, size, maxId, sortedAmounts, sortedCategories,
+                    sortedFrequencies, sortedDays);
+        }
+
+        private void grow() {
+            var capacity = Math.max(INITIAL_CAPACITY, amounts.length + (amounts.length >> 1));
+            amounts = Arrays.copyOf(amounts, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+            days = Arrays.copyOf(days, capacity);
+        }
+    }
+}
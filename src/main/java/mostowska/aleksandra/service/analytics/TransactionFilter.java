@@ -0,0 +1,72 @@
+package mostowska.aleksandra.service.analytics;
+
+import mostowska.aleksandra.model.utils.Frequency;
+
+import java.time.LocalDate;
+
+/**
+ * Selects rows of TransactionColumns: a period of days and sets of categories and frequencies, the sets held as
+ * bit masks of enum ordinals.
+ *
+ * @param fromDay        The first epoch day of the period, inclusive.
+ * @param toDay          The last epoch day of the period, exclusive.
+ * @param categoryMask   The ordinals of the selected categories, as bits.
+ * @param frequencyMask  The ordinals of the selected frequencies, as bits.
+ */
+public record TransactionFilter(int fromDay, int toDay, long categoryMask, long frequencyMask) {
+    public static final long ALL = -1L;
+
+    /**
+     * @return A filter selecting every row.
+     */
+    public static TransactionFilter all() {
+        return new TransactionFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, ALL, ALL);
+    }
+
+    /**
+     * Restricts the filter to a period.
+     *
+     * @param from The first day, inclusive.
+     * @param to   The last day, exclusive.
+     * @return The restricted filter.
+     */
+    public TransactionFilter between(LocalDate from, LocalDate to) {
+        return new TransactionFilter(Math.max(fromDay, Math.toIntExact(from.toEpochDay())),
+                Math.min(toDay, Math.toIntExact(to.toEpochDay())), categoryMask, frequencyMask);
+    }
+
+    /**
+     * Restricts the filter to some categories, e.g. expense types.
+     *
+     * @param categories The selected categories.
+     * @return The restricted filter.
+     */
+    public TransactionFilter withCategories(Enum<?>... categories) {
+        return new TransactionFilter(fromDay, toDay, categoryMask & maskOf(categories), frequencyMask);
+    }
+
+    /**
+     * Restricts the filter to some frequencies.
+     *
+     * @param frequencies The selected frequencies.
+     * @return The restricted filter.
+     */
+    public TransactionFilter withFrequencies(Frequency... frequencies) {
+        return new TransactionFilter(fromDay, toDay, categoryMask, frequencyMask & maskOf(frequencies));
+    }
+
+    /**
+     * @return Whether the filter selects every category and every frequency, whatever the period.
+     */
+    public boolean selectsAllKinds() {
+        return categoryMask == ALL && frequencyMask == ALL;
+    }
+
+    private static long maskOf(Enum<?>... values) {
+        var mask = 0L;
+        for (var value : values) {
+            mask |= 1L << value.ordinal();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,13 @@
+package mostowska.aleksandra.service.analytics;
+
+import mostowska.aleksandra.model.dto.analytics.UserAnalyticsDto;
+
+import java.time.YearMonth;
+
+/**
+ * UserAnalyticsService summarizes a user's expenses and incomes over a period in one response: totals per type,
+ * the savings rate and the month by month trend.
+ */
+public interface UserAnalyticsService {
+    UserAnalyticsDto getUserAnalytics(Long userId, YearMonth from, YearMonth to);
+}
@@ -0,0 +1,10 @@
+package mostowska.aleksandra.service.analytics;
+
+/**
+ * A snapshot of one user's transactions in columnar form.
+ *
+ * @param expenses The expenses, by ExpenseType.
+ * @param incomes  The incomes, by IncomeType.
+ */
+public record UserLedger(TransactionColumns expenses, TransactionColumns incomes) {
+}
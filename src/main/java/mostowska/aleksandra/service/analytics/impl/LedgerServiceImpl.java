@@ -0,0 +1,161 @@
+package mostowska.aleksandra.service.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.Income;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.repository.budget.ExpenseRepository;
+import mostowska.aleksandra.repository.budget.IncomeRepository;
+import mostowska.aleksandra.service.analytics.LedgerService;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
+import mostowska.aleksandra.service.analytics.UserLedger;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * LedgerServiceImpl keeps a columnar snapshot per user, loaded from the repositories on first use and then
+ * incrementally: when the user's version has changed, or the snapshot is older than `analytics.ledger.max_age_ms`,
+ * only the rows with higher ids are read and appended. A row count that no longer matches reveals deletions,
+ * and the snapshot is then reloaded in full.
+ * <p>
+ * At most `analytics.ledger.max_users` snapshots are kept; beyond that, those used least recently are dropped.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final UserVersionService userVersionService;
+    private final MetricsService metricsService;
+
+    @Value("${analytics.ledger.max_users:10000}")
+    private int maxUsers;
+
+    @Value("${analytics.ledger.max_age_ms:60000}")
+    private long maxAgeMs;
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    @PostConstruct
+    public void start() {
+        metricsService.registerGauge("analytics_ledgers_cached", "Users whose transactions are held in memory",
+                partitions::size);
+    }
+
+    /**
+     * Retrieves an up-to-date snapshot of a user's expenses and incomes, loading what is new since the last one.
+     *
+     * @param userId The ID of the user.
+     * @return The snapshot; it does not change, later writes go to later snapshots.
+     */
+    @Override
+    public UserLedger ledgerOf(Long userId) {
+        var ledger = partitions
+                .computeIfAbsent(userId, Partition::new)
+                .current(userVersionService.currentVersion(userId), System.currentTimeMillis());
+        if (partitions.size() > maxUsers) {
+            evictLeastRecentlyUsed();
+        }
+        return ledger;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // One caller evicts at a time; the others go on, the map may briefly hold a few more partitions
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            var excess = partitions.size() - maxUsers * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            var byLastUse = new ArrayList<>(partitions.values());
+            byLastUse.sort(Comparator.comparingLong(partition -> partition.lastUsed));
+            for (var partition : byLastUse.subList(0, Math.min(excess, byLastUse.size()))) {
+                partitions.remove(partition.userId, partition);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Brings columns up to date with the rows in the database.
+     */
+    private static <T> TransactionColumns refresh(TransactionColumns columns, Long userId,
+                                                  BiFunction<Long, Long, List<T>> findAfterId,
+                                                  Function<Long, Long> count,
+                                                  BiConsumer<T, TransactionColumns.Appender> append) {
+        var newRows = findAfterId.apply(userId, columns.maxId());
+        var refreshed = columns;
+        if (!newRows.isEmpty()) {
+            var appender = columns.appender();
+            newRows.forEach(row -> append.accept(row, appender));
+            refreshed = appender.build();
+        }
+        if (refreshed.size() == count.apply(userId)) {
+            return refreshed;
+        }
+        // Rows were deleted, or written between the two queries; only a full load tells which
+        var appender = columns.emptyCopy().appender();
+        findAfterId.apply(userId, 0L).forEach(row -> append.accept(row, appender));
+        return appender.build();
+    }
+
+    private record Snapshot(UserLedger ledger, long version, long loadedAt) {
+    }
+
+    private final class Partition {
+        private final Long userId;
+        private volatile Snapshot snapshot;
+        private volatile long lastUsed;
+
+        private Partition(Long userId) {
+            this.userId = userId;
+        }
+
+        private UserLedger current(long version, long now) {
+            lastUsed = now;
+            var current = snapshot;
+            if (isFresh(current, version, now)) {
+                return current.ledger();
+            }
+            synchronized (this) {
+                current = snapshot;
+                if (isFresh(current, version, now)) {
+                    return current.ledger();
+                }
+                var ledger = current == null
+                        ? new UserLedger(TransactionColumns.empty(ExpenseType.class),
+                        TransactionColumns.empty(IncomeType.class))
+                        : current.ledger();
+                var refreshed = new UserLedger(
+                        refresh(ledger.expenses(), userId, expenseRepository::findAllForUserIdAfterId,
+                                expenseRepository::countForUserId, Expense::appendTo),
+                        refresh(ledger.incomes(), userId, incomeRepository::findAllForUserIdAfterId,
+                                incomeRepository::countForUserId, Income::appendTo));
+                snapshot = new Snapshot(refreshed, version, now);
+                return refreshed;
+            }
+        }
+
+        private boolean isFresh(Snapshot snapshot, long version, long now) {
+            return snapshot != null && snapshot.version() == version && now - snapshot.loadedAt() < maxAgeMs;
+        }
+    }
+}
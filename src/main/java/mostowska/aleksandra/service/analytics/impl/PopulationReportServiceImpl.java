@@ -0,0 +1,177 @@
+package mostowska.aleksandra.service.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.model.BudgetTotals;
+import mostowska.aleksandra.model.CategoryTotals;
+import mostowska.aleksandra.model.dto.analytics.CategoryShareDto;
+import mostowska.aleksandra.model.dto.analytics.PopulationReportDto;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.PopulationReportRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.PopulationReportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * PopulationReportServiceImpl is an implementation of the PopulationReportService interface over
+ * PopulationReportRepository.
+ * <p>
+ * The range of user IDs is split in halves on a fork-join pool of `analytics.report.parallelism` threads until
+ * the ranges hold at most `analytics.report.partition_users` IDs. Each range is aggregated by the database, and
+ * the partial results are merged as the halves are joined. A partial result holds one entry per category, so
+ * memory does not grow with the number of users or transactions. Only one report runs at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PopulationReportServiceImpl implements PopulationReportService {
+    private final UserRepository userRepository;
+    private final PopulationReportRepository populationReportRepository;
+
+    @Value("${analytics.report.parallelism:4}")
+    private int parallelism;
+
+    @Value("${analytics.report.partition_users:10000}")
+    private int partitionUsers;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Computes the report over all users, waiting until it is done.
+     *
+     * @return The report.
+     * @throws ConflictException If a report is already being computed.
+     */
+    @Override
+    public PopulationReportDto getPopulationReport() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("Population report already running");
+        }
+        try {
+            var started = System.nanoTime();
+            var maxUserId = userRepository.findMaxId();
+            var partial = pool.invoke(new RangeTask(0, maxUserId + 1));
+            log.info("Population report over users up to {} took {} ms", maxUserId,
+                    (System.nanoTime() - started) / 1_000_000);
+            return partial.toReport();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Aggregates a range of user IDs, splitting it while it is larger than a partition.
+     */
+    private final class RangeTask extends RecursiveTask<Partial> {
+        private final long fromUserId;
+        private final long toUserId;
+
+        private RangeTask(long fromUserId, long toUserId) {
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toUserId - fromUserId <= partitionUsers) {
+                return aggregate(fromUserId, toUserId);
+            }
+            var middle = (fromUserId + toUserId) >>> 1;
+            var upper = new RangeTask(middle, toUserId);
+            upper.fork();
+            var result = new RangeTask(fromUserId, middle).compute();
+            return result.merge(upper.join());
+        }
+    }
+
+    private Partial aggregate(long fromUserId, long toUserId) {
+        var partial = new Partial(populationReportRepository.sumBudgets(fromUserId, toUserId));
+        populationReportRepository.forEachCategoryTotals(TransactionKind.EXPENSE, fromUserId, toUserId,
+                totals -> partial.expenses.merge(totals.category(), totals, CategoryTotals::plus));
+        populationReportRepository.forEachCategoryTotals(TransactionKind.INCOME, fromUserId, toUserId,
+                totals -> partial.incomes.merge(totals.category(), totals, CategoryTotals::plus));
+        return partial;
+    }
+
+    /**
+     * The aggregates of a range of users; merged into, so only one task may hold it at a time.
+     */
+    private static final class Partial {
+        private BudgetTotals budgets;
+        private final Map<String, CategoryTotals> expenses = new HashMap<>();
+        private final Map<String, CategoryTotals> incomes = new HashMap<>();
+
+        private Partial(BudgetTotals budgets) {
+            this.budgets = budgets;
+        }
+
+        private Partial merge(Partial other) {
+            budgets = budgets.plus(other.budgets);
+            other.expenses.forEach((category, totals) -> expenses.merge(category, totals, CategoryTotals::plus));
+            other.incomes.forEach((category, totals) -> incomes.merge(category, totals, CategoryTotals::plus));
+            return this;
+        }
+
+        private PopulationReportDto toReport() {
+            var totalExpenses = total(expenses);
+            var totalIncomes = total(incomes);
+            return new PopulationReportDto(budgets.users(), budgets.enabledUsers(), budgets.negativeBudgetUsers(),
+                    budgets.negativeBudgetAfterGoalsUsers(), budgets.budget().toBigDecimal(),
+                    budgets.budgetAfterGoals().toBigDecimal(), totalExpenses.toBigDecimal(),
+                    totalIncomes.toBigDecimal(), shares(expenses, totalExpenses, ExpenseType.class),
+                    shares(incomes, totalIncomes, IncomeType.class));
+        }
+
+        private static Money total(Map<String, CategoryTotals> byCategory) {
+            return Money.sum(byCategory.values().stream().map(CategoryTotals::total));
+        }
+
+        /**
+         * @return The shares of the categories, ordered like the enum; unknown categories come last, by name.
+         */
+        private static <E extends Enum<E>> List<CategoryShareDto> shares(Map<String, CategoryTotals> byCategory,
+                                                                          Money total, Class<E> categoryType) {
+            var ordinals = new HashMap<String, Integer>();
+            for (var category : categoryType.getEnumConstants()) {
+                ordinals.put(category.name(), category.ordinal());
+            }
+            var ordered = new ArrayList<>(byCategory.values());
+            ordered.sort(Comparator
+                    .comparing((CategoryTotals totals) -> ordinals.getOrDefault(totals.category(), Integer.MAX_VALUE))
+                    .thenComparing(CategoryTotals::category));
+            return ordered.stream()
+                    .map(totals -> new CategoryShareDto(totals.category(), totals.total().toBigDecimal(),
+                            totals.count(), totals.users(), total.isZero() ? null : totals.total().toBigDecimal()
+                            .divide(total.toBigDecimal(), 4, RoundingMode.HALF_UP)))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package mostowska.aleksandra.service.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import mostowska.aleksandra.model.MonthlyRollup;
+import mostowska.aleksandra.model.dto.analytics.CategoryTotalDto;
+import mostowska.aleksandra.model.dto.analytics.MonthTotalDto;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.MonthlyRollupRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.RollupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RollupServiceImpl is an implementation of the RollupService interface over MonthlyRollupRepository.
+ * <p>
+ * The backfill splits the users into ranges of `analytics.rollups.backfill_batch_users` IDs and rebuilds the
+ * ranges on `analytics.rollups.backfill_threads` threads, each range in its own transaction, so that a failure
+ * only loses the work of one range and no transaction holds locks on more than one range's rollups.
+ * With `analytics.rollups.backfill_on_start` set, it runs in the background at startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupServiceImpl implements RollupService {
+    // Bounds the number of rows a trend allocates for
+    private static final int MAX_MONTHS = 120;
+
+    private final UserRepository userRepository;
+    private final MonthlyRollupRepository monthlyRollupRepository;
+
+    @Value("${analytics.rollups.backfill_batch_users:1000}")
+    private int backfillBatchUsers;
+
+    @Value("${analytics.rollups.backfill_threads:4}")
+    private int backfillThreads;
+
+    @Value("${analytics.rollups.backfill_on_start:false}")
+    private boolean backfillOnStart;
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    @PostConstruct
+    public void start() {
+        if (backfillOnStart) {
+            startBackfill();
+        }
+    }
+
+    /**
+     * Retrieves the totals of a user's expenses or incomes per type over a period.
+     *
+     * @param userId The ID of the user.
+     * @param kind   Whether to sum expenses or incomes.
+     * @param from   The first month, inclusive.
+     * @param to     The last month, inclusive.
+     * @return The totals of the types with transactions in the period, ordered by type.
+     */
+    @Override
+    public List<CategoryTotalDto> getCategoryBreakdown(Long userId, TransactionKind kind, YearMonth from,
+                                                       YearMonth to) {
+        checkPeriod(userId, from, to);
+        return monthlyRollupRepository
+                .sumByCategory(userId, kind, from.atDay(1), to.plusMonths(1).atDay(1))
+                .stream()
+                .map(rollup -> new CategoryTotalDto(rollup.category(), rollup.total().toBigDecimal(), rollup.count()))
+                .toList();
+    }
+
+    /**
+     * Retrieves the totals of a user's expenses or incomes per month, with the change from month to month.
+     *
+     * @param userId The ID of the user.
+     * @param kind   Whether to sum expenses or incomes.
+     * @param from   The first month, inclusive.
+     * @param to     The last month, inclusive.
+     * @return One total for every month of the period, in order, months without transactions included.
+     */
+    @Override
+    public List<MonthTotalDto> getMonthlyTrend(Long userId, TransactionKind kind, YearMonth from, YearMonth to) {
+        checkPeriod(userId, from, to);
+        var byMonth = new HashMap<YearMonth, MonthlyRollup>();
+        for (var rollup : monthlyRollupRepository.sumByMonth(userId, kind, from.atDay(1), to.plusMonths(1).atDay(1))) {
+            byMonth.put(YearMonth.from(rollup.monthStart()), rollup);
+        }
+
+        var trend = new ArrayList<MonthTotalDto>();
+        Money previous = null;
+        for (var month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            var rollup = byMonth.get(month);
+            var total = rollup == null ? Money.ZERO : rollup.total();
+            var count = rollup == null ? 0 : rollup.count();
+            var change = previous == null ? null : total.minus(previous).toBigDecimal();
+            trend.add(new MonthTotalDto(month, total.toBigDecimal(), count, change));
+            previous = total;
+        }
+        return trend;
+    }
+
+    /**
+     * Rebuilds the rollups of all users from their expenses and incomes, waiting until it is done.
+     *
+     * @return The number of rollups written.
+     * @throws ConflictException If a backfill is already running.
+     * @throws IllegalStateException If the rebuild of some ranges failed; the other ranges are rebuilt.
+     */
+    @Override
+    public long backfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            throw new ConflictException("Rollup backfill already running");
+        }
+        try {
+            return backfillRanges();
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    /**
+     * Starts rebuilding the rollups of all users in the background.
+     *
+     * @throws ConflictException If a backfill is already running.
+     */
+    @Override
+    public void startBackfill() {
+        if (backfilling.get()) {
+            throw new ConflictException("Rollup backfill already running");
+        }
+        Thread.ofVirtual().name("rollup-backfill").start(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("Rollup backfill failed", e);
+            }
+        });
+    }
+
+    private long backfillRanges() {
+        var maxUserId = userRepository.findMaxId();
+        var started = System.nanoTime();
+        var rangesDone = new AtomicLong();
+        var ranges = (maxUserId + backfillBatchUsers) / backfillBatchUsers;
+        var written = 0L;
+        var failed = 0;
+        try (var executor = Executors.newFixedThreadPool(backfillThreads,
+                Thread.ofPlatform().name("rollup-backfill-", 0).daemon(true).factory())) {
+            var futures = new ArrayList<Future<Integer>>();
+            for (long from = 0; from <= maxUserId; from += backfillBatchUsers) {
+                var fromUserId = from;
+                var toUserId = from + backfillBatchUsers;
+                futures.add(executor.submit(() -> {
+                    var rollups = monthlyRollupRepository.rebuildForUserIds(fromUserId, toUserId);
+                    var done = rangesDone.incrementAndGet();
+                    if (done % 100 == 0) {
+                        log.info("Rollup backfill rebuilt {} of {} user ranges", done, ranges);
+                    }
+                    return rollups;
+                }));
+            }
+            for (var future : futures) {
+                try {
+                    written += future.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.warn("Rollup backfill of a user range failed: {}", e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    throw new IllegalStateException("Rollup backfill interrupted", e);
+                }
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException("Rollup backfill failed for " + failed + " of " + ranges + " user ranges");
+        }
+        log.info("Rollup backfill wrote {} rollups for users up to {} in {} ms", written, maxUserId,
+                (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+
+    private void checkPeriod(Long userId, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("Period must not end before it starts");
+        }
+        if (ChronoUnit.MONTHS.between(from, to) >= MAX_MONTHS) {
+            throw new ValidationException("Period must not be longer than " + MAX_MONTHS + " months");
+        }
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+    }
+}
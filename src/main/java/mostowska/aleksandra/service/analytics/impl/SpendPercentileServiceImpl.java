@@ -0,0 +1,284 @@
+package mostowska.aleksandra.service.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.model.dto.analytics.SpendPercentileDto;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.analytics.ExpenseSketchRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.LedgerService;
+import mostowska.aleksandra.service.analytics.QuantileSketch;
+import mostowska.aleksandra.service.analytics.SpendPercentileService;
+import mostowska.aleksandra.service.analytics.TransactionFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SpendPercentileServiceImpl is an implementation of the SpendPercentileService interface that keeps a
+ * QuantileSketch of the expense amounts per expense type.
+ * <p>
+ * Every added expense updates the sketch of its type. Every `analytics.sketches.checkpoint_interval_ms`, the
+ * expenses recorded since the last checkpoint are merged into the sketches stored by ExpenseSketchRepository,
+ * and the stored sketches, which include the checkpoints of other instances, are read back. If no sketches are
+ * stored yet and `analytics.sketches.bootstrap` is set, they are built once from all expenses at startup. It is off
+ * by default, as instances bootstrapping side by side would each store all expenses; set it on one instance only.
+ * <p>
+ * Deleted expenses stay in the sketches, which cannot take values out; rankings are estimates either way.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendPercentileServiceImpl implements SpendPercentileService {
+    private final UserRepository userRepository;
+    private final LedgerService ledgerService;
+    private final ExpenseSketchRepository expenseSketchRepository;
+    private final TransactionManager transactionManager;
+
+    @Value("${analytics.sketches.k:200}")
+    private int k;
+
+    @Value("${analytics.sketches.checkpoint_interval_ms:60000}")
+    private long checkpointIntervalMs;
+
+    @Value("${analytics.sketches.bootstrap:false}")
+    private boolean bootstrap;
+
+    private final ReentrantLock sketchLock = new ReentrantLock();
+
+    // The stored sketches and the expenses recorded since they were read; what rankings are answered from
+    private final Map<ExpenseType, QuantileSketch> current = new EnumMap<>(ExpenseType.class);
+
+    // The expenses recorded since the last checkpoint
+    private Map<ExpenseType, QuantileSketch> pending = new EnumMap<>(ExpenseType.class);
+
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * Loads the stored sketches in the background, then starts the periodic checkpoint.
+     */
+    @PostConstruct
+    public void start() {
+        checkpointer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("expense-sketches").daemon(true).factory());
+        checkpointer.execute(this::loadQuietly);
+        checkpointer.scheduleWithFixedDelay(this::checkpointQuietly, checkpointIntervalMs, checkpointIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic checkpoint and stores what is still pending.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        checkpointer.shutdown();
+        checkpointer.awaitTermination(10, TimeUnit.SECONDS);
+        checkpointQuietly();
+    }
+
+    /**
+     * Adds an expense to the sketch of its type.
+     *
+     * @param expenseType The type of the expense.
+     * @param amount      The amount of the expense.
+     */
+    @Override
+    public void record(ExpenseType expenseType, Money amount) {
+        sketchLock.lock();
+        try {
+            sketchOf(current, expenseType).update(amount.cents());
+            sketchOf(pending, expenseType).update(amount.cents());
+        } finally {
+            sketchLock.unlock();
+        }
+    }
+
+    /**
+     * Ranks the average amount of a user's expenses of each type among all expenses of the type.
+     *
+     * @param userId The ID of the user.
+     * @return One ranking per expense type the user has expenses of, ordered by type.
+     */
+    @Override
+    public List<SpendPercentileDto> getSpendPercentiles(Long userId) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        var expenses = ledgerService.ledgerOf(userId).expenses();
+        var totals = expenses.sumByCategory(TransactionFilter.all());
+        var counts = expenses.countByCategory(TransactionFilter.all());
+        var types = ExpenseType.values();
+
+        var percentiles = new ArrayList<SpendPercentileDto>();
+        sketchLock.lock();
+        try {
+            for (int i = 0; i < types.length; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                var average = Money.ofCents(totals[i]).scale(1, counts[i], RoundingMode.HALF_UP);
+                var sketch = current.get(types[i]);
+                if (sketch == null || sketch.isEmpty()) {
+                    percentiles.add(new SpendPercentileDto(types[i].name(), average.toBigDecimal(), counts[i],
+                            null, null, null));
+                    continue;
+                }
+                percentiles.add(new SpendPercentileDto(types[i].name(), average.toBigDecimal(), counts[i],
+                        BigDecimal.valueOf(sketch.rank(average.cents()) * 100).setScale(1, RoundingMode.HALF_UP),
+                        Money.ofCents(sketch.quantile(0.5)).toBigDecimal(),
+                        Money.ofCents(sketch.quantile(0.9)).toBigDecimal()));
+            }
+        } finally {
+            sketchLock.unlock();
+        }
+        return percentiles;
+    }
+
+    /**
+     * Merges the expenses recorded since the last checkpoint into the stored sketches, then reads them back.
+     * If the merge fails, the expenses stay pending and are merged with the next checkpoint.
+     */
+    @Override
+    public void checkpoint() {
+        Map<ExpenseType, QuantileSketch> deltas;
+        sketchLock.lock();
+        try {
+            deltas = pending;
+            pending = new EnumMap<>(ExpenseType.class);
+        } finally {
+            sketchLock.unlock();
+        }
+
+        if (!deltas.isEmpty()) {
+            try {
+                // Types are locked in enum order, so concurrent checkpoints of several instances cannot deadlock
+                transactionManager.inTransaction(() -> {
+                    deltas.forEach((expenseType, delta) -> {
+                        var stored = expenseSketchRepository
+                                .findForUpdate(expenseType.name())
+                                .map(this::parse)
+                                .orElseGet(() -> new QuantileSketch(k));
+                        stored.merge(delta);
+                        expenseSketchRepository.save(expenseType.name(), stored.toBytes());
+                    });
+                    return deltas.size();
+                });
+            } catch (RuntimeException e) {
+                sketchLock.lock();
+                try {
+                    deltas.forEach((expenseType, delta) -> sketchOf(pending, expenseType).merge(delta));
+                } finally {
+                    sketchLock.unlock();
+                }
+                throw e;
+            }
+        }
+        refresh(expenseSketchRepository.findAll());
+    }
+
+    private void loadQuietly() {
+        try {
+            var stored = expenseSketchRepository.findAll();
+            if (stored.isEmpty() && bootstrap) {
+                bootstrap();
+            } else {
+                refresh(stored);
+            }
+        } catch (RuntimeException e) {
+            // Retried by the next checkpoint, which reads the stored sketches again
+            log.warn("Could not load the expense sketches: {}", e.getMessage());
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            // A failing checkpoint must not cancel the scheduled task; the expenses stay pending
+            log.warn("Could not checkpoint the expense sketches: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the sketches from all expenses, as pending changes that the next checkpoint stores.
+     */
+    private void bootstrap() {
+        var started = System.nanoTime();
+        long maxExpenseId;
+        // Expenses recorded so far are also read by the scan below, so they are counted once, by the scan
+        sketchLock.lock();
+        try {
+            maxExpenseId = expenseSketchRepository.findMaxExpenseId();
+            current.clear();
+            pending.clear();
+        } finally {
+            sketchLock.unlock();
+        }
+
+        var built = new EnumMap<ExpenseType, QuantileSketch>(ExpenseType.class);
+        expenseSketchRepository.forEachExpenseAmount(maxExpenseId,
+                (expenseType, cents) -> sketchOf(built, ExpenseType.valueOf(expenseType)).update(cents));
+
+        sketchLock.lock();
+        try {
+            built.forEach((expenseType, sketch) -> {
+                sketchOf(current, expenseType).merge(sketch);
+                sketchOf(pending, expenseType).merge(sketch);
+            });
+        } finally {
+            sketchLock.unlock();
+        }
+        log.info("Built the expense sketches from expenses up to {} in {} ms", maxExpenseId,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces the current sketches with the stored ones and the expenses recorded since the last checkpoint.
+     */
+    private void refresh(Map<String, byte[]> stored) {
+        var loaded = new EnumMap<ExpenseType, QuantileSketch>(ExpenseType.class);
+        for (var expenseType : ExpenseType.values()) {
+            var bytes = stored.get(expenseType.name());
+            if (bytes != null) {
+                loaded.put(expenseType, parse(bytes));
+            }
+        }
+        sketchLock.lock();
+        try {
+            pending.forEach((expenseType, delta) -> sketchOf(loaded, expenseType).merge(delta));
+            current.clear();
+            current.putAll(loaded);
+        } finally {
+            sketchLock.unlock();
+        }
+    }
+
+    private QuantileSketch parse(byte[] bytes) {
+        try {
+            return QuantileSketch.fromBytes(bytes);
+        } catch (IllegalArgumentException e) {
+            // Replaced by the next checkpoint of its type
+            log.warn("Dropped an unreadable expense sketch: {}", e.getMessage());
+            return new QuantileSketch(k);
+        }
+    }
+
+    private QuantileSketch sketchOf(Map<ExpenseType, QuantileSketch> sketches, ExpenseType expenseType) {
+        return sketches.computeIfAbsent(expenseType, type -> new QuantileSketch(k));
+    }
+}
@@ -0,0 +1,169 @@
+package mostowska.aleksandra.service.analytics.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import mostowska.aleksandra.model.dto.analytics.CategoryTotalDto;
+import mostowska.aleksandra.model.dto.analytics.MonthBalanceDto;
+import mostowska.aleksandra.model.dto.analytics.UserAnalyticsDto;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.LedgerService;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
+import mostowska.aleksandra.service.analytics.TransactionFilter;
+import mostowska.aleksandra.service.analytics.UserAnalyticsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * UserAnalyticsServiceImpl is an implementation of the UserAnalyticsService interface over LedgerService.
+ * <p>
+ * The user's expenses and incomes are fetched once, as one ledger snapshot, and the aggregations over it are
+ * independent of each other. For users with at least `analytics.summary.parallel_rows` transactions they run as
+ * tasks of a fork-join pool of `analytics.summary.parallelism` threads; for the others, forking would cost more
+ * than the aggregations, and they run on the calling thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserAnalyticsServiceImpl implements UserAnalyticsService {
+    // Bounds the number of months a trend allocates for, as for the rollup trends
+    private static final int MAX_MONTHS = 120;
+
+    private final UserRepository userRepository;
+    private final LedgerService ledgerService;
+
+    @Value("${analytics.summary.parallelism:4}")
+    private int parallelism;
+
+    @Value("${analytics.summary.parallel_rows:50000}")
+    private int parallelRows;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Summarizes a user's expenses and incomes over a period.
+     *
+     * @param userId The ID of the user.
+     * @param from   The first month, inclusive.
+     * @param to     The last month, inclusive.
+     * @return The totals per type, the savings rate and the trend of the period.
+     */
+    @Override
+    public UserAnalyticsDto getUserAnalytics(Long userId, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("Period must not end before it starts");
+        }
+        if (ChronoUnit.MONTHS.between(from, to) >= MAX_MONTHS) {
+            throw new ValidationException("Period must not be longer than " + MAX_MONTHS + " months");
+        }
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+
+        var ledger = ledgerService.ledgerOf(userId);
+        var expenses = ledger.expenses();
+        var incomes = ledger.incomes();
+        var filter = TransactionFilter.all().between(from.atDay(1), to.plusMonths(1).atDay(1));
+        var months = Math.toIntExact(ChronoUnit.MONTHS.between(from, to) + 1);
+        var results = compute(expenses.size() + incomes.size() >= parallelRows, List.of(
+                () -> expenses.sumByCategory(filter),
+                () -> expenses.countByCategory(filter),
+                () -> expenses.sumByMonth(filter, from, months),
+                () -> incomes.sumByCategory(filter),
+                () -> incomes.countByCategory(filter),
+                () -> incomes.sumByMonth(filter, from, months)));
+
+        var expensesByType = categoryTotals(results.get(0), results.get(1), ExpenseType.values());
+        var incomesByType = categoryTotals(results.get(3), results.get(4), IncomeType.values());
+        var totalExpenses = total(results.get(0));
+        var totalIncomes = total(results.get(3));
+        return new UserAnalyticsDto(from, to, totalExpenses.toBigDecimal(), totalIncomes.toBigDecimal(),
+                savingsRate(totalExpenses, totalIncomes), expensesByType, incomesByType,
+                trend(from, results.get(2), results.get(5)));
+    }
+
+    /**
+     * Runs the aggregations, in parallel or one after another.
+     *
+     * @return Their results, in the order of the aggregations.
+     */
+    private List<long[]> compute(boolean parallel, List<Callable<long[]>> aggregations) {
+        var results = new ArrayList<long[]>(aggregations.size());
+        if (!parallel) {
+            for (var aggregation : aggregations) {
+                // Runs on this thread and fails the same way as the joins below
+                results.add(ForkJoinTask.adapt(aggregation).invoke());
+            }
+            return results;
+        }
+        var tasks = aggregations.stream().map(pool::submit).toList();
+        for (var task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    private static List<CategoryTotalDto> categoryTotals(long[] totals, long[] counts, Enum<?>[] categories) {
+        var categoryTotals = new ArrayList<CategoryTotalDto>();
+        for (int i = 0; i < categories.length; i++) {
+            if (counts[i] > 0) {
+                categoryTotals.add(new CategoryTotalDto(categories[i].name(),
+                        Money.ofCents(totals[i]).toBigDecimal(), counts[i]));
+            }
+        }
+        return categoryTotals;
+    }
+
+    private static List<MonthBalanceDto> trend(YearMonth from, long[] expenses, long[] incomes) {
+        var trend = new ArrayList<MonthBalanceDto>(expenses.length);
+        for (int i = 0; i < expenses.length; i++) {
+            trend.add(new MonthBalanceDto(from.plusMonths(i), Money.ofCents(expenses[i]).toBigDecimal(),
+                    Money.ofCents(incomes[i]).toBigDecimal(),
+                    Money.ofCents(Math.subtractExact(incomes[i], expenses[i])).toBigDecimal()));
+        }
+        return trend;
+    }
+
+    private static Money total(long[] totals) {
+        var total = 0L;
+        for (var categoryTotal : totals) {
+            total = Math.addExact(total, categoryTotal);
+        }
+        return Money.ofCents(total);
+    }
+
+    /**
+     * @return The share of the incomes left after the expenses, to four decimal places, or null if there were
+     * no incomes.
+     */
+    private static BigDecimal savingsRate(Money expenses, Money incomes) {
+        if (incomes.isZero()) {
+            return null;
+        }
+        return incomes.minus(expenses).toBigDecimal().divide(incomes.toBigDecimal(), 4, RoundingMode.HALF_UP);
+    }
+}
@@ -4,6 +4,7 @@ import mostowska.aleksandra.model.dto.expense.CreateExpenseDto;
 import mostowska.aleksandra.model.dto.expense.GetExpenseDto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ExpenseService {
@@ -40,4 +41,24 @@ public interface ExpenseService {
      * @return The total expense amount for the user.
      */
     BigDecimal sumUsersExpenses(Long userId);
+
+    /**
+     * Retrieves the expense records of a specified user that occurred in a period.
+     *
+     * @param userId The ID of the user whose expense records are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of expense records for the user, ordered by when they occurred.
+     */
+    List<GetExpenseDto> getExpensesByUserId(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Sums the expenses of a specified user that occurred in a period.
+     *
+     * @param userId The ID of the user whose expenses are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total expense amount for the user in the period.
+     */
+    BigDecimal sumUsersExpenses(Long userId, LocalDateTime from, LocalDateTime to);
 }
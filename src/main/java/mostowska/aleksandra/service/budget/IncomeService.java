@@ -4,6 +4,7 @@ import mostowska.aleksandra.model.dto.income.CreateIncomeDto;
 import mostowska.aleksandra.model.dto.income.GetIncomeDto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface IncomeService {
@@ -40,4 +41,24 @@ public interface IncomeService {
      * @return The total income amount for the user.
      */
     BigDecimal sumUsersIncomes(Long userId);
+
+    /**
+     * Retrieves the income records of a specified user that occurred in a period.
+     *
+     * @param userId The ID of the user whose income records are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of income records for the user, ordered by when they occurred.
+     */
+    List<GetIncomeDto> getIncomesByUserId(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Sums the incomes of a specified user that occurred in a period.
+     *
+     * @param userId The ID of the user whose incomes are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total income amount for the user in the period.
+     */
+    BigDecimal sumUsersIncomes(Long userId, LocalDateTime from, LocalDateTime to);
 }
@@ -1,16 +1,23 @@
 package mostowska.aleksandra.service.budget.impl;
 
 import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.Expense;
 import mostowska.aleksandra.model.dto.expense.CreateExpenseDto;
 import mostowska.aleksandra.model.dto.expense.GetExpenseDto;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.analytics.MonthlyRollupRepository;
 import mostowska.aleksandra.repository.budget.ExpenseRepository;
 import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.SpendPercentileService;
 import mostowska.aleksandra.service.budget.ExpenseService;
 import mostowska.aleksandra.service.user.UserService;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +27,9 @@ public class ExpenseServiceImpl implements ExpenseService {
     private final UserRepository userRepository;
     private final ExpenseRepository expenseRepository;
     private final UserService userService;
+    private final MonthlyRollupRepository monthlyRollupRepository;
+    private final TransactionManager transactionManager;
+    private final SpendPercentileService spendPercentileService;
 
     /**
      * Adds a new expense record for a specified user.
@@ -31,16 +41,22 @@ public class ExpenseServiceImpl implements ExpenseService {
     @Override
     public GetExpenseDto addExpense(CreateExpenseDto createExpenseDto, Long userId) {
         if (createExpenseDto == null) {
-            throw new IllegalStateException("Expense cannot be null");
+            throw new ValidationException("Expense cannot be null");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         var expenseToAdd = createExpenseDto.toExpense(userId);
-        var insertedExpense = expenseRepository.save(expenseToAdd).toGetExpenseDto();
+        // The rollup changes in the same transaction, so it counts the expense if and only if it is saved
+        var insertedExpense = transactionManager.inTransaction(() -> {
+            var expense = expenseRepository.save(expenseToAdd);
+            monthlyRollupRepository.add(expense.toMonthlyRollup());
+            return expense;
+        });
         userService.cutFromBudget(userId, insertedExpense.amount());
-        return insertedExpense;
+        spendPercentileService.record(insertedExpense.expenseType(), insertedExpense.amount());
+        return insertedExpense.toGetExpenseDto();
     }
 
     /**
@@ -53,22 +69,26 @@ public class ExpenseServiceImpl implements ExpenseService {
     @Override
     public GetExpenseDto removeExpense(Long expenseId, Long userId) {
         if (expenseId == null || userId == null) {
-            throw new IllegalStateException("Removal failed");
+            throw new ValidationException("Removal failed");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         if (!expenseRepository
                 .findById(expenseId)
-                .orElseThrow(() -> new IllegalStateException("Expense not found"))
+                .orElseThrow(() -> new NotFoundException("Expense not found"))
                 .hasUserId(userId)) {
-            throw new IllegalStateException("No such expense found");
+            throw new NotFoundException("No such expense found");
         }
 
-        var expenseToRemove = expenseRepository.delete(expenseId).toGetExpenseDto();
+        var expenseToRemove = transactionManager.inTransaction(() -> {
+            var expense = expenseRepository.delete(expenseId);
+            monthlyRollupRepository.add(expense.toMonthlyRollup().negate());
+            return expense;
+        });
         userService.addToBudget(userId, expenseToRemove.amount());
-        return expenseToRemove;
+        return expenseToRemove.toGetExpenseDto();
     }
 
     /**
@@ -80,7 +100,7 @@ public class ExpenseServiceImpl implements ExpenseService {
     @Override
     public List<GetExpenseDto> getExpensesByUserId(Long userId) {
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
         var expensesFound = expenseRepository.findAllForUserId(userId);
         return expensesFound
@@ -97,9 +117,49 @@ public class ExpenseServiceImpl implements ExpenseService {
      */
     @Override
     public BigDecimal sumUsersExpenses(Long userId) {
-        return getExpensesByUserId(userId)
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return Money.sum(expenseRepository
+                        .findAllForUserId(userId)
+                        .stream()
+                        .map(Expense::amount))
+                .toBigDecimal();
+    }
+
+    /**
+     * Retrieves the expense records of a specified user that occurred in a period.
+     *
+     * @param userId The ID of the user whose expense records are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of expense records for the user, ordered by when they occurred.
+     */
+    @Override
+    public List<GetExpenseDto> getExpensesByUserId(Long userId, LocalDateTime from, LocalDateTime to) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return expenseRepository
+                .findAllForUserIdBetween(userId, from, to)
                 .stream()
-                .map(GetExpenseDto::amount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(Expense::toGetExpenseDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sums the expenses of a specified user that occurred in a period, in the database.
+     *
+     * @param userId The ID of the user whose expenses are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total expense amount for the user in the period.
+     */
+    @Override
+    public BigDecimal sumUsersExpenses(Long userId, LocalDateTime from, LocalDateTime to) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return expenseRepository.sumForUserIdBetween(userId, from, to).toBigDecimal();
     }
 }
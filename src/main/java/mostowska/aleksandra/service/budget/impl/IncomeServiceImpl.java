@@ -1,9 +1,14 @@
 package mostowska.aleksandra.service.budget.impl;
 
 import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.Income;
 import mostowska.aleksandra.model.dto.income.CreateIncomeDto;
 import mostowska.aleksandra.model.dto.income.GetIncomeDto;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.analytics.MonthlyRollupRepository;
 import mostowska.aleksandra.repository.budget.IncomeRepository;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.budget.IncomeService;
@@ -11,6 +16,7 @@ import mostowska.aleksandra.service.user.UserService;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +26,8 @@ public class IncomeServiceImpl implements IncomeService {
     private final UserRepository userRepository;
     private final IncomeRepository incomeRepository;
     private final UserService userService;
+    private final MonthlyRollupRepository monthlyRollupRepository;
+    private final TransactionManager transactionManager;
 
     /**
      * Adds a new income record for a specified user.
@@ -31,16 +39,21 @@ public class IncomeServiceImpl implements IncomeService {
     @Override
     public GetIncomeDto addIncome(CreateIncomeDto createIncomeDto, Long userId) {
         if (createIncomeDto == null) {
-            throw new IllegalStateException("Income cannot be null");
+            throw new ValidationException("Income cannot be null");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         var incomeToAdd = createIncomeDto.toIncome(userId);
-        var insertedIncome = incomeRepository.save(incomeToAdd).toGetIncomeDto();
+        // The rollup changes in the same transaction, so it counts the income if and only if it is saved
+        var insertedIncome = transactionManager.inTransaction(() -> {
+            var income = incomeRepository.save(incomeToAdd);
+            monthlyRollupRepository.add(income.toMonthlyRollup());
+            return income;
+        });
         userService.addToBudget(userId, insertedIncome.amount());
-        return insertedIncome;
+        return insertedIncome.toGetIncomeDto();
     }
 
     /**
@@ -53,22 +66,26 @@ public class IncomeServiceImpl implements IncomeService {
     @Override
     public GetIncomeDto removeIncome(Long incomeId, Long userId) {
         if (incomeId == null || userId == null) {
-            throw new IllegalStateException("Removal failed");
+            throw new ValidationException("Removal failed");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         if (!incomeRepository
                 .findById(incomeId)
-                .orElseThrow(() -> new IllegalStateException("Income not found"))
+                .orElseThrow(() -> new NotFoundException("Income not found"))
                 .hasUserId(userId)) {
-            throw new IllegalStateException("No such income found");
+            throw new NotFoundException("No such income found");
         }
 
-        var incomeToRemove = incomeRepository.delete(incomeId).toGetIncomeDto();
+        var incomeToRemove = transactionManager.inTransaction(() -> {
+            var income = incomeRepository.delete(incomeId);
+            monthlyRollupRepository.add(income.toMonthlyRollup().negate());
+            return income;
+        });
         userService.cutFromBudget(userId, incomeToRemove.amount());
-        return incomeToRemove;
+        return incomeToRemove.toGetIncomeDto();
     }
 
     /**
@@ -80,7 +97,7 @@ public class IncomeServiceImpl implements IncomeService {
     @Override
     public List<GetIncomeDto> getIncomesByUserId(Long userId) {
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
         var incomesFound = incomeRepository.findAllForUserId(userId);
         return incomesFound
@@ -97,9 +114,49 @@ public class IncomeServiceImpl implements IncomeService {
      */
     @Override
     public BigDecimal sumUsersIncomes(Long userId) {
-        return getIncomesByUserId(userId)
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return Money.sum(incomeRepository
+                        .findAllForUserId(userId)
+                        .stream()
+                        .map(Income::amount))
+                .toBigDecimal();
+    }
+
+    /**
+     * Retrieves the income records of a specified user that occurred in a period.
+     *
+     * @param userId The ID of the user whose income records are to be retrieved.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return A list of income records for the user, ordered by when they occurred.
+     */
+    @Override
+    public List<GetIncomeDto> getIncomesByUserId(Long userId, LocalDateTime from, LocalDateTime to) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return incomeRepository
+                .findAllForUserIdBetween(userId, from, to)
                 .stream()
-                .map(GetIncomeDto::amount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(Income::toGetIncomeDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sums the incomes of a specified user that occurred in a period, in the database.
+     *
+     * @param userId The ID of the user whose incomes are to be summed.
+     * @param from   The start of the period, inclusive, or null for no lower bound.
+     * @param to     The end of the period, exclusive, or null for no upper bound.
+     * @return The total income amount for the user in the period.
+     */
+    @Override
+    public BigDecimal sumUsersIncomes(Long userId, LocalDateTime from, LocalDateTime to) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return incomeRepository.sumForUserIdBetween(userId, from, to).toBigDecimal();
     }
 }
@@ -1,11 +1,14 @@
 package mostowska.aleksandra.service.budget.impl;
 
 import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.AvailableInvestment;
 import mostowska.aleksandra.model.Investment;
 import mostowska.aleksandra.model.dto.investment.CreateInvestmentDto;
 import mostowska.aleksandra.model.dto.investment.GetAvailableInvestmentDto;
 import mostowska.aleksandra.model.dto.investment.GetInvestmentDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.budget.InvestmentRepository;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.budget.InvestmentService;
@@ -33,24 +36,28 @@ public class InvestmentServiceImpl implements InvestmentService {
     @Override
     public GetInvestmentDto addInvestment(CreateInvestmentDto createInvestmentDto, Long userId) {
         if (createInvestmentDto == null) {
-            throw new IllegalStateException("Investment cannot be null");
+            throw new ValidationException("Investment cannot be null");
         }
         if (!createInvestmentDto.isAssetType()) {
-            throw new IllegalStateException("Wrong investment type - please choose from available.");
+            throw new ValidationException("Wrong investment type - please choose from available.");
+        }
+        if (createInvestmentDto.amountInvested() == null) {
+            throw new ValidationException("Amount invested is required");
         }
 
-        var user = userRepository
-                .findById(userId)
-                .orElseThrow(() -> new IllegalStateException("User not found"));
-
-        if (!user.hasEnoughBudgetForAsset(createInvestmentDto.amountInvested())) {
-            throw new IllegalStateException("Not enough budget for chosen asset");
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
         }
 
+        // Checked and cut in one step before the investment is saved, so concurrent investments cannot overdraw
         var investmentToAdd = createInvestmentDto.toInvestment(userId);
-        var insertedInvestment = investmentRepository.save(investmentToAdd).toGetInvestmentDto();
-        userService.cutFromBudget(userId, insertedInvestment.amountInvested());
-        return insertedInvestment;
+        userService.cutFromBudgetIfCovered(userId, investmentToAdd.amountInvested());
+        try {
+            return investmentRepository.save(investmentToAdd).toGetInvestmentDto();
+        } catch (RuntimeException e) {
+            userService.addToBudget(userId, investmentToAdd.amountInvested());
+            throw e;
+        }
     }
 
     /**
@@ -63,22 +70,22 @@ public class InvestmentServiceImpl implements InvestmentService {
     @Override
     public GetInvestmentDto removeInvestment(Long investmentId, Long userId) {
         if (investmentId == null || userId == null) {
-            throw new IllegalStateException("Removal failed");
+            throw new ValidationException("Removal failed");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         if (!investmentRepository
                 .findById(investmentId)
-                .orElseThrow(() -> new IllegalStateException("Investment not found"))
+                .orElseThrow(() -> new NotFoundException("Investment not found"))
                 .hasUserId(userId)) {
-            throw new IllegalStateException("No such investment found");
+            throw new NotFoundException("No such investment found");
         }
 
-        var investmentToRemove = investmentRepository.delete(investmentId).toGetInvestmentDto();
+        var investmentToRemove = investmentRepository.delete(investmentId);
         userService.addToBudget(userId, investmentToRemove.currentValue());
-        return investmentToRemove;
+        return investmentToRemove.toGetInvestmentDto();
     }
 
     /**
@@ -90,7 +97,7 @@ public class InvestmentServiceImpl implements InvestmentService {
     @Override
     public List<GetInvestmentDto> getInvestmentsByUserId(Long userId) {
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
         var investmentsFound = investmentRepository.findAllForUserId(userId);
         return investmentsFound
@@ -107,10 +114,14 @@ public class InvestmentServiceImpl implements InvestmentService {
      */
     @Override
     public BigDecimal sumUsersInvestments(Long userId) {
-        return getInvestmentsByUserId(userId)
-                .stream()
-                .map(GetInvestmentDto::amountInvested)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        return Money.sum(investmentRepository
+                        .findAllForUserId(userId)
+                        .stream()
+                        .map(Investment::amountInvested))
+                .toBigDecimal();
     }
 
     /**
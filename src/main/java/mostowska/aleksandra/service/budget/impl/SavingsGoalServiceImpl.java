@@ -1,9 +1,12 @@
 package mostowska.aleksandra.service.budget.impl;
 
 import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.SavingsGoal;
 import mostowska.aleksandra.model.dto.savings_goal.CreateSavingGoalDto;
 import mostowska.aleksandra.model.dto.savings_goal.GetSavingGoalDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.budget.SavingsGoalRepository;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.budget.SavingsGoalService;
@@ -11,7 +14,6 @@ import mostowska.aleksandra.service.user.UserService;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,16 +35,16 @@ public class SavingsGoalServiceImpl implements SavingsGoalService {
     @Override
     public GetSavingGoalDto addSavingGoal(CreateSavingGoalDto createSavingGoalDto, Long userId) {
         if (createSavingGoalDto == null) {
-            throw new IllegalStateException("Savings goal cannot be null");
+            throw new ValidationException("Savings goal cannot be null");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         var goalToAdd = createSavingGoalDto.toSavingsGoal(userId);
 
         if (!goalToAdd.hasCorrectPercentage()) {
-            throw new IllegalStateException("Goal must be in range [0; 1]");
+            throw new ValidationException("Goal must be in range [0; 1]");
         }
 
         var insertedGoal = savingsGoalRepository.save(goalToAdd);
@@ -60,17 +62,17 @@ public class SavingsGoalServiceImpl implements SavingsGoalService {
     @Override
     public GetSavingGoalDto removeSavingGoal(Long goalId, Long userId) {
         if (goalId == null || userId == null) {
-            throw new IllegalStateException("Removal failed");
+            throw new ValidationException("Removal failed");
         }
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
 
         if (!savingsGoalRepository
                 .findById(goalId)
-                .orElseThrow(() -> new IllegalStateException("Goal not found"))
+                .orElseThrow(() -> new NotFoundException("Goal not found"))
                 .hasUserId(userId)) {
-            throw new IllegalStateException("No such goal found");
+            throw new NotFoundException("No such goal found");
         }
 
         var goalToRemove = savingsGoalRepository.delete(goalId);
@@ -87,7 +89,7 @@ public class SavingsGoalServiceImpl implements SavingsGoalService {
     @Override
     public List<GetSavingGoalDto> getSavingGoalsByUserId(Long userId) {
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
         var goalsFound = savingsGoalRepository.findAllForUserId(userId);
         return goalsFound
@@ -104,10 +106,15 @@ public class SavingsGoalServiceImpl implements SavingsGoalService {
      */
     @Override
     public BigDecimal sumTotalSavingsGoalsAmount(Long userId) {
-        return getSavingGoalsByUserId(userId)
-                .stream()
-                .map(goal -> goal.percentage().multiply(userService.getBudget(userId)))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        var budget = Money.of(userService.getBudget(userId));
+        return Money.sum(savingsGoalRepository
+                        .findAllForUserId(userId)
+                        .stream()
+                        .map(goal -> goal.calculateSavingsFromBudget(budget)))
+                .toBigDecimal();
     }
 
     /**
@@ -121,19 +128,19 @@ public class SavingsGoalServiceImpl implements SavingsGoalService {
     @Override
     public LocalDateTime getDateToPursueChosenGoal(Long userId, Long goalId, BigDecimal amountToReach) {
         if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalStateException("User not found");
+            throw new NotFoundException("User not found");
         }
         if (savingsGoalRepository.findById(goalId).isEmpty()) {
-            throw new IllegalStateException("Goal not found");
+            throw new NotFoundException("Goal not found");
         }
 
         var goal = savingsGoalRepository
                 .findByUserIdAndGoalId(userId, goalId)
-                .orElseThrow(() -> new IllegalStateException("No such goal found"));
+                .orElseThrow(() -> new NotFoundException("No such goal found"));
 
         var goalPerMonth = goal.calculateSavingsFromUsersBudget(userService, userId);
-        var monthsToReachGoal = amountToReach.divide(goalPerMonth, 0, RoundingMode.UP);
+        var monthsToReachGoal = Money.of(amountToReach).partsOf(goalPerMonth);
 
-        return LocalDateTime.now().plusMonths(monthsToReachGoal.longValue());
+        return LocalDateTime.now().plusMonths(monthsToReachGoal);
     }
 }
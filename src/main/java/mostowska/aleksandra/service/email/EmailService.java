@@ -1,5 +1,7 @@
 package mostowska.aleksandra.service.email;
 
+import java.util.Map;
+
 /**
  * EmailService interface defines the methods for sending emails.
  */
@@ -12,4 +14,13 @@ public interface EmailService {
      * @param htmlContent The HTML content of the email.
      */
     void send(String receiver, String subject, String htmlContent);
+
+    /**
+     * Sends an email rendered from a template in the `email-templates` resources.
+     *
+     * @param receiver     The email address of the recipient.
+     * @param templateName The template name.
+     * @param variables    The placeholder values by name.
+     */
+    void sendTemplate(String receiver, String templateName, Map<String, ?> variables);
 }
@@ -0,0 +1,19 @@
+package mostowska.aleksandra.service.email;
+
+import mostowska.aleksandra.service.email.template.RenderedEmail;
+
+import java.util.Map;
+
+/**
+ * EmailTemplateService renders the email templates kept in the `email-templates` resources.
+ */
+public interface EmailTemplateService {
+    /**
+     * Renders a template. Besides the given variables, templates can use `baseUrl`, the public URL of the application.
+     *
+     * @param templateName The template name, i.e. the resource file name without the `.html` extension.
+     * @param variables    The placeholder values by name.
+     * @return The rendered subject and body.
+     */
+    RenderedEmail render(String templateName, Map<String, ?> variables);
+}
@@ -0,0 +1,20 @@
+package mostowska.aleksandra.service.email;
+
+import mostowska.aleksandra.model.OutboxEmail;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EmailTransport delivers e-mails taken from the outbox to the mail server.
+ */
+public interface EmailTransport {
+    /**
+     * Delivers a batch of e-mails, reusing one connection to the mail server for the whole batch.
+     * A failure to deliver one e-mail does not stop the delivery of the others.
+     *
+     * @param emails The e-mails to deliver.
+     * @return The reasons of the failed deliveries by e-mail ID; the e-mails not in it were delivered.
+     */
+    Map<Long, String> sendBatch(List<OutboxEmail> emails);
+}
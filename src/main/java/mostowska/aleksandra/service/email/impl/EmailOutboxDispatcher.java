@@ -0,0 +1,238 @@
+package mostowska.aleksandra.service.email.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.model.OutboxEmail;
+import mostowska.aleksandra.model.utils.OutboxStatus;
+import mostowska.aleksandra.repository.email.EmailOutboxRepository;
+import mostowska.aleksandra.service.email.EmailTransport;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmailOutboxDispatcher delivers the e-mails queued in the outbox in the background.
+ * Each worker polls the outbox, claims a batch of due e-mails and hands it to the EmailTransport, which sends
+ * the batch over one connection. Failed e-mails are retried with exponential backoff until `max_attempts`,
+ * and deliveries are paced to at most `max_per_second` e-mails across all workers, so a burst of
+ * registrations reaches the mail server as a steady flow.
+ * <p>
+ * Claims are leases: e-mails claimed by a worker that dies before reporting back are claimed again once
+ * `lease_ms` has passed, so several application instances can share one outbox. The expired claim counts as an
+ * attempt, and a worker whose lease expired while it was sending cannot overwrite the outcome of the next claim.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTransport emailTransport;
+    private final MetricsService metricsService;
+
+    @Value("${email.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${email.outbox.workers:2}")
+    private int workers;
+
+    @Value("${email.outbox.batch_size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.poll_interval_ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${email.outbox.max_attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff_initial_ms:5000}")
+    private long backoffInitialMs;
+
+    @Value("${email.outbox.backoff_max_ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${email.outbox.lease_ms:300000}")
+    private long leaseMs;
+
+    @Value("${email.outbox.max_per_second:50}")
+    private int maxPerSecond;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong nextSendNanos = new AtomicLong(System.nanoTime());
+    private ScheduledExecutorService executor;
+
+    /**
+     * Registers the queue depth gauges and, if enabled, starts the workers.
+     * The gauges read counts refreshed once per poll interval, so scraping does not query the database.
+     */
+    @PostConstruct
+    public void start() {
+        metricsService.registerGauge("email_outbox_pending", "E-mails waiting in the outbox to be delivered",
+                pending::get);
+        metricsService.registerGauge("email_outbox_failed", "E-mails the outbox gave up delivering",
+                failed::get);
+        if (!enabled) {
+            return;
+        }
+
+        executor = Executors.newScheduledThreadPool(workers + 1,
+                Thread.ofPlatform().name("email-outbox-", 0).daemon(true).factory());
+        for (int i = 0; i < workers; i++) {
+            // Staggered so that the workers do not all poll the outbox at the same moment
+            executor.scheduleWithFixedDelay(this::poll, pollIntervalMs * i / workers, pollIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        executor.scheduleWithFixedDelay(this::refreshCounts, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Started {} e-mail outbox workers", workers);
+    }
+
+    /**
+     * Stops the workers, letting the batches in progress finish. E-mails claimed but not reported back are
+     * claimed again after the lease expires.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Claims, delivers and records the outcome of one batch of due e-mails.
+     *
+     * @return The number of e-mails claimed.
+     */
+    public int dispatchBatch() {
+        var now = LocalDateTime.now();
+        var claimToken = UUID.randomUUID().toString();
+        var batch = emailOutboxRepository.claimBatch(claimToken, batchSize, now, now.minusNanos(leaseMs * 1_000_000));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // E-mails whose claims kept expiring, e.g. because sending them crashes the worker, are not sent again
+        var deliverable = new ArrayList<OutboxEmail>(batch.size());
+        for (var email : batch) {
+            if (email.attempts() >= maxAttempts) {
+                log.warn("Giving up on e-mail {} to {} after {} attempts: its claims expired", email.id(),
+                        email.receiver(), email.attempts());
+                reportOutcome(emailOutboxRepository.markFailed(claimToken, email.id(), email.attempts(),
+                        "Claim expired before delivery was reported"), email);
+            } else {
+                deliverable.add(email);
+            }
+        }
+        if (deliverable.isEmpty()) {
+            return batch.size();
+        }
+
+        pace(deliverable.size());
+        var failures = emailTransport.sendBatch(deliverable);
+
+        var sent = new ArrayList<Long>(deliverable.size());
+        for (var email : deliverable) {
+            var error = failures.get(email.id());
+            if (error == null) {
+                sent.add(email.id());
+            } else {
+                retryOrFail(claimToken, email, error);
+            }
+        }
+        var marked = emailOutboxRepository.markSent(claimToken, sent, LocalDateTime.now());
+        if (marked < sent.size()) {
+            log.warn("Lost the claim of {} of {} delivered e-mails to another worker, which may send them again",
+                    sent.size() - marked, sent.size());
+        }
+        return batch.size();
+    }
+
+    /**
+     * Keeps claiming batches while they come back full, so that a backlog is drained without waiting
+     * for the next poll.
+     */
+    private void poll() {
+        try {
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize && !executor.isShutdown());
+        } catch (RuntimeException e) {
+            // A failing poll must not cancel the scheduled task
+            log.warn("E-mail outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void retryOrFail(String claimToken, OutboxEmail email, String error) {
+        var attempts = email.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            log.warn("Giving up on e-mail {} to {} after {} attempts: {}", email.id(), email.receiver(),
+                    attempts, error);
+            reportOutcome(emailOutboxRepository.markFailed(claimToken, email.id(), attempts, error), email);
+        } else {
+            var nextAttemptAt = LocalDateTime.now().plusNanos(backoffMs(attempts) * 1_000_000);
+            reportOutcome(emailOutboxRepository.scheduleRetry(claimToken, email.id(), attempts, nextAttemptAt,
+                    error), email);
+        }
+    }
+
+    private void reportOutcome(boolean recorded, OutboxEmail email) {
+        if (!recorded) {
+            // The claim expired and the e-mail belongs to another worker now, whose outcome stands
+            log.warn("Lost the claim of e-mail {} to another worker; its outcome was not recorded", email.id());
+        }
+    }
+
+    /**
+     * Computes the delay before the next attempt: doubling with each attempt up to the maximum, with the
+     * upper half randomized so that e-mails failing together do not all retry at the same moment.
+     */
+    private long backoffMs(int attempts) {
+        var delay = Math.min(backoffMaxMs, backoffInitialMs * (1L << Math.min(attempts - 1, 30)));
+        var half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * Reserves the time slot for sending the given number of e-mails and waits until it starts.
+     * The slots are handed out from one shared clock, which keeps all workers together under the rate limit.
+     */
+    private void pace(int emails) {
+        if (maxPerSecond <= 0) {
+            return;
+        }
+        var cost = emails * 1_000_000_000L / maxPerSecond;
+        var now = System.nanoTime();
+        var start = nextSendNanos.getAndAccumulate(cost, (next, add) -> Math.max(next, now) + add);
+        var wait = Math.max(start, now) - now;
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void refreshCounts() {
+        try {
+            var counts = emailOutboxRepository.countUndelivered();
+            pending.set(counts.getOrDefault(OutboxStatus.PENDING, 0L)
+                    + counts.getOrDefault(OutboxStatus.SENDING, 0L));
+            failed.set(counts.getOrDefault(OutboxStatus.FAILED, 0L));
+        } catch (RuntimeException e) {
+            log.debug("Could not count the e-mails in the outbox: {}", e.getMessage());
+        }
+    }
+}
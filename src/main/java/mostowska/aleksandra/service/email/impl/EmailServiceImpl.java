@@ -1,23 +1,27 @@
 package mostowska.aleksandra.service.email.impl;
 
 import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.repository.email.EmailOutboxRepository;
 import mostowska.aleksandra.service.email.EmailService;
-import org.simplejavamail.api.mailer.Mailer;
-import org.simplejavamail.email.EmailBuilder;
+import mostowska.aleksandra.service.email.EmailTemplateService;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 /**
  * EmailServiceImpl is an implementation of the EmailService interface
- * using Simple Java Mail for sending emails.
+ * that queues emails in the outbox, from which EmailOutboxDispatcher delivers them.
+ * Queuing is a database write, so an email queued inside a transaction is only sent if the transaction commits.
  */
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    private final Mailer mailer;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTemplateService emailTemplateService;
 
     /**
-     * Sends an email to the specified receiver with the given subject and HTML content.
+     * Queues an email to the specified receiver with the given subject and HTML content.
      *
      * @param receiver   The recipient's email address.
      * @param subject    The subject line of the email.
@@ -25,21 +29,20 @@ public class EmailServiceImpl implements EmailService {
      */
     @Override
     public void send(String receiver, String subject, String htmlContent) {
-        var email = EmailBuilder
-                .startingBlank()
-                .withSubject(subject)
-                .withHTMLText(htmlContent)
-                .to(receiver)
-                .buildEmail();
+        emailOutboxRepository.enqueue(receiver, subject, htmlContent);
+    }
 
-        mailer
-                .sendMail(email)
-                .thenAccept(result -> {
-                    System.out.println("Email sent successfully to " + receiver + ": " + result);
-                })
-                .exceptionally(ex -> {
-                    System.err.println("Failed to send email: " + ex.getMessage());
-                    return null;
-                });
+    /**
+     * Renders the template and queues the resulting email to the specified receiver.
+     * The outbox keeps the rendered email, so it is not rendered again when retried.
+     *
+     * @param receiver     The recipient's email address.
+     * @param templateName The template name.
+     * @param variables    The placeholder values by name.
+     */
+    @Override
+    public void sendTemplate(String receiver, String templateName, Map<String, ?> variables) {
+        var email = emailTemplateService.render(templateName, variables);
+        emailOutboxRepository.enqueue(receiver, email.subject(), email.htmlContent());
     }
 }
@@ -0,0 +1,57 @@
+package mostowska.aleksandra.service.email.impl;
+
+import mostowska.aleksandra.service.email.EmailTemplateService;
+import mostowska.aleksandra.service.email.template.EmailTemplate;
+import mostowska.aleksandra.service.email.template.RenderedEmail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EmailTemplateServiceImpl is an implementation of the EmailTemplateService interface.
+ * Each template is read from the classpath and compiled on first use, then kept for the lifetime of the application.
+ */
+@Service
+public class EmailTemplateServiceImpl implements EmailTemplateService {
+    private static final String TEMPLATE_DIRECTORY = "email-templates/";
+    private static final String BASE_URL = "baseUrl";
+
+    private final Map<String, EmailTemplate> templates = new ConcurrentHashMap<>();
+
+    @Value("${app.base_url:http://localhost:8080}")
+    private String baseUrl;
+
+    /**
+     * Renders a template, compiling it first if this is its first use.
+     *
+     * @param templateName The template name.
+     * @param variables    The placeholder values by name.
+     * @return The rendered subject and body.
+     * @throws IllegalArgumentException If there is no such template or a placeholder has no value.
+     */
+    @Override
+    public RenderedEmail render(String templateName, Map<String, ?> variables) {
+        var template = templates.computeIfAbsent(templateName, this::load);
+        return template.render(name -> {
+            var value = variables.get(name);
+            return value == null && BASE_URL.equals(name) ? baseUrl : value;
+        });
+    }
+
+    private EmailTemplate load(String templateName) {
+        var resource = TEMPLATE_DIRECTORY + templateName + ".html";
+        try (var in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No email template " + templateName);
+            }
+            return EmailTemplate.compile(templateName, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read email template " + templateName, e);
+        }
+    }
+}
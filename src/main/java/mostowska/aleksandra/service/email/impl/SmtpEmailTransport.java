@@ -0,0 +1,119 @@
+package mostowska.aleksandra.service.email.impl;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.model.OutboxEmail;
+import mostowska.aleksandra.service.email.EmailTransport;
+import org.simplejavamail.api.mailer.Mailer;
+import org.simplejavamail.converter.EmailConverter;
+import org.simplejavamail.email.EmailBuilder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SmtpEmailTransport is an implementation of the EmailTransport interface on top of the Simple Java Mail Mailer.
+ * The Mailer opens a new connection for every e-mail it sends; this class uses the Mailer's session, server
+ * configuration and defaults instead, and sends a whole batch over a single connection.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpEmailTransport implements EmailTransport {
+    private final Mailer mailer;
+
+    private Session session;
+
+    /**
+     * Takes the session from the Mailer once, as the Mailer logs a warning each time it hands it out.
+     */
+    @PostConstruct
+    public void init() {
+        session = mailer.getSession();
+    }
+
+    /**
+     * Delivers the batch over one connection. If the server drops the connection mid-batch, it is reopened once;
+     * the e-mails left when the connection cannot be (re)opened are all reported as failed.
+     *
+     * @param emails The e-mails to deliver.
+     * @return The reasons of the failed deliveries by e-mail ID.
+     */
+    @Override
+    public Map<Long, String> sendBatch(List<OutboxEmail> emails) {
+        var failures = new HashMap<Long, String>();
+        if (emails.isEmpty()) {
+            return failures;
+        }
+
+        Transport transport = null;
+        var reconnected = false;
+        try {
+            transport = connect(session.getTransport());
+            for (int i = 0; i < emails.size(); i++) {
+                var email = emails.get(i);
+                try {
+                    if (!transport.isConnected()) {
+                        if (reconnected) {
+                            throw new MessagingException("Connection to the mail server lost again");
+                        }
+                        reconnected = true;
+                        transport = connect(session.getTransport());
+                    }
+                    var message = EmailConverter.emailToMimeMessage(
+                            EmailBuilder
+                                    .startingBlank()
+                                    .withSubject(email.subject())
+                                    .withHTMLText(email.htmlContent())
+                                    .to(email.receiver())
+                                    .buildEmail(),
+                            session,
+                            mailer.getEmailGovernance());
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException e) {
+                    if (transport.isConnected()) {
+                        // Rejected by the server, e.g. for an invalid recipient; the connection is still usable
+                        failures.put(email.id(), e.getMessage());
+                    } else if (reconnected) {
+                        emails.subList(i, emails.size()).forEach(rest -> failures.put(rest.id(), e.getMessage()));
+                        break;
+                    } else {
+                        // Retried on the next iteration over a new connection
+                        i--;
+                    }
+                } catch (RuntimeException e) {
+                    failures.put(email.id(), e.getMessage());
+                }
+            }
+        } catch (MessagingException e) {
+            log.warn("Could not connect to the mail server: {}", e.getMessage());
+            emails.forEach(email -> failures.putIfAbsent(email.id(), e.getMessage()));
+        } finally {
+            close(transport);
+        }
+        return failures;
+    }
+
+    private Transport connect(Transport transport) throws MessagingException {
+        var server = mailer.getServerConfig();
+        transport.connect(server.getHost(), server.getPort(), server.getUsername(), server.getPassword());
+        return transport;
+    }
+
+    private static void close(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Could not close the connection to the mail server: {}", e.getMessage());
+        }
+    }
+}
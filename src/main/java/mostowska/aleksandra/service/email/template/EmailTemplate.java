@@ -0,0 +1,160 @@
+package mostowska.aleksandra.service.email.template;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * EmailTemplate is a compiled email template: a subject line and an HTML body with `{{name}}` placeholders.
+ * The source is parsed once into literal parts and placeholder names, so rendering only appends strings.
+ * Rendering reuses a per-thread buffer, sized from the template, instead of growing a new one for every email.
+ * <p>
+ * The source starts with a `Subject:` line followed by a blank line and the body. Values are HTML-escaped
+ * in the body and inserted as they are in the subject.
+ */
+public final class EmailTemplate {
+    private static final String SUBJECT_HEADER = "Subject:";
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final String name;
+    private final Parts subject;
+    private final Parts body;
+
+    private EmailTemplate(String name, Parts subject, Parts body) {
+        this.name = name;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    /**
+     * Compiles a template source.
+     *
+     * @param name   The template name, used in error messages.
+     * @param source The template source.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If the source has no subject line or an unterminated placeholder.
+     */
+    public static EmailTemplate compile(String name, String source) {
+        var normalized = source.replace("\r\n", "\n");
+        var headerEnd = normalized.indexOf('\n');
+        if (!normalized.startsWith(SUBJECT_HEADER) || headerEnd < 0) {
+            throw new IllegalArgumentException("Template " + name + " does not start with a subject line");
+        }
+        var subject = normalized.substring(SUBJECT_HEADER.length(), headerEnd).strip();
+        var body = normalized.substring(headerEnd + 1).stripLeading();
+        return new EmailTemplate(name, Parts.parse(name, subject), Parts.parse(name, body));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param variables The placeholder values by name; a value is rendered with String.valueOf.
+     * @return The rendered subject and body.
+     * @throws IllegalArgumentException If a placeholder has no value.
+     */
+    public RenderedEmail render(Map<String, ?> variables) {
+        return render(variables::get);
+    }
+
+    /**
+     * Renders the template, looking the placeholder values up by name.
+     *
+     * @param variables The lookup of placeholder values; null means the placeholder has no value.
+     * @return The rendered subject and body.
+     * @throws IllegalArgumentException If a placeholder has no value.
+     */
+    public RenderedEmail render(Function<String, ?> variables) {
+        var buffer = BUFFER.get();
+        try {
+            buffer.setLength(0);
+            subject.appendTo(buffer, variables, false, name);
+            var renderedSubject = buffer.toString();
+
+            buffer.setLength(0);
+            buffer.ensureCapacity(body.literalLength * 2);
+            body.appendTo(buffer, variables, true, name);
+            return new RenderedEmail(renderedSubject, buffer.toString());
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                // Not kept, so that one unusually large email does not pin a large buffer to the thread
+                BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * The literal parts of a text and the placeholders between them; literals[i] precedes variables[i],
+     * and the last literal follows the last placeholder.
+     */
+    private static final class Parts {
+        private final String[] literals;
+        private final String[] variables;
+        private final int literalLength;
+
+        private Parts(String[] literals, String[] variables) {
+            this.literals = literals;
+            this.variables = variables;
+            var length = 0;
+            for (var literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        private static Parts parse(String name, String text) {
+            var literals = new ArrayList<String>();
+            var variables = new ArrayList<String>();
+            var position = 0;
+            while (true) {
+                var start = text.indexOf("{{", position);
+                if (start < 0) {
+                    literals.add(text.substring(position));
+                    break;
+                }
+                var end = text.indexOf("}}", start + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated placeholder in template " + name);
+                }
+                literals.add(text.substring(position, start));
+                variables.add(text.substring(start + 2, end).strip());
+                position = end + 2;
+            }
+            return new Parts(literals.toArray(String[]::new), variables.toArray(String[]::new));
+        }
+
+        private void appendTo(StringBuilder out, Function<String, ?> values, boolean escapeHtml, String name) {
+            for (int i = 0; i < variables.length; i++) {
+                out.append(literals[i]);
+                var value = values.apply(variables[i]);
+                if (value == null) {
+                    throw new IllegalArgumentException("No value for " + variables[i] + " in template " + name);
+                }
+                if (escapeHtml) {
+                    escapeHtml(out, String.valueOf(value));
+                } else {
+                    out.append(value);
+                }
+            }
+            out.append(literals[variables.length]);
+        }
+
+        private static void escapeHtml(StringBuilder out, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                var c = value.charAt(i);
+                switch (c) {
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    case '&' -> out.append("&amp;");
+                    case '"' -> out.append("&quot;");
+                    case '\'' -> out.append("&#39;");
+                    default -> out.append(c);
+                }
+            }
+        }
+    }
+}
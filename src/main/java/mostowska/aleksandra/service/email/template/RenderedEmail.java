@@ -0,0 +1,10 @@
+package mostowska.aleksandra.service.email.template;
+
+/**
+ * An email rendered from an EmailTemplate.
+ *
+ * @param subject     The subject line.
+ * @param htmlContent The HTML body.
+ */
+public record RenderedEmail(String subject, String htmlContent) {
+}
@@ -0,0 +1,54 @@
+package mostowska.aleksandra.service.export;
+
+import mostowska.aleksandra.exception.ValidationException;
+
+import java.util.Locale;
+
+/**
+ * ExportFormat lists the formats a user's data can be exported in.
+ */
+public enum ExportFormat {
+    /**
+     * One header line, then one line per record; records of all kinds share the columns.
+     */
+    CSV("text/csv;charset=utf-8", "csv"),
+    /**
+     * One JSON object per line, holding the kind of the record and the record as the list routes return it.
+     */
+    NDJSON("application/x-ndjson;charset=utf-8", "ndjson");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Reads a format from a query parameter, e.g. `csv`.
+     *
+     * @param format The name of the format, in any case, or null for CSV.
+     * @return The format.
+     * @throws ValidationException If there is no such format.
+     */
+    public static ExportFormat of(String format) {
+        if (format == null) {
+            return CSV;
+        }
+        for (var exportFormat : values()) {
+            if (exportFormat.fileExtension.equals(format.toLowerCase(Locale.ROOT))) {
+                return exportFormat;
+            }
+        }
+        throw new ValidationException("Format must be csv or ndjson");
+    }
+}
@@ -0,0 +1,37 @@
+package mostowska.aleksandra.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * ExportService is an interface for exporting all of a user's expenses, incomes, investments and savings goals.
+ */
+public interface ExportService {
+    /**
+     * Writes a user's expenses, incomes, investments and savings goals, in that order, as they are read from the
+     * database.
+     *
+     * @param userId The ID of the user.
+     * @param format The format to write them in.
+     * @param body   Opens the stream to write to, once the user is known to exist; the stream is closed when
+     *               all records are written, and aborted rather than closed if writing fails.
+     * @throws IOException If writing to the stream fails.
+     */
+    void export(Long userId, ExportFormat format, BodyOpener body) throws IOException;
+
+    /**
+     * BodyOpener opens the stream an export is written to, e.g. the body of a response, whose headers cannot
+     * change once it is opened.
+     */
+    @FunctionalInterface
+    interface BodyOpener {
+        OutputStream open() throws IOException;
+
+        /**
+         * Gives back what the opened stream holds, e.g. a pooled compressor, when writing it fails, without
+         * completing it. Does nothing by default.
+         */
+        default void abort() {
+        }
+    }
+}
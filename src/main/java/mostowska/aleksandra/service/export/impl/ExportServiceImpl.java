@@ -0,0 +1,261 @@
+package mostowska.aleksandra.service.export.impl;
+
+import com.google.gson.Gson;
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.Income;
+import mostowska.aleksandra.model.Investment;
+import mostowska.aleksandra.model.SavingsGoal;
+import mostowska.aleksandra.repository.budget.ExpenseRepository;
+import mostowska.aleksandra.repository.budget.IncomeRepository;
+import mostowska.aleksandra.repository.budget.InvestmentRepository;
+import mostowska.aleksandra.repository.budget.SavingsGoalRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.export.ExportFormat;
+import mostowska.aleksandra.service.export.ExportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * ExportServiceImpl is an implementation of the ExportService interface that writes each record as the
+ * repositories read it, so a user's whole history is never held in memory, neither as a list nor as one string.
+ * <p>
+ * Rows are fetched `export.fetch_size` at a time; on MySQL, the driver only fetches in batches when the
+ * connection URL sets `useCursorFetch=true`, and reads the whole result otherwise. Every `export.flush_rows`
+ * records, the written ones are flushed, so that a response goes out in chunks while the rest is read.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+    private static final int WRITER_BUFFER_SIZE = 8192;
+    private static final String CSV_HEADER =
+            "record,id,type,description,amount,current_value,percentage,occurred_at";
+
+    private final UserRepository userRepository;
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final InvestmentRepository investmentRepository;
+    private final SavingsGoalRepository savingsGoalRepository;
+    private final Gson gson;
+
+    @Value("${export.fetch_size:1000}")
+    private int fetchSize;
+
+    @Value("${export.flush_rows:1000}")
+    private int flushRows;
+
+    /**
+     * Writes a user's expenses, incomes, investments and savings goals, in that order, as they are read from the
+     * database.
+     *
+     * @param userId The ID of the user.
+     * @param format The format to write them in.
+     * @param body   Opens the stream to write to, once the user is known to exist.
+     * @throws IOException If writing to the stream fails.
+     */
+    @Override
+    public void export(Long userId, ExportFormat format, BodyOpener body) throws IOException {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found");
+        }
+        var out = body.open();
+        var written = false;
+        try {
+            var records = format == ExportFormat.CSV ? new CsvRecords(out) : new NdjsonRecords(out);
+            expenseRepository.forEachForUserId(userId, fetchSize, records::add);
+            incomeRepository.forEachForUserId(userId, fetchSize, records::add);
+            investmentRepository.forEachForUserId(userId, fetchSize, records::add);
+            savingsGoalRepository.forEachForUserId(userId, fetchSize, records::add);
+            records.writer.close();
+            written = true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            // Aborted rather than closed on failure, so that a compressed body is left without its trailer rather
+            // than looking whole
+            if (!written) {
+                body.abort();
+            }
+        }
+    }
+
+    /**
+     * Records writes records of each kind in one format, flushing them every `export.flush_rows`.
+     */
+    private abstract class Records {
+        final Writer writer;
+        private int unflushed;
+
+        Records(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE);
+        }
+
+        void add(Expense expense) {
+            write(() -> writeExpense(expense));
+        }
+
+        void add(Income income) {
+            write(() -> writeIncome(income));
+        }
+
+        void add(Investment investment) {
+            write(() -> writeInvestment(investment));
+        }
+
+        void add(SavingsGoal savingsGoal) {
+            write(() -> writeSavingsGoal(savingsGoal));
+        }
+
+        abstract void writeExpense(Expense expense) throws IOException;
+
+        abstract void writeIncome(Income income) throws IOException;
+
+        abstract void writeInvestment(Investment investment) throws IOException;
+
+        abstract void writeSavingsGoal(SavingsGoal savingsGoal) throws IOException;
+
+        // The repositories take plain consumers, so write failures leave them unchecked and are unwrapped above
+        private void write(RecordWrite recordWrite) {
+            try {
+                recordWrite.run();
+                if (++unflushed == flushRows) {
+                    // Flushes the stream as well, so a compressed body is flushed too
+                    writer.flush();
+                    unflushed = 0;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWrite {
+        void run() throws IOException;
+    }
+
+    /**
+     * CsvRecords writes records as CSV lines under one header, leaving the columns a kind has no value for empty.
+     */
+    private final class CsvRecords extends Records {
+        CsvRecords(OutputStream out) throws IOException {
+            super(out);
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeExpense(Expense expense) throws IOException {
+            var dto = expense.toGetExpenseDto();
+            writeLine("expense", dto.id(), dto.expenseType(), dto.description(), dto.amount(), null, null,
+                    dto.occurredAt());
+        }
+
+        @Override
+        void writeIncome(Income income) throws IOException {
+            var dto = income.toGetIncomeDto();
+            writeLine("income", dto.id(), dto.incomeType(), null, dto.amount(), null, null, dto.occurredAt());
+        }
+
+        @Override
+        void writeInvestment(Investment investment) throws IOException {
+            var dto = investment.toGetInvestmentDto();
+            writeLine("investment", dto.id(), dto.assetType(), null, dto.amountInvested(), dto.currentValue(), null,
+                    null);
+        }
+
+        @Override
+        void writeSavingsGoal(SavingsGoal savingsGoal) throws IOException {
+            var dto = savingsGoal.toGetSavingGoalDto();
+            writeLine("goal", null, dto.goalType(), dto.customGoalType(), null, null, dto.percentage(), null);
+        }
+
+        private void writeLine(String record, Long id, Enum<?> type, String description, BigDecimal amount,
+                               BigDecimal currentValue, BigDecimal percentage, LocalDateTime occurredAt)
+                throws IOException {
+            writer.write(record);
+            writer.write(',');
+            writer.write(id == null ? "" : id.toString());
+            writer.write(',');
+            writer.write(type == null ? "" : type.name());
+            writer.write(',');
+            writeText(description);
+            writer.write(',');
+            writer.write(amount == null ? "" : amount.toPlainString());
+            writer.write(',');
+            writer.write(currentValue == null ? "" : currentValue.toPlainString());
+            writer.write(',');
+            writer.write(percentage == null ? "" : percentage.toPlainString());
+            writer.write(',');
+            writer.write(occurredAt == null ? "" : occurredAt.toString());
+            writer.write("\r\n");
+        }
+
+        /**
+         * Writes text entered by the user, quoted if it holds a separator, a quote or a line break, and prefixed
+         * with an apostrophe if a spreadsheet would take it for a formula.
+         */
+        private void writeText(String text) throws IOException {
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            var neutralized = "=+-@\t\r".indexOf(text.charAt(0)) >= 0 ? "'" + text : text;
+            if (neutralized.chars().noneMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n')) {
+                writer.write(neutralized);
+                return;
+            }
+            writer.write('"');
+            writer.write(neutralized.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    /**
+     * NdjsonRecords writes each record as a line holding its kind and the record as the list routes return it.
+     */
+    private final class NdjsonRecords extends Records {
+        NdjsonRecords(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        void writeExpense(Expense expense) throws IOException {
+            writeLine("expense", expense.toGetExpenseDto());
+        }
+
+        @Override
+        void writeIncome(Income income) throws IOException {
+            writeLine("income", income.toGetIncomeDto());
+        }
+
+        @Override
+        void writeInvestment(Investment investment) throws IOException {
+            writeLine("investment", investment.toGetInvestmentDto());
+        }
+
+        @Override
+        void writeSavingsGoal(SavingsGoal savingsGoal) throws IOException {
+            writeLine("goal", savingsGoal.toGetSavingGoalDto());
+        }
+
+        private void writeLine(String record, Object dto) throws IOException {
+            // A JsonWriter takes a single top-level value, so each line gets its own; it buffers nothing itself
+            var jsonWriter = gson.newJsonWriter(writer);
+            jsonWriter.beginObject().name("record").value(record).name("data");
+            gson.toJson(dto, dto.getClass(), jsonWriter);
+            jsonWriter.endObject();
+            writer.write('\n');
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package mostowska.aleksandra.service.metrics;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * MetricsService defines the contract for recording request metrics per route template and exposing them,
+ * together with registered gauges, in the Prometheus text format.
+ */
+public interface MetricsService {
+    void requestStarted(String method, String path);
+    void requestFinished(int status);
+    void registerGauge(String name, String help, LongSupplier value);
+    void writePrometheus(Appendable out) throws IOException;
+}
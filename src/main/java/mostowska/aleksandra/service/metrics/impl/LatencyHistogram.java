@@ -0,0 +1,71 @@
+package mostowska.aleksandra.service.metrics.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram counts durations into fixed buckets, so recording a value is a short scan and an increment
+ * with no allocation. Bucket counts are kept per bucket and only made cumulative when exported.
+ */
+class LatencyHistogram {
+    /**
+     * Upper bounds of the buckets in seconds, as exported in the `le` label.
+     */
+    static final String[] BOUND_LABELS = {
+            "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+
+    private static final long[] BOUNDS_NANOS = new long[BOUND_LABELS.length];
+
+    static {
+        for (int i = 0; i < BOUND_LABELS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (Double.parseDouble(BOUND_LABELS[i]) * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    // One slot per bound plus the last one for everything above the largest bound
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a single duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    void record(long nanos) {
+        var index = 0;
+        while (index < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Reads the bucket counts made cumulative, the last entry being the total count.
+     *
+     * @return The cumulative counts, one per bound followed by the +Inf bucket.
+     */
+    long[] cumulativeCounts() {
+        var counts = new long[buckets.length];
+        var total = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    /**
+     * @return The sum of all recorded durations in seconds.
+     */
+    double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
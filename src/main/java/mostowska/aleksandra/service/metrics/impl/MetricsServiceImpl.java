@@ -0,0 +1,199 @@
+package mostowska.aleksandra.service.metrics.impl;
+
+import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.config.database.BoundedConnectionFactory;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * MetricsServiceImpl keeps request counters and latency histograms per route template in memory.
+ * A request is timed between requestStarted and requestFinished on the same thread; the state in between lives
+ * in a thread-local slot, so recording allocates nothing on pooled threads and one small slot per virtual thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetricsServiceImpl implements MetricsService {
+    private static final ThreadLocal<ActiveRequest> ACTIVE_REQUEST = ThreadLocal.withInitial(ActiveRequest::new);
+
+    private final BoundedConnectionFactory connectionFactory;
+    private final UserVersionService userVersionService;
+
+    @Value("${metrics.max_routes:200}")
+    private int maxRoutes;
+
+    private RouteTable routeTable;
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates the route table and registers the gauges of the database limiter and the user version cache.
+     */
+    @PostConstruct
+    public void init() {
+        routeTable = new RouteTable(maxRoutes);
+        registerGauge("db_connections_active", "Database connections currently open",
+                connectionFactory::getActiveConnections);
+        registerGauge("db_connections_waiting", "Callers waiting for a database connection",
+                connectionFactory::getWaitingCallers);
+        registerGauge("db_connections_max", "Maximum number of database connections open at once",
+                connectionFactory::getMaxConnections);
+        registerGauge("user_versions_tracked", "Users with a cached data version for ETags",
+                userVersionService::trackedUsers);
+    }
+
+    /**
+     * Marks the start of a request on the current thread.
+     *
+     * @param method The request method.
+     * @param path   The request path without the query string.
+     */
+    @Override
+    public void requestStarted(String method, String path) {
+        var route = routeTable.lookup(method, path);
+        route.inFlight.incrementAndGet();
+        var active = ACTIVE_REQUEST.get();
+        active.route = route;
+        active.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the request started last on the current thread. Does nothing if no request was started.
+     *
+     * @param status The response status code.
+     */
+    @Override
+    public void requestFinished(int status) {
+        var active = ACTIVE_REQUEST.get();
+        var route = active.route;
+        if (route == null) {
+            return;
+        }
+        active.route = null;
+        route.inFlight.decrementAndGet();
+        route.record(status, System.nanoTime() - active.startNanos);
+    }
+
+    /**
+     * Registers a gauge read on every export.
+     *
+     * @param name  The metric name.
+     * @param help  The description of the metric.
+     * @param value The supplier of the current value.
+     */
+    @Override
+    public void registerGauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     *
+     * @param out The destination of the text.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void writePrometheus(Appendable out) throws IOException {
+        var routes = routeTable.routes();
+
+        header(out, "http_requests_total", "counter", "Requests handled, by route and status class");
+        for (var route : routes) {
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                var count = route.responses(statusClass);
+                if (count > 0) {
+                    out.append("http_requests_total");
+                    labels(out, route).append(",status=\"").append(Integer.toString(statusClass)).append("xx\"}");
+                    out.append(' ').append(Long.toString(count)).append('\n');
+                }
+            }
+        }
+
+        header(out, "http_request_errors_total", "counter", "Requests answered with a 5xx status, by route");
+        for (var route : routes) {
+            out.append("http_request_errors_total");
+            labels(out, route).append("} ").append(Long.toString(route.errors())).append('\n');
+        }
+
+        header(out, "http_requests_in_flight", "gauge", "Requests currently being handled, by route");
+        for (var route : routes) {
+            out.append("http_requests_in_flight");
+            labels(out, route).append("} ").append(Integer.toString(route.inFlight.get())).append('\n');
+        }
+
+        header(out, "http_request_duration_seconds", "histogram", "Request handling time, by route");
+        for (var route : routes) {
+            var counts = route.latency.cumulativeCounts();
+            var total = counts[counts.length - 1];
+            if (total == 0) {
+                continue;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                var bound = i < LatencyHistogram.BOUND_LABELS.length ? LatencyHistogram.BOUND_LABELS[i] : "+Inf";
+                out.append("http_request_duration_seconds_bucket");
+                labels(out, route).append(",le=\"").append(bound).append("\"} ")
+                        .append(Long.toString(counts[i])).append('\n');
+            }
+            out.append("http_request_duration_seconds_sum");
+            labels(out, route).append("} ").append(Double.toString(route.latency.sumSeconds())).append('\n');
+            out.append("http_request_duration_seconds_count");
+            labels(out, route).append("} ").append(Long.toString(total)).append('\n');
+        }
+
+        for (var gauge : gauges) {
+            header(out, gauge.name(), "gauge", gauge.help());
+            out.append(gauge.name()).append(' ').append(Long.toString(gauge.value().getAsLong())).append('\n');
+        }
+    }
+
+    private static void header(Appendable out, String name, String type, String help) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Opens the label set of a route, leaving it open for further labels.
+     */
+    private static Appendable labels(Appendable out, RouteMetrics route) throws IOException {
+        out.append("{method=\"");
+        escape(out, route.method);
+        out.append("\",route=\"");
+        escape(out, route.template);
+        return out.append('"');
+    }
+
+    private static void escape(Appendable out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Mutable per-thread state of the request being handled.
+     */
+    private static class ActiveRequest {
+        private RouteMetrics route;
+        private long startNanos;
+    }
+
+    /**
+     * A named value read on export.
+     *
+     * @param name  The metric name.
+     * @param help  The description of the metric.
+     * @param value The supplier of the current value.
+     */
+    private record Gauge(String name, String help, LongSupplier value) {
+    }
+}
@@ -0,0 +1,56 @@
+package mostowska.aleksandra.service.metrics.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RouteMetrics holds the counters of one method and route template, such as GET /users/:id/expenses.
+ */
+class RouteMetrics {
+    private static final int STATUS_CLASSES = 5;
+
+    final String method;
+    final String template;
+    final long hash;
+    final LatencyHistogram latency = new LatencyHistogram();
+    final AtomicInteger inFlight = new AtomicInteger();
+
+    // Responses per status class, index 0 for 1xx up to index 4 for 5xx
+    private final LongAdder[] responses = new LongAdder[STATUS_CLASSES];
+
+    RouteMetrics(String method, String template, long hash) {
+        this.method = method;
+        this.template = template;
+        this.hash = hash;
+        for (int i = 0; i < STATUS_CLASSES; i++) {
+            responses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a finished request.
+     *
+     * @param status The response status code.
+     * @param nanos  The time spent handling the request.
+     */
+    void record(int status, long nanos) {
+        var statusClass = Math.min(Math.max(status / 100, 1), STATUS_CLASSES) - 1;
+        responses[statusClass].increment();
+        latency.record(nanos);
+    }
+
+    /**
+     * @param statusClass The status class from 1 to 5.
+     * @return The number of responses in that class.
+     */
+    long responses(int statusClass) {
+        return responses[statusClass - 1].sum();
+    }
+
+    /**
+     * @return The number of responses with a 5xx status.
+     */
+    long errors() {
+        return responses(5);
+    }
+}
@@ -0,0 +1,179 @@
+package mostowska.aleksandra.service.metrics.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * RouteTable maps a request method and path to the metrics of its route template, replacing numeric path segments
+ * with `:id`. Lookups hash and compare the path in place, so only the first request of a template allocates.
+ * The number of templates is capped; paths beyond the cap, typically from scanners, share a single entry.
+ */
+class RouteTable {
+    static final String ID_SEGMENT = ":id";
+    static final String OVERFLOW_TEMPLATE = "/other";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicReferenceArray<RouteMetrics> slots;
+    private final int mask;
+    private final int maxRoutes;
+    private final List<RouteMetrics> routes = new ArrayList<>();
+    private final RouteMetrics overflow = new RouteMetrics("ANY", OVERFLOW_TEMPLATE, 0);
+
+    /**
+     * @param maxRoutes The maximum number of distinct method and template pairs.
+     */
+    RouteTable(int maxRoutes) {
+        this.maxRoutes = maxRoutes;
+        var capacity = Integer.highestOneBit(Math.max(maxRoutes, 8) * 2 - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Finds the metrics for a request, registering its template on first use.
+     *
+     * @param method The request method.
+     * @param path   The request path without the query string.
+     * @return The metrics of the route template.
+     */
+    RouteMetrics lookup(String method, String path) {
+        var hash = hash(method, path);
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            var route = slots.get(i);
+            if (route == null) {
+                return register(method, path, hash);
+            }
+            if (route.hash == hash && route.method.equals(method) && matches(route.template, path)) {
+                return route;
+            }
+        }
+    }
+
+    /**
+     * @return A snapshot of the registered routes followed by the overflow entry.
+     */
+    synchronized List<RouteMetrics> routes() {
+        var snapshot = new ArrayList<RouteMetrics>(routes.size() + 1);
+        snapshot.addAll(routes);
+        snapshot.add(overflow);
+        return snapshot;
+    }
+
+    private synchronized RouteMetrics register(String method, String path, long hash) {
+        int i = (int) hash & mask;
+        for (var route = slots.get(i); route != null; route = slots.get(i)) {
+            if (route.hash == hash && route.method.equals(method) && matches(route.template, path)) {
+                return route;
+            }
+            i = (i + 1) & mask;
+        }
+        if (routes.size() >= maxRoutes) {
+            return overflow;
+        }
+        var route = new RouteMetrics(method, template(path), hash);
+        routes.add(route);
+        slots.set(i, route);
+        return route;
+    }
+
+    /**
+     * Hashes the method and the templated path without building the template.
+     */
+    static long hash(String method, String path) {
+        var hash = FNV_OFFSET;
+        for (int i = 0; i < method.length(); i++) {
+            hash = (hash ^ method.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ ' ') * FNV_PRIME;
+        for (int start = 0; start < path.length(); ) {
+            var end = segmentEnd(path, start);
+            if (isNumeric(path, start, end)) {
+                for (int i = 0; i < ID_SEGMENT.length(); i++) {
+                    hash = (hash ^ ID_SEGMENT.charAt(i)) * FNV_PRIME;
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    hash = (hash ^ path.charAt(i)) * FNV_PRIME;
+                }
+            }
+            if (end < path.length()) {
+                hash = (hash ^ '/') * FNV_PRIME;
+            }
+            start = end + 1;
+        }
+        return hash;
+    }
+
+    /**
+     * Checks whether a path belongs to a template, comparing segment by segment in place.
+     */
+    static boolean matches(String template, String path) {
+        var position = 0;
+        for (int start = 0; start < path.length(); ) {
+            var end = segmentEnd(path, start);
+            if (isNumeric(path, start, end)) {
+                if (!template.startsWith(ID_SEGMENT, position)) {
+                    return false;
+                }
+                position += ID_SEGMENT.length();
+            } else {
+                if (!template.regionMatches(position, path, start, end - start)) {
+                    return false;
+                }
+                position += end - start;
+            }
+            if (end < path.length()) {
+                if (position >= template.length() || template.charAt(position) != '/') {
+                    return false;
+                }
+                position++;
+            }
+            start = end + 1;
+        }
+        return position == template.length();
+    }
+
+    /**
+     * Builds the template of a path.
+     *
+     * @param path The request path.
+     * @return The path with numeric segments replaced by `:id`.
+     */
+    static String template(String path) {
+        var template = new StringBuilder(path.length());
+        for (int start = 0; start < path.length(); ) {
+            var end = segmentEnd(path, start);
+            if (isNumeric(path, start, end)) {
+                template.append(ID_SEGMENT);
+            } else {
+                template.append(path, start, end);
+            }
+            if (end < path.length()) {
+                template.append('/');
+            }
+            start = end + 1;
+        }
+        return template.toString();
+    }
+
+    private static int segmentEnd(String path, int start) {
+        var end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static boolean isNumeric(String path, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            var c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
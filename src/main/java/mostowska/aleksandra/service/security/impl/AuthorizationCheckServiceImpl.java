@@ -2,6 +2,7 @@ package mostowska.aleksandra.service.security.impl;
 
 import lombok.RequiredArgsConstructor;
 import mostowska.aleksandra.api.security.AuthorizationRole;
+import mostowska.aleksandra.config.jfr.AuthorizationEvent;
 import mostowska.aleksandra.service.security.AuthorizationCheckService;
 import mostowska.aleksandra.service.security.TokensService;
 import org.springframework.stereotype.Service;
@@ -59,23 +60,37 @@ public class AuthorizationCheckServiceImpl implements AuthorizationCheckService
      */
     @Override
     public boolean authorize(String accessToken, String uri) {
-        if (accessToken == null) {
-            return publicURIs
-                    .stream()
-                    .anyMatch(u -> (u.endsWith("*") &&
-                            uri.startsWith(u.substring(0, u.length() - 1))) ||
-                            uri.equals(u));
-        }
-
-        if (uri.startsWith("/error") || uri.equals("/auth/refresh")) {
-            return true;
+        var event = new AuthorizationEvent();
+        event.begin();
+        var granted = false;
+        try {
+            if (accessToken == null) {
+                event.setRole("ANONYMOUS");
+                granted = publicURIs
+                        .stream()
+                        .anyMatch(u -> (u.endsWith("*") &&
+                                uri.startsWith(u.substring(0, u.length() - 1))) ||
+                                uri.equals(u));
+                return granted;
+            }
+
+            if (uri.equals("/auth/refresh")) {
+                granted = true;
+                return granted;
+            }
+
+            var authorizationDto = tokensService.parseTokens(accessToken);
+            var role = authorizationDto.role().toAuthorizationRole();
+            var id = authorizationDto.id();
+            event.setRole(role.name());
+
+            granted = containsURI(role, id, uri);
+            return granted;
+        } finally {
+            event.setUri(uri);
+            event.setGranted(granted);
+            event.commit();
         }
-
-        var authorizationDto = tokensService.parseTokens(accessToken);
-        var role = authorizationDto.role().toAuthorizationRole();
-        var id = authorizationDto.id();
-
-        return containsURI(role, id, uri);
     }
 
 
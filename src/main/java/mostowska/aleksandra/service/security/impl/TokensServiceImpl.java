@@ -3,6 +3,8 @@ package mostowska.aleksandra.service.security.impl;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import lombok.RequiredArgsConstructor;
+import mostowska.aleksandra.config.jfr.JwtParseEvent;
+import mostowska.aleksandra.exception.ForbiddenException;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.security.TokensService;
 import mostowska.aleksandra.service.dto.AuthenticationDto;
@@ -51,10 +53,10 @@ public class TokensServiceImpl implements TokensService {
     public TokensDto generateToken(AuthenticationDto authenticationDto) {
         var userFromDb = userRepository
                 .findByUsername(authenticationDto.username())
-                .orElseThrow(() -> new IllegalStateException("Authentication failed [1]!"));
+                .orElseThrow(() -> new ForbiddenException("Authentication failed [1]!"));
 
         if (!userFromDb.matchesPassword(passwordEncoder, authenticationDto.password())) {
-            throw new IllegalStateException("Authentication failed [2]!");
+            throw new ForbiddenException("Authentication failed [2]!");
         }
 
         var userId = userFromDb.toGetUserDto().id();
@@ -93,18 +95,18 @@ public class TokensServiceImpl implements TokensService {
     @Override
     public AuthorizationDto parseTokens(String token) {
         if (token == null) {
-            throw new IllegalStateException("Token is null");
+            throw new ForbiddenException("Token is null");
         }
 
         if (!isTokenValid(token)) {
-            throw new IllegalStateException("Token has been expired");
+            throw new ForbiddenException("Token has been expired");
         }
 
         var userId = id(token);
         return userRepository
                 .findById(userId)
                 .map(User::toAuthorizationDto)
-                .orElseThrow(() -> new IllegalStateException("Authorization failed"));
+                .orElseThrow(() -> new ForbiddenException("Authorization failed"));
     }
 
     /**
@@ -118,11 +120,11 @@ public class TokensServiceImpl implements TokensService {
         var token = refreshTokenDto.token();
 
         if (!isTokenValid(token)) {
-            throw new IllegalStateException("Refresh token has been expired");
+            throw new ForbiddenException("Refresh token has been expired");
         }
 
         if (accessTokenExpirationDateMsInRefreshToken(token) < System.currentTimeMillis()) {
-            throw new IllegalStateException("Access token has been expired");
+            throw new ForbiddenException("Access token has been expired");
         }
 
         var userId = id(token);
@@ -154,12 +156,23 @@ public class TokensServiceImpl implements TokensService {
 
 
     private Claims claims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        var event = new JwtParseEvent();
+        event.begin();
+        try {
+            var claims = Jwts
+                    .parserBuilder()
+                    .setSigningKey(secretKey)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            event.setValid(true);
+            return claims;
+        } catch (RuntimeException e) {
+            event.setFailure(e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     private Long id(String token) {
@@ -0,0 +1,20 @@
+package mostowska.aleksandra.service.user;
+
+import mostowska.aleksandra.model.User;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * UserMailboxService runs the mutations of a user's budget one at a time, in the order they were submitted.
+ * Mutations of the same user never interleave, so concurrent requests cannot overwrite each other's changes
+ * to the users row; mutations of different users run in parallel.
+ */
+public interface UserMailboxService {
+    /**
+     * Applies a mutation to the user and stores the result, waiting until it is stored.
+     *
+     * @param userId   The ID of the user.
+     * @param mutation The mutation, given the user as it is after the previously submitted mutations.
+     */
+    void mutate(Long userId, UnaryOperator<User> mutation);
+}
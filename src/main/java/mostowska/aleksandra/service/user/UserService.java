@@ -2,6 +2,7 @@ package mostowska.aleksandra.service.user;
 
 import mostowska.aleksandra.model.dto.user.CreateUserDto;
 import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.Money;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -15,10 +16,20 @@ public interface UserService {
     GetUserDto activate(Long userId, Long expirationTime);
     GetUserDto getUserById(Long userId);
     List<GetUserDto> getAllUsers();
-    void addToBudget(Long userId, BigDecimal amount);
-    void cutFromBudget(Long userId, BigDecimal amount);
-    void addToBudgetAfterGoals(Long userId, BigDecimal amount);
-    void cutFromBudgetAfterGoals(Long userId, BigDecimal amount);
+    void addToBudget(Long userId, Money amount);
+    void cutFromBudget(Long userId, Money amount);
+
+    /**
+     * Cuts an amount from the user's budget if the budget covers it, checking and cutting as one step, so that
+     * concurrent cuts of the same user cannot together overdraw it.
+     *
+     * @param userId The ID of the user whose budget is to be cut.
+     * @param amount The amount to be cut.
+     * @throws mostowska.aleksandra.exception.ConflictException If the budget does not cover the amount.
+     */
+    void cutFromBudgetIfCovered(Long userId, Money amount);
+    void addToBudgetAfterGoals(Long userId, Money amount);
+    void cutFromBudgetAfterGoals(Long userId, Money amount);
     BigDecimal getBudget(Long userId);
     BigDecimal getBudgetAfterGoals(Long userId);
 }
@@ -0,0 +1,220 @@
+package mostowska.aleksandra.service.user.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BudgetDeltaJournal is an append-only file of the budget deltas not yet flushed to the database, one line
+ * `userId budgetCents budgetAfterGoalsCents` per delta, under a header line `sequence n` naming the flush that
+ * writes them. It is replayed at startup, so after a crash the deltas accepted but not flushed are recovered.
+ * <p>
+ * A flush records its sequence number in the database in the same transaction as the budgets, and writes the
+ * deltas it keeps pending to a new journal for the next sequence number before committing; once committed, the new
+ * journal is renamed over the old one. Whatever the point a crash hits, the database tells at startup whether the
+ * old journal's deltas are already in it, so none is applied twice and none kept pending is lost.
+ * <p>
+ * Each delta is written with a single append, which survives the process crashing. Deltas survive the machine
+ * losing power only if the journal syncs every write to disk.
+ */
+public class BudgetDeltaJournal implements AutoCloseable {
+    private static final String SEQUENCE_HEADER = "sequence ";
+
+    private final Path path;
+    private final Path nextPath;
+    private final boolean sync;
+    private FileChannel channel;
+    private long sequence;
+
+    /**
+     * A delta read back from the journal.
+     *
+     * @param userId                 The ID of the user.
+     * @param budgetCents            The change of the budget, in cents.
+     * @param budgetAfterGoalsCents  The change of the budget after goals, in cents.
+     */
+    public record Entry(long userId, long budgetCents, long budgetAfterGoalsCents) {
+    }
+
+    private record Contents(long sequence, List<Entry> entries) {
+    }
+
+    /**
+     * Creates a journal at the given file; it is read and opened for appending by open.
+     *
+     * @param path The journal file.
+     * @param sync Whether to sync every write to disk.
+     */
+    public BudgetDeltaJournal(Path path, boolean sync) {
+        this.path = path;
+        this.nextPath = path.resolveSibling(path.getFileName() + ".next");
+        this.sync = sync;
+        try {
+            var parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the directory of budget journal " + path, e);
+        }
+    }
+
+    /**
+     * Recovers the journal left by the last run and opens it for appending, creating it if it does not exist.
+     * A journal without a header, as written before flushes were numbered, is taken as not flushed.
+     *
+     * @param flushedSequence The sequence number of the last flush committed to the database, or 0 if none was.
+     * @return The deltas not yet in the database, in the order they were written; a last line cut short by a crash
+     * is skipped.
+     */
+    public List<Entry> open(long flushedSequence) {
+        try {
+            // A new journal written by a flush that committed replaces the old one; one of a flush that did not is void
+            if (Files.exists(nextPath)) {
+                if (parse(nextPath, flushedSequence + 1).sequence() == flushedSequence + 1) {
+                    Files.move(nextPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.delete(nextPath);
+                }
+            }
+            var contents = Files.exists(path)
+                    ? parse(path, flushedSequence + 1)
+                    : new Contents(flushedSequence + 1, List.<Entry>of());
+            var entries = contents.sequence() > flushedSequence ? contents.entries() : List.<Entry>of();
+            // Rewritten with the header, which also drops a last line cut short by a crash that the next append
+            // would otherwise extend
+            writeNext(flushedSequence + 1, entries);
+            replaceWithNext(flushedSequence + 1);
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open budget journal " + path, e);
+        }
+    }
+
+    /**
+     * Returns the sequence number of the flush that writes the deltas appended now.
+     *
+     * @return The sequence number to record with the next flush.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Appends a delta. Safe to call from several threads; every delta is written with one system call.
+     *
+     * @param userId                The ID of the user.
+     * @param budgetCents           The change of the budget, in cents.
+     * @param budgetAfterGoalsCents The change of the budget after goals, in cents.
+     */
+    public void append(long userId, long budgetCents, long budgetAfterGoalsCents) {
+        var line = userId + " " + budgetCents + " " + budgetAfterGoalsCents + "\n";
+        var buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write budget journal " + path, e);
+        }
+    }
+
+    /**
+     * Writes the journal that follows the current one once the flush of the current sequence number commits; it must
+     * be called before that flush commits, and no delta may be appended until the flush is done.
+     *
+     * @param kept The deltas the flush keeps pending.
+     */
+    public void prepareNext(List<Entry> kept) {
+        try {
+            writeNext(sequence + 1, kept);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the next budget journal " + path, e);
+        }
+    }
+
+    /**
+     * Replaces the journal with the one prepared for the next sequence number, once the flush of the current one
+     * has committed.
+     */
+    public void commitNext() {
+        try {
+            replaceWithNext(sequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replace budget journal " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close budget journal " + path, e);
+        }
+    }
+
+    private void writeNext(long nextSequence, List<Entry> entries) throws IOException {
+        var content = new StringBuilder(SEQUENCE_HEADER).append(nextSequence).append('\n');
+        for (var entry : entries) {
+            content.append(entry.userId()).append(' ').append(entry.budgetCents()).append(' ')
+                    .append(entry.budgetAfterGoalsCents()).append('\n');
+        }
+        try (var next = FileChannel.open(nextPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                next.write(buffer);
+            }
+            if (sync) {
+                next.force(false);
+            }
+        }
+    }
+
+    private void replaceWithNext(long nextSequence) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        // Atomic, so a crash leaves either journal whole; the header tells them apart
+        Files.move(nextPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sequence = nextSequence;
+    }
+
+    private Contents parse(Path file, long headerlessSequence) throws IOException {
+        var content = Files.readString(file, StandardCharsets.US_ASCII);
+        // Only complete lines count; a delta is accepted once its newline is written
+        var complete = content.substring(0, content.lastIndexOf('\n') + 1);
+        var sequence = headerlessSequence;
+        var entries = new ArrayList<Entry>();
+        for (var line : complete.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                if (line.startsWith(SEQUENCE_HEADER)) {
+                    sequence = Long.parseLong(line.substring(SEQUENCE_HEADER.length()));
+                    continue;
+                }
+                var fields = line.split(" ");
+                entries.add(new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2])));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalStateException("Corrupt line in budget journal " + file + ": " + line, e);
+            }
+        }
+        return new Contents(sequence, entries);
+    }
+}
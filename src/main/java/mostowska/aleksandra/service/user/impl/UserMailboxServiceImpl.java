@@ -0,0 +1,175 @@
+package mostowska.aleksandra.service.user.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.repository.monitoring.RequestSqlMonitor;
+import mostowska.aleksandra.repository.monitoring.RequestSqlStats;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.user.UserMailboxService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * UserMailboxServiceImpl is an implementation of the UserMailboxService interface with one mailbox per user.
+ * A user's mailbox exists while it has mutations queued; the first mutation queued starts a virtual thread that
+ * drains the mailbox and removes it once empty. Every drain cycle takes all queued mutations, applies them in order
+ * to the user read once, and writes the user once, in a single transaction. A burst of mutations of one user,
+ * e.g. an import of many expenses, thus costs a few reads and writes instead of one of each per mutation.
+ * The statements of a drain cycle are attributed to every request waiting for it, as if it had run them itself.
+ * <p>
+ * Mutations are serialized within this application instance; they are not coordinated across instances.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserMailboxServiceImpl implements UserMailboxService {
+    private final UserRepository userRepository;
+    private final UserVersionService userVersionService;
+    private final TransactionManager transactionManager;
+    private final RequestSqlMonitor requestSqlMonitor;
+
+    @Value("${user.mailbox.max_batch:256}")
+    private int maxBatch;
+
+    // A user has an entry exactly while a drainer runs for them; entries are only changed inside compute calls
+    private final Map<Long, ArrayDeque<Mutation>> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService drainers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("user-mailbox-", 0).factory());
+
+    /**
+     * Queues the mutation in the user's mailbox and waits until the drain cycle that applies it has committed.
+     * The drain cycle runs on another thread and connection, so the caller must not hold a lock on the users row.
+     *
+     * @param userId   The ID of the user.
+     * @param mutation The mutation to apply.
+     * @throws NotFoundException If there is no such user.
+     * @throws RuntimeException  Whatever the mutation or the database access threw.
+     */
+    @Override
+    public void mutate(Long userId, UnaryOperator<User> mutation) {
+        var queued = new Mutation(mutation, new CompletableFuture<>(), requestSqlMonitor.current());
+        var startDrainer = new boolean[1];
+        mailboxes.compute(userId, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new ArrayDeque<>();
+                startDrainer[0] = true;
+            }
+            mailbox.add(queued);
+            return mailbox;
+        });
+        if (startDrainer[0]) {
+            drainers.execute(() -> drain(userId));
+        }
+
+        try {
+            queued.done().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops accepting drain cycles once those in progress have finished.
+     */
+    @PreDestroy
+    public void stop() {
+        drainers.close();
+    }
+
+    private void drain(Long userId) {
+        while (true) {
+            var batch = new ArrayList<Mutation>();
+            mailboxes.computeIfPresent(userId, (id, mailbox) -> {
+                while (batch.size() < maxBatch && !mailbox.isEmpty()) {
+                    batch.add(mailbox.poll());
+                }
+                // Removing the empty mailbox ends this drainer; the next mutation starts a new one
+                return batch.isEmpty() ? null : mailbox;
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+            apply(userId, batch);
+        }
+    }
+
+    /**
+     * Applies the batch in one transaction. A mutation that throws is left out and fails on its own; a failure to
+     * read or write the user fails the whole batch.
+     */
+    private void apply(Long userId, List<Mutation> batch) {
+        var failures = new ArrayList<RuntimeException>(batch.size());
+        boolean changed;
+        try {
+            var requests = batch.stream().map(Mutation::requestSqlStats).filter(Objects::nonNull)
+                    .distinct().toList();
+            changed = requestSqlMonitor.onBehalfOf(requests, () -> transactionManager.inTransaction(() -> {
+                failures.clear();
+                var user = userRepository
+                        .findById(userId)
+                        .orElseThrow(() -> new NotFoundException("No user of given id found"));
+                var anyApplied = false;
+                for (var mutation : batch) {
+                    try {
+                        user = mutation.mutation().apply(user);
+                        anyApplied = true;
+                        failures.add(null);
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+                if (anyApplied) {
+                    userRepository.update(userId, user);
+                }
+                return anyApplied;
+            }));
+        } catch (RuntimeException e) {
+            batch.forEach(mutation -> mutation.done().completeExceptionally(e));
+            return;
+        }
+
+        if (changed) {
+            try {
+                userVersionService.bump(userId);
+            } catch (RuntimeException e) {
+                log.warn("Could not bump the version of user {}: {}", userId, e.getMessage());
+            }
+        }
+        if (batch.size() > 1) {
+            log.debug("Applied {} mutations of user {} with one write", batch.size(), userId);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            var failure = failures.get(i);
+            if (failure == null) {
+                batch.get(i).done().complete(null);
+            } else {
+                batch.get(i).done().completeExceptionally(failure);
+            }
+        }
+    }
+
+    // The statistics of the request queuing the mutation, written by the drainer while that request waits
+    private record Mutation(UnaryOperator<User> mutation, CompletableFuture<Void> done,
+                            RequestSqlStats requestSqlStats) {
+    }
+}
@@ -2,12 +2,19 @@ package mostowska.aleksandra.service.user.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
 import mostowska.aleksandra.model.User;
 import mostowska.aleksandra.model.dto.user.CreateUserDto;
 import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.email.EmailService;
+import mostowska.aleksandra.service.user.UserMailboxService;
 import mostowska.aleksandra.service.user.UserService;
+import mostowska.aleksandra.service.version.UserVersionService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -16,6 +23,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +37,9 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final UserVersionService userVersionService;
+    private final TransactionManager transactionManager;
+    private final UserMailboxService userMailboxService;
 
     @Value("${password.registration.timestamp}")
     private long registrationTimestamp;
@@ -43,17 +54,17 @@ public class UserServiceImpl implements UserService {
     @Override
     public GetUserDto register(CreateUserDto createUserDto) {
         if (createUserDto == null) {
-            throw new IllegalStateException("Required data not provided");
+            throw new ValidationException("Required data not provided");
         }
 
         var username = createUserDto.username();
         if (userRepository.findByUsername(username).isPresent()) {
-            throw new IllegalStateException("Username already exists");
+            throw new ConflictException("Username already exists");
         }
 
         var email = createUserDto.email();
         if (userRepository.findByEmail(email).isPresent()) {
-            throw new IllegalStateException("Email already exists");
+            throw new ConflictException("Email already exists");
         }
 
         var password = createUserDto.password();
@@ -61,23 +72,22 @@ public class UserServiceImpl implements UserService {
                 .toUser()
                 .withPassword(passwordEncoder.encode(password));
 
-        var insertedUser = userRepository.save(userToRegister);
-
         // Generate activation link with expiration timestamp
         var timestamp = LocalDateTime
                 .now()
                 .toInstant(ZoneOffset.UTC)
                 .toEpochMilli() + registrationTimestamp;
 
-        // Send activation email
-        emailService.send(
-                insertedUser.toGetUserDto().email(),
-                "Activate your account",
-                "Activate your account: http://localhost:8080/users/activate?id="
-                        + insertedUser.toGetUserDto().id()
-                        + "&timestamp="
-                        + timestamp
-        );
+        // The activation email is queued in the same transaction, so it is sent if and only if the user is saved
+        var insertedUser = transactionManager.inTransaction(() -> {
+            var user = userRepository.save(userToRegister);
+            var userDto = user.toGetUserDto();
+            emailService.sendTemplate(userDto.email(), "activation", Map.of(
+                    "username", userDto.username(),
+                    "userId", userDto.id(),
+                    "timestamp", timestamp));
+            return user;
+        });
 
         return insertedUser.toGetUserDto();
     }
@@ -103,16 +113,15 @@ public class UserServiceImpl implements UserService {
                 .toInstant(ZoneOffset.UTC)
                 .toEpochMilli();
         if (expirationTime < currentTime) {
-            throw new IllegalStateException("Activation link expired");
+            throw new ValidationException("Activation link expired");
         }
 
-        return userRepository
-                .findById(userId)
-                .map(user -> userRepository
-                        .update(userId, user.withEnabled(true))
-                        .toGetUserDto()
-                )
-                .orElseThrow(() -> new IllegalStateException("No user found with given id"));
+        // Only the enabled column is written; writing the whole row could undo a budget change committed meanwhile
+        if (!userRepository.updateEnabled(userId, true)) {
+            throw new NotFoundException("No user found with given id");
+        }
+        userVersionService.bump(userId);
+        return findUserFromDB(userId).toGetUserDto();
     }
 
     /**
@@ -143,15 +152,14 @@ public class UserServiceImpl implements UserService {
 
     /**
      * Adds a specified amount to the user's budget.
+     * Like the other budget changes, it goes through the user's mailbox, so concurrent changes are not lost.
      *
      * @param userId The ID of the user whose budget is to be updated.
      * @param amount The amount to be added.
      */
     @Override
-    public void addToBudget(Long userId, BigDecimal amount) {
-        var userToBeInserted = findUserFromDB(userId)
-                .withBudgetAdd(amount);
-        userRepository.update(userId, userToBeInserted);
+    public void addToBudget(Long userId, Money amount) {
+        userMailboxService.mutate(userId, user -> user.withBudgetAdd(amount));
     }
 
     /**
@@ -161,10 +169,26 @@ public class UserServiceImpl implements UserService {
      * @param amount The amount to be cut.
      */
     @Override
-    public void cutFromBudget(Long userId, BigDecimal amount) {
-        var userToBeInserted = findUserFromDB(userId)
-                .withBudgetCut(amount);
-        userRepository.update(userId, userToBeInserted);
+    public void cutFromBudget(Long userId, Money amount) {
+        userMailboxService.mutate(userId, user -> user.withBudgetCut(amount));
+    }
+
+    /**
+     * Cuts a specified amount from the user's budget if the budget covers it. The check runs inside the mutation,
+     * in the same drain cycle as the cut, so it sees the budget as left by every mutation queued before it.
+     *
+     * @param userId The ID of the user whose budget is to be updated.
+     * @param amount The amount to be cut.
+     * @throws ConflictException If the budget does not cover the amount.
+     */
+    @Override
+    public void cutFromBudgetIfCovered(Long userId, Money amount) {
+        userMailboxService.mutate(userId, user -> {
+            if (!user.hasEnoughBudgetForAsset(amount)) {
+                throw new ConflictException("Not enough budget for chosen asset");
+            }
+            return user.withBudgetCut(amount);
+        });
     }
 
     /**
@@ -174,10 +198,8 @@ public class UserServiceImpl implements UserService {
      * @param amount The amount to be added.
      */
     @Override
-    public void addToBudgetAfterGoals(Long userId, BigDecimal amount) {
-        var userToBeInserted = findUserFromDB(userId)
-                .withBudgetAfterGoalsAdd(amount);
-        userRepository.update(userId, userToBeInserted);
+    public void addToBudgetAfterGoals(Long userId, Money amount) {
+        userMailboxService.mutate(userId, user -> user.withBudgetAfterGoalsAdd(amount));
     }
 
     /**
@@ -187,10 +209,8 @@ public class UserServiceImpl implements UserService {
      * @param amount The amount to be cut.
      */
     @Override
-    public void cutFromBudgetAfterGoals(Long userId, BigDecimal amount) {
-        var userToBeInserted = findUserFromDB(userId)
-                .withBudgetAfterGoalsCut(amount);
-        userRepository.update(userId, userToBeInserted);
+    public void cutFromBudgetAfterGoals(Long userId, Money amount) {
+        userMailboxService.mutate(userId, user -> user.withBudgetAfterGoalsCut(amount));
     }
 
     /**
@@ -225,6 +245,6 @@ public class UserServiceImpl implements UserService {
     private User findUserFromDB(Long userId) {
         return userRepository
                 .findById(userId)
-                .orElseThrow(() -> new IllegalStateException("No user of given id found"));
+                .orElseThrow(() -> new NotFoundException("No user of given id found"));
     }
 }
@@ -0,0 +1,373 @@
+package mostowska.aleksandra.service.user.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.dto.user.CreateUserDto;
+import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.user.UserService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * WriteBehindUserService is a UserService that keeps budget changes in memory and writes them to the users table
+ * in batches, taking the place of UserServiceImpl when `user.write_behind.enabled` is set.
+ * <p>
+ * Every change is added to per-user counters of cents, so concurrent changes of the same user never wait for each
+ * other. The counters are flushed every `flush_interval_ms`, or as soon as `flush_max_deltas` changes are pending:
+ * the users are read, the pending changes applied, and all of them written with one batched update. Budgets are
+ * read as stored plus pending, so callers see their own changes at once. Within one flush, changes of the budget
+ * after goals are applied after those of the budget.
+ * <p>
+ * What is pending is flushed when the application shuts down. Changes not yet flushed are lost if the process
+ * dies, unless `journal_path` is set: every change is then appended to that file first and replayed at startup.
+ * Only one application instance may run in this mode against a database.
+ */
+@Service
+@Primary
+@Conditional(WriteBehindUserService.Enabled.class)
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBehindUserService implements UserService {
+    private final UserServiceImpl delegate;
+    private final UserRepository userRepository;
+    private final UserVersionService userVersionService;
+    private final TransactionManager transactionManager;
+    private final MetricsService metricsService;
+
+    @Value("${user.write_behind.flush_interval_ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${user.write_behind.flush_max_deltas:1000}")
+    private long flushMaxDeltas;
+
+    @Value("${user.write_behind.journal_path:}")
+    private String journalPath;
+
+    @Value("${user.write_behind.journal_sync:false}")
+    private boolean journalSync;
+
+    private final Map<Long, PendingDeltas> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // Changes and reads share the lock; a flush takes it exclusively, so no one sees a change both pending and stored
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private BudgetDeltaJournal journal;
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Enables the service when `user.write_behind.enabled` is true.
+     */
+    public static class Enabled implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty("user.write_behind.enabled", Boolean.class, false);
+        }
+    }
+
+    /**
+     * Replays and flushes the journal, if any, then starts the periodic flush.
+     */
+    @PostConstruct
+    public void start() {
+        if (!journalPath.isBlank()) {
+            journal = new BudgetDeltaJournal(Path.of(journalPath), journalSync);
+            var entries = journal.open(userRepository.findBudgetFlushSequence());
+            for (var entry : entries) {
+                addPending(entry.userId(), entry.budgetCents(), entry.budgetAfterGoalsCents());
+            }
+            flush();
+            if (!entries.isEmpty()) {
+                log.info("Recovered {} budget changes from the journal", entries.size());
+            }
+        }
+        metricsService.registerGauge("user_budget_deltas_pending", "Budget changes not yet written to the database",
+                pendingCount::get);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("user-write-behind").daemon(true).factory());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic flush and writes what is still pending.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public GetUserDto register(CreateUserDto createUserDto) {
+        return delegate.register(createUserDto);
+    }
+
+    /**
+     * Activates a user and returns them with the pending changes of their budget applied.
+     *
+     * @param userId         The ID of the user to be activated.
+     * @param expirationTime The timestamp until which the activation link is valid.
+     * @return Data Transfer Object representing the activated user.
+     */
+    @Override
+    public GetUserDto activate(Long userId, Long expirationTime) {
+        delegate.activate(userId, expirationTime);
+        return getUserById(userId);
+    }
+
+    /**
+     * Retrieves a user with the pending changes of their budget applied.
+     *
+     * @param userId The ID of the user.
+     * @return Data Transfer Object representing the user.
+     */
+    @Override
+    public GetUserDto getUserById(Long userId) {
+        return readCurrent(userId).toGetUserDto();
+    }
+
+    /**
+     * Retrieves all users as stored; their budgets may lag behind by up to one flush interval.
+     *
+     * @return A list of Data Transfer Objects representing all users.
+     */
+    @Override
+    public List<GetUserDto> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public void addToBudget(Long userId, Money amount) {
+        change(userId, amount.cents(), 0);
+    }
+
+    @Override
+    public void cutFromBudget(Long userId, Money amount) {
+        change(userId, -amount.cents(), 0);
+    }
+
+    /**
+     * Cuts an amount from the user's budget if the budget as stored plus pending covers it. Conditional cuts of a
+     * user take turns, so each is checked against the ones before it; no flush runs in between, so the stored
+     * budget read stays current until the cut is pending.
+     *
+     * @param userId The ID of the user whose budget is to be cut.
+     * @param amount The amount to be cut.
+     * @throws ConflictException If the budget does not cover the amount.
+     */
+    @Override
+    public void cutFromBudgetIfCovered(Long userId, Money amount) {
+        flushLock.readLock().lock();
+        try {
+            var stored = userRepository
+                    .findById(userId)
+                    .orElseThrow(() -> new NotFoundException("No user of given id found"));
+            var deltas = pending.computeIfAbsent(userId, id -> new PendingDeltas());
+            deltas.conditionalCuts.lock();
+            try {
+                if (!withPending(stored).hasEnoughBudgetForAsset(amount)) {
+                    throw new ConflictException("Not enough budget for chosen asset");
+                }
+                record(userId, -amount.cents(), 0);
+            } finally {
+                deltas.conditionalCuts.unlock();
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        changed(userId);
+    }
+
+    @Override
+    public void addToBudgetAfterGoals(Long userId, Money amount) {
+        change(userId, 0, amount.cents());
+    }
+
+    @Override
+    public void cutFromBudgetAfterGoals(Long userId, Money amount) {
+        change(userId, 0, -amount.cents());
+    }
+
+    @Override
+    public BigDecimal getBudget(Long userId) {
+        return readCurrent(userId).toGetUserDto().budget();
+    }
+
+    @Override
+    public BigDecimal getBudgetAfterGoals(Long userId) {
+        return readCurrent(userId).toGetUserDto().budgetAfterGoals();
+    }
+
+    /**
+     * Writes all pending changes to the database in one transaction. Changes are held back while it runs.
+     * If the write fails, the changes stay pending and are retried with the next flush; so do the changes of a user
+     * that cannot be applied, without holding back those of other users. With a journal, the flush is numbered,
+     * see BudgetDeltaJournal.
+     */
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return;
+            }
+            var userIds = new ArrayList<>(pending.keySet());
+            var kept = new ArrayList<Long>();
+            transactionManager.inTransaction(() -> {
+                var users = new ArrayList<User>(userIds.size());
+                for (var user : userRepository.findAllById(userIds)) {
+                    try {
+                        users.add(withPending(user));
+                    } catch (RuntimeException e) {
+                        // Kept pending, so that one user's changes that cannot be applied do not hold back the others
+                        var userId = user.toGetUserDto().id();
+                        log.warn("Could not apply the budget changes of user {}: {}", userId, e.getMessage());
+                        kept.add(userId);
+                    }
+                }
+                userRepository.updateBudgets(users);
+                if (journal != null) {
+                    // Committed with the budgets, so that the journal's deltas are known to be in them after a crash
+                    userRepository.saveBudgetFlushSequence(journal.sequence());
+                    journal.prepareNext(kept.stream()
+                            .map(userId -> new BudgetDeltaJournal.Entry(userId, pending.get(userId).budgetCents.sum(),
+                                    pending.get(userId).budgetAfterGoalsCents.sum()))
+                            .toList());
+                }
+                var missing = userIds.size() - users.size() - kept.size();
+                if (missing > 0) {
+                    log.warn("Dropped budget changes of {} users that no longer exist", missing);
+                }
+                return users.size();
+            });
+
+            pending.keySet().retainAll(kept);
+            pendingCount.set(pending.values().stream().mapToLong(deltas -> deltas.count.sum()).sum());
+            if (journal != null) {
+                journal.commitNext();
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // A failing flush must not cancel the scheduled task; the changes stay pending
+            log.warn("Could not flush {} pending budget changes: {}", pendingCount.get(), e.getMessage());
+        }
+    }
+
+    private void change(Long userId, long budgetCents, long budgetAfterGoalsCents) {
+        flushLock.readLock().lock();
+        try {
+            record(userId, budgetCents, budgetAfterGoalsCents);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        changed(userId);
+    }
+
+    /**
+     * Journals a change and makes it pending; the caller holds the read lock.
+     */
+    private void record(Long userId, long budgetCents, long budgetAfterGoalsCents) {
+        if (journal != null) {
+            journal.append(userId, budgetCents, budgetAfterGoalsCents);
+        }
+        addPending(userId, budgetCents, budgetAfterGoalsCents);
+    }
+
+    private void changed(Long userId) {
+        userVersionService.bump(userId);
+        if (pendingCount.get() >= flushMaxDeltas && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Stopping; the change is already pending and written by the final flush
+                log.debug("Flush not scheduled while stopping");
+            }
+        }
+    }
+
+    private void addPending(long userId, long budgetCents, long budgetAfterGoalsCents) {
+        var deltas = pending.computeIfAbsent(userId, id -> new PendingDeltas());
+        deltas.budgetCents.add(budgetCents);
+        deltas.budgetAfterGoalsCents.add(budgetAfterGoalsCents);
+        deltas.count.increment();
+        pendingCount.incrementAndGet();
+    }
+
+    private User readCurrent(Long userId) {
+        flushLock.readLock().lock();
+        try {
+            return withPending(userRepository
+                    .findById(userId)
+                    .orElseThrow(() -> new NotFoundException("No user of given id found")));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private User withPending(User user) {
+        var deltas = pending.get(user.toGetUserDto().id());
+        if (deltas == null) {
+            return user;
+        }
+        var budgetCents = deltas.budgetCents.sum();
+        var budgetAfterGoalsCents = deltas.budgetAfterGoalsCents.sum();
+        var result = user;
+        if (budgetCents != 0) {
+            result = result.withBudgetAdd(Money.ofCents(budgetCents));
+        }
+        if (budgetAfterGoalsCents != 0) {
+            result = result.withBudgetAfterGoalsAdd(Money.ofCents(budgetAfterGoalsCents));
+        }
+        return result;
+    }
+
+    private static final class PendingDeltas {
+        private final LongAdder budgetCents = new LongAdder();
+        private final LongAdder budgetAfterGoalsCents = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private final ReentrantLock conditionalCuts = new ReentrantLock();
+    }
+}
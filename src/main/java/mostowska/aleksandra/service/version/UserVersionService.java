@@ -0,0 +1,12 @@
+package mostowska.aleksandra.service.version;
+
+/**
+ * UserVersionService defines the contract for tracking a version per user that changes on every write
+ * to the user's data, so that clients can revalidate cached responses cheaply.
+ */
+public interface UserVersionService {
+    long currentVersion(Long userId);
+    long bump(Long userId);
+    String etag(Long userId);
+    int trackedUsers();
+}
@@ -0,0 +1,107 @@
+package mostowska.aleksandra.service.version.impl;
+
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * UserVersionServiceImpl keeps monotonically increasing per-user versions in memory.
+ * Versions start from zero on every start, so ETags also carry a boot id that changes with each start;
+ * otherwise a restarted instance could hand out a tag that matches data from before the restart.
+ * <p>
+ * Every bump takes the next value of one counter shared by all users, so the users bumped least recently hold the
+ * lowest versions. At most `user.versions.max_users` users are kept; beyond that, those bumped least recently are
+ * dropped. Much like after a restart, a dropped user then has a version no lower than any they had before: the
+ * highest one dropped so far, which every user not kept shares.
+ */
+@Service
+public class UserVersionServiceImpl implements UserVersionService {
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final AtomicLong droppedVersion = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    @Value("${user.versions.max_users:100000}")
+    private int maxUsers;
+
+    /**
+     * Returns the current version of a user's data.
+     *
+     * @param userId The ID of the user.
+     * @return The current version, zero if the user has not been written to since the start, or the highest version
+     * dropped if the user is not kept.
+     */
+    @Override
+    public long currentVersion(Long userId) {
+        var version = versions.get(userId);
+        // Read after the map, as a user is dropped only once the dropped version covers theirs
+        return version == null ? droppedVersion.get() : version;
+    }
+
+    /**
+     * Marks a user's data as changed.
+     *
+     * @param userId The ID of the user whose data has been written.
+     * @return The new version.
+     */
+    @Override
+    public long bump(Long userId) {
+        var version = versions.compute(userId, (id, previous) -> lastVersion.incrementAndGet());
+        if (versions.size() > maxUsers) {
+            evictLeastRecentlyBumped();
+        }
+        return version;
+    }
+
+    /**
+     * Builds a weak entity tag for the current version of a user's data. The tag is weak because
+     * the same data may be sent with different content codings.
+     *
+     * @param userId The ID of the user.
+     * @return The entity tag, including quotes.
+     */
+    @Override
+    public String etag(Long userId) {
+        return "W/\"" + bootId + "-" + userId + "-" + currentVersion(userId) + "\"";
+    }
+
+    /**
+     * Returns the number of users whose version is kept in memory.
+     *
+     * @return The number of users written to since the start and not dropped since.
+     */
+    @Override
+    public int trackedUsers() {
+        return versions.size();
+    }
+
+    private void evictLeastRecentlyBumped() {
+        // One caller evicts at a time; the others go on, the map may briefly hold a few more users
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            var excess = versions.size() - maxUsers * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            var byVersion = new ArrayList<>(versions.entrySet());
+            byVersion.sort(Map.Entry.comparingByValue());
+            for (var entry : byVersion.subList(0, Math.min(excess, byVersion.size()))) {
+                droppedVersion.accumulateAndGet(entry.getValue(), Math::max);
+                // Kept if bumped in the meantime
+                versions.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package mostowska.aleksandra.model.user;
+
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WithBudgetAddTest {
+
+    @Test
+    void whenUserHasNoGoalsBudgetAfterGoalsFollowsBudget() {
+        var user = user(10000, 10000).withBudgetAdd(Money.ofCents(2550));
+
+        assertEquals(new BigDecimal("125.50"), user.toGetUserDto().budget());
+        assertEquals(new BigDecimal("125.50"), user.toGetUserDto().budgetAfterGoals());
+    }
+
+    @Test
+    void whenRatioDoesNotTerminateBudgetAfterGoalsIsRoundedToCents() {
+        // 200.00 / 300.00 is 0.666..., which could not be divided exactly
+        var user = user(30000, 20000).withBudgetAdd(Money.ofCents(10000));
+
+        assertEquals(new BigDecimal("400.00"), user.toGetUserDto().budget());
+        assertEquals(new BigDecimal("266.67"), user.toGetUserDto().budgetAfterGoals());
+    }
+
+    @Test
+    void whenBudgetIsZeroBudgetAfterGoalsIsShiftedByTheChange() {
+        var user = user(0, -5000).withBudgetAdd(Money.ofCents(10000));
+
+        assertEquals(new BigDecimal("100.00"), user.toGetUserDto().budget());
+        assertEquals(new BigDecimal("50.00"), user.toGetUserDto().budgetAfterGoals());
+    }
+
+    private static User user(long budgetCents, long budgetAfterGoalsCents) {
+        return User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .budget(Money.ofCents(budgetCents))
+                .budgetAfterGoals(Money.ofCents(budgetAfterGoalsCents))
+                .enabled(true)
+                .build();
+    }
+}
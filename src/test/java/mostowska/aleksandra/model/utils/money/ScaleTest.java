@@ -0,0 +1,38 @@
+package mostowska.aleksandra.model.utils.money;
+
+import mostowska.aleksandra.model.utils.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ScaleTest {
+
+    @Test
+    void whenRatioDoesNotTerminateResultIsRoundedOnce() {
+        // 100.00 * 2 / 3 = 66.666...
+        assertEquals(Money.ofCents(6667), Money.ofCents(10000).scale(2, 3, RoundingMode.HALF_EVEN));
+        assertEquals(Money.ofCents(6666), Money.ofCents(10000).scale(2, 3, RoundingMode.DOWN));
+        assertEquals(Money.ofCents(-6667), Money.ofCents(-10000).scale(2, 3, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    void whenExactlyHalfwayHalfEvenRoundsToEven() {
+        assertEquals(Money.ofCents(2), Money.ofCents(5).scale(1, 2, RoundingMode.HALF_EVEN));
+        assertEquals(Money.ofCents(4), Money.ofCents(7).scale(1, 2, RoundingMode.HALF_EVEN));
+        assertEquals(Money.ofCents(4), Money.ofCents(7).scale(1, 2, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void whenProductOverflowsLongResultIsStillExact() {
+        var large = Money.ofCents(Long.MAX_VALUE / 2);
+        assertEquals(large, large.scale(Long.MAX_VALUE, Long.MAX_VALUE, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void whenDenominatorIsZeroItThrows() {
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(100).scale(1, 0, RoundingMode.HALF_EVEN));
+    }
+}
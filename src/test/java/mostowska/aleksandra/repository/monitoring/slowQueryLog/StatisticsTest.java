@@ -0,0 +1,75 @@
+package mostowska.aleksandra.repository.monitoring.slowQueryLog;
+
+import mostowska.aleksandra.repository.monitoring.SlowQueryLog;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatisticsTest {
+
+    private SlowQueryLog slowQueryLog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        slowQueryLog = new SlowQueryLog();
+        setField("thresholdMs", 100L);
+        setField("recentSize", 2);
+        setField("window", 16);
+        setField("maxFingerprints", 10);
+        slowQueryLog.init();
+    }
+
+    @Test
+    void whenInsertsDifferOnlyInValuesTheyAreAggregated() {
+        for (int i = 1; i <= 10; i++) {
+            execute("insert into expenses (amount, user_id) values (" + i + ".50, " + i + ");", i);
+        }
+
+        var statistics = slowQueryLog.statistics();
+        assertEquals(1, statistics.size());
+        var stats = statistics.get(0);
+        assertEquals("insert into expenses (amount, user_id) values (?);", stats.fingerprint());
+        assertEquals(10, stats.count());
+        assertEquals(55.0, stats.totalMs());
+        assertEquals(5.0, stats.p50Ms());
+        assertEquals(10.0, stats.p99Ms());
+        assertEquals(10.0, stats.maxMs());
+    }
+
+    @Test
+    void whenStatementsAreSlowOnlyTheMostRecentAreKept() {
+        execute("select * from users where id = 1", 150);
+        execute("select * from users where id = 2", 5);
+        execute("select * from incomes where user_id = 3", 200);
+        execute("select * from expenses where user_id = 4", 300);
+
+        var slowStatements = slowQueryLog.recentSlowStatements();
+        assertEquals(2, slowStatements.size());
+        assertEquals("select * from expenses where user_id = ?", slowStatements.get(0).fingerprint());
+        assertEquals(300.0, slowStatements.get(0).durationMs());
+        assertEquals("select * from incomes where user_id = ?", slowStatements.get(1).fingerprint());
+        assertTrue(slowQueryLog.statistics().get(0).fingerprint().startsWith("select * from expenses"));
+    }
+
+    private void execute(String sql, long millis) {
+        var context = mock(StatementContext.class);
+        when(context.getRenderedSql()).thenReturn(sql);
+        when(context.getElapsedTime(ChronoUnit.NANOS)).thenReturn(millis * 1_000_000);
+        when(context.getCompletionMoment()).thenReturn(Instant.now());
+        slowQueryLog.logAfterExecution(context);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = SlowQueryLog.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(slowQueryLog, value);
+    }
+}
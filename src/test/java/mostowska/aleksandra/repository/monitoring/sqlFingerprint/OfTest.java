@@ -0,0 +1,37 @@
+package mostowska.aleksandra.repository.monitoring.sqlFingerprint;
+
+import mostowska.aleksandra.repository.monitoring.SqlFingerprint;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OfTest {
+
+    @Test
+    void whenStatementsDifferOnlyInLiteralsTheyShareAFingerprint() {
+        assertEquals(
+                SqlFingerprint.of("select * from expenses where user_id = 1"),
+                SqlFingerprint.of("SELECT *  FROM expenses\n WHERE user_id = 42"));
+        assertEquals("select * from expenses where user_id = ?",
+                SqlFingerprint.of("select * from expenses where user_id = 42"));
+    }
+
+    @Test
+    void whenStringsContainQuotesTheyAreMaskedAsOneLiteral() {
+        assertEquals("update users set username=? where id = :id",
+                SqlFingerprint.of("update users set username='O''Brien' where id = :id"));
+    }
+
+    @Test
+    void whenInsertingSeveralRowsTheyCollapseToOne() {
+        assertEquals("insert into incomes ( income_type, amount ) values (?)",
+                SqlFingerprint.of("insert into incomes ( income_type, amount ) values ( 'SALARY', 1200.50 ), "
+                        + "( 'BONUS', 300 ), ( 'OTHER', null )"));
+    }
+
+    @Test
+    void whenIdentifiersContainDigitsTheyAreKept() {
+        assertEquals("select col1 from table_2 where id in (?)",
+                SqlFingerprint.of("select col1 from table_2 where id in (1, 2, 3)"));
+    }
+}
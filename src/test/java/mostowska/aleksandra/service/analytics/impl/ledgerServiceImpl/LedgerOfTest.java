@@ -0,0 +1,111 @@
+package mostowska.aleksandra.service.analytics.impl.ledgerServiceImpl;
+
+import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.budget.ExpenseRepository;
+import mostowska.aleksandra.repository.budget.IncomeRepository;
+import mostowska.aleksandra.service.analytics.TransactionFilter;
+import mostowska.aleksandra.service.analytics.impl.LedgerServiceImpl;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LedgerOfTest {
+
+    private LedgerServiceImpl ledgerService;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private IncomeRepository incomeRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ledgerService = new LedgerServiceImpl(expenseRepository, incomeRepository, userVersionService, metricsService);
+        setField("maxUsers", 10);
+        setField("maxAgeMs", 60_000L);
+        when(incomeRepository.findAllForUserIdAfterId(1L, 0L)).thenReturn(List.of());
+        when(incomeRepository.countForUserId(1L)).thenReturn(0L);
+    }
+
+    @Test
+    void whenVersionIsUnchangedSnapshotIsReused() {
+        when(userVersionService.currentVersion(1L)).thenReturn(1L);
+        when(expenseRepository.findAllForUserIdAfterId(1L, 0L)).thenReturn(List.of(expense(1L, 100)));
+        when(expenseRepository.countForUserId(1L)).thenReturn(1L);
+
+        var first = ledgerService.ledgerOf(1L);
+        var second = ledgerService.ledgerOf(1L);
+
+        assertSame(first, second);
+        verify(expenseRepository, times(1)).findAllForUserIdAfterId(1L, 0L);
+    }
+
+    @Test
+    void whenExpenseIsAddedOnlyNewRowsAreLoaded() {
+        when(userVersionService.currentVersion(1L)).thenReturn(1L, 2L);
+        when(expenseRepository.findAllForUserIdAfterId(1L, 0L)).thenReturn(List.of(expense(1L, 100)));
+        when(expenseRepository.findAllForUserIdAfterId(1L, 1L)).thenReturn(List.of(expense(2L, 250)));
+        when(expenseRepository.countForUserId(1L)).thenReturn(1L, 2L);
+
+        ledgerService.ledgerOf(1L);
+        var ledger = ledgerService.ledgerOf(1L);
+
+        assertEquals(350, ledger.expenses().sum(TransactionFilter.all()));
+        verify(expenseRepository, times(1)).findAllForUserIdAfterId(1L, 0L);
+    }
+
+    @Test
+    void whenExpenseIsDeletedSnapshotIsReloaded() {
+        when(userVersionService.currentVersion(1L)).thenReturn(1L, 2L);
+        when(expenseRepository.findAllForUserIdAfterId(1L, 0L))
+                .thenReturn(List.of(expense(1L, 100), expense(2L, 250)), List.of(expense(2L, 250)));
+        when(expenseRepository.findAllForUserIdAfterId(1L, 2L)).thenReturn(List.of());
+        when(expenseRepository.countForUserId(1L)).thenReturn(2L, 1L);
+
+        ledgerService.ledgerOf(1L);
+        var ledger = ledgerService.ledgerOf(1L);
+
+        assertEquals(250, ledger.expenses().sum(TransactionFilter.all()));
+        assertEquals(1, ledger.expenses().size());
+    }
+
+    private static Expense expense(Long id, long cents) {
+        return Expense.builder()
+                .id(id)
+                .expenseType(ExpenseType.GROCERIES)
+                .amount(Money.ofCents(cents))
+                .frequency(Frequency.ONCE)
+                .occurredAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(id))
+                .userId(1L)
+                .build();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = LedgerServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(ledgerService, value);
+    }
+}
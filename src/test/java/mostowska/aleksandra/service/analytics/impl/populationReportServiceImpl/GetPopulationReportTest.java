@@ -0,0 +1,104 @@
+package mostowska.aleksandra.service.analytics.impl.populationReportServiceImpl;
+
+import mostowska.aleksandra.model.BudgetTotals;
+import mostowska.aleksandra.model.CategoryTotals;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.PopulationReportRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.impl.PopulationReportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GetPopulationReportTest {
+
+    private PopulationReportServiceImpl populationReportService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PopulationReportRepository populationReportRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        populationReportService = new PopulationReportServiceImpl(userRepository, populationReportRepository);
+        setField("parallelism", 2);
+        setField("partitionUsers", 2);
+        populationReportService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationReportService.stop();
+    }
+
+    @Test
+    void whenUsersSpanSeveralPartitionsTheirAggregatesAreMerged() {
+        when(userRepository.findMaxId()).thenReturn(7L);
+        // Every partition holds one user with a budget of -1.00 and a rent expense of 10.00
+        when(populationReportRepository.sumBudgets(anyLong(), anyLong()))
+                .thenReturn(new BudgetTotals(1, 1, 1, 0, Money.ofCents(-100), Money.ofCents(200)));
+        doAnswer(invocation -> {
+            Consumer<CategoryTotals> action = invocation.getArgument(3);
+            action.accept(new CategoryTotals(TransactionKind.EXPENSE, "RENT", Money.ofCents(1_000), 2, 1));
+            if (invocation.<Long>getArgument(1) == 0L) {
+                action.accept(new CategoryTotals(TransactionKind.EXPENSE, "GROCERIES", Money.ofCents(4_000), 1, 1));
+            }
+            return null;
+        }).when(populationReportRepository).forEachCategoryTotals(eq(TransactionKind.EXPENSE), anyLong(), anyLong(),
+                any());
+
+        var report = populationReportService.getPopulationReport();
+
+        // IDs 0 to 7 in partitions of two
+        verify(populationReportRepository, times(4)).sumBudgets(anyLong(), anyLong());
+        assertEquals(4, report.users());
+        assertEquals(4, report.negativeBudgetUsers());
+        assertEquals(new BigDecimal("-4.00"), report.totalBudget());
+        assertEquals(new BigDecimal("80.00"), report.totalExpenses());
+        assertEquals(2, report.expensesByType().size());
+        // Ordered like ExpenseType, where GROCERIES comes before RENT
+        assertEquals("GROCERIES", report.expensesByType().get(0).category());
+        assertEquals(1, report.expensesByType().get(0).users());
+        var rent = report.expensesByType().get(1);
+        assertEquals(new BigDecimal("40.00"), rent.total());
+        assertEquals(8, rent.count());
+        assertEquals(4, rent.users());
+        assertEquals(new BigDecimal("0.5000"), rent.share());
+    }
+
+    @Test
+    void whenThereAreNoIncomesTheirTotalIsZero() {
+        when(userRepository.findMaxId()).thenReturn(0L);
+        when(populationReportRepository.sumBudgets(0L, 1L)).thenReturn(BudgetTotals.ZERO);
+
+        var report = populationReportService.getPopulationReport();
+
+        assertEquals(0, report.users());
+        assertEquals(new BigDecimal("0.00"), report.totalIncomes());
+        assertEquals(0, report.incomesByType().size());
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = PopulationReportServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(populationReportService, value);
+    }
+}
@@ -0,0 +1,83 @@
+package mostowska.aleksandra.service.analytics.impl.rollupServiceImpl;
+
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import mostowska.aleksandra.model.MonthlyRollup;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.MonthlyRollupRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.impl.RollupServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class GetMonthlyTrendTest {
+
+    @InjectMocks
+    private RollupServiceImpl rollupService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+    }
+
+    @Test
+    void whenMonthsHaveNoRollupsTheyAreReportedAsZero() {
+        when(monthlyRollupRepository.sumByMonth(1L, TransactionKind.EXPENSE,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 1)))
+                .thenReturn(List.of(
+                        rollup(LocalDate.of(2025, 1, 1), 10_000, 3),
+                        rollup(LocalDate.of(2025, 3, 1), 2_550, 1)));
+
+        var trend = rollupService.getMonthlyTrend(1L, TransactionKind.EXPENSE,
+                YearMonth.of(2025, 1), YearMonth.of(2025, 3));
+
+        assertEquals(3, trend.size());
+        assertEquals(YearMonth.of(2025, 2), trend.get(1).month());
+        assertEquals(new BigDecimal("0.00"), trend.get(1).total());
+        assertEquals(0, trend.get(1).count());
+        assertNull(trend.get(0).change());
+        assertEquals(new BigDecimal("-100.00"), trend.get(1).change());
+        assertEquals(new BigDecimal("25.50"), trend.get(2).change());
+    }
+
+    @Test
+    void whenPeriodEndsBeforeItStartsValidationExceptionIsThrown() {
+        assertThrows(ValidationException.class, () -> rollupService.getMonthlyTrend(1L, TransactionKind.EXPENSE,
+                YearMonth.of(2025, 3), YearMonth.of(2025, 1)));
+    }
+
+    @Test
+    void whenUserDoesNotExistNotFoundExceptionIsThrown() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> rollupService.getMonthlyTrend(2L, TransactionKind.INCOME,
+                YearMonth.of(2025, 1), YearMonth.of(2025, 3)));
+    }
+
+    private static MonthlyRollup rollup(LocalDate monthStart, long cents, long count) {
+        return new MonthlyRollup(1L, TransactionKind.EXPENSE, monthStart, null, Money.ofCents(cents), count);
+    }
+}
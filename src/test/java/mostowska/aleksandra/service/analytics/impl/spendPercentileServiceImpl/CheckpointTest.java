@@ -0,0 +1,89 @@
+package mostowska.aleksandra.service.analytics.impl.spendPercentileServiceImpl;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.analytics.ExpenseSketchRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.LedgerService;
+import mostowska.aleksandra.service.analytics.QuantileSketch;
+import mostowska.aleksandra.service.analytics.impl.SpendPercentileServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CheckpointTest {
+
+    private SpendPercentileServiceImpl spendPercentileService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ExpenseSketchRepository expenseSketchRepository;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        spendPercentileService = new SpendPercentileServiceImpl(userRepository, ledgerService,
+                expenseSketchRepository, transactionManager);
+        var field = SpendPercentileServiceImpl.class.getDeclaredField("k");
+        field.setAccessible(true);
+        field.set(spendPercentileService, 200);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(expenseSketchRepository.findAll()).thenReturn(Map.of());
+    }
+
+    @Test
+    void whenSketchIsStoredRecordedExpensesAreMergedIntoIt() {
+        var stored = new QuantileSketch(200);
+        stored.update(1_000);
+        when(expenseSketchRepository.findForUpdate("GROCERIES")).thenReturn(Optional.of(stored.toBytes()));
+        spendPercentileService.record(ExpenseType.GROCERIES, Money.ofCents(3_000));
+        spendPercentileService.record(ExpenseType.GROCERIES, Money.ofCents(5_000));
+
+        spendPercentileService.checkpoint();
+
+        var saved = ArgumentCaptor.forClass(byte[].class);
+        verify(expenseSketchRepository).save(eq("GROCERIES"), saved.capture());
+        var merged = QuantileSketch.fromBytes(saved.getValue());
+        assertEquals(3, merged.count());
+        assertEquals(3_000, merged.quantile(0.5));
+    }
+
+    @Test
+    void whenCheckpointFailsRecordedExpensesAreKeptForTheNextOne() {
+        when(expenseSketchRepository.findForUpdate("RENT"))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenReturn(Optional.empty());
+        spendPercentileService.record(ExpenseType.RENT, Money.ofCents(100_000));
+
+        assertThrows(IllegalStateException.class, () -> spendPercentileService.checkpoint());
+        spendPercentileService.checkpoint();
+
+        var saved = ArgumentCaptor.forClass(byte[].class);
+        verify(expenseSketchRepository, times(1)).save(eq("RENT"), saved.capture());
+        assertEquals(1, QuantileSketch.fromBytes(saved.getValue()).count());
+    }
+}
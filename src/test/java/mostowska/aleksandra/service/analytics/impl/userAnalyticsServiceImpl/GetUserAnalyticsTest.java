@@ -0,0 +1,114 @@
+package mostowska.aleksandra.service.analytics.impl.userAnalyticsServiceImpl;
+
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.analytics.LedgerService;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
+import mostowska.aleksandra.service.analytics.UserLedger;
+import mostowska.aleksandra.service.analytics.impl.UserAnalyticsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class GetUserAnalyticsTest {
+
+    private UserAnalyticsServiceImpl userAnalyticsService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        userAnalyticsService = new UserAnalyticsServiceImpl(userRepository, ledgerService);
+        setField("parallelism", 2);
+        setField("parallelRows", 50_000);
+        userAnalyticsService.start();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(ledgerService.ledgerOf(1L)).thenReturn(new UserLedger(
+                TransactionColumns.empty(ExpenseType.class).appender()
+                        .append(1, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(100_000), LocalDate.of(2024, 12, 1))
+                        .append(2, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(100_000), LocalDate.of(2025, 1, 1))
+                        .append(3, ExpenseType.GIFTS, Frequency.ONCE, Money.ofCents(5_000), LocalDate.of(2025, 1, 20))
+                        .append(4, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(100_000), LocalDate.of(2025, 3, 1))
+                        .build(),
+                TransactionColumns.empty(IncomeType.class).appender()
+                        .append(1, IncomeType.SALARY, Frequency.MONTHLY, Money.ofCents(300_000), LocalDate.of(2025, 1, 10))
+                        .append(2, IncomeType.SALARY, Frequency.MONTHLY, Money.ofCents(300_000), LocalDate.of(2025, 3, 10))
+                        .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userAnalyticsService.stop();
+    }
+
+    @Test
+    void whenPeriodIsGivenOnlyItsTransactionsAreSummarized() {
+        var analytics = userAnalyticsService.getUserAnalytics(1L, YearMonth.of(2025, 1), YearMonth.of(2025, 3));
+
+        assertEquals(new BigDecimal("2050.00"), analytics.totalExpenses());
+        assertEquals(new BigDecimal("6000.00"), analytics.totalIncomes());
+        assertEquals(new BigDecimal("0.6583"), analytics.savingsRate());
+        assertEquals(2, analytics.expensesByType().size());
+        assertEquals("RENT", analytics.expensesByType().get(0).category());
+        assertEquals(new BigDecimal("2000.00"), analytics.expensesByType().get(0).total());
+        assertEquals(2, analytics.expensesByType().get(0).count());
+        assertEquals("SALARY", analytics.incomesByType().get(0).category());
+        assertEquals(3, analytics.trend().size());
+        assertEquals(new BigDecimal("0.00"), analytics.trend().get(1).net());
+        assertEquals(new BigDecimal("1950.00"), analytics.trend().get(0).net());
+    }
+
+    @Test
+    void whenAggregationsRunInParallelResultIsTheSame() throws Exception {
+        var sequential = userAnalyticsService.getUserAnalytics(1L, YearMonth.of(2024, 12), YearMonth.of(2025, 3));
+        setField("parallelRows", 0);
+
+        var parallel = userAnalyticsService.getUserAnalytics(1L, YearMonth.of(2024, 12), YearMonth.of(2025, 3));
+
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void whenThereAreNoIncomesSavingsRateIsNull() {
+        var analytics = userAnalyticsService.getUserAnalytics(1L, YearMonth.of(2024, 12), YearMonth.of(2024, 12));
+
+        assertNull(analytics.savingsRate());
+        assertEquals(0, analytics.incomesByType().size());
+    }
+
+    @Test
+    void whenUserDoesNotExistNotFoundExceptionIsThrown() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> userAnalyticsService.getUserAnalytics(2L,
+                YearMonth.of(2025, 1), YearMonth.of(2025, 3)));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = UserAnalyticsServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(userAnalyticsService, value);
+    }
+}
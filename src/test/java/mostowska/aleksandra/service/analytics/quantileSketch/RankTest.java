@@ -0,0 +1,55 @@
+package mostowska.aleksandra.service.analytics.quantileSketch;
+
+import mostowska.aleksandra.service.analytics.QuantileSketch;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RankTest {
+
+    @Test
+    void whenManyValuesAreAddedRanksStayWithinTheErrorBound() {
+        var sketch = new QuantileSketch(200);
+        // The values 0 to 999,999 in a scrambled order
+        for (long i = 0; i < 1_000_000; i++) {
+            sketch.update(i * 7_919 % 1_000_000);
+        }
+
+        assertEquals(1_000_000, sketch.count());
+        assertEquals(0.25, sketch.rank(250_000), 0.02);
+        assertEquals(0.72, sketch.rank(720_000), 0.02);
+        assertEquals(900_000, sketch.quantile(0.9), 20_000);
+        assertTrue(sketch.toBytes().length < 16_000);
+    }
+
+    @Test
+    void whenSketchesAreMergedTheyRankLikeOneOfBothStreams() {
+        var lower = new QuantileSketch(200);
+        var upper = new QuantileSketch(200);
+        for (long i = 0; i < 100_000; i++) {
+            lower.update(i);
+            upper.update(100_000 + i);
+        }
+
+        lower.merge(upper);
+
+        assertEquals(200_000, lower.count());
+        assertEquals(0.5, lower.rank(100_000), 0.02);
+        assertEquals(100_000, upper.count());
+    }
+
+    @Test
+    void whenSketchIsSerializedItIsReadBackUnchanged() {
+        var sketch = new QuantileSketch(50);
+        for (long i = 0; i < 10_000; i++) {
+            sketch.update(i);
+        }
+
+        var read = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.count(), read.count());
+        assertEquals(sketch.rank(5_000), read.rank(5_000));
+        assertEquals(sketch.quantile(0.5), read.quantile(0.5));
+    }
+}
@@ -0,0 +1,44 @@
+package mostowska.aleksandra.service.analytics.transactionColumns;
+
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
+import mostowska.aleksandra.service.analytics.TransactionFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class SumByMonthTest {
+
+    @Test
+    void whenMonthsHaveNoRowsTheirTotalsAreZero() {
+        var columns = TransactionColumns.empty(ExpenseType.class).appender()
+                .append(1, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(100), LocalDate.of(2024, 12, 31))
+                .append(2, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(200), LocalDate.of(2025, 1, 1))
+                .append(3, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(400), LocalDate.of(2025, 1, 31))
+                .append(4, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(800), LocalDate.of(2025, 3, 1))
+                .append(5, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(1600), LocalDate.of(2025, 4, 1))
+                .build();
+
+        assertArrayEquals(new long[]{600, 0, 800},
+                columns.sumByMonth(TransactionFilter.all(), YearMonth.of(2025, 1), 3));
+    }
+
+    @Test
+    void whenPeriodStartsMidMonthEarlierRowsAreLeftOut() {
+        var columns = TransactionColumns.empty(ExpenseType.class).appender()
+                .append(1, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(100), LocalDate.of(2025, 1, 5))
+                .append(2, ExpenseType.GIFTS, Frequency.ONCE, Money.ofCents(200), LocalDate.of(2025, 1, 20))
+                .append(3, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(400), LocalDate.of(2025, 2, 5))
+                .build();
+
+        var filter = TransactionFilter.all()
+                .between(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 3, 1))
+                .withCategories(ExpenseType.RENT, ExpenseType.GIFTS);
+        assertArrayEquals(new long[]{200, 400}, columns.sumByMonth(filter, YearMonth.of(2025, 1), 2));
+    }
+}
@@ -0,0 +1,66 @@
+package mostowska.aleksandra.service.analytics.transactionColumns;
+
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.service.analytics.TransactionColumns;
+import mostowska.aleksandra.service.analytics.TransactionFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SumTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void whenFilteringByPeriodAndCategoryOnlyMatchingRowsAreSummed() {
+        var columns = TransactionColumns.empty(ExpenseType.class).appender()
+                .append(1, ExpenseType.GROCERIES, Frequency.WEEKLY, Money.ofCents(1000), DAY)
+                .append(2, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(50000), DAY.plusDays(1))
+                .append(3, ExpenseType.GROCERIES, Frequency.ONCE, Money.ofCents(250), DAY.plusDays(2))
+                .build();
+
+        assertEquals(51250, columns.sum(TransactionFilter.all()));
+        assertEquals(1250, columns.sum(TransactionFilter.all().withCategories(ExpenseType.GROCERIES)));
+        assertEquals(50250, columns.sum(TransactionFilter.all().between(DAY.plusDays(1), DAY.plusDays(3))));
+        assertEquals(250, columns.sum(TransactionFilter.all()
+                .withCategories(ExpenseType.GROCERIES)
+                .withFrequencies(Frequency.ONCE)));
+        assertEquals(2, columns.count(TransactionFilter.all().withCategories(ExpenseType.GROCERIES)));
+    }
+
+    @Test
+    void whenRowsArriveOutOfOrderPeriodsAreStillFound() {
+        var columns = TransactionColumns.empty(ExpenseType.class).appender()
+                .append(1, ExpenseType.GROCERIES, Frequency.ONCE, Money.ofCents(100), DAY.plusDays(5))
+                .append(2, ExpenseType.GROCERIES, Frequency.ONCE, Money.ofCents(200), DAY)
+                .build()
+                .appender()
+                .append(3, ExpenseType.GROCERIES, Frequency.ONCE, Money.ofCents(400), DAY.minusDays(5))
+                .build();
+
+        assertEquals(3, columns.maxId());
+        assertEquals(600, columns.sum(TransactionFilter.all().between(DAY.minusDays(5), DAY.plusDays(1))));
+        assertEquals(100, columns.sum(TransactionFilter.all().between(DAY.plusDays(1), DAY.plusDays(10))));
+    }
+
+    @Test
+    void whenSnapshotIsExtendedItKeepsItsOwnRows() {
+        var first = TransactionColumns.empty(ExpenseType.class).appender()
+                .append(1, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(100), DAY)
+                .build();
+        var second = first.appender()
+                .append(2, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(200), DAY.plusDays(1))
+                .build();
+        // Only the first appender may write into the shared arrays; this one must not overwrite row 2
+        var third = first.appender()
+                .append(3, ExpenseType.RENT, Frequency.MONTHLY, Money.ofCents(400), DAY.plusDays(1))
+                .build();
+
+        assertEquals(100, first.sum(TransactionFilter.all()));
+        assertEquals(300, second.sum(TransactionFilter.all()));
+        assertEquals(500, third.sum(TransactionFilter.all()));
+    }
+}
@@ -4,17 +4,17 @@ import mostowska.aleksandra.model.Expense;
 import mostowska.aleksandra.model.User;
 import mostowska.aleksandra.model.utils.ExpenseType;
 import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.budget.ExpenseRepository;
 import mostowska.aleksandra.repository.user.UserRepository;
-import mostowska.aleksandra.service.user.UserService;
 import mostowska.aleksandra.service.budget.impl.ExpenseServiceImpl;
+import mostowska.aleksandra.service.user.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -49,7 +49,7 @@ public class GetExpensesByUserIdTest {
                 .expenseType(ExpenseType.CUSTOM)
                 .customExpenseType("Custom Expense 1")
                 .description("Expense 1")
-                .amount(BigDecimal.valueOf(50.00))
+                .amount(Money.ofCents(5000))
                 .frequency(Frequency.MONTHLY)
                 .customFrequency(null)
                 .userId(userId)
@@ -59,7 +59,7 @@ public class GetExpensesByUserIdTest {
                 .expenseType(ExpenseType.CUSTOM)
                 .customExpenseType("Custom Expense 2")
                 .description("Expense 2")
-                .amount(BigDecimal.valueOf(25.00))
+                .amount(Money.ofCents(2500))
                 .frequency(Frequency.MONTHLY)
                 .customFrequency(null)
                 .userId(userId)
@@ -69,7 +69,7 @@ public class GetExpensesByUserIdTest {
                 .expenseType(ExpenseType.CUSTOM)
                 .customExpenseType("Custom Expense 3")
                 .description("Expense 3")
-                .amount(BigDecimal.valueOf(30.00))
+                .amount(Money.ofCents(3000))
                 .frequency(Frequency.MONTHLY)
                 .customFrequency(null)
                 .userId(userId)
@@ -0,0 +1,82 @@
+package mostowska.aleksandra.service.budget.impl.expenseServiceImpl;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.MonthlyRollup;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.TransactionKind;
+import mostowska.aleksandra.repository.analytics.MonthlyRollupRepository;
+import mostowska.aleksandra.repository.budget.ExpenseRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.budget.impl.ExpenseServiceImpl;
+import mostowska.aleksandra.service.user.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+public class RemoveExpenseTest {
+
+    @InjectMocks
+    private ExpenseServiceImpl expenseService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    private final Expense expense = Expense.builder()
+            .id(7L)
+            .expenseType(ExpenseType.GROCERIES)
+            .amount(Money.ofCents(4_250))
+            .frequency(Frequency.ONCE)
+            .occurredAt(LocalDateTime.of(2025, 3, 14, 18, 30))
+            .userId(1L)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(expenseRepository.findById(7L)).thenReturn(Optional.of(expense));
+        when(expenseRepository.delete(7L)).thenReturn(expense);
+    }
+
+    @Test
+    void whenExpenseIsRemovedItsMonthlyRollupIsReducedInTheSameTransaction() {
+        expenseService.removeExpense(7L, 1L);
+
+        InOrder order = inOrder(transactionManager, expenseRepository, monthlyRollupRepository, userService);
+        order.verify(transactionManager).inTransaction(any());
+        order.verify(expenseRepository).delete(7L);
+        order.verify(monthlyRollupRepository).add(new MonthlyRollup(1L, TransactionKind.EXPENSE,
+                LocalDate.of(2025, 3, 1), "GROCERIES", Money.ofCents(-4_250), -1));
+        order.verify(userService).addToBudget(1L, Money.ofCents(4_250));
+    }
+}
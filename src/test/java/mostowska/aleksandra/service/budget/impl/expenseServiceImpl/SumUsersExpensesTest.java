@@ -2,12 +2,13 @@ package mostowska.aleksandra.service.budget.impl.expenseServiceImpl;
 
 import mostowska.aleksandra.model.Expense;
 import mostowska.aleksandra.model.User;
-import mostowska.aleksandra.model.utils.Frequency;
 import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.Frequency;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.budget.ExpenseRepository;
 import mostowska.aleksandra.repository.user.UserRepository;
-import mostowska.aleksandra.service.user.UserService;
 import mostowska.aleksandra.service.budget.impl.ExpenseServiceImpl;
+import mostowska.aleksandra.service.user.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,12 +16,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SumUsersExpensesTest {
@@ -49,7 +53,7 @@ public class SumUsersExpensesTest {
                         .expenseType(ExpenseType.CUSTOM)
                 .customExpenseType("Custom Expense 1")
                 .description("Expense 1")
-                .amount(BigDecimal.valueOf(50.00))
+                .amount(Money.ofCents(5000))
                 .frequency(Frequency.MONTHLY)
                 .customFrequency(null)
                 .userId(userId)
@@ -59,7 +63,7 @@ public class SumUsersExpensesTest {
                 .expenseType(ExpenseType.CUSTOM)
                 .customExpenseType("Custom Expense 2")
                 .description("Expense 2")
-                .amount(BigDecimal.valueOf(25.00))
+                .amount(Money.ofCents(2500))
                 .frequency(Frequency.MONTHLY)
                 .customFrequency(null)
                 .userId(userId)
@@ -69,7 +73,7 @@ public class SumUsersExpensesTest {
                 .expenseType(ExpenseType.CUSTOM)
                 .customExpenseType("Custom Expense 3")
                 .description("Expense 3")
-                .amount(BigDecimal.valueOf(30.00))
+                .amount(Money.ofCents(3000))
                 .frequency(Frequency.MONTHLY)
                 .customFrequency(null)
                 .userId(userId)
@@ -80,14 +84,24 @@ public class SumUsersExpensesTest {
     void whenUserHasExpenses() {
         when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
         when(expenseRepository.findAllForUserId(userId)).thenReturn(expenses);
-        assertEquals(BigDecimal.valueOf(105.00), expenseService.sumUsersExpenses(userId));
+        assertEquals(new BigDecimal("105.00"), expenseService.sumUsersExpenses(userId));
     }
 
     @Test
     void whenUserHasNoExpenses() {
         when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
         when(expenseRepository.findAllForUserId(userId)).thenReturn(new ArrayList<>());
-        assertEquals(BigDecimal.ZERO, expenseService.sumUsersExpenses(userId));
+        assertEquals(new BigDecimal("0.00"), expenseService.sumUsersExpenses(userId));
+    }
+
+    @Test
+    void whenPeriodIsGivenOnlyItsExpensesAreSummed() {
+        var from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        var to = LocalDateTime.of(2025, 4, 1, 0, 0);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(expenseRepository.sumForUserIdBetween(userId, from, to)).thenReturn(Money.ofCents(2500));
+        assertEquals(new BigDecimal("25.00"), expenseService.sumUsersExpenses(userId, from, to));
+        verify(expenseRepository, never()).findAllForUserId(userId);
     }
 
     @Test
@@ -0,0 +1,170 @@
+package mostowska.aleksandra.service.email.impl.emailOutboxDispatcher;
+
+import mostowska.aleksandra.model.OutboxEmail;
+import mostowska.aleksandra.repository.email.EmailOutboxRepository;
+import mostowska.aleksandra.service.email.EmailTransport;
+import mostowska.aleksandra.service.email.impl.EmailOutboxDispatcher;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DispatchBatchTest {
+
+    private EmailOutboxDispatcher dispatcher;
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private EmailTransport emailTransport;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, emailTransport, metricsService);
+        setField("batchSize", 10);
+        setField("maxAttempts", 3);
+        setField("backoffInitialMs", 1000L);
+        setField("backoffMaxMs", 60000L);
+        setField("leaseMs", 300000L);
+        setField("maxPerSecond", 0);
+    }
+
+    @Test
+    void whenOutboxIsEmptyNothingIsSent() {
+        when(emailOutboxRepository.claimBatch(anyString(), anyInt(), any(), any())).thenReturn(List.of());
+
+        assertEquals(0, dispatcher.dispatchBatch());
+        verify(emailTransport, never()).sendBatch(any());
+    }
+
+    @Test
+    void whenAllEmailsAreDeliveredTheyAreMarkedSentTogether() {
+        when(emailOutboxRepository.claimBatch(anyString(), eq(10), any(), any()))
+                .thenReturn(List.of(email(1L, 0), email(2L, 0)));
+        when(emailTransport.sendBatch(any())).thenReturn(Map.of());
+
+        assertEquals(2, dispatcher.dispatchBatch());
+        var claimToken = claimToken();
+        verify(emailOutboxRepository).markSent(eq(claimToken), eq(List.of(1L, 2L)), any());
+        verify(emailOutboxRepository, never()).scheduleRetry(any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void whenDeliveryFailsTheEmailIsRetriedWithBackoff() {
+        when(emailOutboxRepository.claimBatch(anyString(), anyInt(), any(), any()))
+                .thenReturn(List.of(email(1L, 0), email(2L, 1)));
+        when(emailTransport.sendBatch(any())).thenReturn(Map.of(2L, "Connection refused"));
+
+        var before = LocalDateTime.now();
+        dispatcher.dispatchBatch();
+        var after = LocalDateTime.now();
+
+        // Second attempt failed: 1000 ms doubled, of which the upper half is randomized
+        var nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        var claimToken = claimToken();
+        verify(emailOutboxRepository).scheduleRetry(eq(claimToken), eq(2L), eq(2), nextAttemptAt.capture(),
+                eq("Connection refused"));
+        assertFalse(nextAttemptAt.getValue().isBefore(before.plusNanos(1000 * 1_000_000L)));
+        assertFalse(nextAttemptAt.getValue().isAfter(after.plusNanos(2000 * 1_000_000L)));
+        verify(emailOutboxRepository).markSent(eq(claimToken), eq(List.of(1L)), any());
+    }
+
+    @Test
+    void whenLastAttemptFailsTheEmailIsGivenUp() {
+        when(emailOutboxRepository.claimBatch(anyString(), anyInt(), any(), any()))
+                .thenReturn(List.of(email(1L, 2)));
+        when(emailTransport.sendBatch(any())).thenReturn(Map.of(1L, "Mailbox unavailable"));
+
+        dispatcher.dispatchBatch();
+
+        var claimToken = claimToken();
+        verify(emailOutboxRepository).markFailed(claimToken, 1L, 3, "Mailbox unavailable");
+        verify(emailOutboxRepository, never()).scheduleRetry(any(), any(), anyInt(), any(), any());
+        var sent = ArgumentCaptor.forClass(List.class);
+        verify(emailOutboxRepository).markSent(eq(claimToken), sent.capture(), any());
+        assertTrue(sent.getValue().isEmpty());
+    }
+
+    @Test
+    void whenTheClaimWasLostTheOutcomesOfTheNextClaimAreKept() {
+        when(emailOutboxRepository.claimBatch(anyString(), anyInt(), any(), any()))
+                .thenReturn(List.of(email(1L, 0), email(2L, 0), email(3L, 2)));
+        when(emailTransport.sendBatch(any())).thenReturn(Map.of(2L, "Connection refused", 3L, "Mailbox unavailable"));
+        when(emailOutboxRepository.markSent(anyString(), any(), any())).thenReturn(0);
+        when(emailOutboxRepository.scheduleRetry(anyString(), any(), anyInt(), any(), any())).thenReturn(false);
+        when(emailOutboxRepository.markFailed(anyString(), any(), anyInt(), any())).thenReturn(false);
+
+        assertEquals(3, dispatcher.dispatchBatch());
+
+        var claimToken = claimToken();
+        verify(emailOutboxRepository).markSent(eq(claimToken), eq(List.of(1L)), any());
+        verify(emailOutboxRepository).scheduleRetry(eq(claimToken), eq(2L), eq(1), any(), eq("Connection refused"));
+        verify(emailOutboxRepository).markFailed(claimToken, 3L, 3, "Mailbox unavailable");
+    }
+
+    @Test
+    void whenAnEmailWasClaimedTooOftenItIsGivenUpWithoutSending() {
+        // Claimed again after two claims expired, which counted as attempts
+        when(emailOutboxRepository.claimBatch(anyString(), anyInt(), any(), any()))
+                .thenReturn(List.of(email(1L, 3), email(2L, 0)));
+        when(emailTransport.sendBatch(any())).thenReturn(Map.of());
+        when(emailOutboxRepository.markFailed(anyString(), any(), anyInt(), any())).thenReturn(true);
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        var claimToken = claimToken();
+        verify(emailOutboxRepository).markFailed(eq(claimToken), eq(1L), eq(3), anyString());
+        verify(emailTransport).sendBatch(List.of(email(2L, 0)));
+        verify(emailOutboxRepository).markSent(eq(claimToken), eq(List.of(2L)), any());
+    }
+
+    @Test
+    void whenEveryEmailWasClaimedTooOftenNothingIsSent() {
+        when(emailOutboxRepository.claimBatch(anyString(), anyInt(), any(), any()))
+                .thenReturn(List.of(email(1L, 4)));
+
+        assertEquals(1, dispatcher.dispatchBatch());
+
+        var claimToken = claimToken();
+        verify(emailOutboxRepository).markFailed(eq(claimToken), eq(1L), eq(4), anyString());
+        verify(emailTransport, never()).sendBatch(any());
+    }
+
+    private String claimToken() {
+        var claimToken = ArgumentCaptor.forClass(String.class);
+        verify(emailOutboxRepository).claimBatch(claimToken.capture(), anyInt(), any(), any());
+        return claimToken.getValue();
+    }
+
+    private static OutboxEmail email(Long id, int attempts) {
+        return new OutboxEmail(id, "user" + id + "@example.com", "Activate your account", "<p>Hi</p>", attempts);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = EmailOutboxDispatcher.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(dispatcher, value);
+    }
+}
@@ -0,0 +1,54 @@
+package mostowska.aleksandra.service.email.template.emailTemplate;
+
+import mostowska.aleksandra.service.email.template.EmailTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RenderTest {
+
+    private final EmailTemplate template = EmailTemplate.compile("greeting", """
+            Subject: Hello {{name}}
+
+            <p>Hello {{ name }}, see <a href="{{url}}">your budget</a>.</p>
+            """);
+
+    @Test
+    void whenValuesAreGivenTheyFillThePlaceholders() {
+        var email = template.render(Map.of("name", "Ola", "url", "https://example.com/users/1"));
+
+        assertEquals("Hello Ola", email.subject());
+        assertEquals("<p>Hello Ola, see <a href=\"https://example.com/users/1\">your budget</a>.</p>\n",
+                email.htmlContent());
+    }
+
+    @Test
+    void whenValuesContainMarkupTheyAreEscapedInTheBodyOnly() {
+        var email = template.render(Map.of("name", "<b>Tom & \"Jerry\"</b>", "url", "x"));
+
+        assertEquals("Hello <b>Tom & \"Jerry\"</b>", email.subject());
+        assertEquals("<p>Hello &lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt;, see <a href=\"x\">your budget</a>.</p>\n",
+                email.htmlContent());
+    }
+
+    @Test
+    void whenRenderedRepeatedlyTheBufferDoesNotLeakBetweenEmails() {
+        template.render(Map.of("name", "a".repeat(100_000), "url", "x"));
+        var email = template.render(Map.of("name", "Ola", "url", "x"));
+
+        assertEquals("<p>Hello Ola, see <a href=\"x\">your budget</a>.</p>\n", email.htmlContent());
+    }
+
+    @Test
+    void whenValueIsMissingRenderFails() {
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("name", "Ola")));
+    }
+
+    @Test
+    void whenSubjectLineIsMissingCompileFails() {
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("broken", "<p>Hi</p>"));
+    }
+}
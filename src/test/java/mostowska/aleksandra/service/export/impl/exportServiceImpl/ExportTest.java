@@ -0,0 +1,300 @@
+package mostowska.aleksandra.service.export.impl.exportServiceImpl;
+
+import com.google.gson.GsonBuilder;
+import mostowska.aleksandra.api.transformer.ResponseCompressor;
+import mostowska.aleksandra.config.adapter.DtoTypeAdapterFactory;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import mostowska.aleksandra.model.Expense;
+import mostowska.aleksandra.model.Income;
+import mostowska.aleksandra.model.Investment;
+import mostowska.aleksandra.model.SavingsGoal;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.AssetType;
+import mostowska.aleksandra.model.utils.ExpenseType;
+import mostowska.aleksandra.model.utils.IncomeType;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.model.utils.SavingsGoalType;
+import mostowska.aleksandra.repository.budget.ExpenseRepository;
+import mostowska.aleksandra.repository.budget.IncomeRepository;
+import mostowska.aleksandra.repository.budget.InvestmentRepository;
+import mostowska.aleksandra.repository.budget.SavingsGoalRepository;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.export.ExportFormat;
+import mostowska.aleksandra.service.export.ExportService;
+import mostowska.aleksandra.service.export.impl.ExportServiceImpl;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Stubber;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExportTest {
+
+    private ExportServiceImpl exportService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private IncomeRepository incomeRepository;
+
+    @Mock
+    private InvestmentRepository investmentRepository;
+
+    @Mock
+    private SavingsGoalRepository savingsGoalRepository;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        var gson = new GsonBuilder().registerTypeAdapterFactory(new DtoTypeAdapterFactory()).create();
+        exportService = new ExportServiceImpl(userRepository, expenseRepository, incomeRepository,
+                investmentRepository, savingsGoalRepository, gson);
+        setField("fetchSize", 100);
+        setField("flushRows", 2);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+
+        stream(List.of(
+                Expense.builder().id(10L).expenseType(ExpenseType.GROCERIES).description("Milk, \"fresh\"")
+                        .amount(Money.of(new BigDecimal("4.50"))).occurredAt(LocalDateTime.of(2024, 3, 1, 9, 30))
+                        .userId(1L).build(),
+                Expense.builder().id(11L).expenseType(ExpenseType.RENT).description("=HYPERLINK(\"x\")")
+                        .amount(Money.of(new BigDecimal("1200.00")))
+                        .occurredAt(LocalDateTime.of(2024, 3, 2, 0, 0))
+                        .userId(1L).build()
+        )).when(expenseRepository).forEachForUserId(eq(1L), anyInt(), any());
+        stream(List.of(
+                Income.builder().id(20L).incomeType(IncomeType.SALARY).amount(Money.of(new BigDecimal("3000.00")))
+                        .occurredAt(LocalDateTime.of(2024, 3, 10, 0, 0)).userId(1L).build()
+        )).when(incomeRepository).forEachForUserId(eq(1L), anyInt(), any());
+        stream(List.of(
+                Investment.builder().id(30L).assetType(AssetType.GOLD)
+                        .amountInvested(Money.of(new BigDecimal("500.00")))
+                        .currentValue(Money.of(new BigDecimal("550.25"))).userId(1L).build()
+        )).when(investmentRepository).forEachForUserId(eq(1L), anyInt(), any());
+        stream(List.of(
+                SavingsGoal.builder().id(40L).goalType(SavingsGoalType.CUSTOM).customGoalType("Bike")
+                        .percentage(new BigDecimal("10")).userId(1L).build()
+        )).when(savingsGoalRepository).forEachForUserId(eq(1L), anyInt(), any());
+    }
+
+    @Test
+    void whenFormatIsCsvRecordsOfAllKindsAreWrittenUnderOneHeader() throws IOException {
+        var out = new RecordingOutputStream();
+
+        exportService.export(1L, ExportFormat.CSV, () -> out);
+
+        assertEquals("""
+                record,id,type,description,amount,current_value,percentage,occurred_at\r
+                expense,10,GROCERIES,\"Milk, \"\"fresh\"\"\",4.50,,,2024-03-01T09:30\r
+                expense,11,RENT,\"'=HYPERLINK(\"\"x\"\")\",1200.00,,,2024-03-02T00:00\r
+                income,20,SALARY,,3000.00,,,2024-03-10T00:00\r
+                investment,30,GOLD,,500.00,550.25,,\r
+                goal,,CUSTOM,Bike,,,10,\r
+                """, out.toString(StandardCharsets.UTF_8));
+        assertTrue(out.closed);
+    }
+
+    @Test
+    void whenFormatIsNdjsonEachRecordIsOneJsonLine() throws IOException {
+        var out = new RecordingOutputStream();
+
+        exportService.export(1L, ExportFormat.NDJSON, () -> out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("{\"record\":\"expense\",\"data\":{\"id\":10,"));
+        assertTrue(lines[0].contains("\"description\":\"Milk, \\\"fresh\\\"\""));
+        assertTrue(lines[3].startsWith("{\"record\":\"investment\",\"data\":{\"id\":30,"));
+        assertTrue(lines[4].startsWith("{\"record\":\"goal\",\"data\":{\"goalType\":\"CUSTOM\""));
+    }
+
+    @Test
+    void whenRecordsAreWrittenTheyAreFlushedEveryFlushRows() throws IOException {
+        var out = new RecordingOutputStream();
+
+        exportService.export(1L, ExportFormat.NDJSON, () -> out);
+
+        // Five records, two per flush, then the last one when the export completes
+        assertEquals(3, out.flushes);
+    }
+
+    @Test
+    void whenUserDoesNotExistNothingIsOpened() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> exportService.export(2L, ExportFormat.CSV, () -> {
+            throw new AssertionError("Body opened for a missing user");
+        }));
+    }
+
+    @Test
+    void whenWritingFailsTheStreamIsLeftOpen() {
+        var out = new RecordingOutputStream() {
+            @Override
+            public void flush() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        var exception = assertThrows(IOException.class, () -> exportService.export(1L, ExportFormat.CSV, () -> out));
+
+        assertEquals("Connection reset", exception.getMessage());
+        assertFalse(out.closed);
+    }
+
+    @Test
+    void whenReadingFailsPartwayACompressedBodyIsAbortedAndItsCompressorGivenBack() throws Exception {
+        var responseCompressor = responseCompressor();
+        var body = new ByteArrayOutputStream();
+        var request = gzipRequest();
+        var response = csvResponse(body);
+        doThrow(new IllegalStateException("Connection lost")).when(incomeRepository)
+                .forEachForUserId(eq(1L), anyInt(), any());
+
+        var exception = assertThrows(IllegalStateException.class, () -> exportService.export(1L, ExportFormat.CSV,
+                new ExportService.BodyOpener() {
+                    @Override
+                    public OutputStream open() throws IOException {
+                        return responseCompressor.open(request, response);
+                    }
+
+                    @Override
+                    public void abort() {
+                        responseCompressor.abort(request);
+                    }
+                }));
+
+        assertEquals("Connection lost", exception.getMessage());
+        assertEquals(0, responseCompressor.compressorsInUse());
+        // The expenses were flushed, but the body ends without the gzip trailer
+        assertTrue(body.size() > 0);
+        assertThrows(EOFException.class, () -> new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))
+                .readAllBytes());
+    }
+
+    @Test
+    void whenFormatIsUnknownValidationFails() {
+        assertEquals(ExportFormat.NDJSON, ExportFormat.of("NDJSON"));
+        assertThrows(ValidationException.class, () -> ExportFormat.of("xml"));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = ExportServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(exportService, value);
+    }
+
+    private ResponseCompressor responseCompressor() throws Exception {
+        var responseCompressor = new ResponseCompressor(metricsService);
+        for (var property : Map.of("minSize", 16, "mimeTypesProperty", "text/csv", "level", 6, "poolSize", 4)
+                .entrySet()) {
+            var field = ResponseCompressor.class.getDeclaredField(property.getKey());
+            field.setAccessible(true);
+            field.set(responseCompressor, property.getValue());
+        }
+        responseCompressor.init();
+        return responseCompressor;
+    }
+
+    private static Request gzipRequest() {
+        var attributes = new HashMap<String, Object>();
+        var raw = mock(HttpServletRequest.class);
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(raw).setAttribute(anyString(), any());
+        doAnswer(invocation -> attributes.remove(invocation.<String>getArgument(0)))
+                .when(raw).removeAttribute(anyString());
+        when(raw.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        var request = mock(Request.class);
+        when(request.raw()).thenReturn(raw);
+        when(request.headers("Accept-Encoding")).thenReturn("gzip");
+        return request;
+    }
+
+    private static Response csvResponse(OutputStream body) throws IOException {
+        var raw = mock(HttpServletResponse.class);
+        when(raw.getContentType()).thenReturn(ExportFormat.CSV.contentType());
+        when(raw.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                body.write(b);
+            }
+        });
+        var response = mock(Response.class);
+        when(response.raw()).thenReturn(raw);
+        return response;
+    }
+
+    private static <T> Stubber stream(List<T> rows) {
+        return doAnswer(invocation -> {
+            rows.forEach(invocation.<Consumer<T>>getArgument(2));
+            return null;
+        });
+    }
+
+    private static class RecordingOutputStream extends ByteArrayOutputStream {
+        int flushes;
+        boolean closed;
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
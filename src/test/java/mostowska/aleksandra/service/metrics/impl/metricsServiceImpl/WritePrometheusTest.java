@@ -0,0 +1,96 @@
+package mostowska.aleksandra.service.metrics.impl.metricsServiceImpl;
+
+import mostowska.aleksandra.config.database.BoundedConnectionFactory;
+import mostowska.aleksandra.service.metrics.impl.MetricsServiceImpl;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class WritePrometheusTest {
+
+    private MetricsServiceImpl metricsService;
+
+    @Mock
+    private BoundedConnectionFactory connectionFactory;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(connectionFactory.getActiveConnections()).thenReturn(3);
+        when(connectionFactory.getMaxConnections()).thenReturn(32);
+        when(userVersionService.trackedUsers()).thenReturn(7);
+
+        metricsService = new MetricsServiceImpl(connectionFactory, userVersionService);
+        var maxRoutes = MetricsServiceImpl.class.getDeclaredField("maxRoutes");
+        maxRoutes.setAccessible(true);
+        maxRoutes.setInt(metricsService, 2);
+        metricsService.init();
+    }
+
+    @Test
+    void whenPathsDifferOnlyInIdsTheyShareATemplate() throws IOException {
+        record("GET", "/users/1/expenses", 200);
+        record("GET", "/users/42/expenses", 200);
+        record("GET", "/users/42/expenses", 404);
+
+        var text = scrape();
+        assertTrue(text.contains("http_requests_total{method=\"GET\",route=\"/users/:id/expenses\",status=\"2xx\"} 2\n"));
+        assertTrue(text.contains("http_requests_total{method=\"GET\",route=\"/users/:id/expenses\",status=\"4xx\"} 1\n"));
+        assertTrue(text.contains(
+                "http_request_duration_seconds_count{method=\"GET\",route=\"/users/:id/expenses\"} 3\n"));
+        assertTrue(text.contains(
+                "http_request_duration_seconds_bucket{method=\"GET\",route=\"/users/:id/expenses\",le=\"+Inf\"} 3\n"));
+        assertFalse(text.contains("/users/42"));
+    }
+
+    @Test
+    void whenRouteFailsItCountsAsError() throws IOException {
+        record("DELETE", "/users/1/goals/3", 500);
+
+        var text = scrape();
+        assertTrue(text.contains("http_request_errors_total{method=\"DELETE\",route=\"/users/:id/goals/:id\"} 1\n"));
+        assertTrue(text.contains("http_requests_in_flight{method=\"DELETE\",route=\"/users/:id/goals/:id\"} 0\n"));
+    }
+
+    @Test
+    void whenTemplatesExceedTheLimitTheyAreCountedTogether() throws IOException {
+        record("GET", "/users", 200);
+        record("GET", "/users/1", 200);
+        record("GET", "/wp-admin", 404);
+        record("GET", "/.env", 404);
+
+        var text = scrape();
+        assertTrue(text.contains("http_requests_total{method=\"ANY\",route=\"/other\",status=\"4xx\"} 2\n"));
+        assertFalse(text.contains("wp-admin"));
+    }
+
+    @Test
+    void whenScrapedGaugesAreRead() throws IOException {
+        var text = scrape();
+        assertTrue(text.contains("# TYPE db_connections_active gauge\ndb_connections_active 3\n"));
+        assertTrue(text.contains("db_connections_max 32\n"));
+        assertTrue(text.contains("user_versions_tracked 7\n"));
+    }
+
+    private void record(String method, String path, int status) {
+        metricsService.requestStarted(method, path);
+        metricsService.requestFinished(status);
+    }
+
+    private String scrape() throws IOException {
+        var text = new StringBuilder();
+        metricsService.writePrometheus(text);
+        return text.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package mostowska.aleksandra.service.user.impl.userMailboxServiceImpl;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.monitoring.RequestSqlMonitor;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.user.impl.UserMailboxServiceImpl;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MutateTest {
+
+    private UserMailboxServiceImpl userMailboxService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    private final RequestSqlMonitor requestSqlMonitor = new RequestSqlMonitor();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        userMailboxService = new UserMailboxServiceImpl(userRepository, userVersionService, transactionManager,
+                requestSqlMonitor);
+        var maxBatch = UserMailboxServiceImpl.class.getDeclaredField("maxBatch");
+        maxBatch.setAccessible(true);
+        maxBatch.setInt(userMailboxService, 256);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userMailboxService.stop();
+    }
+
+    @Test
+    void whenMutationsQueueUpTheyAreAppliedInOrderWithOneWrite() throws Exception {
+        var stored = new AtomicReference<>(user(100));
+        when(userRepository.findById(1L)).thenAnswer(invocation -> Optional.of(stored.get()));
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            stored.set(invocation.getArgument(1));
+            return stored.get();
+        });
+        var firstStarted = new CountDownLatch(1);
+        var releaseFirst = new CountDownLatch(1);
+
+        try (var callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            callers.submit(() -> userMailboxService.mutate(1L, user -> {
+                firstStarted.countDown();
+                await(releaseFirst);
+                return user.withBudgetAdd(Money.ofCents(1000));
+            }));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 5; i++) {
+                callers.submit(() -> userMailboxService.mutate(1L, user -> user.withBudgetCut(Money.ofCents(100))));
+            }
+            // The five cuts wait in the mailbox behind the first mutation
+            Thread.sleep(300);
+            releaseFirst.countDown();
+        }
+
+        var written = ArgumentCaptor.forClass(User.class);
+        verify(userRepository, times(2)).update(eq(1L), written.capture());
+        assertEquals(0, BigDecimal.valueOf(110).compareTo(written.getAllValues().get(0).toGetUserDto().budget()));
+        assertEquals(0, BigDecimal.valueOf(105).compareTo(written.getAllValues().get(1).toGetUserDto().budget()));
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void whenMutationThrowsOnlyThatMutationFails() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(100)));
+
+        assertThrows(ValidationException.class, () -> userMailboxService.mutate(1L, user -> {
+            throw new ValidationException("Invalid amount");
+        }));
+        verify(userRepository, never()).update(any(), any());
+
+        userMailboxService.mutate(1L, user -> user.withBudgetAdd(Money.ofCents(100)));
+        verify(userRepository).update(eq(1L), any());
+        verify(userVersionService).bump(1L);
+    }
+
+    @Test
+    void whenUserDoesNotExistMutationFails() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class,
+                () -> userMailboxService.mutate(2L, user -> user.withBudgetAdd(Money.ofCents(100))));
+        verify(userVersionService, never()).bump(2L);
+    }
+
+    @Test
+    void whenTheRequestIsTrackedTheStatementsOfTheDrainCycleCountForIt() {
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            // Reported by Jdbi on the thread running the statement, the drainer
+            requestSqlMonitor.logAfterExecution(statement("select * from users where id = 1"));
+            return Optional.of(user(100));
+        });
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            requestSqlMonitor.logAfterExecution(statement("update users set budget = 101 where id = 1"));
+            return invocation.getArgument(1);
+        });
+
+        requestSqlMonitor.begin();
+        userMailboxService.mutate(1L, user -> user.withBudgetAdd(Money.ofCents(100)));
+        userMailboxService.mutate(1L, user -> user.withBudgetAdd(Money.ofCents(100)));
+        var stats = requestSqlMonitor.end("PUT /users/1/budget");
+
+        assertEquals(4, stats.getStatementCount());
+        assertEquals(4_000_000, stats.getTotalNanos());
+    }
+
+    private static StatementContext statement(String sql) {
+        var statement = mock(StatementContext.class);
+        when(statement.getRenderedSql()).thenReturn(sql);
+        when(statement.getElapsedTime(ChronoUnit.NANOS)).thenReturn(1_000_000L);
+        return statement;
+    }
+
+    private static User user(long budget) {
+        return User.builder()
+                .id(1L)
+                .username("user1")
+                .email("user1@example.com")
+                .password("password1")
+                .budget(Money.ofCents(budget * 100))
+                .budgetAfterGoals(Money.ofCents(budget * 100))
+                .enabled(true)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
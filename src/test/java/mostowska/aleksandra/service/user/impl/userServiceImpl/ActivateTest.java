@@ -0,0 +1,66 @@
+package mostowska.aleksandra.service.user.impl.userServiceImpl;
+
+import mostowska.aleksandra.exception.NotFoundException;
+import mostowska.aleksandra.exception.ValidationException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.user.impl.UserServiceImpl;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActivateTest {
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void whenUserExistsOnlyTheEnabledColumnIsWritten() {
+        when(userRepository.updateEnabled(1L, true)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L)
+                .budget(Money.ofCents(100)).budgetAfterGoals(Money.ZERO).enabled(true).build()));
+
+        var activated = userService.activate(1L, Long.MAX_VALUE);
+
+        assertEquals(1L, activated.id());
+        verify(userRepository, never()).update(anyLong(), any());
+        verify(userVersionService).bump(1L);
+    }
+
+    @Test
+    void whenUserDoesNotExist() {
+        when(userRepository.updateEnabled(1L, true)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> userService.activate(1L, Long.MAX_VALUE));
+    }
+
+    @Test
+    void whenLinkExpired() {
+        assertThrows(ValidationException.class, () -> userService.activate(1L, 0L));
+    }
+}
@@ -0,0 +1,112 @@
+package mostowska.aleksandra.service.user.impl.userServiceImpl;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.monitoring.RequestSqlMonitor;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.user.impl.UserMailboxServiceImpl;
+import mostowska.aleksandra.service.user.impl.UserServiceImpl;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+public class CutFromBudgetIfCoveredTest {
+
+    private UserServiceImpl userService;
+
+    private UserMailboxServiceImpl userMailboxService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    private final AtomicReference<User> stored = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        userMailboxService = new UserMailboxServiceImpl(userRepository, userVersionService, transactionManager,
+                new RequestSqlMonitor());
+        var maxBatch = UserMailboxServiceImpl.class.getDeclaredField("maxBatch");
+        maxBatch.setAccessible(true);
+        maxBatch.setInt(userMailboxService, 256);
+        userService = new UserServiceImpl(userRepository, null, null, userVersionService, transactionManager,
+                userMailboxService);
+
+        stored.set(User.builder().id(1L).budget(Money.ofCents(10_000)).budgetAfterGoals(Money.ZERO).build());
+        when(userRepository.findById(1L)).thenAnswer(invocation -> Optional.of(stored.get()));
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            stored.set(invocation.getArgument(1));
+            return stored.get();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        userMailboxService.stop();
+    }
+
+    @Test
+    void whenBudgetCoversAmountItIsCut() {
+        userService.cutFromBudgetIfCovered(1L, Money.ofCents(10_000));
+
+        assertEquals(new BigDecimal("0.00"), stored.get().toGetUserDto().budget());
+    }
+
+    @Test
+    void whenBudgetDoesNotCoverAmountNothingIsCut() {
+        assertThrows(ConflictException.class, () -> userService.cutFromBudgetIfCovered(1L, Money.ofCents(10_001)));
+
+        assertEquals(new BigDecimal("100.00"), stored.get().toGetUserDto().budget());
+    }
+
+    @Test
+    void whenCutsRunConcurrentlyTheyCannotTogetherOverdraw() throws Exception {
+        var results = new ArrayList<Future<?>>();
+        try (var callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> userService.cutFromBudgetIfCovered(1L, Money.ofCents(3_000))));
+            }
+        }
+
+        var conflicts = 0;
+        for (var result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertInstanceOf(ConflictException.class, e.getCause());
+                conflicts++;
+            }
+        }
+        assertEquals(5, conflicts);
+        assertEquals(new BigDecimal("10.00"), stored.get().toGetUserDto().budget());
+    }
+}
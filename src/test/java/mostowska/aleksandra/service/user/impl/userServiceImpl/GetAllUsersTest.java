@@ -2,6 +2,7 @@ package mostowska.aleksandra.service.user.impl.userServiceImpl;
 
 import mostowska.aleksandra.model.User;
 import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.user.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,7 +11,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,11 +33,11 @@ class GetAllUsersTest {
         MockitoAnnotations.openMocks(this);
         userList = List.of(
                 new User(1L, "user1", "user1@example.com", "password1", null,
-                        BigDecimal.ZERO, BigDecimal.ZERO, true),
+                        Money.ZERO, Money.ZERO, true),
                 new User(2L, "user2", "user2@example.com", "password2", null,
-                        BigDecimal.ZERO, BigDecimal.ZERO, true),
+                        Money.ZERO, Money.ZERO, true),
                 new User(3L, "user3", "user3@example.com", "password3", null,
-                        BigDecimal.ZERO, BigDecimal.ZERO, true)
+                        Money.ZERO, Money.ZERO, true)
         );
 
         userDtoList = userList.stream()
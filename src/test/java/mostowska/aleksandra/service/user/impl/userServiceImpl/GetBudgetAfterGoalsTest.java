@@ -1,6 +1,7 @@
 package mostowska.aleksandra.service.user.impl.userServiceImpl;
 
 import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.user.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,8 +36,8 @@ public class GetBudgetAfterGoalsTest {
                 .email("user1@example.com")
                 .password("password1")
                 .role(null)
-                .budget(BigDecimal.valueOf(100.00))
-                .budgetAfterGoals(BigDecimal.valueOf(50.00))
+                .budget(Money.ofCents(10000))
+                .budgetAfterGoals(Money.ofCents(5000))
                 .enabled(true)
                 .build();
     }
@@ -45,7 +46,7 @@ public class GetBudgetAfterGoalsTest {
     void whenUserExists() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
         BigDecimal budgetAfterGoals = userService.getBudgetAfterGoals(1L);
-        assertEquals(BigDecimal.valueOf(50.00), budgetAfterGoals);
+        assertEquals(new BigDecimal("50.00"), budgetAfterGoals);
     }
 
     @Test
@@ -1,6 +1,7 @@
 package mostowska.aleksandra.service.user.impl.userServiceImpl;
 
 import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.user.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,8 +36,8 @@ public class GetBudgetTest {
                 .email("user1@example.com")
                 .password("password1")
                 .role(null)
-                .budget(BigDecimal.valueOf(100.00))
-                .budgetAfterGoals(BigDecimal.ZERO)
+                .budget(Money.ofCents(10000))
+                .budgetAfterGoals(Money.ZERO)
                 .enabled(true)
                 .build();
     }
@@ -45,7 +46,7 @@ public class GetBudgetTest {
     void whenUserExists() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
         var budget = userService.getBudget(1L);
-        assertEquals(BigDecimal.valueOf(100.00), budget);
+        assertEquals(new BigDecimal("100.00"), budget);
     }
 
     @Test
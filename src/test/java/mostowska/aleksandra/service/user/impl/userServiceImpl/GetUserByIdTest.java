@@ -2,6 +2,7 @@ package mostowska.aleksandra.service.user.impl.userServiceImpl;
 
 import mostowska.aleksandra.model.User;
 import mostowska.aleksandra.model.dto.user.GetUserDto;
+import mostowska.aleksandra.model.utils.Money;
 import mostowska.aleksandra.repository.user.UserRepository;
 import mostowska.aleksandra.service.user.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,7 +11,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,8 +35,8 @@ class GetUserByIdTest {
                 .id(1L)
                 .username("testuser")
                 .email("test@example.com")
-                .budget(BigDecimal.valueOf(100.00))
-                .budgetAfterGoals(BigDecimal.valueOf(90.00))
+                .budget(Money.ofCents(10000))
+                .budgetAfterGoals(Money.ofCents(9000))
                 .enabled(true)
                 .build();
         userDto = user.toGetUserDto();
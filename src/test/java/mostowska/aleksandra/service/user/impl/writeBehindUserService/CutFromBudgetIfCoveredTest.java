@@ -0,0 +1,113 @@
+package mostowska.aleksandra.service.user.impl.writeBehindUserService;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.exception.ConflictException;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.user.impl.UserServiceImpl;
+import mostowska.aleksandra.service.user.impl.WriteBehindUserService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class CutFromBudgetIfCoveredTest {
+
+    private WriteBehindUserService userService;
+
+    @Mock
+    private UserServiceImpl delegate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder()
+                .id(1L)
+                .budget(Money.ofCents(10_000))
+                .budgetAfterGoals(Money.ZERO)
+                .enabled(true)
+                .build()));
+        userService = new WriteBehindUserService(delegate, userRepository, userVersionService, transactionManager,
+                metricsService);
+        setField("flushIntervalMs", 60_000L);
+        setField("flushMaxDeltas", 1000L);
+        setField("journalPath", "");
+        setField("journalSync", false);
+        userService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userService.stop();
+    }
+
+    @Test
+    void whenUnflushedCutsSpentTheBudgetTheCheckFails() {
+        // Stored as 100.00; only the pending changes show that 80.00 of it is spent
+        userService.cutFromBudget(1L, Money.ofCents(8_000));
+
+        assertThrows(ConflictException.class, () -> userService.cutFromBudgetIfCovered(1L, Money.ofCents(3_000)));
+
+        assertEquals(0, new BigDecimal("20.00").compareTo(userService.getBudget(1L)));
+    }
+
+    @Test
+    void whenCutsRunConcurrentlyTheyCannotTogetherOverdraw() throws Exception {
+        var results = new ArrayList<Future<?>>();
+        try (var callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> userService.cutFromBudgetIfCovered(1L, Money.ofCents(3_000))));
+            }
+        }
+
+        var conflicts = 0;
+        for (var result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertInstanceOf(ConflictException.class, e.getCause());
+                conflicts++;
+            }
+        }
+        assertEquals(5, conflicts);
+        assertEquals(0, new BigDecimal("10.00").compareTo(userService.getBudget(1L)));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = WriteBehindUserService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(userService, value);
+    }
+}
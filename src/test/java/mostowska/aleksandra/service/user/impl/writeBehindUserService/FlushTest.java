@@ -0,0 +1,139 @@
+package mostowska.aleksandra.service.user.impl.writeBehindUserService;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.user.impl.UserServiceImpl;
+import mostowska.aleksandra.service.user.impl.WriteBehindUserService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FlushTest {
+
+    private WriteBehindUserService userService;
+
+    @Mock
+    private UserServiceImpl delegate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(100)));
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user(100)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userService.stop();
+    }
+
+    @Test
+    void whenBudgetChangesTheyAreReadBeforeTheFlush() throws Exception {
+        userService = start("");
+
+        userService.cutFromBudget(1L, Money.ofCents(1250));
+        userService.addToBudget(1L, Money.ofCents(225));
+
+        assertEquals(0, new BigDecimal("89.75").compareTo(userService.getBudget(1L)));
+        verify(userRepository, never()).updateBudgets(anyList());
+    }
+
+    @Test
+    void whenFlushedChangesAreWrittenInOneBatch() throws Exception {
+        userService = start("");
+
+        for (int i = 0; i < 10; i++) {
+            userService.cutFromBudget(1L, Money.ofCents(100));
+        }
+        userService.flush();
+
+        var written = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).updateBudgets(written.capture());
+        var user = (User) written.getValue().get(0);
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(user.toGetUserDto().budget()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(userService.getBudget(1L)));
+    }
+
+    @Test
+    void whenJournalIsSetChangesAreRecoveredAtStartup() throws Exception {
+        var journal = directory.resolve("budget.journal");
+        Files.writeString(journal, "1 -500 0\n1 -250 0\n1 -99");
+
+        userService = start(journal.toString());
+
+        var written = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).updateBudgets(written.capture());
+        var user = (User) written.getValue().get(0);
+        assertEquals(0, new BigDecimal("92.50").compareTo(user.toGetUserDto().budget()));
+        verify(userRepository).saveBudgetFlushSequence(1L);
+        assertEquals("sequence 2\n", Files.readString(journal));
+    }
+
+    private WriteBehindUserService start(String journalPath) throws Exception {
+        var service = new WriteBehindUserService(delegate, userRepository, userVersionService, transactionManager,
+                metricsService);
+        setField(service, "flushIntervalMs", 60_000L);
+        setField(service, "flushMaxDeltas", 1000L);
+        setField(service, "journalPath", journalPath);
+        setField(service, "journalSync", false);
+        service.start();
+        return service;
+    }
+
+    private static User user(long budget) {
+        return User.builder()
+                .id(1L)
+                .username("user1")
+                .email("user1@example.com")
+                .password("password1")
+                .budget(Money.ofCents(budget * 100))
+                .budgetAfterGoals(Money.ofCents(budget * 100))
+                .enabled(true)
+                .build();
+    }
+
+    private static void setField(WriteBehindUserService service, String name, Object value) throws Exception {
+        var field = WriteBehindUserService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+}
@@ -0,0 +1,206 @@
+package mostowska.aleksandra.service.user.impl.writeBehindUserService;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.user.impl.UserServiceImpl;
+import mostowska.aleksandra.service.user.impl.WriteBehindUserService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Restarts the service on the journal of one that crashed at each point of a flush, against a database that keeps
+ * what a transaction wrote only once it commits.
+ */
+public class StartTest {
+
+    private WriteBehindUserService userService;
+
+    @Mock
+    private UserServiceImpl delegate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @TempDir
+    private Path directory;
+
+    private Path journal;
+
+    private final Map<Long, User> stored = new HashMap<>();
+    private final AtomicLong storedSequence = new AtomicLong();
+    private final Map<Long, User> written = new HashMap<>();
+    private final AtomicLong writtenSequence = new AtomicLong();
+    private Crash crash = Crash.NONE;
+
+    private enum Crash { NONE, BEFORE_COMMIT, AFTER_COMMIT }
+
+    private static class CrashException extends RuntimeException {
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        journal = directory.resolve("budget.journal");
+        stored.put(1L, user(1L, Money.ofCents(10_000)));
+        // Any budget change overflows, so this user's changes are kept pending by every flush
+        stored.put(2L, user(2L, Money.ofCents(Long.MAX_VALUE)));
+
+        when(userRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(stored.get(invocation.<Long>getArgument(0))));
+        when(userRepository.findAllById(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0)
+                .stream().map(stored::get).toList());
+        when(userRepository.findBudgetFlushSequence()).thenAnswer(invocation -> storedSequence.get());
+        doAnswer(invocation -> {
+            invocation.<List<User>>getArgument(0).forEach(user -> written.put(user.toGetUserDto().id(), user));
+            return null;
+        }).when(userRepository).updateBudgets(anyList());
+        doAnswer(invocation -> {
+            writtenSequence.set(invocation.getArgument(0));
+            return null;
+        }).when(userRepository).saveBudgetFlushSequence(anyLong());
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation -> {
+            written.clear();
+            writtenSequence.set(-1);
+            var result = invocation.<Supplier<?>>getArgument(0).get();
+            if (crash == Crash.BEFORE_COMMIT) {
+                throw new CrashException();
+            }
+            stored.putAll(written);
+            if (writtenSequence.get() >= 0) {
+                storedSequence.set(writtenSequence.get());
+            }
+            if (crash == Crash.AFTER_COMMIT) {
+                throw new CrashException();
+            }
+            return result;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userService.stop();
+    }
+
+    @Test
+    void whenCrashingBeforeTheFlushCommitsTheChangesAreReplayed() throws Exception {
+        var crashed = start();
+        crashed.cutFromBudget(1L, Money.ofCents(1_000));
+        crashed.cutFromBudget(1L, Money.ofCents(1_000));
+        crash = Crash.BEFORE_COMMIT;
+        assertThrows(CrashException.class, crashed::flush);
+
+        crash = Crash.NONE;
+        userService = start();
+
+        assertEquals(new BigDecimal("80.00"), stored.get(1L).toGetUserDto().budget());
+        assertEquals(1, storedSequence.get());
+        assertEquals("sequence 2\n", Files.readString(journal));
+    }
+
+    @Test
+    void whenCrashingAfterTheFlushCommitsTheChangesAreNotReplayed() throws Exception {
+        var crashed = start();
+        crashed.cutFromBudget(1L, Money.ofCents(1_000));
+        crashed.cutFromBudget(1L, Money.ofCents(1_000));
+        crash = Crash.AFTER_COMMIT;
+        assertThrows(CrashException.class, crashed::flush);
+        assertEquals(new BigDecimal("80.00"), stored.get(1L).toGetUserDto().budget());
+
+        crash = Crash.NONE;
+        userService = start();
+
+        assertEquals(new BigDecimal("80.00"), stored.get(1L).toGetUserDto().budget());
+        assertEquals("sequence 2\n", Files.readString(journal));
+    }
+
+    @Test
+    void whenCrashingAfterTheFlushCommitsTheChangesKeptPendingAreReplayed() throws Exception {
+        var crashed = start();
+        crashed.cutFromBudget(1L, Money.ofCents(1_000));
+        crashed.addToBudget(2L, Money.ofCents(1));
+        crash = Crash.AFTER_COMMIT;
+        assertThrows(CrashException.class, crashed::flush);
+
+        crash = Crash.NONE;
+        userService = start();
+
+        assertEquals(new BigDecimal("90.00"), stored.get(1L).toGetUserDto().budget());
+        assertEquals(2, storedSequence.get());
+        assertEquals("sequence 3\n2 1 0\n", Files.readString(journal));
+    }
+
+    @Test
+    void whenCrashingAfterTheFlushCompletesOnlyLaterChangesAreReplayed() throws Exception {
+        var crashed = start();
+        crashed.cutFromBudget(1L, Money.ofCents(1_000));
+        crashed.flush();
+        crashed.cutFromBudget(1L, Money.ofCents(500));
+
+        userService = start();
+
+        assertEquals(new BigDecimal("85.00"), stored.get(1L).toGetUserDto().budget());
+        assertEquals(2, storedSequence.get());
+        assertEquals("sequence 3\n", Files.readString(journal));
+    }
+
+    private WriteBehindUserService start() throws Exception {
+        var service = new WriteBehindUserService(delegate, userRepository, userVersionService, transactionManager,
+                metricsService);
+        setField(service, "flushIntervalMs", 60_000L);
+        setField(service, "flushMaxDeltas", 1000L);
+        setField(service, "journalPath", journal.toString());
+        setField(service, "journalSync", false);
+        service.start();
+        return service;
+    }
+
+    private static User user(long id, Money budget) {
+        return User.builder()
+                .id(id)
+                .budget(budget)
+                .budgetAfterGoals(Money.ZERO)
+                .enabled(true)
+                .build();
+    }
+
+    private static void setField(WriteBehindUserService service, String name, Object value) throws Exception {
+        var field = WriteBehindUserService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+}
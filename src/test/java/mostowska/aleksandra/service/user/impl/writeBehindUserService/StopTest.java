@@ -0,0 +1,106 @@
+package mostowska.aleksandra.service.user.impl.writeBehindUserService;
+
+import mostowska.aleksandra.config.database.TransactionManager;
+import mostowska.aleksandra.model.User;
+import mostowska.aleksandra.model.utils.Money;
+import mostowska.aleksandra.repository.user.UserRepository;
+import mostowska.aleksandra.service.metrics.MetricsService;
+import mostowska.aleksandra.service.user.impl.UserServiceImpl;
+import mostowska.aleksandra.service.user.impl.WriteBehindUserService;
+import mostowska.aleksandra.service.version.UserVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StopTest {
+
+    private WriteBehindUserService userService;
+
+    @Mock
+    private UserServiceImpl delegate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private TransactionManager transactionManager;
+
+    @Mock
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(User.builder()
+                .id(1L)
+                .budget(Money.ofCents(10_000))
+                .budgetAfterGoals(Money.ZERO)
+                .enabled(true)
+                .build()));
+    }
+
+    @Test
+    void whenStoppedPendingChangesAreWritten() throws Exception {
+        userService = start(1000L);
+        userService.cutFromBudget(1L, Money.ofCents(1_250));
+
+        userService.stop();
+
+        assertWrittenBudget("87.50");
+    }
+
+    @Test
+    void whenAFlushIsDueWhileStoppingTheChangeIsWrittenByTheFinalFlush() throws Exception {
+        userService = start(1L);
+        var flusher = WriteBehindUserService.class.getDeclaredField("flusher");
+        flusher.setAccessible(true);
+        ((ExecutorService) flusher.get(userService)).shutdown();
+
+        assertDoesNotThrow(() -> userService.cutFromBudget(1L, Money.ofCents(1_250)));
+        userService.stop();
+
+        assertWrittenBudget("87.50");
+    }
+
+    private void assertWrittenBudget(String budget) {
+        var written = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).updateBudgets(written.capture());
+        var user = (User) written.getValue().get(0);
+        assertEquals(0, new BigDecimal(budget).compareTo(user.toGetUserDto().budget()));
+    }
+
+    private WriteBehindUserService start(long flushMaxDeltas) throws Exception {
+        var service = new WriteBehindUserService(delegate, userRepository, userVersionService, transactionManager,
+                metricsService);
+        setField(service, "flushIntervalMs", 60_000L);
+        setField(service, "flushMaxDeltas", flushMaxDeltas);
+        setField(service, "journalPath", "");
+        setField(service, "journalSync", false);
+        service.start();
+        return service;
+    }
+
+    private static void setField(WriteBehindUserService service, String name, Object value) throws Exception {
+        var field = WriteBehindUserService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+}
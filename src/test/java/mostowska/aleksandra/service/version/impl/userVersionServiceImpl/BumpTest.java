@@ -0,0 +1,58 @@
+package mostowska.aleksandra.service.version.impl.userVersionServiceImpl;
+
+import mostowska.aleksandra.service.version.impl.UserVersionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BumpTest {
+
+    private UserVersionServiceImpl userVersionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userVersionService = new UserVersionServiceImpl();
+        var maxUsers = UserVersionServiceImpl.class.getDeclaredField("maxUsers");
+        maxUsers.setAccessible(true);
+        maxUsers.setInt(userVersionService, 10);
+    }
+
+    @Test
+    void whenUserIsBumpedTheVersionIncreases() {
+        assertEquals(0, userVersionService.currentVersion(1L));
+
+        var first = userVersionService.bump(1L);
+        var second = userVersionService.bump(1L);
+
+        assertTrue(first > 0);
+        assertTrue(second > first);
+        assertEquals(second, userVersionService.currentVersion(1L));
+    }
+
+    @Test
+    void whenMoreUsersAreBumpedThanKeptThoseBumpedLeastRecentlyAreDropped() {
+        for (long userId = 1; userId <= 30; userId++) {
+            userVersionService.bump(userId);
+        }
+
+        assertTrue(userVersionService.trackedUsers() <= 10);
+        assertEquals(userVersionService.bump(30L), userVersionService.currentVersion(30L));
+    }
+
+    @Test
+    void whenUserIsDroppedTheirTagDoesNotMatchOneOfOlderData() {
+        userVersionService.bump(1L);
+        var olderTag = userVersionService.etag(1L);
+        var version = userVersionService.bump(1L);
+
+        for (long userId = 2; userId <= 30; userId++) {
+            userVersionService.bump(userId);
+        }
+
+        assertTrue(userVersionService.currentVersion(1L) >= version);
+        assertNotEquals(olderTag, userVersionService.etag(1L));
+    }
+}